@@ -2,45 +2,59 @@ package org.tmt.encsubsystem.encassembly;
 
 import csw.params.core.generics.Key;
 import csw.params.core.models.ArrayData;
-import csw.params.javadsl.JKeyType;
+import org.tmt.tcs.icd.enc.EncAssemblyState;
+import org.tmt.tcs.icd.enc.EncCurrentPosition;
+import org.tmt.tcs.icd.enc.EncDiagnostic;
+import org.tmt.tcs.icd.enc.EncHealth;
+import org.tmt.tcs.icd.pk.PkDemandFrame;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
 
 import java.time.Instant;
 
+/**
+ * Names and keys of the assembly. Those of the messages of tcs-interface.conf are taken from the
+ * generated classes rather than made again here.
+ */
 public class Constants {
     //simulates delay in processing of command
     public static final int COMMAND_PROCESSING_DELAY_MILLIS = 10;
 
     //name, keys, frequency for assembly and hcd state
-    public static final String ASSEMBLY_STATE = "assemblyState";
+    public static final String ASSEMBLY_STATE = EncAssemblyState.NAME;
     public static final  String HCD_STATE = "HcdState";
-    public static final Key<String> LIFECYCLE_KEY = JKeyType.StringKey().make("LifecycleState");
-    public static final Key<String> OPERATIONAL_KEY = JKeyType.StringKey().make("OperationalState");
-    public static final Key<Instant> ASSEMBLY_STATE_TIME_KEY = JKeyType.TimestampKey().make("assemblyStateTimeKey");
+    public static final Key<String> LIFECYCLE_KEY = EncAssemblyState.LIFECYCLE_KEY;
+    public static final Key<String> OPERATIONAL_KEY = EncAssemblyState.OPERATIONAL_KEY;
+    public static final Key<Instant> ASSEMBLY_STATE_TIME_KEY = EncAssemblyState.TIME_KEY;
     public  static final int ASSEMBLY_STATE_EVENT_FREQUENCY_IN_HERTZ = 20;
 
     //name, keys for current position
-    public static final  String CURRENT_POSITION = "currentPosition";
-    public static final Key<Double> BASE_POS_KEY = JKeyType.DoubleKey().make("basePosKey");
-    public static final Key<Double> CAP_POS_KEY = JKeyType.DoubleKey().make("capPosKey");
+    public static final  String CURRENT_POSITION = EncCurrentPosition.NAME;
+    public static final Key<Double> BASE_POS_KEY = EncCurrentPosition.BASE_KEY;
+    public static final Key<Double> CAP_POS_KEY = EncCurrentPosition.CAP_KEY;
 
 
     //name, keys for health
-    public static final  String HEALTH = "health";
-    public static final Key<String> HEALTH_KEY = JKeyType.StringKey().make("healthKey");
-    public static final Key<String> HEALTH_REASON_KEY = JKeyType.StringKey().make("healthReasonKey");
-    public static final Key<Instant> HEALTH_TIME_KEY = JKeyType.TimestampKey().make("healthTimeKey");
+    public static final  String HEALTH = EncHealth.NAME;
+    public static final Key<String> HEALTH_KEY = EncHealth.HEALTH_KEY;
+    public static final Key<String> HEALTH_REASON_KEY = EncHealth.REASON_KEY;
+    public static final Key<Instant> HEALTH_TIME_KEY = EncHealth.TIME_KEY;
 
     //name, keys for diagnostic
-    public static final  String DIAGNOSTIC = "diagnostic";
-    public static final  Key<ArrayData<Byte>> DIAGNOSTIC_KEY = JKeyType.ByteArrayKey().make("diagnosticBytesKey");
-    public static final  Key<Instant> DIAGNOSTIC_TIME_KEY = JKeyType.TimestampKey().make("diagnosticTimeKey");
+    public static final  String DIAGNOSTIC = EncDiagnostic.NAME;
+    public static final  Key<ArrayData<Byte>> DIAGNOSTIC_KEY = EncDiagnostic.BYTES_KEY;
+    public static final  Key<Instant> DIAGNOSTIC_TIME_KEY = EncDiagnostic.TIME_KEY;
 
     //name, keys for demand positions
-    public static final String DEMAND_POSITIONS_PUBLISHER_PREFIX = "tcs.pk";
-    public static final String DEMAND_POSITIONS = "encdemandpositions";
-    public static final String DEMAND_POSITIONS_BASE_KEY = "ecs.base";
-    public static final String DEMAND_POSITIONS_CAP_KEY = "ecs.cap";
-    public static final String CLIENT_TIMESTAMP_KEY_STRING = "clientTimestampKey";
+    public static final String DEMAND_POSITIONS_PUBLISHER_PREFIX = PkEncDemandPositions.PREFIX.prefix();
+    public static final String DEMAND_POSITIONS = PkEncDemandPositions.NAME;
+    public static final String DEMAND_POSITIONS_BASE_KEY = PkEncDemandPositions.BASE_KEY.keyName();
+    public static final String DEMAND_POSITIONS_CAP_KEY = PkEncDemandPositions.CAP_KEY.keyName();
+    public static final String CLIENT_TIMESTAMP_KEY_STRING = PkEncDemandPositions.CLIENT_TIME_KEY.keyName();
+
+    //name, keys for demand frame carrying the demands of all subsystems for one tpk tick
+    public static final String DEMAND_FRAME = PkDemandFrame.NAME;
+    public static final String DEMAND_FRAME_TICK_KEY = PkDemandFrame.TICK_KEY.keyName();
+    public static final String DEMAND_FRAME_TIMESTAMP_KEY = PkDemandFrame.TIME_KEY.keyName();
 
 
 
@@ -48,12 +62,12 @@ public class Constants {
 
     //keys to hold timestamps. this will hold timestamp when was the event processed by any component.
     //this is the time when ENC Subsystem generated/sampled given information
-    public static final Key<Instant> SUBSYSTEM_TIMESTAMP_KEY = JKeyType.TimestampKey().make("subsystemTimestampKey");
+    public static final Key<Instant> SUBSYSTEM_TIMESTAMP_KEY = EncCurrentPosition.SUBSYSTEM_TIME_KEY;
     //this is the time when ENC HCD processed any event
-    public static final Key<Instant> HCD_TIMESTAMP_KEY = JKeyType.TimestampKey().make("hcdTimestampKey");
+    public static final Key<Instant> HCD_TIMESTAMP_KEY = EncCurrentPosition.HCD_TIME_KEY;
     //this is the time when Assembly processed any event
-    public static final Key<Instant> ASSEMBLY_TIMESTAMP_KEY = JKeyType.TimestampKey().make("assemblyTimestampKey");
+    public static final Key<Instant> ASSEMBLY_TIMESTAMP_KEY = EncCurrentPosition.ASSEMBLY_TIME_KEY;
     //this is the time when client processed any event
-    public static final Key<Instant> CLIENT_TIMESTAMP_KEY = JKeyType.TimestampKey().make("clientTimestampKey");
+    public static final Key<Instant> CLIENT_TIMESTAMP_KEY = PkEncDemandPositions.CLIENT_TIME_KEY;
 
 }
@@ -0,0 +1,119 @@
+package org.tmt.encsubsystem.encassembly;
+
+import com.typesafe.config.Config;
+import csw.event.api.javadsl.IEventSubscriber;
+import csw.event.api.javadsl.IEventSubscription;
+import csw.event.api.javadsl.JSubscriptionModes;
+import csw.logging.javadsl.ILogger;
+import csw.params.events.Event;
+import csw.params.events.EventKey;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Subscription of the assembly to the enclosure demands of tpk in the mode set by
+ * tcs.enc-assembly.demand-subscription, so that the assembly sheds load in a known way when
+ * tpk publishes faster than the demands are handled.
+ *
+ * The lag of each event handed to the callback, from its event time set by the publisher to its
+ * receipt, is logged every lag-log-interval. The clocks of tpk and the assembly are taken as
+ * synchronized, a negative lag is recorded as 0. The lag is recorded by the subscription callback only.
+ */
+public class DemandSubscription {
+
+    /**
+     * Every event delivered, however far behind the callback is
+     */
+    public static final String EVERY = "every";
+    /**
+     * The latest event at each interval, none when nothing was published in between
+     */
+    public static final String RATE_LIMITER = "rate-limiter";
+    /**
+     * An event at each interval, the latest one repeated when nothing was published in between
+     */
+    public static final String RATE_ADAPTER = "rate-adapter";
+
+    /**
+     * Longer lags are recorded as this
+     */
+    static final long HIGHEST_LAG_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0};
+
+    private final String mode;
+    private final Duration interval;
+    private final long lagLogNanos;
+    private final IEventSubscriber subscriber;
+    private final ILogger log;
+
+    private final Histogram lag = new Histogram(HIGHEST_LAG_MICROS, 3);
+    private long lastLogged = System.nanoTime();
+
+    /**
+     * @param config mode, interval of the rate-limiter and rate-adapter modes and lag-log-interval
+     */
+    public DemandSubscription(Config config, IEventSubscriber subscriber, ILogger log) {
+        this.mode = config.getString("mode");
+        if (!EVERY.equals(mode) && !RATE_LIMITER.equals(mode) && !RATE_ADAPTER.equals(mode)) {
+            throw new IllegalArgumentException("unknown demand subscription mode '" + mode + "'");
+        }
+        this.interval = config.getDuration("interval");
+        this.lagLogNanos = config.getDuration("lag-log-interval").toNanos();
+        this.subscriber = subscriber;
+        this.log = log;
+    }
+
+    /**
+     * Subscribes callback to the events of eventKeys in the configured mode.
+     */
+    public IEventSubscription subscribe(Set<EventKey> eventKeys, Function<Event, CompletableFuture<String>> callback) {
+        log.info("Subscribing to " + eventKeys + ", mode " + mode);
+        Function<Event, CompletableFuture<?>> measured = event -> {
+            record(event);
+            return callback.apply(event);
+        };
+        switch (mode) {
+            case RATE_LIMITER:
+                return subscriber.subscribeAsync(eventKeys, measured, interval, JSubscriptionModes.jRateLimiterMode());
+            case RATE_ADAPTER:
+                return subscriber.subscribeAsync(eventKeys, measured, interval, JSubscriptionModes.jRateAdapterMode());
+            default:
+                return subscriber.subscribeAsync(eventKeys, measured);
+        }
+    }
+
+    private void record(Event event) {
+        lag.recordValue(lagMicros(event.eventTime().time(), Instant.now()));
+        long now = System.nanoTime();
+        if (now - lastLogged >= lagLogNanos) {
+            StringBuilder summary = new StringBuilder("demand subscription ").append(mode)
+                    .append(" lag: count=").append(lag.getTotalCount());
+            for (double percentile : PERCENTILES) {
+                summary.append(", p").append(percentile).append('=').append(lag.getValueAtPercentile(percentile) / 1000.0).append(" ms");
+            }
+            summary.append(", max=").append(lag.getMaxValue() / 1000.0).append(" ms");
+            log.info(summary.toString());
+            lag.reset();
+            lastLogged = now;
+        }
+    }
+
+    /**
+     * Lag of an event of eventTime received at received, in microseconds, 0 when negative and
+     * HIGHEST_LAG_MICROS at most.
+     */
+    static long lagMicros(Instant eventTime, Instant received) {
+        long lagNanos = epochNanos(received) - epochNanos(eventTime);
+        return Math.min(Math.max(lagNanos / 1000, 0L), HIGHEST_LAG_MICROS);
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -5,8 +5,8 @@ import akka.actor.Cancellable;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
 import akka.actor.typed.javadsl.*;
+import com.typesafe.config.Config;
 import csw.event.api.javadsl.IEventService;
-import csw.event.api.javadsl.IEventSubscriber;
 import csw.event.api.javadsl.IEventSubscription;
 import csw.framework.CurrentStatePublisher;
 import csw.framework.models.JCswContext;
@@ -15,12 +15,14 @@ import csw.params.core.generics.Parameter;
 import csw.params.core.models.ArrayData;
 import csw.params.core.models.Prefix;
 import csw.params.core.states.CurrentState;
-import csw.params.core.states.StateName;
 import csw.params.events.Event;
 import csw.params.events.EventKey;
 import csw.params.events.EventName;
 import csw.params.events.SystemEvent;
 import org.tmt.encsubsystem.encassembly.model.AssemblyState;
+import org.tmt.tcs.icd.enc.EncDemandPositionsState;
+import org.tmt.tcs.icd.pk.PkDemandFrame;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -135,28 +137,56 @@ public class JEventHandlerActor extends AbstractBehavior<JEventHandlerActor.Even
         positionDemandsSubscription  = subscribeEncDemandsPositions();
     }
 
+    /**
+     * Subscribes to the enclosure demands of tpk, either the encdemandpositions events or
+     * the demand frames depending upon tcs.enc-assembly.demand-source, in the mode of
+     * tcs.enc-assembly.demand-subscription, see DemandSubscription
+     */
     private IEventSubscription subscribeEncDemandsPositions(){
-        IEventSubscriber subscriber = eventService.defaultSubscriber();
-        EventKey eventKey = new EventKey(new Prefix(DEMAND_POSITIONS_PUBLISHER_PREFIX), new EventName(DEMAND_POSITIONS));
-        return subscriber.subscribeAsync(Collections.singleton(eventKey), this::demandPositionsCallback);
+        Config config = actorContext.getSystem().settings().config();
+        DemandSubscription subscription = new DemandSubscription(config.getConfig("tcs.enc-assembly.demand-subscription"), eventService.defaultSubscriber(), log);
+        boolean frame = "frame".equals(config.getString("tcs.enc-assembly.demand-source"));
+        EventKey eventKey = new EventKey(new Prefix(DEMAND_POSITIONS_PUBLISHER_PREFIX), new EventName(frame ? DEMAND_FRAME : DEMAND_POSITIONS));
+        return subscription.subscribe(Collections.singleton(eventKey), frame ? this::demandFrameCallback : this::demandPositionsCallback);
     }
 
+    private CompletableFuture<String> demandFrameCallback(Event event){
+        currentStatePublisher.publish(demandFrameState(this.cswCtx.componentInfo().prefix(), event, Instant.now()));
+        return CompletableFuture.completedFuture("Ok");
+    }
 
     private CompletableFuture<String> demandPositionsCallback(Event event){
-
-        Parameter baseParam = event.paramSet().find(x -> x.keyName().equals(DEMAND_POSITIONS_BASE_KEY)).get();
-        Parameter capParam = event.paramSet().find(x -> x.keyName().equals(DEMAND_POSITIONS_CAP_KEY)).get();
-        Parameter clientTimeParam = event.paramSet().find(x -> x.keyName().equals(CLIENT_TIMESTAMP_KEY_STRING)).get();
-        Parameter<Instant> assemblyTimeParam = ASSEMBLY_TIMESTAMP_KEY.set(Instant.now());
-        CurrentState demandPosition = new CurrentState(this.cswCtx.componentInfo().prefix(), new StateName(DEMAND_POSITIONS))
-                .add(baseParam)
-                .add(capParam)
-                .add(clientTimeParam)
-                .add(assemblyTimeParam);
-        currentStatePublisher.publish(demandPosition);
+        currentStatePublisher.publish(demandPositionsState(this.cswCtx.componentInfo().prefix(), event, Instant.now()));
         return CompletableFuture.completedFuture("Ok");
     }
 
+    /**
+     * Takes the enclosure slice of a demand frame, the frame time is the client time of the demand.
+     */
+    static CurrentState demandFrameState(Prefix prefix, Event event, Instant assemblyTime){
+        PkDemandFrame.Reader frame = PkDemandFrame.read(event);
+        return EncDemandPositionsState.writer()
+                .base(frame.ecsBaseParam())
+                .cap(frame.ecsCapParam())
+                .tick(frame.tickParam())
+                .clientTime(frame.time())
+                .assemblyTime(assemblyTime)
+                .toCurrentState(prefix);
+    }
+
+    /**
+     * The demand of an encdemandpositions event.
+     */
+    static CurrentState demandPositionsState(Prefix prefix, Event event, Instant assemblyTime){
+        PkEncDemandPositions.Reader demand = PkEncDemandPositions.read(event);
+        return EncDemandPositionsState.writer()
+                .base(demand.baseParam())
+                .cap(demand.capParam())
+                .clientTime(demand.clientTimeParam())
+                .assemblyTime(assemblyTime)
+                .toCurrentState(prefix);
+    }
+
     /**
      * This method publish current position event.
      * @param message
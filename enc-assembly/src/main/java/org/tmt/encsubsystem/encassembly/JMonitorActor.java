@@ -7,10 +7,12 @@ import csw.command.api.javadsl.ICommandService;
 import csw.framework.models.JCswContext;
 import csw.logging.javadsl.ILogger;
 import csw.params.core.generics.Parameter;
-import csw.params.core.models.ArrayData;
 import csw.params.core.states.CurrentState;
 import org.tmt.encsubsystem.encassembly.model.AssemblyState;
 import org.tmt.encsubsystem.encassembly.model.HCDState;
+import org.tmt.tcs.icd.enc.EncCurrentPositionState;
+import org.tmt.tcs.icd.enc.EncDiagnosticState;
+import org.tmt.tcs.icd.enc.EncHealthState;
 
 import java.time.Instant;
 import java.util.Optional;
@@ -163,12 +165,10 @@ public class JMonitorActor extends AbstractBehavior<JMonitorActor.MonitorMessage
      * @return
      */
     private JEventHandlerActor.CurrentPositionMessage getCurrentPosition(CurrentState currentState) {
-        Parameter<Double> basePosParam  = currentState.jGet(BASE_POS_KEY).get();
-        Parameter<Double> capPosParam  = currentState.jGet(CAP_POS_KEY).get();
-        Parameter<Instant> subsystemTimestampKey  = currentState.jGet(SUBSYSTEM_TIMESTAMP_KEY).get();
-        Parameter<Instant> hcdTimestampKey  = currentState.jGet(HCD_TIMESTAMP_KEY).get();
+        EncCurrentPositionState.Reader currentPosition = EncCurrentPositionState.read(currentState);
         Parameter<Instant> assemblyTimestampKey  = ASSEMBLY_TIMESTAMP_KEY.set(Instant.now());
-        return new JEventHandlerActor.CurrentPositionMessage(basePosParam,capPosParam,subsystemTimestampKey, hcdTimestampKey, assemblyTimestampKey);
+        return new JEventHandlerActor.CurrentPositionMessage(currentPosition.baseParam(), currentPosition.capParam(),
+                currentPosition.subsystemTimeParam(), currentPosition.hcdTimeParam(), assemblyTimestampKey);
     }
 
     /**
@@ -178,11 +178,9 @@ public class JMonitorActor extends AbstractBehavior<JMonitorActor.MonitorMessage
      * @return
      */
     private JEventHandlerActor.HealthMessage getHealth(CurrentState currentState) {
-        Parameter<String> healthParam  = currentState.jGet(HEALTH_KEY).get();
-        Parameter<String> healthReasonParam = currentState.jGet(HEALTH_REASON_KEY).get();
-        Parameter<Instant> healthTimeParam = currentState.jGet(HEALTH_TIME_KEY).get();
+        EncHealthState.Reader health = EncHealthState.read(currentState);
         Parameter<Instant> assemblyTimestampKey  = ASSEMBLY_TIMESTAMP_KEY.set(Instant.now());
-        return new JEventHandlerActor.HealthMessage(healthParam, healthReasonParam, healthTimeParam, assemblyTimestampKey);
+        return new JEventHandlerActor.HealthMessage(health.healthParam(), health.reasonParam(), health.timeParam(), assemblyTimestampKey);
     }
     /**
      * Extracting diagnostic parameters from current state into diagnostic message for EventHandlerActor
@@ -190,9 +188,8 @@ public class JMonitorActor extends AbstractBehavior<JMonitorActor.MonitorMessage
      * @return
      */
     private JEventHandlerActor.DiagnosticMessage getDiagnostic(CurrentState currentState) {
-        Parameter<ArrayData<Byte>> diagnosticParam  = currentState.jGet(DIAGNOSTIC_KEY).get();
-        Parameter<Instant> diagnosticTimeParam = currentState.jGet(DIAGNOSTIC_TIME_KEY).get();
-        return new JEventHandlerActor.DiagnosticMessage(diagnosticParam, diagnosticTimeParam);
+        EncDiagnosticState.Reader diagnostic = EncDiagnosticState.read(currentState);
+        return new JEventHandlerActor.DiagnosticMessage(diagnostic.bytesParam(), diagnostic.timeParam());
     }
 
     /**
@@ -0,0 +1,85 @@
+package org.tmt.encsubsystem.encassembly;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import csw.event.api.javadsl.IEventSubscriber;
+import csw.event.api.javadsl.JSubscriptionModes;
+import csw.logging.javadsl.ILogger;
+import csw.params.events.EventKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+public class DemandSubscriptionTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private IEventSubscriber subscriber;
+
+    @Mock
+    private ILogger log;
+
+    private static final Set<EventKey> KEYS = Collections.singleton(PkEncDemandPositions.EVENT_KEY);
+    private static final Instant EVENT_TIME = Instant.ofEpochSecond(1_000_000, 250_000_000);
+
+    private static Config config(String mode) {
+        return ConfigFactory.parseString("mode = \"" + mode + "\", interval = 20ms, lag-log-interval = 10s");
+    }
+
+    private DemandSubscription subscribe(String mode) {
+        DemandSubscription subscription = new DemandSubscription(config(mode), subscriber, log);
+        subscription.subscribe(KEYS, event -> CompletableFuture.completedFuture("handled"));
+        return subscription;
+    }
+
+    @Test
+    public void everyModeSubscribesToEveryEvent() {
+        subscribe(DemandSubscription.EVERY);
+        verify(subscriber).subscribeAsync(eq(KEYS), any());
+    }
+
+    @Test
+    public void rateLimiterModeSubscribesAtTheInterval() {
+        subscribe(DemandSubscription.RATE_LIMITER);
+        verify(subscriber).subscribeAsync(eq(KEYS), any(), eq(Duration.ofMillis(20)), eq(JSubscriptionModes.jRateLimiterMode()));
+    }
+
+    @Test
+    public void rateAdapterModeSubscribesAtTheInterval() {
+        subscribe(DemandSubscription.RATE_ADAPTER);
+        verify(subscriber).subscribeAsync(eq(KEYS), any(), eq(Duration.ofMillis(20)), eq(JSubscriptionModes.jRateAdapterMode()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownModesAreRejected() {
+        new DemandSubscription(config("latest"), subscriber, log);
+    }
+
+    @Test
+    public void lagIsTheTimeFromTheEventTimeToReceipt() {
+        assertEquals(2_500L, DemandSubscription.lagMicros(EVENT_TIME, EVENT_TIME.plusNanos(2_500_999)));
+        assertEquals(0L, DemandSubscription.lagMicros(EVENT_TIME, EVENT_TIME));
+    }
+
+    @Test
+    public void lagIsClampedToZeroAndTheHighestLag() {
+        assertEquals(0L, DemandSubscription.lagMicros(EVENT_TIME, EVENT_TIME.minusMillis(5)));
+        assertEquals(DemandSubscription.HIGHEST_LAG_MICROS, DemandSubscription.lagMicros(EVENT_TIME, EVENT_TIME.plusSeconds(3600)));
+    }
+}
@@ -0,0 +1,69 @@
+package org.tmt.encsubsystem.encassembly;
+
+import csw.params.core.models.Prefix;
+import csw.params.core.states.CurrentState;
+import csw.params.events.Event;
+import org.junit.Test;
+import org.tmt.tcs.icd.enc.EncDemandPositionsState;
+import org.tmt.tcs.icd.pk.PkDemandFrame;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * The enclosure demand taken from a demand frame of tpk is the demand of the encdemandpositions
+ * event of the same tick.
+ */
+public class JEventHandlerActorTest {
+
+    private static final Prefix PREFIX = new Prefix("tcs.encA");
+    private static final Instant TICK_TIME = Instant.ofEpochSecond(1_000_000, 250_000_000);
+    private static final Instant ASSEMBLY_TIME = TICK_TIME.plusMillis(2);
+
+    @Test
+    public void frameYieldsTheDemandOfTheSeparateEvent() {
+        Event frame = PkDemandFrame.writer()
+                .tick(42L)
+                .time(TICK_TIME)
+                .mcsAz(120.5)
+                .mcsEl(45.25)
+                .ecsBase(121.0)
+                .ecsCap(44.75)
+                .m3Rotation(0.5)
+                .m3Tilt(1.5)
+                .toEvent();
+        Event separate = PkEncDemandPositions.writer()
+                .base(121.0)
+                .cap(44.75)
+                .sequence(42L)
+                .clientTime(TICK_TIME)
+                .toEvent();
+
+        EncDemandPositionsState.Reader fromFrame = EncDemandPositionsState.read(
+                JEventHandlerActor.demandFrameState(PREFIX, frame, ASSEMBLY_TIME));
+        EncDemandPositionsState.Reader fromSeparate = EncDemandPositionsState.read(
+                JEventHandlerActor.demandPositionsState(PREFIX, separate, ASSEMBLY_TIME));
+
+        assertEquals(fromSeparate.base(), fromFrame.base(), 0.0);
+        assertEquals(fromSeparate.cap(), fromFrame.cap(), 0.0);
+        assertEquals(fromSeparate.clientTime(), fromFrame.clientTime());
+        assertEquals(fromSeparate.assemblyTime(), fromFrame.assemblyTime());
+        // only the frame knows its tick
+        assertEquals(42L, fromFrame.tick());
+        assertFalse(fromSeparate.hasTick());
+    }
+
+    @Test
+    public void frameSliceIsPublishedAsTheDemandPositionsState() {
+        Event frame = PkDemandFrame.writer().tick(1L).time(TICK_TIME).mcsAz(1.0).mcsEl(2.0)
+                .ecsBase(3.0).ecsCap(4.0).m3Rotation(5.0).m3Tilt(6.0).toEvent();
+        CurrentState state = JEventHandlerActor.demandFrameState(PREFIX, frame, ASSEMBLY_TIME);
+        assertEquals(EncDemandPositionsState.STATE_NAME, state.stateName());
+        assertEquals(PREFIX, state.prefix());
+        // the mount and M3 slices of the frame are not passed on
+        assertEquals(5, state.size());
+    }
+}
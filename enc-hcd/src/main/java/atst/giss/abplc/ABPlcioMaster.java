@@ -3,6 +3,10 @@ package atst.giss.abplc;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 //import atst.base.hardware.connections.ConnectionException;
 
@@ -33,6 +37,26 @@ public class ABPlcioMaster implements IABPlcioMaster {
     private static final String LOG_CAT_PLC_READ = "ABPLCIO_MASTER_PLC_READ";
     private static final String LOG_CAT_PLC_WRITE = "ABPLCIO_MASTER_PLC_WRITE";
 
+    /** Maximum number of open PLCIO connections, MAX_OPEN_CONNECTIONS of the JNI C code. */
+    public static final int MAX_OPEN_CONNECTIONS = 30;
+
+    /** Number of preallocated read slots, one per connection indexed by connection
+     * number: reads on one connection are serialized, so one async read per
+     * connection is outstanding at a time and further reads are queued by the
+     * connection's {@linkplain PlcAsyncReader}. */
+    public static final int READ_SLOTS = MAX_OPEN_CONNECTIONS;
+
+    /** Flush interval of the write-behind queue of each open connection. */
+    public static final long WRITE_BEHIND_FLUSH_INTERVAL_MS = 10;
+
+    /** Write-behind queue of each connection opened through plcAccess(), by connection number. */
+    private static final Map<Integer, PlcWriteBehindQueue> writeBehindQueues =
+            new ConcurrentHashMap<Integer, PlcWriteBehindQueue>();
+
+    /** Asynchronous reader of each connection opened through plcAccess(), by connection number. */
+    private static final Map<Integer, PlcAsyncReader> asyncReaders =
+            new ConcurrentHashMap<Integer, PlcAsyncReader>();
+
     private static final RealABPlcioMaster master;
     static {
         /*
@@ -74,7 +98,7 @@ public class ABPlcioMaster implements IABPlcioMaster {
      * @param tagName -- the tag to read
      * @param bytesReadTotal -- the number of bytes to read
      * @param tagBytes -- the array to put the read bytes into
-     * @param readTagKeyID -- the tag key id
+     * @param readTagKeyID -- the read slot holding the tag being read
      * @return 0 if the read is successful, 1 if the read fails
      */
     // This method has to be declared static as it is called in JNI code that itself
@@ -91,23 +115,20 @@ public class ABPlcioMaster implements IABPlcioMaster {
         Log.debug(LOG_CAT_PLC_READ, 4, "Java - plc_readCallback() connNumber = " + connNumber +
                 ", connName '" + connName + "'" +
                 ", tagName '" + tagName + "', bytesReadTotal = " + bytesReadTotal + ", bytes = " + Arrays.toString(tagBytes) +
-                ", plcReadTagsSHM KeyID = " + readTagKeyID);
+                ", read slot = " + readTagKeyID);
 
-        tag = master.plcReadTagsSHM.get(readTagKeyID);
+        tag = master.getReadSlotTag(readTagKeyID);
         if (tag == null) {
-            Log.severe(LOG_CAT_PLC_READ, "Java ERROR: plc_readCallback(), can't access PLC tag with key " + readTagKeyID +
-            " in plcReadTagsSHM; plcReadTagsSHM.get(" + readTagKeyID +
-            ") returned null");
+            Log.severe(LOG_CAT_PLC_READ, "Java ERROR: plc_readCallback(), can't access PLC tag in read slot " +
+                    readTagKeyID + "; slot is out of range or holds no tag");
             return -1;
         }
 
-        // test given tag name equals name of PlcTag obtained from this
-        // object's plcReadTagsSHM
+        // test given tag name equals name of PlcTag obtained from the read slot
         if (!tagName.equals(tag.getName())) {
             Log.severe(LOG_CAT_PLC_READ, "Java ERROR: plc_readCallback(), tagName '" + tagName +
                     "' not equal tagName of '" + tag.getName() +
-                    "' retrieved with key " + readTagKeyID +
-                       " of plcReadTagsSHM");
+                    "' retrieved from read slot " + readTagKeyID);
             return -1;
            }
 
@@ -117,8 +138,7 @@ public class ABPlcioMaster implements IABPlcioMaster {
             Log.severe(LOG_CAT_PLC_READ, "Java ERROR: plc_readCallback(), bytesReadTotal = " + bytesReadTotal +
                     " read tagBytes array length = " + tagBytes.length +
                     ", one or both not equal tag's totalByteLength of " + tag.getTotalByteLength() +
-                    " retrieved with key " + readTagKeyID +
-                       " of plcReadTagsSHM");
+                    " retrieved from read slot " + readTagKeyID);
             return -1;
            }
 
@@ -132,7 +152,7 @@ public class ABPlcioMaster implements IABPlcioMaster {
                 (bytesReadTotal != tagByteBuffer.limit())) {
             Log.severe(LOG_CAT_PLC_READ, "Java - plc_readCallback() miss-match between byte lengths:" +
                 "byte length total read = "+ bytesReadTotal + ", length of tagBytes array = " + tagBytes.length +
-                ", tag's totalByteLength from plcReadTagsSHM = " + tag.getTotalByteLength() +
+                ", tag's totalByteLength from read slot = " + tag.getTotalByteLength() +
                 ", tagByteBuffer limit = " + tagByteBuffer.limit());
         }
         
@@ -256,10 +276,9 @@ public class ABPlcioMaster implements IABPlcioMaster {
             } // end switch
         } // end for
 
-        // store read values in the PlcTag object's tagValues array and store
-        // in the plcReadTagsSHM HashMap
+        // store read values in the PlcTag object's tagValues array, the tag
+        // object is the one held by the read slot so no further store is needed
         tag.setMemberValues(tagValues);
-        master.plcReadTagsSHM.put(readTagKeyID, tag);
 
         Log.debug(LOG_CAT_PLC_READ, 3, "Java - callback received plc_readCallback(" + connNumber + ", " + connName +
                 ", " + bytesReadTotal + ", " + readValueBytesHexStr.toString() + ", " + readTagKeyID + ")");
@@ -327,8 +346,68 @@ public class ABPlcioMaster implements IABPlcioMaster {
             }
         }
         
+        PlcWriteBehindQueue queue;
+        if (plcioCall.getMethodName() == IPlcioCall.PlcioMethodName.PLC_CLOSE) {
+            // write what is still pending before the connection goes
+            queue = writeBehindQueues.remove(plcioCall.getParamConnectionNumber());
+            if (queue != null) {
+                queue.close();
+            }
+            PlcAsyncReader reader = asyncReaders.remove(plcioCall.getParamConnectionNumber());
+            if (reader != null) {
+                reader.close();
+            }
+        }
+
         master.realAccessPlc(plcioCall);
+
+        if (plcioCall.getMethodName() == IPlcioCall.PlcioMethodName.PLC_OPEN) {
+            queue = new PlcWriteBehindQueue(this, plcioCall.getParamConnectionNumber(), WRITE_BEHIND_FLUSH_INTERVAL_MS);
+            queue.start();
+            writeBehindQueues.put(plcioCall.getParamConnectionNumber(), queue);
+            asyncReaders.put(plcioCall.getParamConnectionNumber(),
+                    new PlcAsyncReader(this, plcioCall.getParamConnectionNumber()));
+        }
     } // end plcAccess()
+
+    /**
+     * Tag writes that should not block the caller are queued on this write-behind queue of a
+     * connection opened with {@linkplain #plcAccess(IPlcioCall)}, PLC_WRITE calls of
+     * plcAccess() write directly.
+     */
+    @Override
+    public PlcWriteBehindQueue getWriteBehindQueue(int connectionNumber) {
+        return writeBehindQueues.get(connectionNumber);
+    } // end getWriteBehindQueue()
+
+    /**
+     * Reads that should not block the caller are made through this reader of a connection
+     * opened with {@linkplain #plcAccess(IPlcioCall)}.
+     */
+    @Override
+    public PlcAsyncReader getAsyncReader(int connectionNumber) {
+        return asyncReaders.get(connectionNumber);
+    } // end getAsyncReader()
+
+    /**
+     * Carry out a batch of PLC accesses holding the connection's lock once, so that
+     * e.g. all tag writes of a {@linkplain PlcWriteBehindQueue} flush cycle are issued
+     * back to back rather than competing with other callers between each write.
+     * PLCIO has no multi-tag write, so each call of the batch is still its own native
+     * call and PLC round trip; what the batch saves is the lock hand-over between them.
+     * <p>
+     * It forwards the call to the real Master's
+     * {@linkplain ABPlcioMaster.RealABPlcioMaster#realAccessPlcBatch(IPlcioCall[], int, Exception[])}.
+     */
+    @Override
+    public int plcAccessBatch(IPlcioCall[] plcioCalls, int count, Exception[] errors) {
+        if (Log.getDebugLevel(LOG_CAT) >= 4) {
+            Log.debug(LOG_CAT, 4, "plcAccessBatch(" + this.toString() + " " + Thread.currentThread().getName() +
+                    ") " + count + " calls");
+        }
+
+        return master.realAccessPlcBatch(plcioCalls, count, errors);
+    } // end plcAccessBatch()
     
     /*
      * Private inner class RealABPlcioMaster
@@ -338,13 +417,22 @@ public class ABPlcioMaster implements IABPlcioMaster {
          * plc_open() JNI call is unique. */
         private Map<Integer, Integer> connectionNumberMap;
         
-        /* When method readTag() is called to read tag values from PLC using native
-         * plc_read(), the C function returns the tag values to Java by calling
-         * the method plc_readCallback(), this stores the tag in the
-         * SynchronizedHashMap plcReadTagsSHM from which readTag() can
-         * access it and pass the tag values back to the calling object. */
-        private Map<Integer, IPlcTag> plcReadTagsSHM;
-        private int plcReadTagsSHM_keyID;
+        /* Opening and closing connections excludes every other access, the other
+         * accesses hold the read lock of connectionsLock and the lock of their
+         * connection, so that accesses to different connections, reads included,
+         * overlap while those to one connection are serialized: a PLCIO connection
+         * is not shared between threads. */
+        private final ReentrantReadWriteLock connectionsLock = new ReentrantReadWriteLock();
+        private final ReentrantLock[] connectionLocks;
+
+        /* When a tag is read from the PLC using native plc_read(), the tag is placed
+         * in the read slot of its connection whose index is passed to C as the read
+         * key. The C function returns the tag values to Java by calling the method
+         * plc_readCallback() with the same key, which uses it to index the tag
+         * being read. The slots are preallocated so that correlating a read needs
+         * neither a map nor boxing. A slot is only set holding its connection's
+         * lock, the slots themselves may be read from any thread. */
+        private final AtomicReferenceArray<IPlcTag> readSlots;
 
         /**
          * Construct the real ABPlcioMaster.
@@ -353,10 +441,13 @@ public class ABPlcioMaster implements IABPlcioMaster {
             // Initialize the SynchronizedHashMap used to ensure unique connection number
             // is returned from PLCIO plc_open()
             connectionNumberMap = Collections.synchronizedMap(new HashMap<Integer, Integer>());
-            // Initialize the SynchronizedHashMap used to pass tag values read from
+            // Initialize the read slots used to pass tag values read from
             // PLC between JNI and Java
-            plcReadTagsSHM = Collections.synchronizedMap(new HashMap<Integer, IPlcTag>());
-            plcReadTagsSHM_keyID = 0;
+            readSlots = new AtomicReferenceArray<IPlcTag>(READ_SLOTS);
+            connectionLocks = new ReentrantLock[MAX_OPEN_CONNECTIONS];
+            for (int i = 0; i < MAX_OPEN_CONNECTIONS; i++) {
+                connectionLocks[i] = new ReentrantLock();
+            }
         } // end constructor
 
         /**
@@ -370,7 +461,32 @@ public class ABPlcioMaster implements IABPlcioMaster {
          * @throws ABPlcioExceptionJNI -- ABPlcioExceptionJNI
          * @throws ConnectionException -- ConnectionException
          */
-        public synchronized void realAccessPlc(IPlcioCall plcioCall)
+        public void realAccessPlc(IPlcioCall plcioCall)
+                throws ABPlcioExceptionPLCIO, ABPlcioExceptionJNI, ConnectionException {
+            IPlcioCall.PlcioMethodName methodName = plcioCall.getMethodName();
+            if ((methodName == IPlcioCall.PlcioMethodName.PLC_OPEN) ||
+                    (methodName == IPlcioCall.PlcioMethodName.PLC_CLOSE)) {
+                connectionsLock.writeLock().lock();
+                try {
+                    accessPlc(plcioCall);
+                } finally {
+                    connectionsLock.writeLock().unlock();
+                }
+                return;
+            }
+
+            ReentrantLock connectionLock = lockConnection(plcioCall.getParamConnectionNumber());
+            try {
+                accessPlc(plcioCall);
+            } finally {
+                unlockConnection(connectionLock);
+            }
+        } // end realAccessPlc()
+
+        /*
+         * Carry out a PLC access holding the locks required by realAccessPlc().
+         */
+        private void accessPlc(IPlcioCall plcioCall)
                 throws ABPlcioExceptionPLCIO, ABPlcioExceptionJNI, ConnectionException {
             
             long startTime = System.currentTimeMillis();
@@ -405,13 +521,17 @@ public class ABPlcioMaster implements IABPlcioMaster {
                 if (Log.getDebugLevel(LOG_CAT) >= 4) {
                     Log.debug(LOG_CAT, 4, "realAccessPlc(" + this.toString() + " " + Thread.currentThread().getName() + ") PLC_READ " + plcioCall.getParamTag().getName());
                 }
-                int readTagKeyID = getPlcReadTagsSHM_keyID();
                 IPlcTag tag = plcioCall.getParamTag();
-                plcReadTagsSHM.put(readTagKeyID, tag);
-                ABPlcioMaster.plc_read(plcioCall.getParamConnectionNumber(), tag.getName(),
-                        tag.getTotalByteLength(), tag.getPlcioTimeoutMs(),
-                        tag.getPcFormatString(), readTagKeyID);
-                plcioCall.setParamTag(plcReadTagsSHM.remove(readTagKeyID));
+                int readSlot = plcioCall.getParamConnectionNumber();
+                readSlots.set(readSlot, tag);
+                try {
+                    ABPlcioMaster.plc_read(plcioCall.getParamConnectionNumber(), tag.getName(),
+                            tag.getTotalByteLength(), tag.getPlcioTimeoutMs(),
+                            tag.getPcFormatString(), readSlot);
+                } finally {
+                    readSlots.set(readSlot, null);
+                }
+                plcioCall.setParamTag(tag);
                 break;
             case PLC_WRITE:
                 if (Log.getDebugLevel(LOG_CAT) >= 4) {
@@ -426,7 +546,50 @@ public class ABPlcioMaster implements IABPlcioMaster {
             
             plcioCall.setOpTime(System.currentTimeMillis() - startTime);
             return;
-        } // end realAccessPlc()
+        } // end accessPlc()
+
+        /**
+         * The method called by {@linkplain ABPlcioMaster#plcAccessBatch(IPlcioCall[], int, Exception[])}
+         * to carry out several PLC accesses on one connection in a single acquisition of
+         * the connection's lock, one native call after the other.
+         * 
+         * @param plcioCalls Array of call objects, the first <code>count</code> are used,
+         * none of them may open or close a connection.
+         * @param count The number of calls in the batch.
+         * @param errors Receives the exception of each failed call, null for successful calls.
+         * 
+         * @return The number of calls that failed.
+         */
+        public int realAccessPlcBatch(IPlcioCall[] plcioCalls, int count, Exception[] errors) {
+            if (count == 0) {
+                return 0;
+            }
+            ReentrantLock connectionLock;
+            try {
+                connectionLock = lockConnection(plcioCalls[0].getParamConnectionNumber());
+            } catch (ConnectionException ex) {
+                for (int i = 0; i < count; i++) {
+                    errors[i] = ex;
+                }
+                return count;
+            }
+            int failed = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    try {
+                        // calls on another connection take their own lock in realAccessPlc()
+                        realAccessPlc(plcioCalls[i]);
+                        errors[i] = null;
+                    } catch (Exception ex) {
+                        errors[i] = ex;
+                        failed++;
+                    }
+                }
+            } finally {
+                unlockConnection(connectionLock);
+            }
+            return failed;
+        } // end realAccessPlcBatch()
 
         /**
          * The method called by {@linkplain #realAccessPlc(IPlcioCall)} when a tag write to the
@@ -596,19 +759,41 @@ public class ABPlcioMaster implements IABPlcioMaster {
         } // end realPlcWrite()
 
         /**
-         * Called from readTag() to get a unique keyID used as key into synchronized
-         * HashMap plcReadTagsSHM, which is used to hold PLC Tag objects while the tag
-         * is being read.
+         * Called from plc_readCallback() to get the tag held in a read slot.
+         * 
+         * @return The tag being read in the slot, or null if the slot index is out
+         * of range or the slot is free.
          */
-        private synchronized int getPlcReadTagsSHM_keyID() {
-            if (plcReadTagsSHM_keyID > 10000) {
-                plcReadTagsSHM_keyID = 1;
+        IPlcTag getReadSlotTag(int readSlot) {
+            if ((readSlot < 0) || (readSlot >= READ_SLOTS)) {
+                return null;
             }
-            else {
-                plcReadTagsSHM_keyID += 1;
+            return readSlots.get(readSlot);
+        } // end getReadSlotTag()
+
+        /**
+         * Take the locks required to access an open connection, always the read lock of
+         * connectionsLock before the connection's lock.
+         * 
+         * @return The connection's lock, to be given to unlockConnection().
+         */
+        private ReentrantLock lockConnection(int connectionNumber) throws ConnectionException {
+            if ((connectionNumber < 0) || (connectionNumber >= MAX_OPEN_CONNECTIONS)) {
+                throw new ConnectionException("invalid connection number=" + connectionNumber);
             }
-            return plcReadTagsSHM_keyID;
-        } // end getPlcReadTagsSHM_keyID()
+            ReentrantLock connectionLock = connectionLocks[connectionNumber];
+            connectionsLock.readLock().lock();
+            connectionLock.lock();
+            return connectionLock;
+        } // end lockConnection()
+
+        /**
+         * Release the locks taken by lockConnection().
+         */
+        private void unlockConnection(ReentrantLock connectionLock) {
+            connectionLock.unlock();
+            connectionsLock.readLock().unlock();
+        } // end unlockConnection()
 
     } // end class RealABPlcioMaster
 
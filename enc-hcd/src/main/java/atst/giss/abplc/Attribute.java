@@ -1,15 +1,23 @@
 package atst.giss.abplc;
 
+import java.util.Arrays;
+
 public class Attribute {
 
     private String key;
     private String value;
+    private String[] values;
 
     public Attribute(String key, String value) {
         this.key = key;
         this.value = value;
     }
 
+    public Attribute(String key, String[] values) {
+        this.key = key;
+        this.values = values;
+    }
+
 
     public String getKey() {
         return key;
@@ -27,12 +35,20 @@ public class Attribute {
         this.value = value;
     }
 
+    public String[] getValues() {
+        return values;
+    }
+
+    public boolean isArray() {
+        return values != null;
+    }
+
     public boolean isEmpty() {
-        return false;
+        return (value == null) && (values == null);
     }
 
     public String getString() {
-        return null;
+        return value;
     }
 
     public static Integer getInteger() {
@@ -46,4 +62,9 @@ public class Attribute {
     public static String[] getStringArray() {
         return new String[0];
     }
+
+    @Override
+    public String toString() {
+        return key + "=" + (isArray() ? Arrays.toString(values) : value);
+    }
 }
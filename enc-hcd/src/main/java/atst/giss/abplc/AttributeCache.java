@@ -0,0 +1,757 @@
+package atst.giss.abplc;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AttributeCache is the concurrent store behind the static {@linkplain Cache} methods
+ * used by {@linkplain PlcTag} to hold tag item values and tag meta-data.
+ * <p>
+ * Attribute names are interned once and mapped to integer IDs, every ID owning a
+ * typed value slot held in preallocated arrays, so that updating a value allocates
+ * neither a map nor a boxed value:
+ * <ul>
+ * <li>primitive values (boolean, integer, real) are stored as raw long bits, numeric
+ * values parsed from text also keep the text they were parsed from,
+ * <li>String and String[] values are stored by reference,
+ * <li>every slot records the version of the update that last wrote it.
+ * </ul>
+ * Attributes are organised in {@linkplain Group}s, normally one group per PLC tag.
+ * Writers update a group between {@linkplain Group#beginWrite()} and
+ * {@linkplain Group#endWrite()}; writers of the same group are serialized, each
+ * completed write increments the group version by one and notifies the group's
+ * {@linkplain IAttributeCacheListener}s. Readers use {@linkplain Group#read(Snapshot)}
+ * to copy the whole group into a preallocated {@linkplain Snapshot} without taking
+ * any lock, the copy is retried (sequence lock) should a writer be active so that
+ * a snapshot never mixes values of two different updates.
+ * <p>
+ * Attributes not belonging to a registered group are placed in a group of their own.
+ */
+public class AttributeCache {
+
+    /*
+     *  Private class constants
+     */
+    /** Log category of AttributeCache. */
+    private static final String LOG_CAT = "ATTRIBUTE_CACHE";
+
+    /** Number of failed snapshot attempts after which a reader yields its time slice. */
+    private static final int READ_SPINS_BEFORE_YIELD = 64;
+
+    /** Empty listener array shared by all groups without listeners. */
+    private static final IAttributeCacheListener[] NO_LISTENERS = new IAttributeCacheListener[0];
+
+    /**
+     * Enumeration of the value types that may be stored in an attribute slot.
+     */
+    public enum ValueType {
+        NONE, BOOLEAN, INTEGER, REAL, STRING, STRING_ARRAY;
+
+        private static final ValueType[] VALUES = values();
+
+        static ValueType fromOrdinal(int ordinal) {
+            return VALUES[ordinal];
+        }
+    }
+
+    /*
+     *  Private instance variables
+     */
+    /** The maximum number of attributes this cache can hold. */
+    private final int capacity;
+
+    /** Interned attribute names mapped to their IDs. */
+    private final ConcurrentHashMap<String, Integer> attributeIds;
+
+    /** Registered groups by group name. */
+    private final ConcurrentHashMap<String, Group> groups;
+
+    /** Attribute names by ID. */
+    private final AtomicReferenceArray<String> names;
+
+    /** The group each attribute ID belongs to and its slot within that group. */
+    private final AtomicReferenceArray<Group> groupOf;
+    private final AtomicIntegerArray slotOf;
+
+    /** The typed value slots, indexed by attribute ID. */
+    private final AtomicIntegerArray types;
+    private final AtomicLongArray bits;
+    private final AtomicReferenceArray<Object> refs;
+    private final AtomicLongArray versions;
+
+    /** Listeners notified of updates to any group. */
+    private volatile IAttributeCacheListener[] cacheListeners = NO_LISTENERS;
+
+    /** Lock guarding creation of attribute IDs, groups and listener arrays. */
+    private final Object registrationLock = new Object();
+
+    /** Next free attribute ID, only modified holding registrationLock. */
+    private int nextId;
+
+    /**
+     * Create a new cache able to hold up to the given number of attributes.
+     *
+     * @param capacity The maximum number of attribute names that can be interned.
+     */
+    public AttributeCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("AttributeCache capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+        attributeIds = new ConcurrentHashMap<String, Integer>(capacity);
+        groups = new ConcurrentHashMap<String, Group>();
+        names = new AtomicReferenceArray<String>(capacity);
+        groupOf = new AtomicReferenceArray<Group>(capacity);
+        slotOf = new AtomicIntegerArray(capacity);
+        types = new AtomicIntegerArray(capacity);
+        bits = new AtomicLongArray(capacity);
+        refs = new AtomicReferenceArray<Object>(capacity);
+        versions = new AtomicLongArray(capacity);
+        nextId = 0;
+    } // end Constructor
+
+    /**
+     * Get the ID of an attribute name, interning the name if it is not already known.
+     *
+     * @param name The attribute name.
+     * @return The attribute's ID.
+     */
+    public int intern(String name) {
+        Integer id = attributeIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (registrationLock) {
+            id = attributeIds.get(name);
+            if (id != null) {
+                return id;
+            }
+            int newId = allocateId(name);
+            Group single = new Group(name, new int[] {newId});
+            groupOf.set(newId, single);
+            slotOf.set(newId, 0);
+            // publish the ID last so that readers finding it see its group
+            attributeIds.put(name, newId);
+            return newId;
+        }
+    } // end intern()
+
+    /**
+     * Get the ID of an already interned attribute name.
+     *
+     * @param name The attribute name.
+     * @return The attribute's ID or -1 if the name has never been interned.
+     */
+    public int find(String name) {
+        Integer id = attributeIds.get(name);
+        return (id == null) ? -1 : id;
+    } // end find()
+
+    /**
+     * Get the name of the attribute with the given ID.
+     *
+     * @param id The attribute ID.
+     * @return The attribute name.
+     */
+    public String getName(int id) {
+        return names.get(id);
+    } // end getName()
+
+    /**
+     * Get the number of attribute names interned in this cache.
+     *
+     * @return The number of attributes.
+     */
+    public int size() {
+        return attributeIds.size();
+    } // end size()
+
+    /**
+     * Register a group of attributes that are updated and read together, typically all
+     * data items of one PLC tag.
+     * <p>
+     * If a group of the same name already exists with the same attribute names it is
+     * returned, e.g. when a read and a write PlcTag object describe the same tag.
+     * Attributes are moved from their own single attribute group into the new group,
+     * so groups should be registered before their attributes are written.
+     *
+     * @param groupName The name of the group.
+     * @param attributeNames The names of the attributes in slot order.
+     * @return The registered group.
+     * @throws IllegalArgumentException If a group of the same name already exists
+     * with different attributes or an attribute already belongs to another group.
+     */
+    public Group registerGroup(String groupName, String[] attributeNames) {
+        synchronized (registrationLock) {
+            Group existing = groups.get(groupName);
+            if (existing != null) {
+                if (!Arrays.equals(existing.getAttributeNames(), attributeNames)) {
+                    throw new IllegalArgumentException("AttributeCache group '" + groupName +
+                            "' already registered with attributes " + Arrays.toString(existing.getAttributeNames()) +
+                            ", can not register it with attributes " + Arrays.toString(attributeNames));
+                }
+                return existing;
+            }
+
+            int[] ids = new int[attributeNames.length];
+            for (int i = 0; i < attributeNames.length; i++) {
+                ids[i] = intern(attributeNames[i]);
+                Group current = groupOf.get(ids[i]);
+                if (groups.get(current.getName()) == current) {
+                    throw new IllegalArgumentException("AttributeCache attribute '" + attributeNames[i] +
+                            "' already belongs to group '" + current.getName() +
+                            "', can not add it to group '" + groupName + "'");
+                }
+            }
+
+            Group group = new Group(groupName, ids);
+            for (int slot = 0; slot < ids.length; slot++) {
+                slotOf.set(ids[slot], slot);
+                groupOf.set(ids[slot], group);
+            }
+            groups.put(groupName, group);
+            Log.debug(LOG_CAT, 3, "registered group '" + groupName + "' containing " + ids.length + " attributes");
+            return group;
+        }
+    } // end registerGroup()
+
+    /**
+     * Get a registered group by name.
+     *
+     * @param groupName The name of the group.
+     * @return The group or null if no group of that name has been registered.
+     */
+    public Group getGroup(String groupName) {
+        return groups.get(groupName);
+    } // end getGroup()
+
+    /**
+     * Get the group holding the attribute with the given ID.
+     *
+     * @param id The attribute ID.
+     * @return The group the attribute currently belongs to.
+     */
+    public Group getGroupOf(int id) {
+        return groupOf.get(id);
+    } // end getGroupOf()
+
+    /**
+     * Get the slot within its group of the attribute with the given ID.
+     *
+     * @param id The attribute ID.
+     * @return The slot index within {@linkplain #getGroupOf(int)}.
+     */
+    public int getSlotOf(int id) {
+        return slotOf.get(id);
+    } // end getSlotOf()
+
+    /**
+     * Subscribe a listener to updates of every group in this cache.
+     *
+     * @param listener The listener to add.
+     */
+    public void subscribe(IAttributeCacheListener listener) {
+        synchronized (registrationLock) {
+            cacheListeners = addListener(cacheListeners, listener);
+        }
+    } // end subscribe()
+
+    /**
+     * Remove a listener previously added with {@linkplain #subscribe(IAttributeCacheListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void unsubscribe(IAttributeCacheListener listener) {
+        synchronized (registrationLock) {
+            cacheListeners = removeListener(cacheListeners, listener);
+        }
+    } // end unsubscribe()
+
+    /**
+     * Store a single String value, interning the attribute name if required.
+     *
+     * @param name The attribute name.
+     * @param value The value to store.
+     */
+    public void storeString(String name, String value) {
+        int id = intern(name);
+        Group group = groupOf.get(id);
+        group.beginWrite();
+        try {
+            group.setString(slotOf.get(id), value);
+        } finally {
+            group.endWrite();
+        }
+    } // end storeString()
+
+    /**
+     * Store a single String array value, interning the attribute name if required.
+     *
+     * @param name The attribute name.
+     * @param value The value to store.
+     */
+    public void storeStringArray(String name, String[] value) {
+        int id = intern(name);
+        Group group = groupOf.get(id);
+        group.beginWrite();
+        try {
+            group.setStringArray(slotOf.get(id), value);
+        } finally {
+            group.endWrite();
+        }
+    } // end storeStringArray()
+
+    /**
+     * Get the current value of an attribute as a String.
+     *
+     * @param id The attribute ID.
+     * @return The value as returned by {@linkplain Snapshot#getString(int)} or null
+     * if no value has been stored.
+     */
+    public String getString(int id) {
+        Group group;
+        long seq;
+        int type;
+        long valueBits;
+        Object ref;
+        int spins = 0;
+        do {
+            group = groupOf.get(id);
+            seq = group.awaitStableSequence(spins++);
+            type = types.get(id);
+            valueBits = bits.get(id);
+            ref = refs.get(id);
+        } while (group.sequence.get() != seq || groupOf.get(id) != group);
+
+        return valueToString(ValueType.fromOrdinal(type), valueBits, ref);
+    } // end getString()
+
+    /**
+     * Get the version of the update that last wrote the attribute.
+     *
+     * @param id The attribute ID.
+     * @return The attribute version, 0 if never written.
+     */
+    public long getVersion(int id) {
+        return versions.get(id);
+    } // end getVersion()
+
+    /*
+     *  Private methods
+     */
+
+    private int allocateId(String name) {
+        if (nextId >= capacity) {
+            throw new IllegalStateException("AttributeCache capacity of " + capacity +
+                    " attributes exhausted, can not add attribute '" + name + "'");
+        }
+        int id = nextId++;
+        names.set(id, name);
+        return id;
+    } // end allocateId()
+
+    private static IAttributeCacheListener[] addListener(IAttributeCacheListener[] current,
+            IAttributeCacheListener listener) {
+        IAttributeCacheListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        return updated;
+    } // end addListener()
+
+    private static IAttributeCacheListener[] removeListener(IAttributeCacheListener[] current,
+            IAttributeCacheListener listener) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                IAttributeCacheListener[] updated = new IAttributeCacheListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                return updated;
+            }
+        }
+        return current;
+    } // end removeListener()
+
+    private static void notifyListeners(IAttributeCacheListener[] listeners, Group group, long version) {
+        for (int i = 0; i < listeners.length; i++) {
+            try {
+                listeners[i].attributesUpdated(group, version);
+            } catch (RuntimeException ex) {
+                Log.warn(LOG_CAT, "listener " + listeners[i] + " failed handling update of group '" +
+                        group.getName() + "' version " + version + ": " + ex);
+            }
+        }
+    } // end notifyListeners()
+
+    private static String valueToString(ValueType type, long valueBits, Object ref) {
+        switch (type) {
+            case BOOLEAN:
+                return (valueBits != 0) ? "true" : "false";
+            case INTEGER:
+                return (ref != null) ? (String) ref : Long.toString(valueBits);
+            case REAL:
+                return (ref != null) ? (String) ref : Double.toString(Double.longBitsToDouble(valueBits));
+            case STRING:
+                return (String) ref;
+            case STRING_ARRAY:
+                return Arrays.toString((String[]) ref);
+            case NONE:
+            default:
+                return null;
+        }
+    } // end valueToString()
+
+    /**
+     * A group of attributes that is written and read as a unit, normally the data
+     * items of one PLC tag.
+     * <p>
+     * The group's sequence number is even while the group is stable and odd while a
+     * writer is updating it, the group version is half the sequence number.
+     */
+    public final class Group {
+        private final String name;
+        private final int[] ids;
+        private final AtomicLong sequence = new AtomicLong(0);
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile IAttributeCacheListener[] listeners = NO_LISTENERS;
+        /** Version being written by the current writer, only accessed holding writeLock. */
+        private long writeVersion;
+
+        private Group(String name, int[] ids) {
+            this.name = name;
+            this.ids = ids;
+        } // end Constructor
+
+        /**
+         * @return The name of this group.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The number of attribute slots in this group.
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * @param slot The slot within this group.
+         * @return The cache wide ID of the attribute in the slot.
+         */
+        public int getId(int slot) {
+            return ids[slot];
+        }
+
+        /**
+         * @return The names of the attributes in this group in slot order.
+         */
+        public String[] getAttributeNames() {
+            String[] attributeNames = new String[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                attributeNames[i] = names.get(ids[i]);
+            }
+            return attributeNames;
+        }
+
+        /**
+         * @return The version of the last completed update of this group, 0 if never written.
+         */
+        public long getVersion() {
+            return sequence.get() >>> 1;
+        }
+
+        /**
+         * Subscribe a listener to completed updates of this group.
+         *
+         * @param listener The listener to add.
+         */
+        public void subscribe(IAttributeCacheListener listener) {
+            synchronized (registrationLock) {
+                listeners = addListener(listeners, listener);
+            }
+        }
+
+        /**
+         * Remove a listener previously added with {@linkplain #subscribe(IAttributeCacheListener)}.
+         *
+         * @param listener The listener to remove.
+         */
+        public void unsubscribe(IAttributeCacheListener listener) {
+            synchronized (registrationLock) {
+                listeners = removeListener(listeners, listener);
+            }
+        }
+
+        /**
+         * Start an update of this group. Must be followed by {@linkplain #endWrite()}
+         * in a finally block.
+         */
+        public void beginWrite() {
+            writeLock.lock();
+            // sequence becomes odd, readers retry until endWrite()
+            writeVersion = (sequence.incrementAndGet() + 1) >>> 1;
+        }
+
+        /**
+         * Complete an update of this group, publishing the new version and notifying
+         * listeners.
+         */
+        public void endWrite() {
+            long version = writeVersion;
+            sequence.incrementAndGet();
+            writeLock.unlock();
+
+            notifyListeners(listeners, this, version);
+            notifyListeners(cacheListeners, this, version);
+        }
+
+        public void setBoolean(int slot, boolean value) {
+            setBits(slot, ValueType.BOOLEAN, value ? 1L : 0L, null);
+        }
+
+        public void setInteger(int slot, long value) {
+            setBits(slot, ValueType.INTEGER, value, null);
+        }
+
+        /**
+         * Store an integer value parsed from text, keeping the text as the slot's
+         * String representation so that it is returned exactly as it was read.
+         */
+        public void setInteger(int slot, long value, String text) {
+            setBits(slot, ValueType.INTEGER, value, text);
+        }
+
+        public void setReal(int slot, double value) {
+            setBits(slot, ValueType.REAL, Double.doubleToRawLongBits(value), null);
+        }
+
+        /**
+         * Store a real value parsed from text, keeping the text as the slot's
+         * String representation so that it is returned exactly as it was read.
+         */
+        public void setReal(int slot, double value, String text) {
+            setBits(slot, ValueType.REAL, Double.doubleToRawLongBits(value), text);
+        }
+
+        public void setString(int slot, String value) {
+            setRef(slot, ValueType.STRING, value);
+        }
+
+        public void setStringArray(int slot, String[] value) {
+            setRef(slot, ValueType.STRING_ARRAY, value);
+        }
+
+        /**
+         * Create a snapshot sized for this group, to be reused for every
+         * {@linkplain #read(Snapshot)}.
+         *
+         * @return A new empty snapshot.
+         */
+        public Snapshot newSnapshot() {
+            return new Snapshot(this);
+        }
+
+        /**
+         * Copy the current values of all attributes of this group into the given
+         * snapshot. No lock is taken; should a writer update the group during the
+         * copy it is repeated.
+         *
+         * @param snapshot A snapshot created by {@linkplain #newSnapshot()} of this group.
+         * @return The version of the values copied.
+         */
+        public long read(Snapshot snapshot) {
+            if (snapshot.group != this) {
+                throw new IllegalArgumentException("snapshot of group '" + snapshot.group.name +
+                        "' can not be used to read group '" + name + "'");
+            }
+            long seq;
+            int spins = 0;
+            do {
+                seq = awaitStableSequence(spins++);
+                for (int slot = 0; slot < ids.length; slot++) {
+                    int id = ids[slot];
+                    snapshot.types[slot] = types.get(id);
+                    snapshot.bits[slot] = bits.get(id);
+                    snapshot.refs[slot] = refs.get(id);
+                    snapshot.versions[slot] = versions.get(id);
+                }
+            } while (sequence.get() != seq);
+
+            snapshot.version = seq >>> 1;
+            return snapshot.version;
+        }
+
+        @Override
+        public String toString() {
+            return "AttributeCache.Group{name='" + name + "', size=" + ids.length + ", version=" + getVersion() + "}";
+        }
+
+        private void setBits(int slot, ValueType type, long valueBits, String text) {
+            checkWriter();
+            int id = ids[slot];
+            bits.set(id, valueBits);
+            refs.set(id, text);
+            types.set(id, type.ordinal());
+            versions.set(id, writeVersion);
+        }
+
+        private void setRef(int slot, ValueType type, Object ref) {
+            checkWriter();
+            int id = ids[slot];
+            refs.set(id, ref);
+            bits.set(id, 0L);
+            types.set(id, type.ordinal());
+            versions.set(id, writeVersion);
+        }
+
+        private void checkWriter() {
+            if (!writeLock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("group '" + name + "' written without calling beginWrite()");
+            }
+        }
+
+        private long awaitStableSequence(int spins) {
+            if (spins >= READ_SPINS_BEFORE_YIELD) {
+                Thread.yield();
+            }
+            long seq = sequence.get();
+            while ((seq & 1L) != 0) {
+                Thread.yield();
+                seq = sequence.get();
+            }
+            return seq;
+        }
+    } // end class Group
+
+    /**
+     * A reusable, consistent copy of the values of one {@linkplain Group} filled by
+     * {@linkplain Group#read(Snapshot)}. Snapshots are not thread safe, each reader
+     * should own its snapshot.
+     */
+    public static final class Snapshot {
+        private final Group group;
+        private final int[] types;
+        private final long[] bits;
+        private final Object[] refs;
+        private final long[] versions;
+        private long version;
+
+        private Snapshot(Group group) {
+            this.group = group;
+            int size = group.size();
+            types = new int[size];
+            bits = new long[size];
+            refs = new Object[size];
+            versions = new long[size];
+        }
+
+        /**
+         * @return The group this snapshot copies.
+         */
+        public Group getGroup() {
+            return group;
+        }
+
+        /**
+         * @return The group version at the time the snapshot was taken.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return types.length;
+        }
+
+        public ValueType getType(int slot) {
+            return ValueType.fromOrdinal(types[slot]);
+        }
+
+        /**
+         * @param slot The slot within the group.
+         * @return The version of the update that last wrote the slot, 0 if never written.
+         */
+        public long getVersion(int slot) {
+            return versions[slot];
+        }
+
+        /**
+         * Get a slot value as a boolean. String values are parsed with
+         * {@linkplain Boolean#parseBoolean(String)}, numeric values are true if non zero.
+         */
+        public boolean getBoolean(int slot) {
+            switch (getType(slot)) {
+                case BOOLEAN:
+                case INTEGER:
+                    return bits[slot] != 0;
+                case REAL:
+                    return Double.longBitsToDouble(bits[slot]) != 0.0;
+                case STRING:
+                    return Boolean.parseBoolean((String) refs[slot]);
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Get a slot value as a long. Real values are truncated, String values parsed.
+         *
+         * @throws NumberFormatException If a String value can not be parsed.
+         */
+        public long getInteger(int slot) {
+            switch (getType(slot)) {
+                case BOOLEAN:
+                case INTEGER:
+                    return bits[slot];
+                case REAL:
+                    return (long) Double.longBitsToDouble(bits[slot]);
+                case STRING:
+                    return Long.parseLong((String) refs[slot]);
+                default:
+                    return 0L;
+            }
+        }
+
+        /**
+         * Get a slot value as a double. String values are parsed.
+         *
+         * @throws NumberFormatException If a String value can not be parsed.
+         */
+        public double getReal(int slot) {
+            switch (getType(slot)) {
+                case BOOLEAN:
+                case INTEGER:
+                    return bits[slot];
+                case REAL:
+                    return Double.longBitsToDouble(bits[slot]);
+                case STRING:
+                    return Double.parseDouble((String) refs[slot]);
+                default:
+                    return 0.0;
+            }
+        }
+
+        /**
+         * Get a slot value in its String representation, for numeric values stored
+         * with their text the text as stored.
+         *
+         * @return The value as String or null if the slot has never been written.
+         */
+        public String getString(int slot) {
+            return valueToString(getType(slot), bits[slot], refs[slot]);
+        }
+
+        /**
+         * @return The String array stored in the slot or null if the slot holds another type.
+         */
+        public String[] getStringArray(int slot) {
+            return (types[slot] == ValueType.STRING_ARRAY.ordinal()) ? (String[]) refs[slot] : null;
+        }
+    } // end class Snapshot
+
+} // end class AttributeCache
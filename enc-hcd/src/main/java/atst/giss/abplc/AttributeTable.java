@@ -1,16 +1,36 @@
 package atst.giss.abplc;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class AttributeTable implements IAttributeTable {
 
-    public void insert(String key, String value) {
+    private final List<Attribute> attributes = new ArrayList<Attribute>();
 
+    public void insert(String key, String value) {
+        attributes.add(new Attribute(key, value));
     }
 
     public void insert(String key, String[] value) {
-
+        attributes.add(new Attribute(key, value));
     }
 
     public void insert (Attribute attribute) {
+        if (attribute != null) {
+            attributes.add(attribute);
+        }
+    }
+
+    public int size() {
+        return attributes.size();
+    }
+
+    public Attribute get(int index) {
+        return attributes.get(index);
+    }
 
+    @Override
+    public String toString() {
+        return attributes.toString();
     }
 }
@@ -1,25 +1,48 @@
 package atst.giss.abplc;
 
+/**
+ * Cache provides static access to the process wide {@linkplain AttributeCache}
+ * holding PLC tag item values and tag meta-data.
+ * <p>
+ * The static methods keep the interface used by {@linkplain PlcTag}; hot paths
+ * should obtain a {@linkplain AttributeCache.Group} from {@linkplain #getInstance()}
+ * and write or snapshot it directly.
+ */
+public class Cache {
 
-// dummy class to help things compile
+    /** Maximum number of attributes held by the process wide cache. */
+    public static final int DEFAULT_CAPACITY = 16384;
 
-public class Cache {
+    private static final AttributeCache CACHE = new AttributeCache(DEFAULT_CAPACITY);
 
-    public static Attribute lookup(String key) {
-        switch (key){
-            case "tag:RAW1:item:b1":
-                return new Attribute("dfd","sdfdf");
+    /**
+     * @return The process wide attribute cache.
+     */
+    public static AttributeCache getInstance() {
+        return CACHE;
+    }
 
+    public static Attribute lookup(String key) {
+        int id = CACHE.find(key);
+        if (id < 0) {
+            return null;
         }
-        return null;
+        return new Attribute(key, CACHE.getString(id));
     }
 
     public static void storeAll(IAttributeTable attributeTable) {
-
+        for (int i = 0; i < attributeTable.size(); i++) {
+            store(attributeTable.get(i));
+        }
     }
 
     public static void store(Attribute attribute) {
-
+        if (attribute.isArray()) {
+            CACHE.storeStringArray(attribute.getKey(), attribute.getValues());
+        }
+        else {
+            CACHE.storeString(attribute.getKey(), attribute.getValue());
+        }
     }
 
 }
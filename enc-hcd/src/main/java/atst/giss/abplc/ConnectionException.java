@@ -10,12 +10,12 @@ public class ConnectionException extends Exception {
 
     }
     public ConnectionException(String message) {
-
+        super(message);
     }
     public ConnectionException(String message, Throwable th) {
-
+        super(message, th);
     }
     public ConnectionException(Throwable th) {
-
+        super(th);
     }
 }
@@ -25,5 +25,61 @@ public interface IABPlcioMaster {
 	 */
 	public void plcAccess(IPlcioCall plcioCall)
 			throws ABPlcioExceptionPLCIO, ABPlcioExceptionJNI, ConnectionException;
+
+	/**
+	 * Carry out a batch of PLCIO function calls, e.g. all tag writes of one
+	 * {@linkplain PlcWriteBehindQueue} flush cycle.
+	 * <p>
+	 * A failing call does not stop the remaining calls of the batch, its
+	 * exception is stored in <code>errors</code> at the index of the call.
+	 * The default implementation calls {@linkplain #plcAccess(IPlcioCall)} for
+	 * each call in turn, {@linkplain ABPlcioMaster} carries out the whole batch
+	 * holding its PLC access lock once. Either way each call is a separate PLCIO
+	 * function call, PLCIO has no multi-tag access.
+	 * 
+	 * @param plcioCalls Array of call objects, the first <code>count</code> are used.
+	 * @param count The number of calls in the batch.
+	 * @param errors Array of at least <code>count</code> entries receiving the
+	 * exception of each failed call, or null for each successful call.
+	 * 
+	 * @return The number of calls that failed.
+	 */
+	public default int plcAccessBatch(IPlcioCall[] plcioCalls, int count, Exception[] errors) {
+		int failed = 0;
+		for (int i = 0; i < count; i++) {
+			try {
+				plcAccess(plcioCalls[i]);
+				errors[i] = null;
+			} catch (Exception ex) {
+				errors[i] = ex;
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Get the write-behind queue on which writes of changed tag members that need
+	 * not block the caller are queued for a connection.
+	 * 
+	 * @param connectionNumber The connection number returned by plc_open().
+	 * 
+	 * @return The connection's queue, or null if its writes are not queued.
+	 */
+	public default PlcWriteBehindQueue getWriteBehindQueue(int connectionNumber) {
+		return null;
+	}
+
+	/**
+	 * Get the reader through which tags are read on a connection without blocking
+	 * the caller.
+	 * 
+	 * @param connectionNumber The connection number returned by plc_open().
+	 * 
+	 * @return The connection's reader, or null if the connection has none.
+	 */
+	public default PlcAsyncReader getAsyncReader(int connectionNumber) {
+		return null;
+	}
 	
 } // end interface IABPlcioMaster
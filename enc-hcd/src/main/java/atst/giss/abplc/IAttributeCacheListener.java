@@ -0,0 +1,21 @@
+package atst.giss.abplc;
+
+/**
+ * Interface implemented by objects wishing to be told of updates to
+ * {@linkplain AttributeCache} groups.
+ * <p>
+ * Listeners are called on the thread that completed the update, after the
+ * group's write lock has been released, so implementations must return quickly
+ * and should read the new values with {@linkplain AttributeCache.Group#read(AttributeCache.Snapshot)}.
+ */
+public interface IAttributeCacheListener {
+
+	/**
+	 * Called after an update of a group has been completed.
+	 *
+	 * @param group The group that was updated.
+	 * @param version The version of the completed update.
+	 */
+	public void attributesUpdated(AttributeCache.Group group, long version);
+
+} // end interface IAttributeCacheListener
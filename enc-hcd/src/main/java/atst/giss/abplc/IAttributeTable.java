@@ -5,4 +5,8 @@ public interface IAttributeTable {
     public void insert(String key, String value);
 
     public void insert(Attribute attribute);
+
+    public int size();
+
+    public Attribute get(int index);
 }
@@ -0,0 +1,291 @@
+package atst.giss.abplc;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PlcAsyncReader provides non-blocking reads of PLC tags over one PLCIO connection:
+ * one async read per connection, reads queued.
+ * {@linkplain ABPlcioMaster} creates one for every connection it opens, see
+ * {@linkplain IABPlcioMaster#getAsyncReader(int)}.
+ * <p>
+ * {@linkplain #read(IPlcTag)} returns at once with a future completed with the read
+ * tag once the values have been read from the PLC, so the caller can overlap the PLC
+ * latency with other work rather than waiting in {@linkplain IABPlcioMaster#plcAccess(IPlcioCall)}.
+ * It is not a window of reads in flight: the master serializes the accesses to one
+ * connection, so one read per reader is outstanding at the master, issued from the
+ * reader's single I/O thread through its preallocated request slot. Further reads
+ * wait in a queue of at most {@linkplain #getMaxQueued()} reads and are issued in
+ * order; a read finding the queue full fails at once. Reads on different connections,
+ * through their own readers, overlap.
+ * <p>
+ * Futures are completed on the reader's I/O threads, dependent actions doing more
+ * than trivial work should use the <code>...Async</code> methods of the future.
+ */
+public class PlcAsyncReader implements AutoCloseable {
+
+    /*
+     *  Private class constants
+     */
+    /** Log category of PlcAsyncReader. */
+    private static final String LOG_CAT = "PLC_ASYNC_READER";
+
+    /** Default number of reads that may wait for the slot of a reader. */
+    public static final int DEFAULT_MAX_QUEUED = 64;
+
+    /*
+     *  Private instance variables
+     */
+    private final IABPlcioMaster master;
+    private final int connectionNumber;
+    private final int maxQueued;
+    private final ExecutorService ioExecutor;
+
+    /** The request slot, and whether it is free, only accessed holding this object's monitor. */
+    private final ReadSlot slot = new ReadSlot();
+    private boolean slotFree = true;
+
+    /** Reads waiting for a free slot, only accessed holding this object's monitor. */
+    private final ArrayDeque<IPlcTag> queuedTags = new ArrayDeque<IPlcTag>();
+    private final ArrayDeque<CompletableFuture<IPlcTag>> queuedFutures = new ArrayDeque<CompletableFuture<IPlcTag>>();
+
+    private boolean closed;
+
+    /*
+     *  Metrics
+     */
+    private final AtomicLong requestedReads = new AtomicLong();
+    private final AtomicLong completedReads = new AtomicLong();
+    private final AtomicLong failedReads = new AtomicLong();
+    private final AtomicLong queuedReads = new AtomicLong();
+    private final AtomicLong rejectedReads = new AtomicLong();
+
+    /**
+     * Create an asynchronous reader for an open PLCIO connection queueing at most
+     * {@linkplain #DEFAULT_MAX_QUEUED} reads.
+     *
+     * @param master The master through which the PLC is accessed.
+     * @param connectionNumber The connection number returned by plc_open().
+     */
+    public PlcAsyncReader(IABPlcioMaster master, int connectionNumber) {
+        this(master, connectionNumber, DEFAULT_MAX_QUEUED);
+    } // end Constructor
+
+    /**
+     * Create an asynchronous reader for an open PLCIO connection.
+     *
+     * @param master The master through which the PLC is accessed.
+     * @param connectionNumber The connection number returned by plc_open().
+     * @param maxQueued The number of reads that may wait for the outstanding one.
+     */
+    public PlcAsyncReader(IABPlcioMaster master, int connectionNumber, int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative, was " + maxQueued);
+        }
+        this.master = master;
+        this.connectionNumber = connectionNumber;
+        this.maxQueued = maxQueued;
+        ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PlcAsyncReader-" + connectionNumber);
+            thread.setDaemon(true);
+            return thread;
+        });
+    } // end Constructor
+
+    /**
+     * Read a tag from the PLC without waiting for the read to complete.
+     *
+     * @param tag The read tag to be read.
+     * @return A future completed with the tag, holding the values read, once the read
+     * completes, or completed exceptionally with the exception of the failed read, or
+     * with a ConnectionException if the reader is closed or its queue is full.
+     */
+    public CompletableFuture<IPlcTag> read(IPlcTag tag) {
+        if (tag.getDirection() != IPlcTag.DIRECTION_READ) {
+            throw new IllegalArgumentException("tag '" + tag.getName() + "' is not a read tag");
+        }
+        CompletableFuture<IPlcTag> future = new CompletableFuture<IPlcTag>();
+        requestedReads.incrementAndGet();
+
+        synchronized (this) {
+            if (closed) {
+                future.completeExceptionally(new ConnectionException("PlcAsyncReader of connection " +
+                        connectionNumber + " is closed"));
+                return future;
+            }
+            if (!slotFree) {
+                if (queuedTags.size() >= maxQueued) {
+                    rejectedReads.incrementAndGet();
+                    future.completeExceptionally(new ConnectionException("PlcAsyncReader of connection " +
+                            connectionNumber + " has " + maxQueued + " reads queued already"));
+                    return future;
+                }
+                queuedTags.addLast(tag);
+                queuedFutures.addLast(future);
+                queuedReads.incrementAndGet();
+                return future;
+            }
+            slotFree = false;
+        }
+        slot.start(tag, future);
+        return future;
+    } // end read()
+
+    /**
+     * @return The number of reads currently issued to the master, 0 or 1.
+     */
+    public synchronized int getOutstanding() {
+        return slotFree ? 0 : 1;
+    }
+
+    /**
+     * @return The number of reads currently waiting for a free slot.
+     */
+    public synchronized int getQueued() {
+        return queuedTags.size();
+    }
+
+    /**
+     * @return The number of reads that may wait for a free slot.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return The number of reads requested.
+     */
+    public long getRequestedReads() {
+        return requestedReads.get();
+    }
+
+    /**
+     * @return The number of reads completed successfully.
+     */
+    public long getCompletedReads() {
+        return completedReads.get();
+    }
+
+    /**
+     * @return The number of reads that failed.
+     */
+    public long getFailedReads() {
+        return failedReads.get();
+    }
+
+    /**
+     * @return The number of reads that had to wait for a free slot.
+     */
+    public long getQueuedReads() {
+        return queuedReads.get();
+    }
+
+    /**
+     * @return The number of reads failed at once because the queue was full.
+     */
+    public long getRejectedReads() {
+        return rejectedReads.get();
+    }
+
+    /**
+     * Stop the reader. Reads still waiting for a slot are completed exceptionally,
+     * outstanding reads are allowed to complete.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            ConnectionException ex = new ConnectionException("PlcAsyncReader of connection " +
+                    connectionNumber + " closed before read was issued");
+            while (!queuedFutures.isEmpty()) {
+                queuedTags.removeFirst();
+                queuedFutures.removeFirst().completeExceptionally(ex);
+            }
+        }
+        ioExecutor.shutdown();
+    } // end close()
+
+    @Override
+    public String toString() {
+        return "PlcAsyncReader{connection=" + connectionNumber +
+                ", requestedReads=" + getRequestedReads() +
+                ", completedReads=" + getCompletedReads() +
+                ", failedReads=" + getFailedReads() +
+                ", queuedReads=" + getQueuedReads() +
+                ", rejectedReads=" + getRejectedReads() + "}";
+    }
+
+    /*
+     * Private inner-class holding the outstanding read, reused for every read
+     * issued by the reader.
+     */
+    private class ReadSlot implements Runnable {
+        private final IPlcioCall call = new PlcioCall(IPlcioCall.PlcioMethodName.PLC_READ, connectionNumber, null);
+        private CompletableFuture<IPlcTag> future;
+
+        void start(IPlcTag tag, CompletableFuture<IPlcTag> readFuture) {
+            call.setParamTag(tag);
+            call.setCallTime(System.currentTimeMillis());
+            future = readFuture;
+            try {
+                ioExecutor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // reader closed between taking the slot and issuing the read
+                synchronized (PlcAsyncReader.this) {
+                    future = null;
+                    slotFree = true;
+                }
+                readFuture.completeExceptionally(new ConnectionException("PlcAsyncReader of connection " +
+                        connectionNumber + " is closed", ex));
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean more = true;
+            while (more) {
+                CompletableFuture<IPlcTag> readFuture = future;
+                IPlcTag tag = call.getParamTag();
+                Exception error = null;
+                try {
+                    master.plcAccess(call);
+                    tag = call.getParamTag();
+                } catch (Exception ex) {
+                    error = ex;
+                }
+
+                // take the next queued read on this thread, or return the slot, before
+                // completing the future so that dependent actions find the slot free
+                synchronized (PlcAsyncReader.this) {
+                    if (queuedTags.isEmpty()) {
+                        future = null;
+                        call.setParamTag(null);
+                        slotFree = true;
+                        more = false;
+                    }
+                    else {
+                        call.setParamTag(queuedTags.removeFirst());
+                        future = queuedFutures.removeFirst();
+                        call.setCallTime(System.currentTimeMillis());
+                    }
+                }
+
+                if (error == null) {
+                    completedReads.incrementAndGet();
+                    readFuture.complete(tag);
+                }
+                else {
+                    failedReads.incrementAndGet();
+                    Log.warn(LOG_CAT, "connection " + connectionNumber + " read of tag '" +
+                            tag.getName() + "' failed: " + error);
+                    readFuture.completeExceptionally(error);
+                }
+            }
+        }
+    } // end class ReadSlot
+
+} // end class PlcAsyncReader
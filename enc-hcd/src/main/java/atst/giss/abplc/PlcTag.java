@@ -162,6 +162,17 @@ public class PlcTag implements IPlcTag {
      *  {@linkplain AtstDate#getCurrent()}.toString() */
     private String valuesLastUpdated;
 
+    /** The Cache group holding this tag's data items followed by its last update
+     * time attribute, so that all items of one tag update are stored and read
+     * together. */
+    private AttributeCache.Group cacheGroup;
+
+    /** Snapshot of cacheGroup reused each time memberValues are set from the Cache. */
+    private AttributeCache.Snapshot cacheSnapshot;
+
+    /** The slot of the last update time attribute within cacheGroup. */
+    private int lastUpdateCacheSlot;
+
     /*
      *  Class methods
      */
@@ -570,6 +581,31 @@ public class PlcTag implements IPlcTag {
         memberValues = new String[totalMembers];
         valuesLastUpdated = null;
 
+        registerCacheGroup(tagItemNames);
+    }
+
+    /**
+     * Register the Cache group holding this tag's data items and resolve each item's
+     * slot within it, so that tag updates do not need to look attributes up by name.
+     */
+    private void registerCacheGroup(String[] tagItemNames) {
+        ArrayList<String> groupAttNames = new ArrayList<String>(tagItemMap.size() + 1);
+        ArrayList<TagItem> groupItems = new ArrayList<TagItem>(tagItemMap.size());
+        for (String itemName : tagItemNames) {
+            TagItem item = tagItemMap.get(itemName);
+            if (item != null) {
+                groupAttNames.add(item.getPropItemName());
+                groupItems.add(item);
+            }
+        }
+        lastUpdateCacheSlot = groupAttNames.size();
+        groupAttNames.add(propTagName + PROPERTY_LAST_UPDATE_TIME);
+
+        cacheGroup = Cache.getInstance().registerGroup(propTagName, groupAttNames.toArray(new String[0]));
+        cacheSnapshot = cacheGroup.newSnapshot();
+        for (int slot = 0; slot < groupItems.size(); slot++) {
+            groupItems.get(slot).setCacheSlot(slot);
+        }
     }
 
 
@@ -778,29 +814,21 @@ public class PlcTag implements IPlcTag {
         memberValues = newValues;
         valuesLastUpdated = new Date().toString();
         
-        // update the tag data items in Cache
-        AttributeTable tagItemsTable = new AttributeTable();
-        for (int memberIndex = 0; memberIndex < memberValues.length; memberIndex++) {
-            for (String itemName : tagMemberItemNamesMap.get(memberIndex)) {
-                TagItem item = tagItemMap.get(itemName);
-                if (item.isBoolean()) {
-                    int statusWord = Integer.parseInt(memberValues[memberIndex]);
-                    boolean val = ((statusWord & item.getBitMask()) == item.getBitMask());
-                    tagItemsTable.insert(item.propItemName, Boolean.toString(val));
-                }
-                else {
-                    tagItemsTable.insert(item.propItemName, memberValues[memberIndex]);
+        // update the tag data items and the tag last update time attribute in
+        // the Cache as a single update of this tag's Cache group
+        cacheGroup.beginWrite();
+        try {
+            for (int memberIndex = 0; memberIndex < memberValues.length; memberIndex++) {
+                for (String itemName : tagMemberItemNamesMap.get(memberIndex)) {
+                    tagItemMap.get(itemName).storeItemValueInCache(memberValues[memberIndex]);
                 }
             }
+            cacheGroup.setString(lastUpdateCacheSlot, valuesLastUpdated);
+        } finally {
+            cacheGroup.endWrite();
         }
         
-        // add the tag last update time attribute
-        tagItemsTable.insert(propTagName + PROPERTY_LAST_UPDATE_TIME, valuesLastUpdated);
-        
-        // store values in Cache
-        Cache.storeAll(tagItemsTable);
-        
-        //Log.debug(LOG_CAT, 4, "tag '" + tagName + "' values in Cache now = " + tagItemsTable.toString());
+        //Log.debug(LOG_CAT, 4, "tag '" + tagName + "' values in Cache now version " + cacheGroup.getVersion());
                 
         return memberValues.length;        
     } // end setMemberValues()
@@ -815,6 +843,9 @@ public class PlcTag implements IPlcTag {
                 //Misc.array2string(memberValues)
                 );
         
+        // take a consistent snapshot of all of this tag's data items in Cache
+        cacheGroup.read(cacheSnapshot);
+
         for (int memberIndex = 0; memberIndex < memberValues.length; memberIndex++) {
             // get the ArrayList containing all TagItem objects referencing all tag
             // data items stored in this tag member
@@ -824,7 +855,7 @@ public class PlcTag implements IPlcTag {
                 // if this tag member contains only 1 tag data item then simply copy
                 // this data item's value from Cache into the memberValues array
                 TagItem item = tagItemMap.get(memberTagItemNamesAL.get(0));
-                memberValues[memberIndex] = item.getItemValueFromCache();
+                memberValues[memberIndex] = item.getItemValueFromSnapshot(cacheSnapshot);
                 memberValuesSet++;
             }
             else if (memberTagItemNamesAL.size() > 1) {
@@ -845,7 +876,7 @@ public class PlcTag implements IPlcTag {
                         return -1;
                     }
                     
-                    if (item.getItemValueFromCache().equals(BOOLEAN_STRING_TRUE)) {
+                    if (cacheSnapshot.getBoolean(item.getCacheSlot())) {
                         statusWord |= item.getBitMask();
                     }
                     else {
@@ -1041,6 +1072,8 @@ public class PlcTag implements IPlcTag {
         private final int bitPos;
         private final int bitMask;
         private final boolean isBoolean;
+        /** Slot of this item within the tag's Cache group. */
+        private int cacheSlot = -1;
 
         // Constructor
         TagItem(String name, String propName, String propTypeString, int memberNum, char plcioType, int bytePos) {
@@ -1105,6 +1138,60 @@ public class PlcTag implements IPlcTag {
             return bitMask;
         } // end getBitMask()
         
+        int getCacheSlot() {
+            return cacheSlot;
+        } // end getCacheSlot()
+
+        void setCacheSlot(int slot) {
+            cacheSlot = slot;
+        } // end setCacheSlot()
+
+        /**
+         * Store this item's value, extracted from the given tag member value, as a
+         * typed value in the tag's Cache group. Numeric values keep the member value
+         * text so that they are read back exactly as received, values that can not be
+         * parsed are stored as String. Must be called between cacheGroup.beginWrite()
+         * and cacheGroup.endWrite().
+         */
+        void storeItemValueInCache(String memberValue) {
+            if (propItemType == null || memberValue == null) {
+                cacheGroup.setString(cacheSlot, memberValue);
+                return;
+            }
+            try {
+                if (this.isBoolean) {
+                    int statusWord = Integer.parseInt(memberValue.trim());
+                    cacheGroup.setBoolean(cacheSlot, (statusWord & bitMask) == bitMask);
+                    return;
+                }
+                switch (propItemType) {
+                    case INTEGER:
+                        cacheGroup.setInteger(cacheSlot, Long.parseLong(memberValue.trim()), memberValue);
+                        break;
+                    case REAL:
+                        cacheGroup.setReal(cacheSlot, Double.parseDouble(memberValue.trim()), memberValue);
+                        break;
+                    default:
+                        cacheGroup.setString(cacheSlot, memberValue);
+                        break;
+                }
+            } catch (NumberFormatException ex) {
+                // keep the value as read rather than losing it
+                cacheGroup.setString(cacheSlot, memberValue);
+            }
+        } // end storeItemValueInCache()
+
+        /**
+         * Get this item's value from a snapshot of the tag's Cache group in the
+         * String representation used by the tag's memberValues.
+         */
+        String getItemValueFromSnapshot(AttributeCache.Snapshot snapshot) {
+            if (this.isBoolean) {
+                return snapshot.getBoolean(cacheSlot) ? BOOLEAN_STRING_TRUE : BOOLEAN_STRING_FALSE;
+            }
+            return snapshot.getString(cacheSlot);
+        } // end getItemValueFromSnapshot()
+
         String getItemValueFromCache() {
             Attribute itemAtt = Cache.lookup(propItemName);
             String value = null;
@@ -0,0 +1,391 @@
+package atst.giss.abplc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PlcWriteBehindQueue collects the tag writes made on one PLCIO connection and
+ * issues them to the {@linkplain IABPlcioMaster} once per flush cycle.
+ * {@linkplain ABPlcioMaster} creates one for every connection it opens, writers
+ * not needing to wait for their write queue the members they change with
+ * {@linkplain #write(IPlcTag, int, String)} or {@linkplain #write(IPlcTag, String[])}
+ * on {@linkplain IABPlcioMaster#getWriteBehindQueue(int)}. The PLC_WRITE calls of
+ * {@linkplain ABPlcioMaster#plcAccess(IPlcioCall)} do not go through the queue,
+ * they write the whole tag at once.
+ * <p>
+ * Writes to a tag that already has a write pending are merged into it at tag
+ * member granularity, the last value written to each member wins. On each flush
+ * every tag with a pending write is written to the PLC once, with the members not
+ * written since the last flush keeping the tag's current member values; the
+ * writes of all tags are passed to the master as one
+ * {@linkplain IABPlcioMaster#plcAccessBatch(IPlcioCall[], int, Exception[])},
+ * which writes them one tag after the other.
+ * <p>
+ * Writes that must be confirmed are made with
+ * {@linkplain #writeConfirmed(IPlcTag, String[])}, the returned future completes
+ * once the PLC write containing the values has been carried out, or exceptionally
+ * if it failed. {@linkplain #flush()} writes all pending tags immediately.
+ */
+public class PlcWriteBehindQueue implements AutoCloseable {
+
+    /*
+     *  Private class constants
+     */
+    /** Log category of PlcWriteBehindQueue. */
+    private static final String LOG_CAT = "PLC_WRITE_BEHIND";
+
+    /*
+     *  Private instance variables
+     */
+    private final IABPlcioMaster master;
+    private final int connectionNumber;
+    private final long flushIntervalMs;
+
+    /** Pending write state of every tag ever written through this queue. */
+    private final Map<IPlcTag, PendingWrite> tagWrites = new HashMap<IPlcTag, PendingWrite>();
+
+    /** Tags with a pending write in order of their first write since the last flush. */
+    private final ArrayList<PendingWrite> pendingWrites = new ArrayList<PendingWrite>();
+
+    /** Writes taken from pendingWrites by the flush in progress, only used holding flushLock. */
+    private final ArrayList<PendingWrite> flushWrites = new ArrayList<PendingWrite>();
+    private IPlcioCall[] flushCalls = new IPlcioCall[0];
+    private Exception[] flushErrors = new Exception[0];
+
+    /** Lock serializing flushes, always taken before the queue's own monitor. */
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flushExecutor;
+
+    /*
+     *  Metrics
+     */
+    private final AtomicLong writeRequests = new AtomicLong();
+    private final AtomicLong mergedWrites = new AtomicLong();
+    private final AtomicLong issuedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong flushCycles = new AtomicLong();
+
+    /**
+     * Create a write-behind queue for an open PLCIO connection.
+     *
+     * @param master The master through which the PLC is accessed.
+     * @param connectionNumber The connection number returned by plc_open().
+     * @param flushIntervalMs The period of the flush cycle once {@linkplain #start()}ed.
+     */
+    public PlcWriteBehindQueue(IABPlcioMaster master, int connectionNumber, long flushIntervalMs) {
+        if (flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("flushIntervalMs must be positive, was " + flushIntervalMs);
+        }
+        this.master = master;
+        this.connectionNumber = connectionNumber;
+        this.flushIntervalMs = flushIntervalMs;
+    } // end Constructor
+
+    /**
+     * Start flushing pending writes every flush interval on a dedicated thread.
+     */
+    public synchronized void start() {
+        if (flushExecutor != null) {
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PlcWriteBehindQueue-" + connectionNumber);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleAtFixedRate(this::flushCycle, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    } // end start()
+
+    /**
+     * Stop the flush cycle and write all still pending tags.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flushExecutor;
+            flushExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    } // end close()
+
+    /**
+     * Queue a write of tag member values.
+     *
+     * @param tag The write tag to be written.
+     * @param memberValues New values indexed by tag member number, a null entry
+     * leaves the member unchanged. May be shorter than the tag's member total.
+     */
+    public void write(IPlcTag tag, String[] memberValues) {
+        enqueue(tag, memberValues, null);
+    } // end write()
+
+    /**
+     * Queue a write of a single tag member value.
+     *
+     * @param tag The write tag to be written.
+     * @param memberNum The tag member number.
+     * @param value The new member value.
+     */
+    public synchronized void write(IPlcTag tag, int memberNum, String value) {
+        PendingWrite pending = pendingWriteFor(tag);
+        pending.set(memberNum, value);
+        countRequest(pending);
+    } // end write()
+
+    /**
+     * Queue a write of tag member values that must be confirmed.
+     *
+     * @param tag The write tag to be written.
+     * @param memberValues New values indexed by tag member number, a null entry
+     * leaves the member unchanged.
+     *
+     * @return A future completed when the PLC write carrying these values has been
+     * carried out, or completed exceptionally with the exception of the failed write.
+     */
+    public CompletableFuture<Void> writeConfirmed(IPlcTag tag, String[] memberValues) {
+        CompletableFuture<Void> ack = new CompletableFuture<Void>();
+        enqueue(tag, memberValues, ack);
+        return ack;
+    } // end writeConfirmed()
+
+    /**
+     * Write all tags with pending writes to the PLC now, on the calling thread.
+     *
+     * @return The number of tag writes issued.
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            int count;
+            synchronized (this) {
+                count = pendingWrites.size();
+                if (count == 0) {
+                    return 0;
+                }
+                if (flushCalls.length < count) {
+                    flushCalls = new IPlcioCall[count];
+                    flushErrors = new Exception[count];
+                }
+                for (int i = 0; i < count; i++) {
+                    PendingWrite pending = pendingWrites.get(i);
+                    pending.prepareFlush();
+                    flushWrites.add(pending);
+                }
+                pendingWrites.clear();
+            }
+
+            // the PLC is accessed without holding the queue's monitor so that writers
+            // can queue the next cycle's writes meanwhile
+            long callTime = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                PendingWrite pending = flushWrites.get(i);
+                pending.tag.setMemberValues(pending.flushValues);
+                pending.call.setCallTime(callTime);
+                flushCalls[i] = pending.call;
+            }
+            int failed = master.plcAccessBatch(flushCalls, count, flushErrors);
+
+            for (int i = 0; i < count; i++) {
+                flushWrites.get(i).completeFlush(flushErrors[i]);
+                flushCalls[i] = null;
+                flushErrors[i] = null;
+            }
+            flushWrites.clear();
+
+            issuedWrites.addAndGet(count);
+            failedWrites.addAndGet(failed);
+            flushCycles.incrementAndGet();
+            if (failed > 0) {
+                Log.warn(LOG_CAT, "connection " + connectionNumber + " flush wrote " + count + " tags, " +
+                        failed + " writes failed");
+            }
+            else if (Log.getDebugLevel(LOG_CAT) >= 4) {
+                Log.debug(LOG_CAT, 4, "connection " + connectionNumber + " flush wrote " + count + " tags");
+            }
+            return count;
+        }
+    } // end flush()
+
+    /**
+     * @return The number of tags with a write waiting for the next flush.
+     */
+    public synchronized int getPendingTagCount() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * @return The number of write requests queued.
+     */
+    public long getWriteRequests() {
+        return writeRequests.get();
+    }
+
+    /**
+     * @return The number of write requests merged into an already pending tag write.
+     */
+    public long getMergedWrites() {
+        return mergedWrites.get();
+    }
+
+    /**
+     * @return The number of tag writes issued to the PLC.
+     */
+    public long getIssuedWrites() {
+        return issuedWrites.get();
+    }
+
+    /**
+     * @return The number of issued tag writes that failed.
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * @return The number of flushes that issued at least one tag write.
+     */
+    public long getFlushCycles() {
+        return flushCycles.get();
+    }
+
+    @Override
+    public String toString() {
+        long requests = getWriteRequests();
+        long issued = getIssuedWrites();
+        return "PlcWriteBehindQueue{connection=" + connectionNumber +
+                ", writeRequests=" + requests +
+                ", mergedWrites=" + getMergedWrites() +
+                ", issuedWrites=" + issued +
+                ", failedWrites=" + getFailedWrites() +
+                ", flushCycles=" + getFlushCycles() +
+                ", requestsPerIssuedWrite=" + ((issued == 0) ? 0.0 : (double) requests / issued) + "}";
+    }
+
+    /*
+     *  Private methods
+     */
+
+    private void flushCycle() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            // never let an exception cancel the scheduled flush cycle
+            Log.severe(LOG_CAT, "connection " + connectionNumber + " flush cycle failed: " + ex);
+        }
+    } // end flushCycle()
+
+    private synchronized void enqueue(IPlcTag tag, String[] memberValues, CompletableFuture<Void> ack) {
+        PendingWrite pending = pendingWriteFor(tag);
+        if (memberValues.length > pending.values.length) {
+            throw new IllegalArgumentException("tag '" + tag.getName() + "' has " + pending.values.length +
+                    " members, can not write " + memberValues.length + " values");
+        }
+        for (int memberNum = 0; memberNum < memberValues.length; memberNum++) {
+            if (memberValues[memberNum] != null) {
+                pending.set(memberNum, memberValues[memberNum]);
+            }
+        }
+        if (ack != null) {
+            pending.acks.add(ack);
+        }
+        countRequest(pending);
+    } // end enqueue()
+
+    private PendingWrite pendingWriteFor(IPlcTag tag) {
+        if (tag.getDirection() != IPlcTag.DIRECTION_WRITE) {
+            throw new IllegalArgumentException("tag '" + tag.getName() + "' is not a write tag");
+        }
+        PendingWrite pending = tagWrites.get(tag);
+        if (pending == null) {
+            pending = new PendingWrite(tag);
+            tagWrites.put(tag, pending);
+        }
+        return pending;
+    } // end pendingWriteFor()
+
+    private void countRequest(PendingWrite pending) {
+        writeRequests.incrementAndGet();
+        if (pending.queued) {
+            mergedWrites.incrementAndGet();
+        }
+        else {
+            pending.queued = true;
+            pendingWrites.add(pending);
+        }
+    } // end countRequest()
+
+    /*
+     * Private inner-class holding the merged, not yet written member values of one tag.
+     */
+    private class PendingWrite {
+        private final IPlcTag tag;
+        private final IPlcioCall call;
+        /** Member values written since the last flush, null if not written. */
+        private final String[] values;
+        /** Confirmations waiting for the next flush. */
+        private ArrayList<CompletableFuture<Void>> acks = new ArrayList<CompletableFuture<Void>>();
+        /** Confirmations of the flush in progress. */
+        private ArrayList<CompletableFuture<Void>> flushAcks = new ArrayList<CompletableFuture<Void>>();
+        /** Complete tag values of the flush in progress. */
+        private String[] flushValues;
+        private boolean queued;
+
+        PendingWrite(IPlcTag tag) {
+            this.tag = tag;
+            this.call = new PlcioCall(IPlcioCall.PlcioMethodName.PLC_WRITE, connectionNumber, tag);
+            this.values = new String[tag.getMemberTotal()];
+        }
+
+        void set(int memberNum, String value) {
+            values[memberNum] = value;
+        }
+
+        /** Called holding the queue's monitor. */
+        void prepareFlush() {
+            // a new array is needed as the tag keeps a reference to the values it is given
+            String[] current = tag.getMemberValues();
+            flushValues = (current == null) ? new String[values.length] : Arrays.copyOf(current, values.length);
+            for (int memberNum = 0; memberNum < values.length; memberNum++) {
+                if (values[memberNum] != null) {
+                    flushValues[memberNum] = values[memberNum];
+                    values[memberNum] = null;
+                }
+            }
+            ArrayList<CompletableFuture<Void>> swap = flushAcks;
+            flushAcks = acks;
+            acks = swap;
+            queued = false;
+        }
+
+        /** Called holding flushLock once the tag write has been carried out. */
+        void completeFlush(Exception error) {
+            for (int i = 0; i < flushAcks.size(); i++) {
+                if (error == null) {
+                    flushAcks.get(i).complete(null);
+                }
+                else {
+                    flushAcks.get(i).completeExceptionally(error);
+                }
+            }
+            flushAcks.clear();
+            flushValues = null;
+        }
+    } // end class PendingWrite
+
+} // end class PlcWriteBehindQueue
@@ -11,9 +11,10 @@ import csw.params.core.models.ArrayData;
 import csw.params.core.states.CurrentState;
 import csw.params.core.states.StateName;
 import csw.params.javadsl.JKeyType;
-import csw.params.javadsl.JUnits;
 import org.tmt.encsubsystem.enchcd.models.*;
 import org.tmt.encsubsystem.enchcd.simplesimulator.SimpleSimulator;
+import org.tmt.tcs.icd.enc.EncCurrentPositionState;
+import org.tmt.tcs.icd.enc.EncDemandPositionsState;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -247,12 +248,8 @@ public class JStatePublisherActor extends AbstractBehavior<JStatePublisherActor.
      * @return
      */
     private DemandPosition extractDemandPosition(CurrentState reverseCurrentState) {
-        Parameter<Double> basePosParam  = reverseCurrentState.jGet(DEMAND_POSITIONS_BASE_KEY).get();
-        Parameter<Double> capPosParam  = reverseCurrentState.jGet(DEMAND_POSITIONS_CAP_KEY).get();
-        Parameter<Instant> clientTimestampKey  = reverseCurrentState.jGet(CLIENT_TIMESTAMP_KEY).get();
-        Parameter<Instant> assemblyTimestampKey  = reverseCurrentState.jGet(ASSEMBLY_TIMESTAMP_KEY).get();
-        DemandPosition demandPosition = new DemandPosition(basePosParam.value(0), capPosParam.value(0), clientTimestampKey.value(0), assemblyTimestampKey.value(0), Instant.now());
-        return  demandPosition;
+        EncDemandPositionsState.Reader demand = EncDemandPositionsState.read(reverseCurrentState);
+        return new DemandPosition(demand.base(), demand.cap(), demand.clientTime(), demand.assemblyTime(), Instant.now());
     }
 
     private void onStart(StartMessage message) {
@@ -294,18 +291,14 @@ public class JStatePublisherActor extends AbstractBehavior<JStatePublisherActor.
         // example parameters for a current state
         CurrentPosition currentPosition = SimpleSimulator.getInstance().getCurrentPosition();
 
-        Parameter<Double> basePosParam = BASE_POS_KEY.set(currentPosition.getBase()).withUnits(JUnits.degree);
-        Parameter<Double> capPosParam = CAP_POS_KEY.set(currentPosition.getCap()).withUnits(JUnits.degree);
-        //this is the time when subsystem published current position.
-        Parameter<Instant> ecsSubsystemTimestampParam = SUBSYSTEM_TIMESTAMP_KEY.set(currentPosition.getTime());
-        //this is the time when ENC HCD processed current position
-        Parameter<Instant> encHcdTimestampParam = HCD_TIMESTAMP_KEY.set(Instant.now());
-
-        CurrentState currentStatePosition = new CurrentState(this.cswCtx.componentInfo().prefix(), new StateName(CURRENT_POSITION))
-                .add(basePosParam)
-                .add(capPosParam)
-                .add(ecsSubsystemTimestampParam)
-                .add(encHcdTimestampParam);
+        CurrentState currentStatePosition = EncCurrentPositionState.writer()
+                .base(currentPosition.getBase())
+                .cap(currentPosition.getCap())
+                //this is the time when subsystem published current position.
+                .subsystemTime(currentPosition.getTime())
+                //this is the time when ENC HCD processed current position
+                .hcdTime(Instant.now())
+                .toCurrentState(this.cswCtx.componentInfo().prefix());
 
         currentStatePublisher.publish(currentStatePosition);
      }
@@ -0,0 +1,205 @@
+package atst.giss.abplc;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AttributeCacheTest {
+
+    @Test
+    public void internedNamesMapToStableIds() {
+        AttributeCache cache = new AttributeCache(16);
+
+        int a = cache.intern("tag:A:item:x");
+        int b = cache.intern("tag:A:item:y");
+
+        assertNotEquals(a, b);
+        assertEquals(a, cache.intern("tag:A:item:x"));
+        assertEquals(a, cache.find("tag:A:item:x"));
+        assertEquals(-1, cache.find("tag:A:item:z"));
+        assertEquals("tag:A:item:y", cache.getName(b));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void capacityIsEnforced() {
+        AttributeCache cache = new AttributeCache(1);
+        cache.intern("a");
+        cache.intern("b");
+    }
+
+    @Test
+    public void snapshotReturnsTypedValuesAndVersions() {
+        AttributeCache cache = new AttributeCache(16);
+        AttributeCache.Group group = cache.registerGroup("tag:A", new String[] {"flag", "count", "pos", "name"});
+        AttributeCache.Snapshot snapshot = group.newSnapshot();
+
+        group.beginWrite();
+        try {
+            group.setBoolean(0, true);
+            group.setInteger(1, 42);
+            group.setReal(2, 1.5);
+            group.setString(3, "open");
+        } finally {
+            group.endWrite();
+        }
+        group.beginWrite();
+        try {
+            group.setInteger(1, 43);
+        } finally {
+            group.endWrite();
+        }
+
+        assertEquals(2, group.read(snapshot));
+        assertTrue(snapshot.getBoolean(0));
+        assertEquals(AttributeCache.ValueType.INTEGER, snapshot.getType(1));
+        assertEquals(43, snapshot.getInteger(1));
+        assertEquals(1.5, snapshot.getReal(2), 0.0);
+        assertEquals("open", snapshot.getString(3));
+        assertEquals(1, snapshot.getVersion(0));
+        assertEquals(2, snapshot.getVersion(1));
+        assertEquals("43", cache.getString(cache.find("count")));
+    }
+
+    @Test
+    public void sameGroupMayBeRegisteredTwice() {
+        AttributeCache cache = new AttributeCache(16);
+        AttributeCache.Group first = cache.registerGroup("tag:A", new String[] {"x", "y"});
+
+        assertSame(first, cache.registerGroup("tag:A", new String[] {"x", "y"}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void attributeCanNotBelongToTwoGroups() {
+        AttributeCache cache = new AttributeCache(16);
+        cache.registerGroup("tag:A", new String[] {"x", "y"});
+        cache.registerGroup("tag:B", new String[] {"y"});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeWithoutBeginWriteIsRejected() {
+        AttributeCache cache = new AttributeCache(16);
+        cache.registerGroup("tag:A", new String[] {"x"}).setInteger(0, 1);
+    }
+
+    @Test
+    public void listenersAreNotifiedOfCompletedUpdates() {
+        AttributeCache cache = new AttributeCache(16);
+        AttributeCache.Group group = cache.registerGroup("tag:A", new String[] {"x"});
+        AtomicLong groupVersion = new AtomicLong();
+        AtomicReference<AttributeCache.Group> cacheUpdate = new AtomicReference<>();
+        IAttributeCacheListener groupListener = (g, version) -> groupVersion.set(version);
+        group.subscribe(groupListener);
+        cache.subscribe((g, version) -> cacheUpdate.set(g));
+
+        cache.storeString("x", "1");
+        assertEquals(1, groupVersion.get());
+        assertSame(group, cacheUpdate.get());
+
+        group.unsubscribe(groupListener);
+        cache.storeString("x", "2");
+        assertEquals(1, groupVersion.get());
+    }
+
+    @Test
+    public void readersNeverSeeTornUpdates() throws InterruptedException {
+        final int slots = 8;
+        final int updates = 200000;
+        AttributeCache cache = new AttributeCache(64);
+        String[] names = new String[slots];
+        for (int i = 0; i < slots; i++) {
+            names[i] = "item" + i;
+        }
+        AttributeCache.Group group = cache.registerGroup("tag:TORN", names);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicInteger torn = new AtomicInteger();
+
+        Thread writer = new Thread(() -> {
+            for (long value = 1; value <= updates; value++) {
+                group.beginWrite();
+                try {
+                    for (int slot = 0; slot < slots; slot++) {
+                        group.setInteger(slot, value);
+                    }
+                } finally {
+                    group.endWrite();
+                }
+            }
+            done.set(true);
+        });
+        Thread reader = new Thread(() -> {
+            AttributeCache.Snapshot snapshot = group.newSnapshot();
+            while (!done.get()) {
+                long version = group.read(snapshot);
+                for (int slot = 0; slot < slots; slot++) {
+                    if (snapshot.getInteger(slot) != version || snapshot.getVersion(slot) != version) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        reader.start();
+        writer.start();
+        writer.join();
+        reader.join();
+
+        assertEquals(0, torn.get());
+        assertEquals(updates, group.getVersion());
+    }
+
+    @Test
+    public void plcTagMemberValuesAreStoredAsTypedItems() throws Exception {
+        String[] itemNames = {"i", "c"};
+        String[] itemTypes = {IPlcTag.PropTypes.REAL.getTypeString(), IPlcTag.PropTypes.STRING.getTypeString()};
+        PlcTag tag = new PlcTag("CACHE_TEST", IPlcTag.DIRECTION_READ, "rc", 10000, 2, 5, itemNames, itemTypes);
+
+        assertEquals(2, tag.setMemberValues(new String[] {"2.5", "122"}));
+
+        AttributeCache.Group group = Cache.getInstance().getGroup(IPlcTag.PROPERTY_TAG + ":CACHE_TEST");
+        AttributeCache.Snapshot snapshot = group.newSnapshot();
+        group.read(snapshot);
+        assertEquals(2.5, snapshot.getReal(0), 0.0);
+        assertEquals("122", snapshot.getString(1));
+        assertEquals(tag.getValuesLastUpdateString(), snapshot.getString(2));
+        assertEquals("2.5", Cache.lookup(tag.getTagItemPropName("i")).getString());
+
+        Cache.store(new Attribute(tag.getTagItemPropName("i"), "3.25"));
+        assertEquals(2, tag.setMemberValues());
+        assertEquals("3.25", tag.getMemberValue("i"));
+        assertEquals("122", tag.getMemberValue("c"));
+    }
+
+    @Test
+    public void plcTagNumericMemberValuesAreReadBackAsReceived() throws Exception {
+        String[] itemNames = {"n", "r"};
+        String[] itemTypes = {IPlcTag.PropTypes.INTEGER.getTypeString(), IPlcTag.PropTypes.REAL.getTypeString()};
+        PlcTag tag = new PlcTag("CACHE_TEXT_TEST", IPlcTag.DIRECTION_READ, "ri", 10000, 2, 5, itemNames, itemTypes);
+
+        assertEquals(2, tag.setMemberValues(new String[] {"3", "1e-3"}));
+
+        AttributeCache.Group group = Cache.getInstance().getGroup(IPlcTag.PROPERTY_TAG + ":CACHE_TEXT_TEST");
+        AttributeCache.Snapshot snapshot = group.newSnapshot();
+        group.read(snapshot);
+        assertEquals(3, snapshot.getInteger(0));
+        assertEquals("3", snapshot.getString(0));
+        assertEquals(0.001, snapshot.getReal(1), 0.0);
+        assertEquals("1e-3", snapshot.getString(1));
+        // member values rebuilt from the Cache are the values received
+        assertEquals(2, tag.setMemberValues());
+        assertEquals("3", tag.getMemberValue("n"));
+        assertEquals("1e-3", tag.getMemberValue("r"));
+
+        // values that are not numbers are kept as read
+        assertEquals(2, tag.setMemberValues(new String[] {"n/a", "3"}));
+        group.read(snapshot);
+        assertEquals(AttributeCache.ValueType.STRING, snapshot.getType(0));
+        assertEquals(2, tag.setMemberValues());
+        assertEquals("n/a", tag.getMemberValue("n"));
+        assertEquals("3", tag.getMemberValue("r"));
+    }
+}
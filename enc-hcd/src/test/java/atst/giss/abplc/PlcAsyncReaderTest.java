@@ -0,0 +1,121 @@
+package atst.giss.abplc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PlcAsyncReaderTest {
+
+    /** Master answering reads with a counter value once released. */
+    private static class GatedMaster implements IABPlcioMaster {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger maxInside = new AtomicInteger();
+        final AtomicInteger reads = new AtomicInteger();
+        volatile String failTag;
+
+        @Override
+        public void plcAccess(IPlcioCall plcioCall) throws ConnectionException {
+            maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                IPlcTag tag = plcioCall.getParamTag();
+                if (tag.getName().equals(failTag)) {
+                    throw new ConnectionException("read of " + failTag + " failed");
+                }
+                tag.setMemberValues(new String[] {Integer.toString(reads.incrementAndGet())});
+            } catch (InterruptedException ex) {
+                throw new ConnectionException(ex);
+            } finally {
+                inside.decrementAndGet();
+            }
+        }
+    }
+
+    private GatedMaster master;
+    private PlcAsyncReader reader;
+    private PlcTag statusTag;
+
+    @Before
+    public void setUp() throws Exception {
+        master = new GatedMaster();
+        reader = new PlcAsyncReader(master, 1, 4);
+        statusTag = new PlcTag("ASYNC_STATUS", IPlcTag.DIRECTION_READ, "j", 1000, 1, 4,
+                new String[] {"status"}, new String[] {IPlcTag.PropTypes.INTEGER.getTypeString()});
+    }
+
+    @After
+    public void tearDown() {
+        reader.close();
+    }
+
+    @Test
+    public void readsReturnWithoutWaitingOneOutstandingAtATime() throws Exception {
+        List<CompletableFuture<IPlcTag>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(reader.read(statusTag));
+        }
+
+        for (CompletableFuture<IPlcTag> future : futures) {
+            assertFalse(future.isDone());
+        }
+        assertEquals(1, reader.getOutstanding());
+        assertEquals(4, reader.getQueued());
+
+        CompletableFuture<IPlcTag> rejected = reader.read(statusTag);
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(4, reader.getQueued());
+        assertEquals(1, reader.getRejectedReads());
+
+        master.release.countDown();
+        for (CompletableFuture<IPlcTag> future : futures) {
+            assertSame(statusTag, future.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, master.maxInside.get());
+        assertEquals(5, reader.getCompletedReads());
+        assertEquals(4, reader.getQueuedReads());
+        assertEquals(0, reader.getOutstanding());
+        assertEquals("5", statusTag.getMemberValue("status"));
+    }
+
+    @Test
+    public void failedReadCompletesExceptionally() throws Exception {
+        master.failTag = "ASYNC_STATUS";
+        master.release.countDown();
+
+        try {
+            reader.read(statusTag).get(5, TimeUnit.SECONDS);
+            fail("failed read completed normally");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ConnectionException);
+        }
+        assertEquals(1, reader.getFailedReads());
+    }
+
+    @Test
+    public void closeFailsQueuedReads() throws Exception {
+        reader.read(statusTag);
+        CompletableFuture<IPlcTag> queued = reader.read(statusTag);
+
+        reader.close();
+        master.release.countDown();
+
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            fail("queued read completed after close");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ConnectionException);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package atst.giss.abplc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class PlcWriteBehindQueueTest {
+
+    /** Master recording the tag values of each write instead of accessing a PLC. */
+    private static class RecordingMaster implements IABPlcioMaster {
+        final List<String> writes = new ArrayList<>();
+        int batches;
+        String failTag;
+
+        @Override
+        public void plcAccess(IPlcioCall plcioCall) throws ConnectionException {
+            IPlcTag tag = plcioCall.getParamTag();
+            if (tag.getName().equals(failTag)) {
+                throw new ConnectionException("write of " + failTag + " failed");
+            }
+            writes.add(tag.getName() + "=" + tag.tagValuesToString());
+        }
+
+        @Override
+        public int plcAccessBatch(IPlcioCall[] plcioCalls, int count, Exception[] errors) {
+            batches++;
+            return IABPlcioMaster.super.plcAccessBatch(plcioCalls, count, errors);
+        }
+    }
+
+    private RecordingMaster master;
+    private PlcWriteBehindQueue queue;
+    private PlcTag posTag;
+    private PlcTag cmdTag;
+
+    @Before
+    public void setUp() throws Exception {
+        master = new RecordingMaster();
+        queue = new PlcWriteBehindQueue(master, 1, 1000);
+        String real = IPlcTag.PropTypes.REAL.getTypeString();
+        String integer = IPlcTag.PropTypes.INTEGER.getTypeString();
+        posTag = new PlcTag("WB_POS", IPlcTag.DIRECTION_WRITE, "rr", 1000, 2, 8,
+                new String[] {"base", "cap"}, new String[] {real, real});
+        cmdTag = new PlcTag("WB_CMD", IPlcTag.DIRECTION_WRITE, "j", 1000, 1, 4,
+                new String[] {"cmd"}, new String[] {integer});
+    }
+
+    @Test
+    public void writesToSameTagAreMergedPerMember() {
+        queue.write(posTag, new String[] {"1.0", "2.0"});
+        queue.write(posTag, new String[] {"1.5", null});
+        queue.write(posTag, 0, "1.75");
+
+        assertEquals(1, queue.flush());
+
+        assertEquals(1, master.writes.size());
+        assertEquals("WB_POS={[0] = '1.75', [1] = '2.0'}", master.writes.get(0));
+        assertEquals(3, queue.getWriteRequests());
+        assertEquals(2, queue.getMergedWrites());
+        assertEquals(1, queue.getIssuedWrites());
+    }
+
+    @Test
+    public void unwrittenMembersKeepLastWrittenValues() {
+        queue.write(posTag, new String[] {"1.0", "2.0"});
+        queue.flush();
+        queue.write(posTag, 1, "3.0");
+        queue.flush();
+
+        assertEquals("WB_POS={[0] = '1.0', [1] = '3.0'}", master.writes.get(1));
+    }
+
+    @Test
+    public void differentTagsAreWrittenInOneBatch() {
+        queue.write(posTag, new String[] {"1.0", "2.0"});
+        queue.write(cmdTag, new String[] {"7"});
+
+        assertEquals(2, queue.getPendingTagCount());
+        assertEquals(2, queue.flush());
+        assertEquals(1, master.batches);
+        assertEquals(2, master.writes.size());
+        assertEquals(0, queue.getPendingTagCount());
+        assertEquals(0, queue.flush());
+    }
+
+    @Test
+    public void confirmedWritesCompleteOnFlush() throws Exception {
+        CompletableFuture<Void> first = queue.writeConfirmed(cmdTag, new String[] {"1"});
+        CompletableFuture<Void> second = queue.writeConfirmed(cmdTag, new String[] {"2"});
+        assertFalse(first.isDone());
+
+        queue.flush();
+
+        assertTrue(first.isDone() && second.isDone());
+        first.get();
+        assertEquals("WB_CMD={[0] = '2'}", master.writes.get(0));
+    }
+
+    @Test
+    public void failedWriteCompletesConfirmationExceptionally() throws Exception {
+        master.failTag = "WB_CMD";
+        CompletableFuture<Void> failing = queue.writeConfirmed(cmdTag, new String[] {"1"});
+        CompletableFuture<Void> other = queue.writeConfirmed(posTag, new String[] {"1.0", "2.0"});
+
+        queue.flush();
+
+        other.get();
+        try {
+            failing.get();
+            fail("write of failing tag was confirmed");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ConnectionException);
+        }
+        assertEquals(1, queue.getFailedWrites());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readTagsAreRejected() throws Exception {
+        PlcTag readTag = new PlcTag("WB_READ", IPlcTag.DIRECTION_READ, "j", 1000, 1, 4,
+                new String[] {"status"}, new String[] {IPlcTag.PropTypes.INTEGER.getTypeString()});
+        queue.write(readTag, new String[] {"1"});
+    }
+
+    @Test
+    public void closeFlushesPendingWrites() {
+        queue.start();
+        queue.write(cmdTag, new String[] {"5"});
+        queue.close();
+
+        assertEquals(1, master.writes.size());
+    }
+}
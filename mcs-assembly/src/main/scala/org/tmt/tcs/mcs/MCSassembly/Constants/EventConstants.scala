@@ -2,6 +2,8 @@ package org.tmt.tcs.mcs.MCSassembly.Constants
 
 object EventConstants {
   val MOUNT_DEMAND_POSITION     = "mcsdemandpositions"
+  val DEMAND_FRAME              = "demandframe"
+  val DEMAND_FRAME_TICK         = "tick"
   val TPK_PREFIX                = "tcs.pk"
   val POITNTING_KERNEL_TRACK_ID = "mcs.trackID"
   val POINTING_KERNEL_AZ_POS    = "mcs.az"
@@ -4,15 +4,23 @@ import java.time.Instant
 import csw.params.core.generics.{Key, KeyType}
 import csw.params.core.models.{Prefix, Subsystem}
 import csw.params.events.{EventKey, EventName}
+import org.tmt.tcs.icd.mcs.{McsCurrentPosition, McsDiagnosis, McsDriveStatus, McsHealth, McsPositionDemandsEvent}
+import org.tmt.tcs.icd.pk.{PkDemandFrame, PkMcsDemandPositions}
 
+/*
+Names and keys of the events of the assembly. Those of the messages of tcs-interface.conf are taken from
+the generated classes rather than made again here.
+ */
 object EventHandlerConstants {
   //These parameters are needed by Position Demand Event
-  val PositionDemandKey: Set[EventKey] = Set(
-    EventKey(Prefix(EventConstants.TPK_PREFIX), EventName(EventConstants.MOUNT_DEMAND_POSITION))
-  )
+  val PositionDemandKey: Set[EventKey] = Set(PkMcsDemandPositions.EVENT_KEY)
 
-  val ASSEMBLY_POSDEMANDS_PREFIX = new Prefix("tcs.mcsA")
-  val ASSEMBLY_POSDEMANDS_EVENT  = new EventName("mcsA_demandpositions")
+  //Demand frame published by tpk carrying the demands of all subsystems for one tick
+  val DemandFrameKey: Set[EventKey]           = Set(PkDemandFrame.EVENT_KEY)
+  val DemandFrameTickKey: Key[java.lang.Long] = PkDemandFrame.TICK_KEY
+
+  val ASSEMBLY_POSDEMANDS_PREFIX: Prefix   = McsPositionDemandsEvent.PREFIX
+  val ASSEMBLY_POSDEMANDS_EVENT: EventName = McsPositionDemandsEvent.EVENT_NAME
 
   val mcsHCDPrefix = Prefix(Subsystem.MCS.toString)
 
@@ -26,36 +34,36 @@ object EventHandlerConstants {
   val TrackIDKey: Key[Int] = KeyType.IntKey.make(EventConstants.POITNTING_KERNEL_TRACK_ID)
 
   //These parameters are needed for current position event send from assembly to tpk
-  val CURRENT_POSITION_STATE                      = EventName(EventConstants.CURRENT_POSITION)
-  val CURRENT_POSITION_PREFIX                     = Prefix(EventConstants.CURRENT_POS_PREFIX)
-  val AzPosKey: Key[Double]                       = KeyType.DoubleKey.make(EventConstants.POINTING_KERNEL_AZ_POS)
-  val ElPosKey: Key[Double]                       = KeyType.DoubleKey.make(EventConstants.POINTING_KERNEL_EL_POS)
-  val AZ_POS_ERROR_KEY: Key[Double]               = KeyType.DoubleKey.make(EventConstants.AZ_POS_ERROR)
-  val EL_POS_ERROR_KEY: Key[Double]               = KeyType.DoubleKey.make(EventConstants.EL_POS_ERROR)
-  val AZ_InPosition_Key: Key[Boolean]             = KeyType.BooleanKey.make(EventConstants.AZ_InPosition)
-  val EL_InPosition_Key: Key[Boolean]             = KeyType.BooleanKey.make(EventConstants.EL_InPosition)
-  val TimeStampKey: Key[Instant]                  = KeyType.TimestampKey.make(EventConstants.TIMESTAMP)
-  val ASSEMBLY_RECEIVAL_TIME_KEY: Key[Instant]    = KeyType.TimestampKey.make(EventConstants.ASSEMBLY_RECEIVAL_TIME)
-  val HCD_Event_RECEV_TIME_KEY: Key[Instant]      = KeyType.TimestampKey.make(EventConstants.HCD_EVENT_RECEIVAL_TIME)
-  val ASSEMBLY_EVENT_RECEV_TIME_KEY: Key[Instant] = KeyType.TimestampKey.make(EventConstants.ASSEMBLY_EVENT_RECEIVAL_TIME)
+  val CURRENT_POSITION_STATE: EventName           = McsCurrentPosition.EVENT_NAME
+  val CURRENT_POSITION_PREFIX: Prefix             = McsCurrentPosition.PREFIX
+  val AzPosKey: Key[java.lang.Double]             = McsCurrentPosition.AZ_KEY
+  val ElPosKey: Key[java.lang.Double]             = McsCurrentPosition.EL_KEY
+  val AZ_POS_ERROR_KEY: Key[java.lang.Double]     = McsCurrentPosition.AZ_POS_ERROR_KEY
+  val EL_POS_ERROR_KEY: Key[java.lang.Double]     = McsCurrentPosition.EL_POS_ERROR_KEY
+  val AZ_InPosition_Key: Key[java.lang.Boolean]   = McsCurrentPosition.AZ_IN_POSITION_KEY
+  val EL_InPosition_Key: Key[java.lang.Boolean]   = McsCurrentPosition.EL_IN_POSITION_KEY
+  val TimeStampKey: Key[Instant]                  = McsCurrentPosition.TIME_KEY
+  val ASSEMBLY_RECEIVAL_TIME_KEY: Key[Instant]    = McsPositionDemandsEvent.ASSEMBLY_RECEIVAL_TIME_KEY
+  val HCD_Event_RECEV_TIME_KEY: Key[Instant]      = McsCurrentPosition.HCD_RECEIVAL_TIME_KEY
+  val ASSEMBLY_EVENT_RECEV_TIME_KEY: Key[Instant] = McsCurrentPosition.ASSEMBLY_RECEIVAL_TIME_KEY
 
   //These parameters are needed for diagnosis event
-  val DIAGNOSIS_STATE  = EventName(EventConstants.DIAGNOSIS_STATE)
-  val DIAGNOSIS_PREFIX = Prefix(EventConstants.DIAGNOSIS_PREFIX)
+  val DIAGNOSIS_STATE: EventName = McsDiagnosis.EVENT_NAME
+  val DIAGNOSIS_PREFIX: Prefix   = McsDiagnosis.PREFIX
 
   //These parameters are needed for Health event
-  val HEALTH_STATE                   = EventName(EventConstants.HEALTH_STATE)
-  val HEALTH_PREFIX                  = Prefix(EventConstants.Health_Prefix)
-  val HEALTH_KEY: Key[String]        = KeyType.StringKey.make(EventConstants.HealthKey)
-  val HEALTH_REASON_KEY: Key[String] = KeyType.StringKey.make(EventConstants.HealthReason)
+  val HEALTH_STATE: EventName        = McsHealth.EVENT_NAME
+  val HEALTH_PREFIX: Prefix          = McsHealth.PREFIX
+  val HEALTH_KEY: Key[String]        = McsHealth.HEALTH_KEY
+  val HEALTH_REASON_KEY: Key[String] = McsHealth.REASON_KEY
 
-  //These parameters are needed for Drive State
-  val DRIVE_STATE                           = EventName(EventConstants.DRIVE_STATE)
-  val LIFECYCLE_PREFIX                      = Prefix(EventConstants.DRIVE_STATE_PREFIX)
-  val PROCESSING_PARAM_KEY: Key[Boolean]    = KeyType.BooleanKey.make(EventConstants.MCS_PROCESSING_COMMAND)
-  val MCS_LIFECYCLE_STATTE_KEY: Key[String] = KeyType.StringKey.make(EventConstants.MCS_LIFECYCLE_STATE_KEY)
-  val MCS_AZ_STATE: Key[String]             = KeyType.StringKey.make(EventConstants.MCS_AZ_STATE)
-  val MCS_EL_STATE: Key[String]             = KeyType.StringKey.make(EventConstants.MCS_EL_STATE)
+  //These parameters are needed for Drive State, published under the key of the Health event
+  val DRIVE_STATE: EventName                       = McsDriveStatus.EVENT_NAME
+  val LIFECYCLE_PREFIX: Prefix                     = McsDriveStatus.PREFIX
+  val PROCESSING_PARAM_KEY: Key[java.lang.Boolean] = McsDriveStatus.PROCESSING_KEY
+  val MCS_LIFECYCLE_STATTE_KEY: Key[String]        = McsDriveStatus.LIFECYCLE_KEY
+  val MCS_AZ_STATE: Key[String]                    = McsDriveStatus.AZ_STATE_KEY
+  val MCS_EL_STATE: Key[String]                    = McsDriveStatus.EL_STATE_KEY
 
   //These are parameters needed for dummy events
   val DUMMY_STATE             = EventName(EventConstants.DUMMY_STATE)
@@ -0,0 +1,113 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+import akka.util.Timeout
+import com.typesafe.config.Config
+import csw.command.api.scaladsl.CommandService
+import csw.event.api.scaladsl.EventPublisher
+import csw.framework.CurrentStatePublisher
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.events.SystemEvent
+import org.tmt.tcs.mcs.MCSassembly.msgTransformer.EventTransformerHelper
+
+import scala.concurrent.duration._
+
+object DemandRouter {
+  val CurrentStatePath = "current-state"
+  val EventPath        = "event"
+  val OneWayPath       = "oneway"
+
+  val Paths: Array[String] = Array(CurrentStatePath, EventPath, OneWayPath)
+
+  // modes sending the same demand stream through all the paths
+  val Interleaved = "interleaved"
+  val Sequential  = "sequential"
+
+  /*
+  path   - one of Paths, or Interleaved or Sequential
+  period - time each path is used for in turn when Sequential
+   */
+  case class Settings(path: String, period: FiniteDuration)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(config.getString("path"), FiniteDuration(config.getDuration("period", TimeUnit.MILLISECONDS), MILLISECONDS))
+  }
+}
+
+/*
+Sends the position demands received by the assembly on to the HCD by one of the paths the HCD
+takes them by:
+- current-state: published as CurrentState by the assembly, which the HCD subscribes to
+- event: published as mcsA_demandpositions events through the event service
+- oneway: sent as oneway PositionDemands commands
+
+Interleaved sends each demand by the next path in turn and Sequential uses each path for period in
+turn, so that the HCD in simple simulator mode reports the latencies of the paths for the same
+demands from one run.
+
+route is called by the demand subscription, one demand at a time; the HCD location is set by the
+event handler actor.
+ */
+class DemandRouter(settings: DemandRouter.Settings,
+                   currentStatePublisher: CurrentStatePublisher,
+                   eventPublisher: EventPublisher,
+                   eventTransformer: EventTransformerHelper,
+                   loggerFactory: LoggerFactory) {
+  import DemandRouter._
+
+  require(Paths.contains(settings.path) || settings.path == Interleaved || settings.path == Sequential,
+          s"unknown demand transport '${settings.path}'")
+
+  private val log                                   = loggerFactory.getLogger
+  implicit private val timeout: Timeout             = Timeout(5.seconds)
+  @volatile private var hcd: Option[CommandService] = None
+
+  private val fixedPath: Int   = Paths.indexOf(settings.path)
+  private val start: Long      = System.nanoTime()
+  private var routed: Long     = 0
+  private var currentPath: Int = -1
+  private val sent             = Paths.map(_ => new AtomicLong())
+  // oneway demands received while the HCD is not located
+  private val undelivered = new AtomicLong()
+
+  def hcdLocationChanged(hcdLocation: Option[CommandService]): Unit = hcd = hcdLocation
+
+  /*
+  Sends the demand, stamped with its assembly receival time, by the path whose turn it is.
+   */
+  def route(event: SystemEvent): Unit = {
+    val path = nextPath()
+    if (path != currentPath) {
+      if (fixedPath < 0 && settings.path == Sequential) log.info(s"Sending position demands as ${Paths(path)}")
+      currentPath = path
+    }
+    Paths(path) match {
+      case CurrentStatePath =>
+        currentStatePublisher.publish(eventTransformer.getCurrentState(event))
+        sent(path).incrementAndGet()
+      case EventPath =>
+        eventPublisher.publish(eventTransformer.getAssemblyDemandEvent(event))
+        sent(path).incrementAndGet()
+      case OneWayPath =>
+        hcd match {
+          case Some(commandService) =>
+            commandService.oneway(eventTransformer.getOneWayCommandObject(event))
+            sent(path).incrementAndGet()
+          case None => undelivered.incrementAndGet()
+        }
+    }
+  }
+
+  def stats: String =
+    Paths.indices.map(i => s"${Paths(i)}=${sent(i).get}").mkString("position demands sent: ", ", ", s", undelivered=${undelivered.get}")
+
+  private def nextPath(): Int =
+    if (fixedPath >= 0) fixedPath
+    else if (settings.path == Interleaved) {
+      routed += 1
+      (routed % Paths.length).toInt
+    } else ((System.nanoTime() - start) / settings.period.toNanos % Paths.length).toInt
+}
@@ -0,0 +1,113 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+import com.typesafe.config.Config
+import csw.event.api.scaladsl.{EventSubscriber, EventSubscription, SubscriptionModes}
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.events.{Event, EventKey}
+import org.HdrHistogram.Histogram
+
+import scala.concurrent.duration.{FiniteDuration, MILLISECONDS}
+
+object DemandSubscription {
+  // every event delivered, however far behind the callback is
+  val Every = "every"
+  // the latest event at each interval, none when nothing was published in between
+  val RateLimiter = "rate-limiter"
+  // an event at each interval, the latest one repeated when nothing was published in between
+  val RateAdapter = "rate-adapter"
+
+  val Modes: Array[String] = Array(Every, RateLimiter, RateAdapter)
+
+  /*
+  mode           - one of Modes
+  interval       - interval of the rate-limiter and rate-adapter modes
+  lagLogInterval - interval at which the lag of the events received is logged
+   */
+  case class Settings(mode: String, interval: FiniteDuration, lagLogInterval: FiniteDuration)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(
+        config.getString("mode"),
+        FiniteDuration(config.getDuration("interval", TimeUnit.MILLISECONDS), MILLISECONDS),
+        FiniteDuration(config.getDuration("lag-log-interval", TimeUnit.MILLISECONDS), MILLISECONDS)
+      )
+  }
+
+  // longer lags are recorded as this
+  val HighestLagMicros: Long   = TimeUnit.MINUTES.toMicros(1)
+  private val SignificantDigits = 3
+  private val Percentiles       = Array(50.0, 90.0, 99.0)
+
+  // lag of an event of eventTime received at received, in microseconds, 0 when negative and HighestLagMicros at most
+  private[MCSassembly] def lagMicros(eventTime: Instant, received: Instant): Long =
+    math.min(math.max((epochNanos(received) - epochNanos(eventTime)) / 1000, 0L), HighestLagMicros)
+
+  private def epochNanos(instant: Instant): Long = instant.getEpochSecond * 1000000000L + instant.getNano
+}
+
+/*
+Subscription of the assembly to the position demands of tpk in the mode set in configuration, so
+that the assembly sheds load in a known way when tpk publishes faster than the demands are
+handled: with rate-limiter only the latest demand of each interval is handled.
+
+The lag of each event handed to the callback, from its event time set by the publisher to its
+receipt, is recorded and logged every lagLogInterval, the totals since the subscription being
+given by stats. The clocks of tpk and the assembly are taken as synchronized, a negative lag is
+recorded as 0.
+
+The lag is recorded by the subscription callback only, stats is read without synchronization.
+ */
+class DemandSubscription(settings: DemandSubscription.Settings, subscriber: EventSubscriber, loggerFactory: LoggerFactory) {
+  import DemandSubscription._
+
+  require(Modes.contains(settings.mode), s"unknown demand subscription mode '${settings.mode}'")
+
+  private val log = loggerFactory.getLogger
+
+  private val interval: Histogram = new Histogram(HighestLagMicros, SignificantDigits)
+  private val total: Histogram    = new Histogram(HighestLagMicros, SignificantDigits)
+  private val lagLogNanos: Long   = settings.lagLogInterval.toNanos
+  private var lastLogged: Long    = System.nanoTime()
+
+  /*
+  Subscribes callback to the events of eventKeys in the configured mode.
+   */
+  def subscribe(eventKeys: Set[EventKey], callback: Event => Unit): EventSubscription = {
+    log.info(s"Subscribing to $eventKeys, mode ${settings.mode}")
+    val measured = (event: Event) => {
+      record(event)
+      callback(event)
+    }
+    settings.mode match {
+      case Every       => subscriber.subscribeCallback(eventKeys, measured)
+      case RateLimiter => subscriber.subscribeCallback(eventKeys, measured, settings.interval, SubscriptionModes.RateLimiterMode)
+      case RateAdapter => subscriber.subscribeCallback(eventKeys, measured, settings.interval, SubscriptionModes.RateAdapterMode)
+    }
+  }
+
+  def stats: String = {
+    val all = total.copy()
+    all.add(interval)
+    summary(s"demand subscription ${settings.mode} lag since start", all)
+  }
+
+  private def record(event: Event): Unit = {
+    interval.recordValue(lagMicros(event.eventTime.time, Instant.now()))
+    val now = System.nanoTime()
+    if (now - lastLogged >= lagLogNanos) {
+      log.info(summary(s"demand subscription ${settings.mode} lag", interval))
+      total.add(interval)
+      interval.reset()
+      lastLogged = now
+    }
+  }
+
+  private def summary(title: String, histogram: Histogram): String =
+    s"$title: count=${histogram.getTotalCount}, " +
+    Percentiles.map(p => s"p$p=${histogram.getValueAtPercentile(p) / 1000.0} ms").mkString(", ") +
+    s", max=${histogram.getMaxValue / 1000.0} ms"
+}
@@ -33,128 +33,86 @@ object EventMessage {
 
 object EventHandlerActor {
   def createObject(eventService: EventService,
-                   hcdLocation: Option[CommandService],
                    eventTransformer: EventTransformerHelper,
                    currentStatePublisher: CurrentStatePublisher,
+                   demandRouter: DemandRouter,
+                   demandSubscription: DemandSubscription,
                    loggerFactory: LoggerFactory): Behavior[EventMessage] =
     Behaviors.setup(
       ctx =>
         EventHandlerActor(
           ctx: ActorContext[EventMessage],
           eventService: EventService,
-          hcdLocation: Option[CommandService],
           eventTransformer: EventTransformerHelper,
           currentStatePublisher: CurrentStatePublisher,
+          demandRouter: DemandRouter,
+          demandSubscription: DemandSubscription,
           loggerFactory: LoggerFactory
       )
     )
 }
 /*
 This actor is responsible consuming incoming events to MCS Assembly and publishing outgoing
-events from MCS Assembly using CSW EventService
+events from MCS Assembly using CSW EventService. It stays one behavior for its lifetime, the HCD
+location being held by the DemandRouter; telemetry is published by TelemetryFanOut instead.
  */
 case class EventHandlerActor(ctx: ActorContext[EventMessage],
                              eventService: EventService,
-                             hcdLocation: Option[CommandService],
                              eventTransformer: EventTransformerHelper,
                              currentStatePublisher: CurrentStatePublisher,
+                             demandRouter: DemandRouter,
+                             demandSubscription: DemandSubscription,
                              loggerFactory: LoggerFactory)
     extends AbstractBehavior[EventMessage] {
 
   private val log                           = loggerFactory.getLogger
   implicit val ec: ExecutionContextExecutor = ctx.executionContext
   implicit val duration: Timeout            = 20 seconds
-  private val eventSubscriber               = eventService.defaultSubscriber
   private val eventPublisher                = eventService.defaultPublisher
 
   override def onMessage(msg: EventMessage): Behavior[EventMessage] = {
     msg match {
       case _: StartEventSubscription => subscribeEventMsg()
       case x: hcdLocationChanged =>
-        EventHandlerActor.createObject(eventService, x.hcdLocation, eventTransformer, currentStatePublisher, loggerFactory)
-      case x: PublishHCDState => publishReceivedEvent(x.event)
-      case _: StartPublishingDummyEvent =>
-        EventHandlerActor.createObject(eventService, hcdLocation, eventTransformer, currentStatePublisher, loggerFactory)
+        demandRouter.hcdLocationChanged(x.hcdLocation)
+        Behavior.same
+      case x: PublishHCDState =>
+        eventPublisher.publish(x.event)
+        Behavior.same
+      case _: StartPublishingDummyEvent => Behavior.same
       case _ =>
         log.error(s"************************ Received unknown message  in EventHandlerActor $msg *********************")
-        EventHandlerActor.createObject(eventService, hcdLocation, eventTransformer, currentStatePublisher, loggerFactory)
+        Behavior.same
     }
   }
 
-  private def publishReceivedEvent(event: Event): Behavior[EventMessage] = {
-    eventPublisher.publish(event)
-    //log.error(s"Published event : $event")
-    EventHandlerActor.createObject(eventService, hcdLocation, eventTransformer, currentStatePublisher, loggerFactory)
-  }
   /*
    *This function subscribes to position demand Events received from Other TCS Assemblies
-   * using CSW EventService
+   * using CSW EventService, either the mount demand events or the demand frames of tpk
+   * depending upon tcs.mcs-assembly.demand-source, in the mode of
+   * tcs.mcs-assembly.demand-subscription, see DemandSubscription
    */
   private def subscribeEventMsg(): Behavior[EventMessage] = {
     //log.info(msg = s"Started subscribing events Received from tpkAssembly.")
-    eventSubscriber.subscribeCallback(EventHandlerConstants.PositionDemandKey, event => sendEventByAssemblyCurrentState(event))
-    EventHandlerActor.createObject(eventService, hcdLocation, eventTransformer, currentStatePublisher, loggerFactory)
+    val demandKeys = ctx.system.settings.config.getString("tcs.mcs-assembly.demand-source") match {
+      case "frame" => EventHandlerConstants.DemandFrameKey
+      case _       => EventHandlerConstants.PositionDemandKey
+    }
+    demandSubscription.subscribe(demandKeys, event => sendDemand(event))
+    Behavior.same
   }
   /*
-    This function publishes position demands by using currentStatePublisher
+    This function stamps the position demands with their receival time and sends them on to the HCD
+    by the path selected by tcs.mcs-assembly.demand-transport, see DemandRouter
    */
-  private def sendEventByAssemblyCurrentState(msg: Event): Unit = {
-
+  private def sendDemand(msg: Event): Unit = {
     msg match {
       case systemEvent: SystemEvent =>
-        val event        = systemEvent.add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(Instant.now()))
-        val currentState = eventTransformer.getCurrentState(event)
-        currentStatePublisher.publish(currentState)
+        demandRouter.route(systemEvent.add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(Instant.now())))
       case _ => log.error(s"Unable to map received position demands from tpk assembly to systemEvent: $msg")
     }
-    // Future.successful("Successfully sent positionDemand by CurrentStatePublisher")
   }
 
-  /*
-      This function publishes event by using EventPublisher to the HCD
-   */
-  /* private def sendEventByEventPublisher(msg: Event): Future[_] = {
-    msg match {
-      case systemEvent: SystemEvent =>
-        log.info(s"Received event : $systemEvent")
-        val assemblyRecTime = Instant.now()
-        val event =
-          new SystemEvent(EventHandlerConstants.ASSEMBLY_POSDEMANDS_PREFIX, EventHandlerConstants.ASSEMBLY_POSDEMANDS_EVENT)
-            .add(systemEvent.get(EventHandlerConstants.AzPosKey).get)
-            .add(systemEvent.get(EventHandlerConstants.ElPosKey).get)
-            .add(systemEvent.get(EventHandlerConstants.TimeStampKey).get)
-            .add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(assemblyRecTime))
-        log.info(s" *** publishing positionDemand event: $event from EventHandlerActor *** ")
-        eventPublisher.publish(event)
-    }
-    Future.successful("Successfully sent positionDemand by event publisher")
-  }*/
-
-  /*
-    This function takes event input from EventSubscriber and if event is instance of
-    SystemEvent it builds controlObject from systemEvent and sends this to HCD on commanService
-    as a oneWayCommand.
-   */
-  /*private def sendEventByOneWayCommand(msg: Event, hcdLocation: Option[CommandService]): Future[_] = {
-
-    log.info(
-      s"*** Received positionDemand event: $msg to EventHandler OneWay ControlCommand ***"
-    )
-    msg match {
-      case systemEvent: SystemEvent =>
-        val event                          = systemEvent.add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(Instant.now()))
-        val controlCommand: ControlCommand = eventTransformer.getOneWayCommandObject(event)
-        hcdLocation match {
-          case Some(commandService) =>
-            val response = Await.result(commandService.oneway(controlCommand), 5.seconds)
-            Future.successful(s"Successfully submitted positionDemand Event, response for the same is : $msg")
-          case None =>
-            Future.failed(new Exception("Unable to send event to assembly through oneWay command"))
-        }
-      case _ =>
-        Future.failed(new Exception("Unable to send event to assembly through oneWay command"))
-    }
-  }*/
   /*private def publishDummyEventFromAssembly(): Unit = {
 
     log.info(msg = "Started publishing dummy Events from Assembly per 80 seconds")
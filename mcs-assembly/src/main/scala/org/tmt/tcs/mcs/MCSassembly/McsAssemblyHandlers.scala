@@ -59,14 +59,39 @@ class McsAssemblyHandlers(
 
   private val eventTransformer: EventTransformerHelper = EventTransformerHelper.create(loggerFactory)
 
+  private val demandRouter: DemandRouter = new DemandRouter(
+    DemandRouter.Settings(ctx.system.settings.config.getConfig("tcs.mcs-assembly.demand-transport")),
+    currentStatePublisher,
+    eventService.defaultPublisher,
+    eventTransformer,
+    loggerFactory
+  )
+
+  private val demandSubscription: DemandSubscription = new DemandSubscription(
+    DemandSubscription.Settings(ctx.system.settings.config.getConfig("tcs.mcs-assembly.demand-subscription")),
+    eventService.defaultSubscriber,
+    loggerFactory
+  )
+
   val eventHandlerActor: ActorRef[EventMessage] =
-    ctx.spawn(EventHandlerActor.createObject(eventService, hcdLocation, eventTransformer, currentStatePublisher, loggerFactory),
-              name = "EventHandlerActor")
+    ctx.spawn(
+      EventHandlerActor.createObject(eventService,
+                                     eventTransformer,
+                                     currentStatePublisher,
+                                     demandRouter,
+                                     demandSubscription,
+                                     loggerFactory),
+      name = "EventHandlerActor"
+    )
+
+  private val telemetry: TelemetryFanOut =
+    TelemetryFanOut(TelemetryFanOut.Settings(ctx.system.settings.config.getConfig("tcs.mcs-assembly.telemetry")), eventService)
 
   val monitorActor: ActorRef[MonitorMessage] = ctx.spawn(
     MonitorActor.createObject(AssemblyLifeCycleState.Initalized,
                               AssemblyOperationalState.Ready,
                               eventHandlerActor,
+                              telemetry,
                               eventTransformer,
                               loggerFactory),
     name = "MonitorActor"
@@ -93,6 +118,10 @@ class McsAssemblyHandlers(
    */
   override def onShutdown(): Future[Unit] = Future {
     log.debug(msg = "Shutting down MCS Assembly")
+    log.info(demandRouter.stats)
+    log.info(demandSubscription.stats)
+    log.info(telemetry.stats)
+    telemetry.shutdown()
     monitorActor ! AssemblyLifeCycleStateChangeMsg(AssemblyLifeCycleState.Shutdown)
     lifeCycleActor ! ShutdownMsg()
   }
@@ -8,8 +8,7 @@ import csw.command.api.scaladsl.CommandService
 import csw.logging.scaladsl.LoggerFactory
 import csw.params.core.generics.{KeyType, Parameter}
 import csw.params.core.states.CurrentState
-import csw.params.events.SystemEvent
-import org.tmt.tcs.mcs.MCSassembly.Constants.{EventConstants, EventHandlerConstants}
+import org.tmt.tcs.mcs.MCSassembly.Constants.EventConstants
 import org.tmt.tcs.mcs.MCSassembly.MonitorMessage._
 import org.tmt.tcs.mcs.MCSassembly.Constants.EventConstants.HCDState_Off
 import org.tmt.tcs.mcs.MCSassembly.Constants.EventConstants.HCDState_Initialized
@@ -49,36 +48,50 @@ object MonitorActor {
   def createObject(assemblyState: AssemblyLifeCycleState.AssemblyState,
                    assemblyMotionState: AssemblyOperationalState.AssemblyMotionState,
                    eventHandlerActor: ActorRef[EventMessage],
+                   telemetry: TelemetryFanOut,
                    eventTransformer: EventTransformerHelper,
                    loggerFactory: LoggerFactory): Behavior[MonitorMessage] =
     Behaviors.setup(
-      ctx => MonitorActor(ctx, assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
+      ctx => MonitorActor(ctx, assemblyState, assemblyMotionState, eventHandlerActor, telemetry, eventTransformer, loggerFactory)
     )
 
 }
 /*
-This actor is responsible for maintaing state of MCS assembly
+This actor is responsible for maintaing state of MCS assembly, held in its fields from the initial
+states it is created with, and for handing the current states of the HCD on as telemetry.
  */
 case class MonitorActor(ctx: ActorContext[MonitorMessage],
-                        assemblyState: AssemblyLifeCycleState.AssemblyState,
-                        assemblyMotionState: AssemblyOperationalState.AssemblyMotionState,
+                        initialAssemblyState: AssemblyLifeCycleState.AssemblyState,
+                        initialAssemblyMotionState: AssemblyOperationalState.AssemblyMotionState,
                         eventHandlerActor: ActorRef[EventMessage],
+                        telemetry: TelemetryFanOut,
                         eventTransformer: EventTransformerHelper,
                         loggerFactory: LoggerFactory)
     extends AbstractBehavior[MonitorMessage] {
 
   private val log = loggerFactory.getLogger
 
+  private var assemblyState: AssemblyLifeCycleState.AssemblyState               = initialAssemblyState
+  private var assemblyMotionState: AssemblyOperationalState.AssemblyMotionState = initialAssemblyMotionState
+
   /*
   This function updates states as per messages received and publishes current states as per
   request recevied
    */
   override def onMessage(msg: MonitorMessage): Behavior[MonitorMessage] = {
     msg match {
-      case x: AssemblyLifeCycleStateChangeMsg   => onAssemblyLifeCycleStateChangeMsg(x)
-      case x: AssemblyOperationalStateChangeMsg => onAssemblyOperationalStateChangeMsg(x)
-      case x: LocationEventMsg                  => onLocationEvent(x.hcdLocation)
-      case x: currentStateChangeMsg             => onCurrentStateChange(x)
+      case x: AssemblyLifeCycleStateChangeMsg =>
+        onAssemblyLifeCycleStateChangeMsg(x)
+        Behavior.same
+      case x: AssemblyOperationalStateChangeMsg =>
+        onAssemblyOperationalStateChangeMsg(x)
+        Behavior.same
+      case x: LocationEventMsg =>
+        onLocationEvent(x.hcdLocation)
+        Behavior.same
+      case x: currentStateChangeMsg =>
+        onCurrentStateChange(x)
+        Behavior.same
       case x: GetCurrentState =>
         x.actorRef ! AssemblyCurrentState(assemblyState, assemblyMotionState)
         Behavior.same
@@ -90,44 +103,38 @@ case class MonitorActor(ctx: ActorContext[MonitorMessage],
   /*
   This function updates assembly lifecycle state
    */
-  def onAssemblyLifeCycleStateChangeMsg(x: MonitorMessage with AssemblyLifeCycleStateChangeMsg): Behavior[MonitorMessage] = {
+  def onAssemblyLifeCycleStateChangeMsg(x: MonitorMessage with AssemblyLifeCycleStateChangeMsg): Unit = {
     log.info(msg = s"Successfully changed monitor assembly lifecycle state to ${x.assemblyState}")
-    MonitorActor.createObject(x.assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
+    assemblyState = x.assemblyState
   }
   /*
  This function updates assembly operational state
    */
-  def onAssemblyOperationalStateChangeMsg(x: MonitorMessage with AssemblyOperationalStateChangeMsg): Behavior[MonitorMessage] = {
+  def onAssemblyOperationalStateChangeMsg(x: MonitorMessage with AssemblyOperationalStateChangeMsg): Unit = {
     log.info(msg = s"Successfully changed monitor actor state to ${x.assemblyMotionState}")
-    MonitorActor.createObject(assemblyState, x.assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
+    assemblyMotionState = x.assemblyMotionState
   }
   /*
-  This function receives hcd lifecycle state, current position and other current states
-   amd accordingly derives assembly operational state and publishes HCD current states to eventHandler Actor
-   for publishing to other TCS Assemblies
-   Also this actor sends current states received from HCD to EventHandlerActor for publishing
+   This function receives hcd lifecycle state, current position and other current states
+   amd accordingly derives assembly operational state and publishes HCD current states
+   to other TCS Assemblies through the telemetry fan-out, see TelemetryFanOut
    */
-  def onCurrentStateChange(x: MonitorMessage with currentStateChangeMsg): Behavior[MonitorMessage] = {
+  def onCurrentStateChange(x: MonitorMessage with currentStateChangeMsg): Unit = {
 
     val currentState: CurrentState = x.currentState
     currentState.stateName.name match {
       case HCDLifecycleState =>
         updateAssemblyState(currentState)
       case CURRENT_POSITION =>
-        val currentPosition: SystemEvent = eventTransformer.getCurrentPositionEvent(currentState, Instant.now())
-        eventHandlerActor ! PublishHCDState(currentPosition)
-        MonitorActor.createObject(assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
+        telemetry.publish(TelemetryFanOut.CurrentPosition, eventTransformer.getCurrentPositionEvent(currentState, Instant.now()))
       case DIAGNOSIS_STATE =>
-        eventHandlerActor ! PublishHCDState(eventTransformer.getDiagnosisEvent(currentState, Instant.now()))
-        Behavior.same
+        telemetry.publish(TelemetryFanOut.Diagnosis, eventTransformer.getDiagnosisEvent(currentState, Instant.now()))
       case HEALTH_STATE =>
-        val health = eventTransformer.getHealthEvent(currentState, Instant.now())
-        eventHandlerActor ! PublishHCDState(health)
-        MonitorActor.createObject(assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
+        telemetry.publish(TelemetryFanOut.Health, eventTransformer.getHealthEvent(currentState, Instant.now()))
       case DRIVE_STATE =>
-        val driveState = eventTransformer.getDriveState(currentState, Instant.now())
-        eventHandlerActor ! PublishHCDState(driveState)
-        Behavior.same
+        telemetry.publish(TelemetryFanOut.DriveStatus, eventTransformer.getDriveState(currentState, Instant.now()))
+      case _ =>
+        log.error(s"Unknown current state ${currentState.stateName.name} received by MonitorActor")
     }
   }
   /*
@@ -144,7 +151,7 @@ case class MonitorActor(ctx: ActorContext[MonitorMessage],
       disconnected accordingly same is sent to communicated to eventHandlerActor
 
    */
-  private def updateAssemblyState(currentState: CurrentState): Behavior[MonitorMessage] = {
+  private def updateAssemblyState(currentState: CurrentState): Unit = {
 
     val optHcdLifeCycleStateParam: Option[Parameter[String]] =
       currentState.get(EventConstants.HCDLifecycleState, KeyType.StringKey)
@@ -155,83 +162,34 @@ case class MonitorActor(ctx: ActorContext[MonitorMessage],
           AssemblyCurrentState(AssemblyLifeCycleState.Running, AssemblyOperationalState.Running)
         val assemblyStateEvent = eventTransformer.getAssemblyEvent(assemblyCurrentState)
         eventHandlerActor ! PublishHCDState(assemblyStateEvent)
-        MonitorActor.createObject(AssemblyLifeCycleState.Running,
-                                  AssemblyOperationalState.Running,
-                                  eventHandlerActor,
-                                  eventTransformer,
-                                  loggerFactory)
+        assemblyState = AssemblyLifeCycleState.Running
+        assemblyMotionState = AssemblyOperationalState.Running
       case HCDState_Initialized =>
-        MonitorActor.createObject(assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
       case HCDState_Off =>
         eventHandlerActor ! PublishHCDState(
           eventTransformer
             .getAssemblyEvent(AssemblyCurrentState(AssemblyLifeCycleState.Shutdown, AssemblyOperationalState.Disconnected))
         )
-        MonitorActor.createObject(AssemblyLifeCycleState.Shutdown,
-                                  AssemblyOperationalState.Disconnected,
-                                  eventHandlerActor,
-                                  eventTransformer,
-                                  loggerFactory)
+        assemblyState = AssemblyLifeCycleState.Shutdown
+        assemblyMotionState = AssemblyOperationalState.Disconnected
       case _ =>
         log.error(
           s"********************** Unknown HCD State received to MonitorActor ************** state is : $hcdLifeCycleState"
         )
-        MonitorActor.createObject(assemblyState, assemblyMotionState, eventHandlerActor, eventTransformer, loggerFactory)
     }
   }
 
   //TODO : here add logic for updating states from slewing --> tracking and vice-versa
-  /* private def updateOperationalState(hcdOperationStateParam: Parameter[String]) = {
-    val hcdOperationalState = hcdOperationStateParam.head
-    if (hcdOperationalState == "ServoOffDatumed" || hcdOperationalState == "ServoOffDrivePowerOn") {
-      log.info(
-        msg =
-          s"Updated operational state of assembly  on receipt of hcd operataional state : ${hcdOperationalState} is ${AssemblyOperationalState.Running}"
-      )
-      MonitorActor.createObject(AssemblyLifeCycleState.Running, AssemblyOperationalState.Running, loggerFactory)
 
-    } else if (hcdOperationalState == "Following") {
-      log.info(
-        msg =
-          s"Updated operational state of assembly  on receipt of hcd operataional state : ${hcdOperationalState} is ${AssemblyOperationalState.Slewing}"
-      )
-      MonitorActor.createObject(AssemblyLifeCycleState.Running, AssemblyOperationalState.Slewing, loggerFactory) //slewing or tracking
-
-    } else if (hcdOperationalState == "PointingDatumed" || hcdOperationalState == "PointingDrivePowerOn") {
-      log.info(
-        msg =
-          s"Updated operational state of assembly  on receipt of hcd operataional state : ${hcdOperationalState} is ${AssemblyOperationalState.Slewing}"
-      )
-      MonitorActor.createObject(AssemblyLifeCycleState.Running, AssemblyOperationalState.Slewing, loggerFactory) //slewing or tracking
-
-    } else {
-      MonitorActor.createObject(assemblyState, assemblyMotionState, loggerFactory)
-
-    }
-
-  }*/
-
-  def onLocationEvent(hcdLocation: Option[CommandService]): Behavior[MonitorMessage] = {
+  def onLocationEvent(hcdLocation: Option[CommandService]): Unit = {
     hcdLocation match {
       case Some(_) =>
         if (assemblyState == AssemblyLifeCycleState.RunningOffline) {
-          MonitorActor.createObject(AssemblyLifeCycleState.Running,
-                                    assemblyMotionState,
-                                    eventHandlerActor,
-                                    eventTransformer,
-                                    loggerFactory)
-        } else {
-          Behavior.same
+          assemblyState = AssemblyLifeCycleState.Running
         }
-
       case None =>
         log.error("Assembly got disconnected from HCD")
-        MonitorActor.createObject(AssemblyLifeCycleState.RunningOffline,
-                                  assemblyMotionState,
-                                  eventHandlerActor,
-                                  eventTransformer,
-                                  loggerFactory)
-
+        assemblyState = AssemblyLifeCycleState.RunningOffline
     }
   }
 }
@@ -0,0 +1,78 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import com.typesafe.config.Config
+import csw.event.api.scaladsl.EventService
+import csw.params.events.Event
+
+object TelemetryFanOut {
+  // streams of the telemetry published by the assembly
+  val CurrentPosition = 0
+  val Diagnosis       = 1
+  val Health          = 2
+  val DriveStatus     = 3
+
+  val StreamNames: Array[String] = Array("current-position", "diagnosis", "health", "drive-status")
+
+  /*
+  maxRates - events published per second at most on each stream, in the order of StreamNames,
+             0 for every event
+   */
+  case class Settings(maxRates: Seq[Double])
+
+  object Settings {
+    def apply(config: Config): Settings = Settings(StreamNames.map(name => config.getDouble(s"$name-rate")).toSeq)
+  }
+
+  /*
+  Fan-out publishing each stream through a publisher of its own, so that a burst on one stream
+  does not queue behind another.
+   */
+  def apply(settings: Settings, eventService: EventService): TelemetryFanOut = {
+    val publishers = StreamNames.map(_ => eventService.makeNewPublisher())
+    val sinks      = publishers.map(publisher => (event: Event) => { publisher.publish(event); () })
+    new TelemetryFanOut(settings, sinks, () => publishers.foreach(_.shutdown()))
+  }
+}
+
+/*
+Last stage of the telemetry of the assembly: current position, diagnosis, health and drive status
+events derived from the current states of the HCD, each published by the sink of its stream.
+
+An event coming sooner than 1 / max rate after the last one published on its stream is dropped
+before it is even built, the event being passed by name, so that a rate limited stream costs the
+assembly next to nothing beyond its limit.
+
+Called by the monitor actor only. The counts are read for the log without synchronization.
+ */
+class TelemetryFanOut(settings: TelemetryFanOut.Settings, sinks: Array[Event => Unit], close: () => Unit) {
+  import TelemetryFanOut._
+
+  require(sinks.length == StreamNames.length && settings.maxRates.length == StreamNames.length,
+          s"one sink and one rate per stream expected, was ${sinks.length} and ${settings.maxRates.length}")
+
+  private val minIntervalNanos: Array[Long] = settings.maxRates.map(rate => if (rate > 0) (1e9 / rate).toLong else 0L).toArray
+  private val lastPublished: Array[Long]    = Array.fill(StreamNames.length)(0L)
+  private val published: Array[Long]        = new Array[Long](StreamNames.length)
+  private val dropped: Array[Long]          = new Array[Long](StreamNames.length)
+
+  /*
+  Publishes the event on stream unless its rate limit has been reached.
+   */
+  def publish(stream: Int, event: => Event): Unit = {
+    val now = System.nanoTime()
+    if (published(stream) != 0 && now - lastPublished(stream) < minIntervalNanos(stream)) {
+      dropped(stream) += 1
+    } else {
+      sinks(stream)(event)
+      lastPublished(stream) = now
+      published(stream) += 1
+    }
+  }
+
+  def stats: String =
+    StreamNames.indices
+      .map(i => s"${StreamNames(i)}: published=${published(i)}, dropped=${dropped(i)}")
+      .mkString("telemetry ", "; ", "")
+
+  def shutdown(): Unit = close()
+}
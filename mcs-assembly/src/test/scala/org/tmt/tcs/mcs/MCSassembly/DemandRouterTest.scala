@@ -0,0 +1,121 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import java.time.Instant
+
+import akka.util.Timeout
+import com.typesafe.config.ConfigFactory
+import csw.command.api.scaladsl.CommandService
+import csw.event.api.scaladsl.EventPublisher
+import csw.framework.CurrentStatePublisher
+import csw.logging.scaladsl.{Logger, LoggerFactory}
+import csw.params.commands.ControlCommand
+import csw.params.core.states.CurrentState
+import csw.params.events.{Event, SystemEvent}
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{atLeastOnce, times, verify, when}
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions
+import org.tmt.tcs.mcs.MCSassembly.Constants.EventHandlerConstants
+import org.tmt.tcs.mcs.MCSassembly.msgTransformer.EventTransformerHelper
+
+import scala.concurrent.duration.DurationInt
+
+class DemandRouterTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val loggerFactory = mock[LoggerFactory]
+  when(loggerFactory.getLogger).thenReturn(mock[Logger])
+
+  private val demand: SystemEvent = PkMcsDemandPositions
+    .writer()
+    .az(120.5)
+    .el(45.25)
+    .sequence(1L)
+    .time(Instant.ofEpochSecond(1000000))
+    .toEvent
+    .add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(Instant.ofEpochSecond(1000000, 2000000)))
+
+  private class Fixture(path: String, periodMillis: Int = 1000) {
+    val currentStatePublisher: CurrentStatePublisher = mock[CurrentStatePublisher]
+    val eventPublisher: EventPublisher               = mock[EventPublisher]
+    val hcd: CommandService                          = mock[CommandService]
+    val router = new DemandRouter(DemandRouter.Settings(path, periodMillis.millis),
+                                  currentStatePublisher,
+                                  eventPublisher,
+                                  EventTransformerHelper(loggerFactory),
+                                  loggerFactory)
+
+    def route(demands: Int): Unit = (1 to demands).foreach(_ => router.route(demand))
+
+    def sent(currentState: Int, event: Int, oneway: Int): Unit = {
+      verify(currentStatePublisher, times(currentState)).publish(any[CurrentState])
+      verify(eventPublisher, times(event)).publish(any[Event])
+      verify(hcd, times(oneway)).oneway(any[ControlCommand])(any[Timeout])
+    }
+  }
+
+  test("demands are published as current state") {
+    val fixture = new Fixture(DemandRouter.CurrentStatePath)
+    fixture.route(3)
+    fixture.sent(currentState = 3, event = 0, oneway = 0)
+    fixture.router.stats shouldBe "position demands sent: current-state=3, event=0, oneway=0, undelivered=0"
+  }
+
+  test("demands are published as events") {
+    val fixture = new Fixture(DemandRouter.EventPath)
+    fixture.route(3)
+    fixture.sent(currentState = 0, event = 3, oneway = 0)
+  }
+
+  test("oneway demands are sent once the HCD is located and counted as undelivered before") {
+    val fixture = new Fixture(DemandRouter.OneWayPath)
+    fixture.route(2)
+    fixture.router.hcdLocationChanged(Some(fixture.hcd))
+    fixture.route(3)
+    fixture.sent(currentState = 0, event = 0, oneway = 3)
+    fixture.router.stats shouldBe "position demands sent: current-state=0, event=0, oneway=3, undelivered=2"
+
+    fixture.router.hcdLocationChanged(None)
+    fixture.route(1)
+    fixture.router.stats should endWith("undelivered=3")
+  }
+
+  test("interleaved demands take each path in turn") {
+    val fixture = new Fixture(DemandRouter.Interleaved)
+    fixture.router.hcdLocationChanged(Some(fixture.hcd))
+    fixture.route(1)
+    fixture.sent(currentState = 0, event = 1, oneway = 0)
+    fixture.route(1)
+    fixture.sent(currentState = 0, event = 1, oneway = 1)
+    fixture.route(1)
+    fixture.sent(currentState = 1, event = 1, oneway = 1)
+    fixture.route(6)
+    fixture.sent(currentState = 3, event = 3, oneway = 3)
+  }
+
+  test("sequential demands take each path for the period") {
+    val long = new Fixture(DemandRouter.Sequential, periodMillis = 3600000)
+    long.route(5)
+    long.sent(currentState = 5, event = 0, oneway = 0)
+
+    val short = new Fixture(DemandRouter.Sequential, periodMillis = 20)
+    short.router.hcdLocationChanged(Some(short.hcd))
+    val end = System.nanoTime() + 200.millis.toNanos
+    while (System.nanoTime() < end) {
+      short.route(1)
+      Thread.sleep(1)
+    }
+    verify(short.currentStatePublisher, atLeastOnce()).publish(any[CurrentState])
+    verify(short.eventPublisher, atLeastOnce()).publish(any[Event])
+    verify(short.hcd, atLeastOnce()).oneway(any[ControlCommand])(any[Timeout])
+  }
+
+  test("unknown paths are rejected") {
+    an[IllegalArgumentException] should be thrownBy new Fixture("carrier-pigeon")
+  }
+
+  test("settings are read from the config") {
+    DemandRouter.Settings(ConfigFactory.parseString("path = oneway, period = 2s")) shouldBe
+    DemandRouter.Settings(DemandRouter.OneWayPath, 2.seconds)
+  }
+}
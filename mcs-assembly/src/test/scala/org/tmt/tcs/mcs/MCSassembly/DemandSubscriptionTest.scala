@@ -0,0 +1,73 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import java.time.Instant
+
+import com.typesafe.config.ConfigFactory
+import csw.event.api.scaladsl.{EventSubscriber, SubscriptionModes}
+import csw.logging.scaladsl.{Logger, LoggerFactory}
+import csw.params.events.{Event, EventKey, EventTime}
+import org.mockito.ArgumentCaptor
+import org.mockito.ArgumentMatchers.{any, eq => eqTo}
+import org.mockito.Mockito.{verify, when}
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions
+
+import scala.concurrent.duration.DurationInt
+
+class DemandSubscriptionTest extends FunSuite with Matchers with MockitoSugar {
+  import DemandSubscription._
+
+  private val loggerFactory = mock[LoggerFactory]
+  when(loggerFactory.getLogger).thenReturn(mock[Logger])
+
+  private val keys      = Set(PkMcsDemandPositions.EVENT_KEY)
+  private val eventTime = Instant.ofEpochSecond(1000000, 250000000)
+
+  private def settings(mode: String) = Settings(mode, 20.millis, 1.hour)
+
+  test("settings are read from the config") {
+    Settings(ConfigFactory.parseString("mode = rate-limiter, interval = 20ms, lag-log-interval = 10s")) shouldBe
+    Settings(RateLimiter, 20.millis, 10.seconds)
+  }
+
+  test("each mode subscribes the callback the way of the mode") {
+    val subscriber = mock[EventSubscriber]
+    new DemandSubscription(settings(Every), subscriber, loggerFactory).subscribe(keys, _ => ())
+    verify(subscriber).subscribeCallback(eqTo(keys), any[Event => Unit])
+
+    new DemandSubscription(settings(RateLimiter), subscriber, loggerFactory).subscribe(keys, _ => ())
+    verify(subscriber).subscribeCallback(eqTo(keys), any[Event => Unit], eqTo(20.millis), eqTo(SubscriptionModes.RateLimiterMode))
+
+    new DemandSubscription(settings(RateAdapter), subscriber, loggerFactory).subscribe(keys, _ => ())
+    verify(subscriber).subscribeCallback(eqTo(keys), any[Event => Unit], eqTo(20.millis), eqTo(SubscriptionModes.RateAdapterMode))
+  }
+
+  test("unknown modes are rejected") {
+    an[IllegalArgumentException] should be thrownBy new DemandSubscription(settings("latest"), mock[EventSubscriber], loggerFactory)
+  }
+
+  test("lag is the time from the event time to receipt, clamped to 0 and the highest lag") {
+    lagMicros(eventTime, eventTime.plusNanos(2500999)) shouldBe 2500L
+    lagMicros(eventTime, eventTime.minusMillis(5)) shouldBe 0L
+    lagMicros(eventTime, eventTime.plusSeconds(3600)) shouldBe HighestLagMicros
+  }
+
+  test("the lag of the events handed to the callback is recorded before the callback") {
+    val subscriber = mock[EventSubscriber]
+    val handled    = collection.mutable.Buffer[Event]()
+    val demands    = new DemandSubscription(settings(Every), subscriber, loggerFactory)
+    demands.subscribe(keys, handled += _)
+    val callback = ArgumentCaptor.forClass(classOf[Event => Unit])
+    verify(subscriber).subscribeCallback(eqTo(keys), callback.capture())
+
+    // published an hour ago, as by a tpk whose clock is far off
+    val event = mock[Event]
+    when(event.eventTime).thenReturn(EventTime(Instant.now().minusSeconds(3600)))
+    callback.getValue.apply(event)
+    handled shouldBe Seq(event)
+    demands.stats should include("count=1")
+    // within the resolution of the histogram at a minute
+    "max=([0-9.]+)".r.findFirstMatchIn(demands.stats).get.group(1).toDouble should (be >= 60000.0 and be < 60100.0)
+  }
+}
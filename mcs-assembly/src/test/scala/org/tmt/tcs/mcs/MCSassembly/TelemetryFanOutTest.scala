@@ -0,0 +1,90 @@
+package org.tmt.tcs.mcs.MCSassembly
+
+import com.typesafe.config.ConfigFactory
+import csw.event.api.scaladsl.{EventPublisher, EventService}
+import csw.params.core.models.Prefix
+import csw.params.events.{Event, EventName, SystemEvent}
+import org.mockito.Mockito.{times, verify, when}
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCSassembly.TelemetryFanOut._
+
+import scala.collection.mutable
+
+class TelemetryFanOutTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val event: Event = SystemEvent(Prefix("tcs.mcs.assembly"), EventName("test"))
+
+  private class Fixture(rates: Double*) {
+    val received: Array[mutable.Buffer[Event]] = StreamNames.map(_ => mutable.Buffer[Event]())
+    var closed                                 = false
+    var built                                  = 0
+    val fanOut = new TelemetryFanOut(Settings(rates), received.map(events => (e: Event) => { events += e; () }), () => closed = true)
+
+    def publish(stream: Int, count: Int): Unit =
+      (1 to count).foreach(_ => fanOut.publish(stream, { built += 1; event }))
+  }
+
+  test("streams without a rate limit publish every event") {
+    val fixture = new Fixture(0, 0, 0, 0)
+    fixture.publish(CurrentPosition, 100)
+    fixture.received(CurrentPosition).size shouldBe 100
+    fixture.fanOut.stats should include("current-position: published=100, dropped=0")
+  }
+
+  test("events sooner than the rate allows are dropped and counted, without being built") {
+    val fixture = new Fixture(1, 0, 0, 0)
+    fixture.publish(CurrentPosition, 50)
+    fixture.received(CurrentPosition).size shouldBe 1
+    fixture.built shouldBe 1
+    fixture.fanOut.stats should include("current-position: published=1, dropped=49")
+  }
+
+  test("an event is published again once the interval of the rate has passed") {
+    val fixture = new Fixture(0, 20, 0, 0)
+    fixture.publish(Diagnosis, 10)
+    Thread.sleep(60)
+    fixture.publish(Diagnosis, 10)
+    fixture.received(Diagnosis).size shouldBe 2
+    fixture.fanOut.stats should include("diagnosis: published=2, dropped=18")
+  }
+
+  test("each stream is limited on its own") {
+    val fixture = new Fixture(1, 1, 0, 1)
+    fixture.publish(CurrentPosition, 5)
+    fixture.publish(Diagnosis, 5)
+    fixture.publish(Health, 5)
+    fixture.publish(DriveStatus, 5)
+    fixture.received.map(_.size).toSeq shouldBe Seq(1, 1, 5, 1)
+    fixture.fanOut.stats shouldBe
+    "telemetry current-position: published=1, dropped=4; diagnosis: published=1, dropped=4; " +
+    "health: published=5, dropped=0; drive-status: published=1, dropped=4"
+  }
+
+  test("shutdown closes the sinks") {
+    val fixture = new Fixture(0, 0, 0, 0)
+    fixture.fanOut.shutdown()
+    fixture.closed shouldBe true
+  }
+
+  test("each stream has a publisher of its own from the event service") {
+    val eventService = mock[EventService]
+    val publishers   = StreamNames.map(_ => mock[EventPublisher])
+    when(eventService.makeNewPublisher()).thenReturn(publishers.head, publishers.tail: _*)
+    val fanOut = TelemetryFanOut(Settings(Seq(0, 0, 0, 0)), eventService)
+    fanOut.publish(Health, event)
+    verify(publishers(Health)).publish(event)
+    verify(publishers(CurrentPosition), times(0)).publish(event)
+    fanOut.shutdown()
+    publishers.foreach(publisher => verify(publisher).shutdown())
+  }
+
+  test("one rate per stream is required") {
+    an[IllegalArgumentException] should be thrownBy new Fixture(1, 1)
+  }
+
+  test("rates are read from the config") {
+    val config = ConfigFactory.parseString("current-position-rate = 100, diagnosis-rate = 1, health-rate = 0.5, drive-status-rate = 0")
+    Settings(config) shouldBe Settings(Seq(100.0, 1.0, 0.5, 0.0))
+  }
+}
@@ -0,0 +1,78 @@
+package org.tmt.tcs.mcs.MCSassembly.msgTransformer
+
+import java.time.Instant
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.events.SystemEvent
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.icd.mcs.{McsPositionDemandsCommand, McsPositionDemandsEvent, McsPositionDemandsState}
+import org.tmt.tcs.icd.pk.{PkDemandFrame, PkMcsDemandPositions}
+import org.tmt.tcs.mcs.MCSassembly.Constants.EventHandlerConstants
+
+/*
+ * The mount demand taken from a demand frame of tpk is the demand of the mcsdemandpositions event
+ * of the same tick, on every path to the HCD.
+ */
+class EventTransformerHelperTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val helper       = EventTransformerHelper(mock[LoggerFactory])
+  private val tickTime     = Instant.ofEpochSecond(1000000, 250000000)
+  private val receivalTime = tickTime.plusMillis(2)
+
+  private val frame = received(
+    PkDemandFrame
+      .writer()
+      .tick(42L)
+      .time(tickTime)
+      .mcsAz(120.5)
+      .mcsEl(45.25)
+      .ecsBase(121.0)
+      .ecsCap(44.75)
+      .m3Rotation(0.5)
+      .m3Tilt(1.5)
+      .toEvent
+  )
+  private val separate = received(
+    PkMcsDemandPositions.writer().az(120.5).el(45.25).sequence(42L).time(tickTime).toEvent
+  )
+
+  // as done by the event handler on receipt
+  private def received(event: SystemEvent): SystemEvent =
+    event.add(EventHandlerConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(receivalTime))
+
+  test("current state demand of a frame is that of the separate event") {
+    val fromFrame    = McsPositionDemandsState.read(helper.getCurrentState(frame))
+    val fromSeparate = McsPositionDemandsState.read(helper.getCurrentState(separate))
+    fromFrame.az shouldBe fromSeparate.az
+    fromFrame.el shouldBe fromSeparate.el
+    fromFrame.time shouldBe fromSeparate.time
+    fromFrame.assemblyReceivalTime shouldBe fromSeparate.assemblyReceivalTime
+    // only the frame knows its tick
+    fromFrame.tick shouldBe 42L
+    fromSeparate.hasTick shouldBe false
+  }
+
+  test("event demand of a frame is that of the separate event") {
+    val fromFrame    = McsPositionDemandsEvent.read(helper.getAssemblyDemandEvent(frame))
+    val fromSeparate = McsPositionDemandsEvent.read(helper.getAssemblyDemandEvent(separate))
+    fromFrame.az shouldBe fromSeparate.az
+    fromFrame.el shouldBe fromSeparate.el
+    fromFrame.time shouldBe fromSeparate.time
+    fromFrame.assemblyReceivalTime shouldBe fromSeparate.assemblyReceivalTime
+  }
+
+  test("oneway command demand of a frame is that of the separate event") {
+    val fromFrame    = McsPositionDemandsCommand.read(helper.getOneWayCommandObject(frame))
+    val fromSeparate = McsPositionDemandsCommand.read(helper.getOneWayCommandObject(separate))
+    fromFrame.az shouldBe fromSeparate.az
+    fromFrame.el shouldBe fromSeparate.el
+    fromFrame.time shouldBe fromSeparate.time
+  }
+
+  test("enclosure and M3 slices of a frame are not passed on") {
+    val state = helper.getCurrentState(frame)
+    state.exists(PkDemandFrame.ECS_BASE_KEY) shouldBe false
+    state.exists(PkDemandFrame.M3_TILT_KEY) shouldBe false
+  }
+}
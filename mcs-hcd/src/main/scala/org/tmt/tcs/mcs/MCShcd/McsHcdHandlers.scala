@@ -9,11 +9,13 @@ import akka.util.Timeout
 import csw.framework.scaladsl.ComponentHandlers
 import csw.command.client.messages.TopLevelActorMessage
 import csw.params.commands.{ControlCommand, _}
+import org.tmt.tcs.icd.mcs.McsPositionDemandsCommand
 import org.tmt.tcs.mcs.MCShcd.EventMessage._
 import org.tmt.tcs.mcs.MCShcd.LifeCycleMessage.ShutdownMsg
 import org.tmt.tcs.mcs.MCShcd.constants.{Commands, EventConstants}
 import akka.actor.typed.scaladsl.AskPattern._
 import csw.command.api.CurrentStateSubscription
+import csw.event.api.scaladsl.EventSubscription
 import csw.command.api.scaladsl.CommandService
 import csw.command.client.CommandServiceFactory
 import csw.framework.models.CswContext
@@ -48,6 +50,8 @@ class McsHcdHandlers(ctx: ActorContext[TopLevelActorMessage], cswCtx: CswContext
   implicit val ec: ExecutionContextExecutor = ctx.executionContext
   private val log                           = loggerFactory.getLogger
   private var simulatorMode: String         = Commands.REAL_SIMULATOR
+  // the oneway demands are read on the component's actor only, one reader does
+  private val onewayDemandReader = new McsPositionDemandsCommand.Reader
 
   private val lifeCycleActor: ActorRef[LifeCycleMessage] =
     ctx.spawn(LifeCycleActor.createObject(commandResponseManager, locationService, loggerFactory), "LifeCycleActor")
@@ -99,6 +103,11 @@ class McsHcdHandlers(ctx: ActorContext[TopLevelActorMessage], cswCtx: CswContext
     }, 10.seconds)
     //TODO : Commenting this for testing oneWayCommandExecution and CurrentStatePublisher
 
+    assemblyDemandEvents = Some(
+      eventService.defaultSubscriber
+        .subscribeCallback(EventConstants.AssemblyPositionDemandKey, event => statePublisherActor ! AssemblyDemandEvent(event))
+    )
+
     if (connectToSimulator(lifecycleMsg)) {
       statePublisherActor ! StateChangeMsg(HCDLifeCycleState.Initialized, HCDOperationalState.DrivePowerOff)
     } else {
@@ -129,6 +138,8 @@ class McsHcdHandlers(ctx: ActorContext[TopLevelActorMessage], cswCtx: CswContext
 
   var assemblyDemandsSubscriber: Option[CurrentStateSubscription] = None
   var assemblyLocation: Option[CommandService]                    = None
+  // position demands published by the assembly as events, see tcs.mcs-assembly.demand-transport
+  var assemblyDemandEvents: Option[EventSubscription] = None
 
   override def onLocationTrackingEvent(trackingEvent: TrackingEvent): Unit = {
     trackingEvent match {
@@ -446,8 +457,6 @@ class McsHcdHandlers(ctx: ActorContext[TopLevelActorMessage], cswCtx: CswContext
       case Commands.STARTUP =>
         commandHandlerActor ! HCDCommandMessage.submitCommand(controlCommand)
         statePublisherActor ! StateChangeMsg(HCDLifeCycleState.Running, HCDOperationalState.DrivePowerOff)
-        //This should be used in case of assembly to hcd position demands communication by eventservice
-        // statePublisherActor ! StartEventSubscription(zeroMQProtoActor, simpleSimActor)
         log.info("On receipt of startup command changing MCS HCD state to Running")
         Started(controlCommand.runId)
       case Commands.READCONFIGURATION =>
@@ -478,19 +487,21 @@ class McsHcdHandlers(ctx: ActorContext[TopLevelActorMessage], cswCtx: CswContext
 
   override def onOneway(controlCommand: ControlCommand): Unit = {
     // log.info(msg = s"*** Received position Demands : ${controlCommand} to HCD at : ${System.currentTimeMillis()} *** ")
-    val hcdRecTime      = Instant.now
-    val setup           = Setup(Prefix(Subsystem.MCS.toString), CommandName(Commands.POSITION_DEMANDS), None)
-    val azPosParam      = controlCommand.paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_AZ_POS).get
-    val elPosParam      = controlCommand.paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_EL_POS).get
-    val timeStamp       = controlCommand.paramSet.find(msg => msg.keyName == EventConstants.TIMESTAMP).get
-    val assemblyRecTime = controlCommand.paramSet.find(msg => msg.keyName == EventConstants.ASSEMBLY_RECEIVAL_TIME).get
-    val hcdRecParam     = EventConstants.HcdReceivalTime_Key.set(hcdRecTime)
-    val cmd             = setup.add(azPosParam).add(elPosParam).add(timeStamp).add(assemblyRecTime).add(hcdRecParam)
+    val hcdRecTime = Instant.now
+    val demand     = onewayDemandReader.read(controlCommand)
+    val cmd = Setup(Prefix(Subsystem.MCS.toString), CommandName(Commands.POSITION_DEMANDS), None).madd(
+      demand.azParam,
+      demand.elParam,
+      demand.timeParam,
+      demand.assemblyReceivalTimeParam,
+      McsPositionDemandsCommand.HCD_RECEIVAL_TIME_KEY.set(hcdRecTime)
+    )
     positionDemandActor ! cmd
   }
 
   override def onShutdown(): Future[Unit] = Future {
     log.info(msg = "Shutting down MCS HCD")
+    assemblyDemandEvents.foreach(_.unsubscribe())
     zeroMQProtoActor ! Disconnect()
     lifeCycleActor ! ShutdownMsg()
     statePublisherActor ! StateChangeMsg(HCDLifeCycleState.Off, HCDOperationalState.Disconnected)
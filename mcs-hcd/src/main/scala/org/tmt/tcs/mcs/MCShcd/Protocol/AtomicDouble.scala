@@ -0,0 +1,22 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.lang.Double.{doubleToRawLongBits, longBitsToDouble}
+import java.util.concurrent.atomic.AtomicLong
+
+/*
+Double updated atomically, held as its bits in an AtomicLong as the JDK has no AtomicDouble.
+ */
+final class AtomicDouble(initialValue: Double) {
+  private val bits = new AtomicLong(doubleToRawLongBits(initialValue))
+
+  def this() = this(0.0)
+
+  def get: Double = longBitsToDouble(bits.get)
+
+  def set(value: Double): Unit = bits.set(doubleToRawLongBits(value))
+
+  // eventually visible to other threads, for values written by a single thread
+  def lazySet(value: Double): Unit = bits.lazySet(doubleToRawLongBits(value))
+
+  override def toString: String = get.toString
+}
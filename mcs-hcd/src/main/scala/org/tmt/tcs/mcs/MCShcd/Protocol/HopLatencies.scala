@@ -0,0 +1,180 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.{File, FileOutputStream, PrintStream}
+import java.nio.ByteBuffer
+import java.time.{LocalDateTime, ZoneId}
+import java.util.concurrent.TimeUnit
+
+import com.typesafe.config.Config
+import csw.logging.scaladsl.Logger
+import org.HdrHistogram.Histogram
+import org.tmt.tcs.mcs.MCShcd.constants.Commands
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout
+
+import scala.concurrent.duration.{FiniteDuration, MILLISECONDS}
+
+object HopLatencies {
+  case class Settings(snapshotInterval: FiniteDuration, rawCapture: Boolean, rawCapacity: Int)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(
+        FiniteDuration(config.getDuration("snapshot-interval", TimeUnit.MILLISECONDS), MILLISECONDS),
+        config.getBoolean("raw-capture"),
+        config.getInt("raw-capacity")
+      )
+  }
+
+  // longer latencies are recorded as this
+  val HighestLatencyMicros: Long = TimeUnit.MINUTES.toMicros(1)
+  private val SignificantDigits  = 3
+  private val Percentiles        = Array(50.0, 90.0, 99.0, 99.9)
+
+  /*
+  Ring of the stamps of the last capacity messages, in direct memory so that capturing them
+  neither grows the heap nor adds to the collections.
+   */
+  private final class RawSamples(capacity: Int) {
+    private val SampleSize         = 32
+    private val buffer: ByteBuffer = ByteBuffer.allocateDirect(capacity * SampleSize)
+    private var written: Long      = 0
+
+    def add(t0: Long, t1: Long, t2: Long, t3: Long): Unit = {
+      val offset = (written % capacity).toInt * SampleSize
+      buffer.putLong(offset, t0)
+      buffer.putLong(offset + 8, t1)
+      buffer.putLong(offset + 16, t2)
+      buffer.putLong(offset + 24, t3)
+      written += 1
+    }
+
+    // calls f with the stamps held, oldest first
+    def foreach(f: (Long, Long, Long, Long) => Unit): Unit = {
+      var sample = math.max(0L, written - capacity)
+      while (sample < written) {
+        val offset = (sample % capacity).toInt * SampleSize
+        f(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16), buffer.getLong(offset + 24))
+        sample += 1
+      }
+    }
+
+    def clear(): Unit = written = 0
+  }
+}
+
+/*
+Latencies of the hops of the messages reaching the simple simulator, from the four times stamped
+on each message: by its source (t0), the assembly (t1), the HCD (t2) and the simulator (t3).
+
+Each hop, and the whole way from t0 to t3, has an HdrHistogram of the interval since the last
+snapshot, folded into a histogram of the totals at each snapshot, so memory stays the same
+whatever the number of messages. With raw capture on, the stamps of the last raw-capacity messages
+are kept as well, off heap, and written out with the report.
+
+Not thread safe, used by the simulator actor only.
+ */
+class HopLatencies(name: String, source: String, settings: HopLatencies.Settings, logFilePath: String, log: Logger) {
+  import HopLatencies._
+
+  private val hopNames: Array[String] =
+    Array(s"$source to Assembly", "Assembly to HCD", "HCD to Simulator", s"$source to Simulator")
+
+  private val interval: Array[Histogram] = hopNames.map(_ => new Histogram(HighestLatencyMicros, SignificantDigits))
+  private val total: Array[Histogram]    = hopNames.map(_ => new Histogram(HighestLatencyMicros, SignificantDigits))
+  private val raw: RawSamples            = if (settings.rawCapture) new RawSamples(settings.rawCapacity) else null
+
+  // hops ending before they started, the clocks of the machines stamping them are apart
+  private var skewed: Long = 0
+
+  /*
+  Records a message from its stamps, in nanoseconds since the epoch.
+   */
+  def record(t0: Long, t1: Long, t2: Long, t3: Long): Unit = {
+    recordHop(0, t1 - t0)
+    recordHop(1, t2 - t1)
+    recordHop(2, t3 - t2)
+    recordHop(3, t3 - t0)
+    if (raw != null) raw.add(t0, t1, t2, t3)
+  }
+
+  private def recordHop(hop: Int, nanos: Long): Unit = {
+    if (nanos < 0) skewed += 1
+    interval(hop).recordValue(math.min(math.max(nanos / 1000, 0L), HighestLatencyMicros))
+  }
+
+  /*
+  Logs the latencies since the last snapshot and adds them to the totals, nothing is logged if no
+  message was received in between.
+   */
+  def snapshot(): Unit = {
+    if (interval(0).getTotalCount != 0) {
+      var hop = 0
+      while (hop < hopNames.length) {
+        log.info(s"$name latency, ${summary(hopNames(hop), interval(hop))}")
+        total(hop).add(interval(hop))
+        interval(hop).reset()
+        hop += 1
+      }
+      if (skewed != 0) log.info(s"$name latency, $skewed hops with a negative latency recorded as 0")
+    }
+  }
+
+  /*
+  Takes a snapshot and writes the totals since start, and the raw stamps if captured, to csv files
+  in the LogFiles directory.
+   */
+  def report(): Unit = {
+    snapshot()
+    if (total(0).getTotalCount == 0) return
+    if (logFilePath == null) {
+      log.error(s"LogFiles is not set, $name latency report not written")
+      return
+    }
+    val time = System.currentTimeMillis()
+    writeFile(s"${name}Latency_$time.csv") { printStream =>
+      printStream.println("Hop,Count,Min(ms),Mean(ms),P50(ms),P90(ms),P99(ms),P99.9(ms),Max(ms)")
+      var hop = 0
+      while (hop < hopNames.length) {
+        val histogram = total(hop)
+        printStream.println(
+          s"${hopNames(hop)},${histogram.getTotalCount},${millis(histogram.getMinValue)},${histogram.getMean / 1000}," +
+          Percentiles.map(p => millis(histogram.getValueAtPercentile(p))).mkString(",") + s",${millis(histogram.getMaxValue)}"
+        )
+        hop += 1
+      }
+    }
+    if (raw != null) {
+      writeFile(s"${name}Samples_$time.csv") { printStream =>
+        printStream.println(
+          s"$source timeStamp(t0),Assembly receive timeStamp(t1),HCD receive timeStamp(t2),Simulator receive timeStamp(t3)," +
+          s"$source to AssemblyTime(t1-t0),Assembly to HCDTime(t2-t1),HCD to SimulatorTime(t3-t2),$source to simulator totalTime(t3-t0)"
+        )
+        raw.foreach { (t0, t1, t2, t3) =>
+          printStream.println(
+            s"${date(t0)},${date(t1)},${date(t2)},${date(t3)}," +
+            s"${(t1 - t0) / 1e6},${(t2 - t1) / 1e6},${(t3 - t2) / 1e6},${(t3 - t0) / 1e6}"
+          )
+        }
+      }
+      raw.clear()
+    }
+  }
+
+  private def summary(hopName: String, histogram: Histogram): String =
+    s"$hopName: count=${histogram.getTotalCount}, min=${millis(histogram.getMinValue)} ms, " +
+    Percentiles.map(p => s"p$p=${millis(histogram.getValueAtPercentile(p))} ms").mkString(", ") +
+    s", max=${millis(histogram.getMaxValue)} ms"
+
+  private def millis(micros: Long): Double = micros / 1000.0
+
+  private def date(epochNanos: Long): String =
+    LocalDateTime.ofInstant(FixedLayout.instant(epochNanos), ZoneId.of(Commands.zoneFormat)).format(Commands.formatter)
+
+  private def writeFile(fileName: String)(write: PrintStream => Unit): Unit = {
+    val file: File               = new File(logFilePath, fileName)
+    val printStream: PrintStream = new PrintStream(new FileOutputStream(file), false)
+    try write(printStream)
+    finally printStream.close()
+    log.info(s"Successfully written data to file: ${file.getAbsolutePath}")
+  }
+}
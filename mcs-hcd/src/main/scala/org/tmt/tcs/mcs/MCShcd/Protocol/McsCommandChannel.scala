@@ -0,0 +1,82 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import org.zeromq.ZMQ
+
+object McsCommandChannel {
+
+  /*
+  Command, or reply of the MCS to a command: the name of the command, its packet, null if none was
+  sent, and the correlation id, null if none.
+   */
+  final class Message(val commandName: String, val payload: Array[Byte], val id: Array[Byte])
+}
+
+/*
+Way the commands of McsCommandPipeline reach the MCS and its replies come back, see
+ZeroMQCommandChannel and SharedMemoryCommandChannel. The MCS side, such as StandInMcs, receives
+commands and sends replies through the same channels, opened the other way round.
+
+send is called by one thread at a time, receive by one thread, the I/O thread of the pipeline.
+ */
+trait McsCommandChannel {
+
+  def open(): Boolean
+
+  /*
+  Sends the command or reply, with its correlation id unless id is null, without waiting. Returns
+  false if it could not be sent.
+   */
+  def send(commandName: String, payload: Array[Byte], id: Array[Byte]): Boolean
+
+  /*
+  Waits up to timeoutMillis for the next reply or command, null if none arrived.
+   */
+  def receive(timeoutMillis: Int): McsCommandChannel.Message
+
+  def close(): Unit
+}
+
+/*
+Commands pushed from a bound push socket, as frames command name, command packet and optionally
+correlation id, replies pulled from the push socket of the MCS with the same frames. The MCS
+binds its reply push socket at pushEndpoint and connects its pull socket to pullEndpoint.
+ */
+class ZeroMQCommandChannel(zmqContext: ZMQ.Context, pushEndpoint: String, pullEndpoint: String) extends McsCommandChannel {
+  import McsCommandChannel._
+
+  private val pushSocket: ZMQ.Socket = zmqContext.socket(ZMQ.PUSH)
+  private val pullSocket: ZMQ.Socket = zmqContext.socket(ZMQ.PULL)
+  private var timeoutMillis: Int     = -1
+
+  override def open(): Boolean = {
+    val pushConn = pushSocket.bind(pushEndpoint)
+    val pullConn = pullSocket.connect(pullEndpoint)
+    pushConn && pullConn
+  }
+
+  override def send(commandName: String, payload: Array[Byte], id: Array[Byte]): Boolean =
+    if (id != null) pushSocket.sendMore(commandName) && pushSocket.sendMore(payload) && pushSocket.send(id, ZMQ.NOBLOCK)
+    else pushSocket.sendMore(commandName) && pushSocket.send(payload, ZMQ.NOBLOCK)
+
+  override def receive(timeoutMillis: Int): Message = {
+    if (timeoutMillis != this.timeoutMillis) {
+      pullSocket.setReceiveTimeOut(timeoutMillis)
+      this.timeoutMillis = timeoutMillis
+    }
+    val commandName = pullSocket.recvStr()
+    if (commandName == null) null
+    else {
+      val payload = if (pullSocket.hasReceiveMore) pullSocket.recv() else null
+      val id      = if (pullSocket.hasReceiveMore) pullSocket.recv() else null
+      while (pullSocket.hasReceiveMore) pullSocket.recv()
+      new Message(commandName, payload, id)
+    }
+  }
+
+  // called once the I/O thread has stopped
+  override def close(): Unit = {
+    pullSocket.close()
+    pushSocket.unbind(pushEndpoint)
+    pushSocket.close()
+  }
+}
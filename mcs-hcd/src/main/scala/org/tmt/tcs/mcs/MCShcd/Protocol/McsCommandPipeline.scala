@@ -0,0 +1,250 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.nio.ByteBuffer
+import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedDeque, TimeUnit, TimeoutException}
+import java.util.concurrent.atomic.AtomicLong
+
+import com.typesafe.config.Config
+import org.zeromq.ZMQ
+
+import scala.concurrent.{Future, Promise}
+import scala.concurrent.duration.FiniteDuration
+
+object McsCommandPipeline {
+
+  /*
+  deadline          - time an MCS reply may take before the command fails
+  immediateDeadline - the same for immediate commands such as Follow
+  maxInFlight       - commands awaiting a reply before further commands are refused
+  correlationFrames - sends the correlation id of each command as a third frame, for an MCS echoing it back
+   */
+  case class Settings(deadline: FiniteDuration,
+                      immediateDeadline: FiniteDuration,
+                      maxInFlight: Int,
+                      correlationFrames: Boolean)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(
+        FiniteDuration(config.getDuration("deadline").toNanos, TimeUnit.NANOSECONDS),
+        FiniteDuration(config.getDuration("immediate-deadline").toNanos, TimeUnit.NANOSECONDS),
+        config.getInt("max-in-flight"),
+        config.getBoolean("correlation-frames")
+      )
+  }
+
+  class CommandTimeoutException(message: String) extends TimeoutException(message)
+  class CommandRejectedException(message: String) extends RuntimeException(message)
+
+  // time the I/O thread waits for a reply before checking deadlines again
+  private val PollMillis = 5
+}
+
+/*
+Pipeline of the commands sent to the MCS over a command channel, the ZeroMQ push and pull sockets
+or the shared memory rings, with their replies read from the same channel.
+
+Each command gets a correlation id and a future completed by its reply, so several commands can
+be in flight and no caller waits for the MCS. Commands are sent by the calling thread, serialized
+on the channel, replies are read by a dedicated I/O thread, which also fails commands whose
+deadline passes.
+
+The MCS protocol carries no correlation id of its own, the MCS replies to commands in the order
+they were sent with the name of the command. Replies are therefore matched to the oldest command
+in flight; commands older than the one a reply names are taken to have lost their reply. A command
+whose deadline passed is kept in the order until its reply arrives or is known to be lost, so a
+late reply is not taken for the reply to a later command. With correlationFrames the id is sent
+as a third frame and a reply echoing it is matched by id.
+ */
+class McsCommandPipeline(zmqContext: ZMQ.Context, settings: McsCommandPipeline.Settings) {
+  import McsCommandPipeline._
+
+  private final class InFlight(val id: Long, val commandName: String, val sentNanos: Long, val deadlineNanos: Long) {
+    val promise: Promise[Array[Byte]] = Promise()
+  }
+
+  private var channel: McsCommandChannel = _
+
+  private val nextId    = new AtomicLong()
+  private val sendLock  = new Object
+  private val inFlight  = new ConcurrentHashMap[java.lang.Long, InFlight]()
+  private val sendOrder = new ConcurrentLinkedDeque[InFlight]()
+
+  private val completed      = new AtomicLong()
+  private val timedOut       = new AtomicLong()
+  private val lost           = new AtomicLong()
+  private val lateReplies    = new AtomicLong()
+  private val totalLatencyNs = new AtomicLong()
+  private val maxLatencyNs   = new AtomicLong()
+  @volatile private var running = false
+
+  private val ioThread = new Thread(new Runnable {
+    override def run(): Unit = readReplies()
+  }, "mcs-command-io")
+  ioThread.setDaemon(true)
+
+  /*
+  Binds the push socket the MCS reads commands from, connects the pull socket the MCS replies on
+  and starts the I/O thread.
+   */
+  def connect(pushEndpoint: String, pullEndpoint: String): Boolean =
+    connect(new ZeroMQCommandChannel(zmqContext, pushEndpoint, pullEndpoint))
+
+  /*
+  Opens the channel to the MCS and starts the I/O thread.
+   */
+  def connect(channel: McsCommandChannel): Boolean = {
+    this.channel = channel
+    val opened = channel.open()
+    running = true
+    ioThread.start()
+    opened
+  }
+
+  def submit(commandName: String, payload: Array[Byte]): Future[Array[Byte]] =
+    submit(commandName, payload, settings.deadline)
+
+  def submitImmediate(commandName: String, payload: Array[Byte]): Future[Array[Byte]] =
+    submit(commandName, payload, settings.immediateDeadline)
+
+  /*
+  Sends the command and returns the future of its reply packet, failed with a
+  CommandTimeoutException if the MCS does not reply within the deadline.
+   */
+  def submit(commandName: String, payload: Array[Byte], deadline: FiniteDuration): Future[Array[Byte]] = {
+    if (!running) {
+      return Future.failed(new CommandRejectedException("MCS command pipeline is not connected"))
+    }
+    // checked and registered under the send lock, so that concurrent submits can not both pass a
+    // window with one place left
+    sendLock.synchronized {
+      if (inFlight.size >= settings.maxInFlight) {
+        Future.failed(new CommandRejectedException(s"${settings.maxInFlight} MCS commands in flight, $commandName refused"))
+      } else {
+        val now     = System.nanoTime()
+        val command = new InFlight(nextId.incrementAndGet(), commandName, now, now + deadline.toNanos)
+        inFlight.put(command.id, command)
+        sendOrder.addLast(command)
+        val sent = channel.send(commandName, payload, if (settings.correlationFrames) idFrame(command.id) else null)
+        if (!sent) {
+          inFlight.remove(command.id)
+          sendOrder.removeLastOccurrence(command)
+          command.promise.tryFailure(new CommandRejectedException(s"Unable to submit $commandName to MCS subsystem."))
+        }
+        command.promise.future
+      }
+    }
+  }
+
+  private def readReplies(): Unit = {
+    while (running) {
+      val reply = channel.receive(PollMillis)
+      if (reply != null) {
+        val command =
+          if (reply.id != null && reply.id.length == 8) matchById(ByteBuffer.wrap(reply.id).getLong)
+          else matchInOrder(reply.commandName)
+        command match {
+          case Some(c) if reply.payload != null => complete(c, reply.payload)
+          case Some(c) => c.promise.tryFailure(new CommandRejectedException(s"MCS reply to ${c.commandName} carries no data"))
+          case None    => lateReplies.incrementAndGet()
+        }
+      }
+      expireOverdue(System.nanoTime())
+    }
+  }
+
+  private def matchById(id: Long): Option[InFlight] = {
+    val command = inFlight.remove(id)
+    if (command == null) None
+    else {
+      sendOrder.remove(command)
+      Some(command)
+    }
+  }
+
+  private def matchInOrder(commandName: String): Option[InFlight] = {
+    var command = sendOrder.pollFirst()
+    while (command != null && command.commandName != commandName) {
+      if (inFlight.remove(command.id) != null) {
+        lost.incrementAndGet()
+        command.promise.tryFailure(new CommandRejectedException(s"MCS did not reply to ${command.commandName}"))
+      }
+      command = sendOrder.pollFirst()
+    }
+    // no command at all, or the command's deadline has passed
+    if (command == null || inFlight.remove(command.id) == null) None
+    else Some(command)
+  }
+
+  private def complete(command: InFlight, payload: Array[Byte]): Unit = {
+    val latency = System.nanoTime() - command.sentNanos
+    completed.incrementAndGet()
+    totalLatencyNs.addAndGet(latency)
+    if (latency > maxLatencyNs.get) maxLatencyNs.set(latency)
+    command.promise.trySuccess(payload)
+  }
+
+  /*
+  Fails the commands whose deadline passed. Without correlation frames they stay in the send
+  order, to take their reply should it still arrive.
+   */
+  private def expireOverdue(now: Long): Unit = {
+    val commands = inFlight.values().iterator()
+    while (commands.hasNext) {
+      val command = commands.next()
+      if (now - command.deadlineNanos >= 0 && inFlight.remove(command.id) != null) {
+        timedOut.incrementAndGet()
+        if (settings.correlationFrames) sendOrder.remove(command)
+        command.promise.tryFailure(
+          new CommandTimeoutException(
+            s"No reply from MCS to ${command.commandName} within ${(command.deadlineNanos - command.sentNanos) / 1000000} ms"
+          )
+        )
+      }
+    }
+    // keep the send order bounded should replies to expired commands never arrive
+    while (sendOrder.size > 2 * settings.maxInFlight) {
+      val oldest = sendOrder.pollFirst()
+      if (oldest != null && inFlight.remove(oldest.id) != null) {
+        lost.incrementAndGet()
+        oldest.promise.tryFailure(new CommandRejectedException(s"MCS did not reply to ${oldest.commandName}"))
+      }
+    }
+  }
+
+  private def idFrame(id: Long): Array[Byte] = ByteBuffer.allocate(8).putLong(id).array()
+
+  def commandsInFlight: Int = inFlight.size
+
+  def completedCount: Long = completed.get
+
+  def timedOutCount: Long = timedOut.get
+
+  def meanLatencyNanos: Long = {
+    val count = completed.get
+    if (count == 0) 0 else totalLatencyNs.get / count
+  }
+
+  def maxLatencyNanos: Long = maxLatencyNs.get
+
+  def stats: String =
+    s"completed=${completed.get}, in flight=${inFlight.size}, timed out=${timedOut.get}, lost=${lost.get}, " +
+    s"late replies=${lateReplies.get}, mean latency=${meanLatencyNanos / 1000} us, max latency=${maxLatencyNs.get / 1000} us"
+
+  /*
+  Stops the I/O thread, fails the commands still in flight and closes the channel.
+   */
+  def close(): Unit = {
+    running = false
+    if (ioThread.isAlive) ioThread.join()
+    val commands = inFlight.values().iterator()
+    while (commands.hasNext) {
+      commands.next().promise.tryFailure(new CommandRejectedException("MCS command pipeline closed"))
+    }
+    inFlight.clear()
+    sendOrder.clear()
+    sendLock.synchronized {
+      if (channel != null) channel.close()
+    }
+  }
+}
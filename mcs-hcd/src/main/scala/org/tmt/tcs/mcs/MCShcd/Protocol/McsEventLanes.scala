@@ -0,0 +1,191 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicLong
+
+import com.typesafe.config.Config
+import csw.params.core.states.CurrentState
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+
+object McsEventLanes {
+
+  /*
+  conflatePosition - publish only the latest of the current positions received together
+  bulkCapacity     - diagnosis, drive status and health events waiting to be published before further ones are dropped
+  *Decimation      - publish one event out of n of the topic
+   */
+  case class Settings(conflatePosition: Boolean,
+                      bulkCapacity: Int,
+                      diagnosisDecimation: Int,
+                      driveStatusDecimation: Int,
+                      healthDecimation: Int)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(
+        config.getBoolean("conflate-position"),
+        config.getInt("bulk-capacity"),
+        config.getInt("decimation.diagnosis"),
+        config.getInt("decimation.drive-status"),
+        config.getInt("decimation.health")
+      )
+  }
+
+  class LaneCounters(name: String) {
+    val processed = new AtomicLong()
+    val conflated = new AtomicLong()
+    val decimated = new AtomicLong()
+    val dropped   = new AtomicLong()
+
+    override def toString: String =
+      s"$name lane: processed=${processed.get}, conflated=${conflated.get}, decimated=${decimated.get}, dropped=${dropped.get}"
+  }
+
+  // events read from the source at most before the latest current position is published
+  private val MaxDrain = 256
+
+  /*
+  Single producer single consumer ring of the bulk events, with slots allocated once.
+   */
+  private final class BulkRing(capacity: Int) {
+    private val topics  = new Array[Int](capacity)
+    private val lengths = new Array[Int](capacity)
+    private val times   = new Array[Instant](capacity)
+    private val data    = Array.fill(capacity)(new Array[Byte](McsEventSource.InitialEventSize))
+    private val head    = new AtomicLong() // next slot to take
+    private val tail    = new AtomicLong() // next slot to fill
+
+    def offer(topic: Int, event: Array[Byte], length: Int, receivalTime: Instant): Boolean = {
+      val t = tail.get
+      if (t - head.get >= capacity) false
+      else {
+        val slot = (t % capacity).toInt
+        if (data(slot).length < length) data(slot) = new Array[Byte](length)
+        System.arraycopy(event, 0, data(slot), 0, length)
+        topics(slot) = topic
+        lengths(slot) = length
+        times(slot) = receivalTime
+        tail.lazySet(t + 1)
+        true
+      }
+    }
+
+    // decodes the oldest event, returns false if there is none
+    def take(decoder: IEventDecoder, publish: CurrentState => Unit, counters: LaneCounters): Boolean = {
+      val h = head.get
+      if (h == tail.get) false
+      else {
+        val slot         = (h % capacity).toInt
+        val currentState = decoder.decode(topics(slot), data(slot), 0, lengths(slot), times(slot))
+        times(slot) = null
+        head.lazySet(h + 1)
+        if (currentState == null) counters.dropped.incrementAndGet()
+        else {
+          publish(currentState)
+          counters.processed.incrementAndGet()
+        }
+        true
+      }
+    }
+  }
+}
+
+/*
+Splits the events of the MCS into two lanes, so that bursts of the large diagnosis and drive
+status events do not delay the current position.
+
+The position lane is served by the subscriber thread. It reads the events pending on the source,
+copying bulk events to the bulk lane without decoding them, and then decodes and publishes the
+latest current position read; earlier ones are counted as conflated. Without conflation each
+current position is published as it is read.
+
+The bulk lane holds the diagnosis, drive status and health events, optionally decimated per
+topic, in a bounded ring drained by a thread of its own. Events arriving while the ring is full
+are dropped.
+ */
+class McsEventLanes(receiver: McsEventSource,
+                    positionDecoder: IEventDecoder,
+                    bulkDecoder: IEventDecoder,
+                    settings: McsEventLanes.Settings) {
+  import McsEventLanes._
+
+  require(settings.bulkCapacity > 0, s"bulk-capacity must be positive, was ${settings.bulkCapacity}")
+  require(
+    settings.diagnosisDecimation > 0 && settings.driveStatusDecimation > 0 && settings.healthDecimation > 0,
+    s"event decimation must be at least 1, was $settings"
+  )
+
+  val positionCounters = new LaneCounters("position")
+  val bulkCounters     = new LaneCounters("bulk")
+
+  private val bulkRing = new BulkRing(settings.bulkCapacity)
+  private val decimation: Array[Int] =
+    Array(1, settings.diagnosisDecimation, settings.driveStatusDecimation, settings.healthDecimation)
+  private val bulkReceived = new Array[Long](decimation.length)
+
+  // latest current position not yet published
+  private var position: Array[Byte]    = new Array[Byte](McsEventSource.InitialEventSize)
+  private var positionLength: Int      = 0
+  private var positionTime: Instant    = _
+  private var positionPending: Boolean = false
+
+  /*
+  Called repeatedly by the subscriber thread, waits for events up to the receive timeout of the
+  source and publishes the current positions among them.
+   */
+  def receive(publish: CurrentState => Unit): Unit = {
+    var topic   = receiver.receiveFrame(noWait = false)
+    var drained = 0
+    while (topic != McsEventSource.NoEvent) {
+      dispatch(topic, publish)
+      drained += 1
+      topic = if (drained < MaxDrain) receiver.receiveFrame(noWait = true) else McsEventSource.NoEvent
+    }
+    if (positionPending) {
+      positionPending = false
+      publishPosition(position, positionLength, positionTime, publish)
+    }
+  }
+
+  private def dispatch(topic: Int, publish: CurrentState => Unit): Unit = topic match {
+    case IEventDecoder.UnknownTopic =>
+    case IEventDecoder.CurrentPosition =>
+      if (!settings.conflatePosition) {
+        publishPosition(receiver.event, receiver.eventSize, receiver.eventReceivalTime, publish)
+      } else {
+        if (positionPending) positionCounters.conflated.incrementAndGet()
+        if (position.length < receiver.eventSize) position = new Array[Byte](receiver.eventSize)
+        System.arraycopy(receiver.event, 0, position, 0, receiver.eventSize)
+        positionLength = receiver.eventSize
+        positionTime = receiver.eventReceivalTime
+        positionPending = true
+      }
+    case bulkTopic =>
+      val received = bulkReceived(bulkTopic)
+      bulkReceived(bulkTopic) = received + 1
+      if (received % decimation(bulkTopic) != 0) bulkCounters.decimated.incrementAndGet()
+      else if (!bulkRing.offer(bulkTopic, receiver.event, receiver.eventSize, receiver.eventReceivalTime))
+        bulkCounters.dropped.incrementAndGet()
+  }
+
+  private def publishPosition(event: Array[Byte], length: Int, receivalTime: Instant, publish: CurrentState => Unit): Unit = {
+    val currentState = positionDecoder.decode(IEventDecoder.CurrentPosition, event, 0, length, receivalTime)
+    if (currentState == null) positionCounters.dropped.incrementAndGet()
+    else {
+      publish(currentState)
+      positionCounters.processed.incrementAndGet()
+    }
+  }
+
+  /*
+  Called repeatedly by the bulk lane thread, publishes the bulk events waiting and returns their number.
+   */
+  def drainBulk(publish: CurrentState => Unit): Int = {
+    var count = 0
+    while (bulkRing.take(bulkDecoder, publish, bulkCounters)) count += 1
+    count
+  }
+
+  def stats: String =
+    s"received=${receiver.receivedCount}, undecodable=${receiver.droppedCount}, $positionCounters, $bulkCounters"
+}
@@ -0,0 +1,38 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.time.Instant
+
+object McsEventSource {
+  // returned by receiveFrame when no event was received
+  val NoEvent: Int = -2
+
+  // event buffers grow when an event does not fit
+  val InitialEventSize = 4096
+}
+
+/*
+Events published by the MCS as read by the event subscriber thread, one at a time into a buffer
+reused from event to event, see ZeroMQEventReceiver and SharedMemoryEventReceiver.
+
+Not thread safe.
+ */
+trait McsEventSource {
+
+  /*
+  Receives the next event without decoding it, waiting up to the receive timeout of the source
+  unless noWait. Returns the topic index of the event, held by event until the next call, NoEvent
+  if none was received or UnknownTopic if it was dropped.
+   */
+  def receiveFrame(noWait: Boolean): Int
+
+  // the event last received by receiveFrame
+  def event: Array[Byte]
+
+  def eventSize: Int
+
+  def eventReceivalTime: Instant
+
+  def receivedCount: Long
+
+  def droppedCount: Long
+}
@@ -0,0 +1,167 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.util.concurrent.atomic.AtomicReference
+
+import com.typesafe.config.Config
+
+object MountServo {
+  case class AxisLimits(minPosition: Double,
+                        maxPosition: Double,
+                        maxVelocity: Double,
+                        maxAcceleration: Double,
+                        maxJerk: Double)
+
+  case class Settings(controlRate: Int,
+                      telemetryRate: Int,
+                      positionGain: Double,
+                      velocityGain: Double,
+                      inPositionTolerance: Double,
+                      azimuth: AxisLimits,
+                      elevation: AxisLimits)
+
+  object Settings {
+    def apply(config: Config): Settings =
+      Settings(
+        config.getInt("control-rate"),
+        config.getInt("telemetry-rate"),
+        config.getDouble("position-gain"),
+        config.getDouble("velocity-gain"),
+        config.getDouble("in-position-tolerance"),
+        axisLimits(config.getConfig("azimuth")),
+        axisLimits(config.getConfig("elevation"))
+      )
+
+    private def axisLimits(config: Config): AxisLimits =
+      AxisLimits(
+        config.getDouble("min-position"),
+        config.getDouble("max-position"),
+        config.getDouble("max-velocity"),
+        config.getDouble("max-acceleration"),
+        config.getDouble("max-jerk")
+      )
+  }
+
+  private def clamp(value: Double, limit: Double): Double = math.max(-limit, math.min(limit, value))
+
+  // demanded position, its velocity and the System.nanoTime it was received at, published together
+  private final class Demand(val position: Double, val velocity: Double, val time: Long)
+
+  /*
+  One axis following its demanded trajectory within its velocity, acceleration and jerk limits.
+
+  The demand is extrapolated to the time of each control step from the velocity between the last
+  two demands. The axis is driven at that velocity plus a correction proportional to the following
+  error, the distance to the extrapolated demand, bounded by the velocity from which it can still
+  stop on the demand at the acceleration limit. The axis accelerates toward that velocity in
+  proportion to the difference, up to maxAcceleration, with the acceleration changing by maxJerk
+  per second at most. The position gain is kept well below the velocity gain, or the jerk limit
+  makes the axis hunt around the demand.
+
+  The demand is written by the simulator actor as one immutable snapshot, so that the control loop
+  never sees the position of one demand with the velocity or time of another. The control state is
+  written by the control loop and read by the telemetry through atomic doubles.
+   */
+  final class Axis(limits: AxisLimits, positionGain: Double, velocityGain: Double) {
+    private val lastDemand = new AtomicReference(new Demand(0.0, 0.0, System.nanoTime()))
+
+    // control loop only
+    private var velocity     = 0.0
+    private var acceleration = 0.0
+
+    private val position       = new AtomicDouble()
+    private val followingError = new AtomicDouble()
+
+    require(limits.maxVelocity > 0 && limits.maxAcceleration > 0 && limits.maxJerk > 0, s"axis limits must be positive, was $limits")
+
+    /*
+    Sets the demanded position received at time, System.nanoTime. Demands outside the range of
+    the axis are held at its limits.
+     */
+    def demand(value: Double, time: Long): Unit = {
+      val previous = lastDemand.get
+      val target   = math.max(limits.minPosition, math.min(limits.maxPosition, value))
+      val interval = (time - previous.time) / 1e9
+      // a demand long after the previous one starts a new trajectory rather than a fast move
+      val velocity = if (interval > 0 && interval < 1.0) (target - previous.position) / interval else 0.0
+      lastDemand.set(new Demand(target, velocity, time))
+    }
+
+    /*
+    Advances the axis by dt seconds, at time, System.nanoTime.
+     */
+    def step(dt: Double, time: Long): Unit = {
+      val demand      = lastDemand.get
+      val feedForward = demand.velocity
+      val target = math.max(limits.minPosition,
+                            math.min(limits.maxPosition, demand.position + feedForward * (time - demand.time) / 1e9))
+      val current = position.get
+      val error   = target - current
+
+      val distance   = math.abs(error)
+      val correction = math.signum(error) * math.min(positionGain * distance, math.sqrt(2 * limits.maxAcceleration * distance))
+      val wanted     = clamp(feedForward + correction, limits.maxVelocity)
+
+      val wantedAcceleration = clamp(velocityGain * (wanted - velocity), limits.maxAcceleration)
+      acceleration += clamp(wantedAcceleration - acceleration, limits.maxJerk * dt)
+      velocity = clamp(velocity + acceleration * dt, limits.maxVelocity)
+
+      var next = current + velocity * dt
+      if (next <= limits.minPosition || next >= limits.maxPosition) {
+        next = math.max(limits.minPosition, math.min(limits.maxPosition, next))
+        velocity = 0.0
+        acceleration = 0.0
+      }
+      position.lazySet(next)
+      followingError.lazySet(target - next)
+    }
+
+    def currentPosition: Double = position.get
+
+    def currentError: Double = followingError.get
+  }
+}
+
+/*
+Servo of the azimuth and elevation axes of the mount for the simple simulator, stepped by the
+control loop at controlRate and sampled by the telemetry at telemetryRate.
+ */
+class MountServo(settings: MountServo.Settings) {
+  import MountServo._
+
+  require(settings.controlRate > 0 && settings.telemetryRate > 0, s"servo rates must be positive, was $settings")
+
+  val azimuth   = new Axis(settings.azimuth, settings.positionGain, settings.velocityGain)
+  val elevation = new Axis(settings.elevation, settings.positionGain, settings.velocityGain)
+
+  // System.nanoTime of the last control step, control loop only
+  private var lastStep = System.nanoTime()
+
+  def controlPeriodNanos: Long = 1000000000L / settings.controlRate
+
+  def telemetryPeriodNanos: Long = 1000000000L / settings.telemetryRate
+
+  def demand(az: Double, el: Double): Unit = {
+    val time = System.nanoTime()
+    azimuth.demand(az, time)
+    elevation.demand(el, time)
+  }
+
+  /*
+  One control step, from the time actually elapsed since the last one so that a late step does not
+  slow the axes down.
+   */
+  def step(): Unit = {
+    val time = System.nanoTime()
+    // a step long delayed, by a pause of the JVM, is taken as one period
+    val dt = if (time - lastStep > 100 * controlPeriodNanos) controlPeriodNanos / 1e9 else (time - lastStep) / 1e9
+    lastStep = time
+    if (dt > 0) {
+      azimuth.step(dt, time)
+      elevation.step(dt, time)
+    }
+  }
+
+  def azInPosition: Boolean = math.abs(azimuth.currentError) <= settings.inPositionTolerance
+
+  def elInPosition: Boolean = math.abs(elevation.currentError) <= settings.inPositionTolerance
+}
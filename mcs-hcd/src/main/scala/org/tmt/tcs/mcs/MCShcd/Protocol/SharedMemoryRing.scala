@@ -0,0 +1,74 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.MappedByteBuffer
+
+import org.agrona.{IoUtil, MutableDirectBuffer}
+import org.agrona.concurrent.{MessageHandler, UnsafeBuffer}
+import org.agrona.concurrent.ringbuffer.{OneToOneRingBuffer, RingBufferDescriptor}
+
+object SharedMemoryRing {
+
+  /*
+  Creates the ring in a new memory mapped file, replacing any file left by an earlier run.
+  capacity, in bytes, must be a power of two.
+   */
+  def create(file: File, capacity: Int): SharedMemoryRing = {
+    file.getParentFile.mkdirs()
+    new SharedMemoryRing(IoUtil.mapNewFile(file, capacity + RingBufferDescriptor.TRAILER_LENGTH))
+  }
+
+  // maps the ring created by the other side
+  def open(file: File): SharedMemoryRing = new SharedMemoryRing(IoUtil.mapExistingFile(file, file.getName))
+}
+
+/*
+Single producer single consumer ring of messages in a memory mapped file, shared by the MCS HCD
+and a controller on the same host, each side writing to one ring and reading from another.
+
+Messages are written by copying them from a byte array into the ring and read by copying them out
+into a byte array, so neither side allocates per message. Each message carries a type, at least 1.
+
+One thread at a time may write, and one thread read.
+ */
+class SharedMemoryRing private (mapped: MappedByteBuffer) {
+  private val ring   = new OneToOneRingBuffer(new UnsafeBuffer(mapped))
+  private val source = new UnsafeBuffer(new Array[Byte](0))
+
+  // set by read
+  private var target: Array[Byte] = _
+  private var length: Int         = 0
+  private var messageType: Int    = 0
+
+  private val handler = new MessageHandler {
+    override def onMessage(msgTypeId: Int, buffer: MutableDirectBuffer, index: Int, messageLength: Int): Unit = {
+      messageType = msgTypeId
+      length = messageLength
+      if (messageLength <= target.length) buffer.getBytes(index, target, 0, messageLength)
+    }
+  }
+
+  def maxMessageLength: Int = ring.maxMsgLength()
+
+  /*
+  Writes the message, false if the ring has no room for it.
+   */
+  def write(messageType: Int, data: Array[Byte], offset: Int, length: Int): Boolean = {
+    if (source.byteArray() ne data) source.wrap(data)
+    ring.write(messageType, source, offset, length)
+  }
+
+  /*
+  Reads the next message into target and returns its length, -1 if the ring is empty. A message
+  longer than target is consumed but not copied, its length is returned all the same.
+   */
+  def read(target: Array[Byte]): Int = {
+    this.target = target
+    if (ring.read(handler, 1) == 0) -1 else length
+  }
+
+  // type of the message last read
+  def lastMessageType: Int = messageType
+
+  def close(): Unit = IoUtil.unmap(mapped)
+}
@@ -0,0 +1,196 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+import com.typesafe.config.Config
+import org.agrona.concurrent.BackoffIdleStrategy
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+
+object SharedMemoryTransport {
+
+  /*
+  directory - where the ring files are mapped, on Linux best under /dev/shm
+  ringSize  - bytes of each ring, a power of two
+   */
+  case class Settings(directory: String, ringSize: Int)
+
+  object Settings {
+    def apply(config: Config): Settings = Settings(config.getString("directory"), config.getBytes("ring-size").toInt)
+  }
+
+  // message type of commands, replies and position demands; events carry their topic index + 1
+  val CommandMessage = 1
+  val DemandMessage  = 1
+
+  /*
+  Creates the rings, the MCS HCD side. Files left by an earlier run are replaced, so the
+  controller opens the rings once the HCD has created them.
+   */
+  def create(settings: Settings): SharedMemoryTransport = {
+    def ring(name: String) = SharedMemoryRing.create(new File(settings.directory, name), settings.ringSize)
+    new SharedMemoryTransport(ring("commands"), ring("replies"), ring("demands"), ring("events"))
+  }
+
+  // opens the rings created by the HCD, the controller side
+  def open(settings: Settings): SharedMemoryTransport = {
+    def ring(name: String) = SharedMemoryRing.open(new File(settings.directory, name))
+    new SharedMemoryTransport(ring("commands"), ring("replies"), ring("demands"), ring("events"))
+  }
+
+  // waits for a message spinning, then yielding, then parking up to 100 us
+  def idleStrategy(): BackoffIdleStrategy =
+    new BackoffIdleStrategy(100, 100, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(100))
+
+  /*
+  Commands and replies are one message each:
+    0  correlation id (int64, 0 for none)
+    8  command name length n (int16)
+    10 command name (US-ASCII), 10 + n packet
+   */
+  final class CommandCodec(maxLength: Int) {
+    val buffer: Array[Byte]        = new Array[Byte](maxLength)
+    private val view: ByteBuffer   = ByteBuffer.wrap(buffer)
+    private var nameLength: Int    = 0
+    private var messageLength: Int = 0
+
+    // encodes into buffer and returns the length, -1 if the message would not fit in maxLength
+    def encode(commandName: String, id: Long, payload: Array[Byte]): Int = {
+      val name = commandName.getBytes(StandardCharsets.US_ASCII)
+      if (name.length > Short.MaxValue || 10L + name.length + payload.length > maxLength) return -1
+      view.putLong(0, id)
+      view.putShort(8, name.length.toShort)
+      System.arraycopy(name, 0, buffer, 10, name.length)
+      System.arraycopy(payload, 0, buffer, 10 + name.length, payload.length)
+      10 + name.length + payload.length
+    }
+
+    // decodes the message of length bytes read into buffer
+    def decoded(length: Int): Unit = {
+      messageLength = length
+      nameLength = view.getShort(8)
+    }
+
+    def id: Long = view.getLong(0)
+
+    def commandName: String = new String(buffer, 10, nameLength, StandardCharsets.US_ASCII)
+
+    def payload: Array[Byte] = java.util.Arrays.copyOfRange(buffer, 10 + nameLength, messageLength)
+  }
+}
+
+/*
+Memory mapped rings between the MCS HCD and a controller on the same host, one per direction and
+kind of message: commands and position demands to the controller, replies and events from it.
+Each ring has a single writer and a single reader, see SharedMemoryRing.
+ */
+class SharedMemoryTransport private (val commands: SharedMemoryRing,
+                                     val replies: SharedMemoryRing,
+                                     val demands: SharedMemoryRing,
+                                     val events: SharedMemoryRing) {
+
+  def close(): Unit = {
+    commands.close()
+    replies.close()
+    demands.close()
+    events.close()
+  }
+}
+
+/*
+McsCommandChannel over two rings, the command and reply rings on the HCD side, the reply and
+command rings on the MCS side. On the HCD commands are written by the sending thread, under the
+send lock of the pipeline, and replies read by its I/O thread.
+ */
+class SharedMemoryCommandChannel(outgoing: SharedMemoryRing, incoming: SharedMemoryRing) extends McsCommandChannel {
+  import McsCommandChannel._
+  import SharedMemoryTransport._
+
+  private val sent     = new CommandCodec(outgoing.maxMessageLength)
+  private val received = new CommandCodec(incoming.maxMessageLength)
+  private val idle     = idleStrategy()
+
+  override def open(): Boolean = true
+
+  override def send(commandName: String, payload: Array[Byte], id: Array[Byte]): Boolean = {
+    val length = sent.encode(commandName, if (id == null) 0L else ByteBuffer.wrap(id).getLong, payload)
+    length >= 0 && outgoing.write(CommandMessage, sent.buffer, 0, length)
+  }
+
+  override def receive(timeoutMillis: Int): Message = {
+    val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)
+    idle.reset()
+    var length = incoming.read(received.buffer)
+    while (length < 0 && System.nanoTime() < deadline) {
+      idle.idle(0)
+      length = incoming.read(received.buffer)
+    }
+    if (length < 0) null
+    else {
+      received.decoded(length)
+      val id = received.id
+      new Message(received.commandName, received.payload, if (id == 0) null else ByteBuffer.allocate(8).putLong(id).array())
+    }
+  }
+
+  override def close(): Unit = ()
+}
+
+/*
+McsEventSource over the event ring, read by the event subscriber thread of the HCD. The waiting
+receive gives up after timeoutMillis so that the subscriber thread can see the end of the
+subscription.
+ */
+class SharedMemoryEventReceiver(events: SharedMemoryRing, timeoutMillis: Int) extends McsEventSource {
+  import McsEventSource._
+
+  private var eventBuffer: Array[Byte] = new Array[Byte](InitialEventSize)
+  private var eventLength: Int         = 0
+  private var receivalTime: Instant    = _
+  private val idle                     = SharedMemoryTransport.idleStrategy()
+
+  private val received = new AtomicLong()
+  private val dropped  = new AtomicLong()
+
+  override def receiveFrame(noWait: Boolean): Int = {
+    var length = events.read(eventBuffer)
+    if (length < 0 && !noWait) {
+      val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)
+      idle.reset()
+      while (length < 0 && System.nanoTime() < deadline) {
+        idle.idle(0)
+        length = events.read(eventBuffer)
+      }
+    }
+    if (length < 0) return NoEvent
+    receivalTime = Instant.now
+    received.incrementAndGet()
+    val topic = events.lastMessageType - 1
+    if (length > eventBuffer.length) {
+      // consumed without being copied, the buffer is grown for the next ones
+      eventBuffer = new Array[Byte](Integer.highestOneBit(length) * 2)
+      dropped.incrementAndGet()
+      IEventDecoder.UnknownTopic
+    } else if (topic < 0 || topic >= IEventDecoder.TopicNames.length) {
+      dropped.incrementAndGet()
+      IEventDecoder.UnknownTopic
+    } else {
+      eventLength = length
+      topic
+    }
+  }
+
+  override def event: Array[Byte] = eventBuffer
+
+  override def eventSize: Int = eventLength
+
+  override def eventReceivalTime: Instant = receivalTime
+
+  override def receivedCount: Long = received.get
+
+  override def droppedCount: Long = dropped.get
+}
@@ -1,7 +1,6 @@
 package org.tmt.tcs.mcs.MCShcd.Protocol
 
-import java.io._
-import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
+import java.util.concurrent.atomic.AtomicBoolean
 
 import akka.actor.typed.{ActorRef, Behavior}
 import akka.actor.typed.scaladsl.{AbstractBehavior, ActorContext, Behaviors}
@@ -9,9 +8,7 @@ import org.tmt.tcs.mcs.MCShcd.EventMessage
 import org.tmt.tcs.mcs.MCShcd.EventMessage.PublishState
 import org.tmt.tcs.mcs.MCShcd.Protocol.SimpleSimMsg._
 import org.tmt.tcs.mcs.MCShcd.constants.{Commands, EventConstants}
-import java.lang.Double.doubleToLongBits
-import java.lang.Double.longBitsToDouble
-import java.time.{Duration, Instant, LocalDateTime, ZoneId}
+import java.time.Instant
 import java.util.concurrent.{Executors, ScheduledExecutorService, TimeUnit}
 
 import csw.command.client.CommandResponseManager
@@ -23,7 +20,8 @@ import csw.params.core.models.Units.degree
 import csw.params.core.models.{Prefix, Subsystem}
 import csw.params.core.states.{CurrentState, StateName}
 import csw.params.events.SystemEvent
-import scala.collection.mutable.ListBuffer
+import org.tmt.tcs.icd.mcs.McsPositionDemandsState
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout
 
 sealed trait SimpleSimMsg
 object SimpleSimMsg {
@@ -35,6 +33,8 @@ object SimpleSimMsg {
   case class ProcCurrStateDemand(currState: CurrentState)                                extends SimpleSimMsg
   case class ReadConfCmd(controlCommand: ControlCommand, sender: ActorRef[SimpleSimMsg]) extends SimpleSimMsg
   case class ReadConfResp(commandResponse: SubmitResponse)                               extends SimpleSimMsg
+  // logs the latencies since the last snapshot, with report also writes the totals to LogFiles
+  case class LatencySnapshot(report: Boolean)                                            extends SimpleSimMsg
 }
 
 object SimpleSimulator {
@@ -45,8 +45,6 @@ object SimpleSimulator {
       ctx => SimpleSimulator(ctx, commandResponseManager: CommandResponseManager, loggerFactory, statePublisherActor)
     )
 }
-case class DemandPosHolder(pkPublishTime: Instant, assemblyRecTime: Instant, hcdRecTime: Instant, simRecTime: Instant)
-case class CmdHolder(clientAppSentTime: Instant, assemblyRecTime: Instant, hcdRecTime: Instant, simRecTime: Instant)
 case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
                            commandResponseManager: CommandResponseManager,
                            loggerFactory: LoggerFactory,
@@ -56,13 +54,8 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
 
   val prefix: Prefix = Prefix(Subsystem.MCS.toString)
 
-  val azPosDemand: AtomicLong = new AtomicLong(doubleToLongBits(0.0))
-  val elPosDemand: AtomicLong = new AtomicLong(doubleToLongBits(0.0))
-
-  val MIN_AZ_POS: Double = -330
-  val MAX_AZ_POS: Double = 170
-  val MIN_EL_POS: Double = -3
-  val MAX_EL_POS: Double = 93
+  val servo: MountServo =
+    new MountServo(MountServo.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.simulator-servo")))
 
   val currentPosPublisher: AtomicBoolean = new AtomicBoolean(true)
   // val healthPublisher: AtomicBoolean     = new AtomicBoolean(true)
@@ -71,15 +64,26 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
   val scheduler: ScheduledExecutorService = Executors.newScheduledThreadPool(2)
   val logFilePath: String                 = System.getenv("LogFiles")
 
-  def getDate(instant: Instant): String =
-    LocalDateTime.ofInstant(instant, ZoneId.of(Commands.zoneFormat)).format(Commands.formatter)
-
-  var demandCounter          = 0
-  val demandBuffer           = new ListBuffer[DemandPosHolder]()
-  var fileUpdate: Boolean    = false
-  var cmdCounter             = 0
-  val cmdBuffer              = new ListBuffer[CmdHolder]()
-  var cmdFileUpdate: Boolean = false
+  private val latencySettings: HopLatencies.Settings =
+    HopLatencies.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.simulator-latency"))
+  // position demands from the pointing kernel by each path from the assembly, see tcs.mcs-assembly.demand-transport
+  private val currStateDemandLatencies = new HopLatencies("PosDemandCurrentState", "PK", latencySettings, logFilePath, log)
+  private val eventDemandLatencies     = new HopLatencies("PosDemandEvent", "PK", latencySettings, logFilePath, log)
+  private val oneWayDemandLatencies    = new HopLatencies("PosDemandOneWay", "PK", latencySettings, logFilePath, log)
+  // ReadConfiguration commands from the client app
+  private val commandLatencies = new HopLatencies("ReadConfSimple", "ClientApp", latencySettings, logFilePath, log)
+  private val allLatencies     = Seq(currStateDemandLatencies, eventDemandLatencies, oneWayDemandLatencies, commandLatencies)
+  // the demands carry the same keys whichever path they came by, read by the one reader
+  private val demandReader = new McsPositionDemandsState.Reader
+
+  scheduler.scheduleAtFixedRate(
+    new Runnable {
+      override def run(): Unit = ctx.self ! LatencySnapshot(report = false)
+    },
+    latencySettings.snapshotInterval.toMillis,
+    latencySettings.snapshotInterval.toMillis,
+    TimeUnit.MILLISECONDS
+  )
 
   override def onMessage(msg: SimpleSimMsg): Behavior[SimpleSimMsg] = {
     msg match {
@@ -92,213 +96,55 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
         Behavior.same
       case msg: ReadConfCmd =>
         msg.sender ! ReadConfResp(CommandResponse.Completed(msg.controlCommand.runId))
-        cmdCounter = cmdCounter + 1
-        log.info(s"cmd counter is: $cmdCounter")
-        if (cmdCounter == 100 && !cmdFileUpdate) {
-          writeCmdDataToFile
-          cmdFileUpdate = true
-        } else {
-          val simRecTime                      = Instant.now()
-          val command                         = msg.controlCommand
-          val clientAppSentTime: Parameter[_] = command.paramSet.find(msg => msg.keyName == "ClientAppSentTime").get
-          val assemblyRecvTime: Parameter[_]  = command.paramSet.find(msg => msg.keyName == "AssemblyCmdRecTime").get
-          val hcdRecvTime: Parameter[_]       = command.paramSet.find(msg => msg.keyName == "HCDCmdRecTime").get
-          var clientAppInstant: Instant       = null
-          var assemblyRecInstant: Instant     = null
-          var hcdRecvTimeInstant: Instant     = null
-          clientAppSentTime.head match {
-            case x: Instant => clientAppInstant = x
-          }
-          assemblyRecvTime.head match {
-            case x: Instant => assemblyRecInstant = x
-          }
-          hcdRecvTime.head match {
-            case x: Instant => hcdRecvTimeInstant = x
-          }
-          cmdBuffer += CmdHolder(clientAppInstant, assemblyRecInstant, hcdRecvTimeInstant, simRecTime)
-        }
-
+        val simRecTime = Instant.now()
+        val paramSet   = msg.controlCommand.paramSet
+        commandLatencies.record(epochNanos(paramSet, "ClientAppSentTime"),
+                                epochNanos(paramSet, "AssemblyCmdRecTime"),
+                                epochNanos(paramSet, "HCDCmdRecTime"),
+                                FixedLayout.epochNanos(simRecTime))
         Behavior.same
       case msg: ProcOneWayDemand =>
-        val simulatorRecTime                    = Instant.now()
-        val paramSet                            = msg.command.paramSet
-        val azPosParam: Option[Parameter[_]]    = paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_AZ_POS)
-        val elPosParam: Option[Parameter[_]]    = paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_EL_POS)
-        val sentTimeParam: Option[Parameter[_]] = paramSet.find(msg => msg.keyName == EventConstants.TIMESTAMP)
-        val azPos: Parameter[_]                 = azPosParam.getOrElse(EventConstants.AzPosKey.set(0.0))
-        val elPos: Parameter[_]                 = elPosParam.getOrElse(EventConstants.ElPosKey.set(0.0))
-        val sentTime                            = sentTimeParam.getOrElse(EventConstants.TimeStampKey.set(Instant.now()))
-        val assemblyRecTime                     = paramSet.find(msg => msg.keyName == EventConstants.ASSEMBLY_RECEIVAL_TIME).get
-        val hcdRecTime                          = paramSet.find(msg => msg.keyName == EventConstants.HCD_ReceivalTime).get
-        this.azPosDemand.set(doubleToLongBits(azPos.head.toString.toDouble))
-        this.elPosDemand.set(doubleToLongBits(elPos.head.toString.toDouble))
-        var hcdRecIns: Instant      = null
-        var assemblyRecIns: Instant = null
-        var pkPublishIns: Instant   = null
-
-        sentTime.head match {
-          case x: Instant => pkPublishIns = x
-        }
-        assemblyRecTime.head match {
-          case x: Instant => assemblyRecIns = x
-        }
-        hcdRecTime.head match {
-          case x: Instant => hcdRecIns = x
-        }
-
-        demandCounter = demandCounter + 1
-        demandBuffer += DemandPosHolder(pkPublishIns, assemblyRecIns, hcdRecIns, simulatorRecTime)
-        if (demandCounter == 100000 && !fileUpdate) {
-          writeOneWayCmdDataToFile
-          fileUpdate = true
-        } else {
-          log.info(s"$demandCounter")
-        }
+        val simulatorRecTime = Instant.now()
+        val demand           = demandReader.read(msg.command)
+        servo.demand(demand.az(0.0), demand.el(0.0))
+        oneWayDemandLatencies.record(FixedLayout.epochNanos(demand.time(simulatorRecTime)),
+                                     FixedLayout.epochNanos(demand.assemblyReceivalTime),
+                                     FixedLayout.epochNanos(demand.hcdReceivalTime),
+                                     FixedLayout.epochNanos(simulatorRecTime))
         Behavior.same
 
       case msg: ProcEventDemand =>
-        val event            = msg.event
         val simpleSimRecTime = Instant.now()
-        val assemblyRecTime  = event.get(EventConstants.ASSEMBLY_RECEIVAL_TIME_KEY).get.head
-        val hcdRecTime       = event.get(EventConstants.HcdReceivalTime_Key).get.head
-        val tpkPublishTime   = event.get(EventConstants.TimeStampKey).get.head
-        val azPos            = event.get(EventConstants.AzPosKey).get.head
-        val elPos            = event.get(EventConstants.ElPosKey).get.head
-        this.azPosDemand.set(doubleToLongBits(azPos))
-        this.elPosDemand.set(doubleToLongBits(elPos))
-        demandCounter = demandCounter + 1
-        demandBuffer += DemandPosHolder(tpkPublishTime, assemblyRecTime, hcdRecTime, simpleSimRecTime)
-        if (demandCounter == 100000 && !fileUpdate) {
-          writeEventDemandDataToFile
-          fileUpdate = true
-        } else {
-          log.info(s" $demandCounter")
-        }
+        recordDemand(eventDemandLatencies, demandReader.read(msg.event), simpleSimRecTime)
         Behavior.same
 
       case msg: ProcCurrStateDemand =>
-        val cs               = msg.currState
         val simpleSimRecTime = Instant.now()
-        val assemblyRecTime  = cs.get(EventConstants.ASSEMBLY_RECEIVAL_TIME_KEY).get.head
-        val hcdRecTime       = cs.get(EventConstants.HcdReceivalTime_Key).get.head
-        val tpkPublishTime   = cs.get(EventConstants.TimeStampKey).get.head
-        val azPos            = cs.get(EventConstants.AzPosKey).get.head
-        val elPos            = cs.get(EventConstants.ElPosKey).get.head
-        this.azPosDemand.set(doubleToLongBits(azPos))
-        this.elPosDemand.set(doubleToLongBits(elPos))
-        demandCounter = demandCounter + 1
-        demandBuffer += DemandPosHolder(tpkPublishTime, assemblyRecTime, hcdRecTime, simpleSimRecTime)
-        if (demandCounter == 100000 && !fileUpdate) {
-          writeCurrentStatesDataToFile
-          fileUpdate = true
-        } else {
-          log.info(s"$demandCounter")
-        }
+        recordDemand(currStateDemandLatencies, demandReader.read(msg.currState), simpleSimRecTime)
         Behavior.same
-    }
-  }
-  private def writeCmdDataToFile: Unit = {
-    val cmdLogFile: File          = new File(logFilePath + "/ReadConfSimple_" + System.currentTimeMillis() + ".txt")
-    val isCmdFileCreated: Boolean = cmdLogFile.createNewFile()
-    log.error(s"Command log file created ?: $isCmdFileCreated")
-    val printStream: PrintStream = new PrintStream(new FileOutputStream(cmdLogFile), true)
-    printStream.println(
-      "ClientAppSentTime(t0),Assembly receive timeStamp(t1),HCD receive timeStamp(t2),Simulator receive timeStamp(t3)," +
-      "ClientApp to AssemblyTime(t1-t0),Assembly to HCDTime(t2-t0),HCD to SimulatorTime(t3-t2),ClientApp to simulator totalTime(t3-t0)"
-    )
-    val cmdList = cmdBuffer.toList
-    cmdList.foreach(cmd => {
-      val clientAppToAssembly: Double = Duration.between(cmd.clientAppSentTime, cmd.assemblyRecTime).toNanos.toDouble / 1000000
-      val assemblyToHCD: Double       = Duration.between(cmd.assemblyRecTime, cmd.hcdRecTime).toNanos.toDouble / 1000000
-      val hcdToSim: Double            = Duration.between(cmd.hcdRecTime, cmd.simRecTime).toNanos.toDouble / 1000000
-      val clientAppToSim: Double      = Duration.between(cmd.clientAppSentTime, cmd.simRecTime).toNanos.toDouble / 1000000
-
-      val str: String = s"${getDate(cmd.clientAppSentTime).trim},${getDate(cmd.assemblyRecTime).trim}," +
-      s"${getDate(cmd.hcdRecTime).trim},${getDate(cmd.simRecTime).trim},${clientAppToAssembly.toString.trim}," +
-      s"${assemblyToHCD.toString.trim},${hcdToSim.toString.trim},${clientAppToSim.toString.trim}"
-      printStream.println(str)
-    })
-    printStream.flush()
-    printStream.close()
-    log.error(s"Successfully written data to file: ${cmdLogFile.getAbsolutePath}")
-  }
-  private def writeCurrentStatesDataToFile = {
-    val demandPosLogFile: File    = new File(logFilePath + "/PosDemEventSimpleLog_" + System.currentTimeMillis() + ".txt")
-    val isDemFileCreated: Boolean = demandPosLogFile.createNewFile()
-    log.error(s"Pos demand log file created ?: $isDemFileCreated")
-    val printStream: PrintStream = new PrintStream(new FileOutputStream(demandPosLogFile), true)
-    printStream.println(
-      "PK publish timeStamp(t0),Assembly receive timeStamp(t1),HCD receive timeStamp(t2),Simulator receive timeStamp(t3)," +
-      "PK to AssemblyTime(t1-t0),Assembly to HCDTime(t2-t0),HCD to SimulatorTime(t3-t2),PK to simulator totalTime(t3-t0)"
-    )
-    val demandPosList = demandBuffer.toList
-    demandPosList.foreach(cp => {
-      val pkToAssembly: Double  = Duration.between(cp.pkPublishTime, cp.assemblyRecTime).toNanos.toDouble / 1000000
-      val assemblyToHCD: Double = Duration.between(cp.assemblyRecTime, cp.hcdRecTime).toNanos.toDouble / 1000000
-      val hcdToSim: Double      = Duration.between(cp.hcdRecTime, cp.simRecTime).toNanos.toDouble / 1000000
-      val pkToSim: Double       = Duration.between(cp.pkPublishTime, cp.simRecTime).toNanos.toDouble / 1000000
 
-      val str: String = s"${getDate(cp.pkPublishTime).trim},${getDate(cp.assemblyRecTime).trim}," +
-      s"${getDate(cp.hcdRecTime).trim},${getDate(cp.simRecTime).trim},${pkToAssembly.toString.trim}," +
-      s"${assemblyToHCD.toString.trim},${hcdToSim.toString.trim},${pkToSim.toString.trim}"
-      printStream.println(str)
-    })
-    printStream.flush()
-    printStream.close()
-    log.error(s"Successfully written data to file: ${demandPosLogFile.getAbsolutePath}")
+      case msg: LatencySnapshot =>
+        if (msg.report) allLatencies.foreach(_.report())
+        else allLatencies.foreach(_.snapshot())
+        Behavior.same
+    }
   }
 
-  private def writeEventDemandDataToFile = {
-    val demandPosLogFile: File    = new File(logFilePath + "/PosDemEventSimpleLog_" + System.currentTimeMillis() + ".txt")
-    val isDemFileCreated: Boolean = demandPosLogFile.createNewFile()
-    log.info(s"Pos demand log file created ?: $isDemFileCreated")
-    val printStream: PrintStream = new PrintStream(new FileOutputStream(demandPosLogFile), true)
-    printStream.println(
-      "PK publish timeStamp(t0),Assembly receive timeStamp(t1),HCD receive timeStamp(t2),Simulator receive timeStamp(t3)," +
-      "PK to AssemblyTime(t1-t0),Assembly to HCDTime(t2-t0),HCD to SimulatorTime(t3-t2),PK to simulator totalTime(t3-t0)"
+  private def recordDemand(latencies: HopLatencies, demand: McsPositionDemandsState.Reader, simpleSimRecTime: Instant): Unit = {
+    servo.demand(demand.az, demand.el)
+    latencies.record(
+      FixedLayout.epochNanos(demand.time),
+      FixedLayout.epochNanos(demand.assemblyReceivalTime),
+      FixedLayout.epochNanos(demand.hcdReceivalTime),
+      FixedLayout.epochNanos(simpleSimRecTime)
     )
-    val demandPosList = demandBuffer.toList
-    demandPosList.foreach(cp => {
-      val pkToAssembly: Double  = Duration.between(cp.pkPublishTime, cp.assemblyRecTime).toNanos.toDouble / 1000000
-      val assemblyToHCD: Double = Duration.between(cp.assemblyRecTime, cp.hcdRecTime).toNanos.toDouble / 1000000
-      val hcdToSim: Double      = Duration.between(cp.hcdRecTime, cp.simRecTime).toNanos.toDouble / 1000000
-      val pkToSim: Double       = Duration.between(cp.pkPublishTime, cp.simRecTime).toNanos.toDouble / 1000000
-
-      val str: String = s"${getDate(cp.pkPublishTime).trim},${getDate(cp.assemblyRecTime).trim}," +
-      s"${getDate(cp.hcdRecTime).trim},${getDate(cp.simRecTime).trim},${pkToAssembly.toString.trim}," +
-      s"${assemblyToHCD.toString.trim},${hcdToSim.toString.trim},${pkToSim.toString.trim}"
-      printStream.println(str)
-    })
-    log.info(s"Successfully written data to file: ${demandPosLogFile.getAbsolutePath}")
-    printStream.flush()
-    printStream.close()
   }
 
-  private def writeOneWayCmdDataToFile = {
-    val demandPosLogFile: File    = new File(logFilePath + "/PosDemEventSimpleLog_" + System.currentTimeMillis() + ".txt")
-    val isDemFileCreated: Boolean = demandPosLogFile.createNewFile()
-    log.info(s"Pos demand log file created ?: $isDemFileCreated")
-    val printStream: PrintStream = new PrintStream(new FileOutputStream(demandPosLogFile), true)
-    printStream.println(
-      "PK publish timeStamp(t0),Assembly receive timeStamp(t1),HCD receive timeStamp(t2),Simulator receive timeStamp(t3)," +
-      "PK to AssemblyTime(t1-t0),Assembly to HCDTime(t2-t0),HCD to SimulatorTime(t3-t2),PK to simulator totalTime(t3-t0)"
-    )
-    val demandPosList = demandBuffer.toList
-    demandPosList.foreach(cp => {
-      val pkToAssembly: Double  = Duration.between(cp.pkPublishTime, cp.assemblyRecTime).toNanos.toDouble / 1000000
-      val assemblyToHCD: Double = Duration.between(cp.assemblyRecTime, cp.hcdRecTime).toNanos.toDouble / 1000000
-      val hcdToSim: Double      = Duration.between(cp.hcdRecTime, cp.simRecTime).toNanos.toDouble / 1000000
-      val pkToSim: Double       = Duration.between(cp.pkPublishTime, cp.simRecTime).toNanos.toDouble / 1000000
-
-      val str: String = s"${getDate(cp.pkPublishTime).trim},${getDate(cp.assemblyRecTime).trim}," +
-      s"${getDate(cp.hcdRecTime).trim},${getDate(cp.simRecTime).trim},${pkToAssembly.toString.trim}," +
-      s"${assemblyToHCD.toString.trim},${hcdToSim.toString.trim},${pkToSim.toString.trim}"
-      printStream.println(str)
-    })
-    printStream.flush()
-    printStream.close()
-    log.info(s"Successfully written data to file: ${demandPosLogFile.getAbsolutePath}")
-  }
+  // nanoseconds since the epoch of the Instant parameter keyName
+  private def epochNanos(paramSet: Set[Parameter[_]], keyName: String): Long =
+    paramSet.find(msg => msg.keyName == keyName).get.head match {
+      case x: Instant => FixedLayout.epochNanos(x)
+    }
 
   def updateSimulator(commandName: String): Unit = {
     commandName match {
@@ -312,6 +158,7 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
         updateCurrPosPublisher(false)
         // updateHealthPublisher(false)
         this.scheduler.shutdown()
+        allLatencies.foreach(_.report())
         log.info("Updating current position publisher and health publisher to false")
       case _ =>
         log.info(s"Not changing publisher thread state as command received is $commandName")
@@ -328,52 +175,24 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
   }
    */
 
+  val controlRunner = new Runnable {
+    override def run(): Unit = servo.step()
+  }
+
   val currentPosRunner = new Runnable {
     override def run(): Unit = {
-      // log.info(s"Publish Current position thread started")
-      var elC: Double = 0
-      var azC: Double = 0
-      def updateElC() = {
-        if (elC >= longBitsToDouble(elPosDemand.get())) {
-          elC = elPosDemand.get()
-        } else if (longBitsToDouble(elPosDemand.get()) > 0.0) {
-          // demanded positions are positive
-          elC = elC + 0.0005
-        } else {
-          // for -ve demanded el positions
-          elC = elC - 0.0005
-        }
-        // log.info(s"Updated el position is : $elC")
-      }
-      def updateAzC = {
-        if (azC >= longBitsToDouble(azPosDemand.get())) {
-          azC = azPosDemand.get()
-        } else if (longBitsToDouble(azPosDemand.get()) > 0.0) {
-          //for positive demanded positions
-          azC = azC + 0.0005
-        } else {
-          azC = azC - 0.0005
-        }
-      }
       if (currentPosPublisher.get()) {
-
-        updateAzC
-        updateElC
-        val azPosParam: Parameter[Double] = EventConstants.AzPosKey.set(azC).withUnits(degree)
-        val elPosParam: Parameter[Double] = EventConstants.ElPosKey.set(elC).withUnits(degree)
+        val azPosParam: Parameter[Double] = EventConstants.AzPosKey.set(servo.azimuth.currentPosition).withUnits(degree)
+        val elPosParam: Parameter[Double] = EventConstants.ElPosKey.set(servo.elevation.currentPosition).withUnits(degree)
 
         val azPosErrorParam: Parameter[Double] =
-          EventConstants.AZ_POS_ERROR_KEY.set(longBitsToDouble(azPosDemand.get())).withUnits(degree)
+          EventConstants.AZ_POS_ERROR_KEY.set(servo.azimuth.currentError).withUnits(degree)
         val elPosErrorParam: Parameter[Double] =
-          EventConstants.EL_POS_ERROR_KEY.set(longBitsToDouble(elPosDemand.get())).withUnits(degree)
+          EventConstants.EL_POS_ERROR_KEY.set(servo.elevation.currentError).withUnits(degree)
 
-        val azInPositionParam: Parameter[Boolean] = EventConstants.AZ_InPosition_Key.set(true)
-        val elInPositionParam: Parameter[Boolean] = EventConstants.EL_InPosition_Key.set(true)
+        val azInPositionParam: Parameter[Boolean] = EventConstants.AZ_InPosition_Key.set(servo.azInPosition)
+        val elInPositionParam: Parameter[Boolean] = EventConstants.EL_InPosition_Key.set(servo.elInPosition)
         val timestamp                             = EventConstants.TimeStampKey.set(Instant.now())
-        /* log.info(
-          s"currentPos publisher curr val: ${currentPosPublisher.get()} Az position : $azC and el position : $elC " +
-          s"demanded az : ${azPosDemand.get()}, el : ${elPosDemand.get()}"
-        )*/
 
         val currentState = CurrentState(prefix, StateName(EventConstants.CURRENT_POSITION))
           .add(azPosParam)
@@ -388,7 +207,11 @@ case class SimpleSimulator(ctx: ActorContext[SimpleSimMsg],
     }
   }
 
-  def startPublishingCurrPos(): Unit = scheduler.scheduleWithFixedDelay(currentPosRunner, 10, 10, TimeUnit.MILLISECONDS)
+  // the servo runs at its control rate, the current position is published at the lower telemetry rate
+  def startPublishingCurrPos(): Unit = {
+    scheduler.scheduleAtFixedRate(controlRunner, servo.controlPeriodNanos, servo.controlPeriodNanos, TimeUnit.NANOSECONDS)
+    scheduler.scheduleAtFixedRate(currentPosRunner, servo.telemetryPeriodNanos, servo.telemetryPeriodNanos, TimeUnit.NANOSECONDS)
+  }
   /*
   val healthRunner = new Runnable {
     override def run(): Unit = {
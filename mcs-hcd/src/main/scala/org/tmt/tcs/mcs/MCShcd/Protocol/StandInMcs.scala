@@ -0,0 +1,342 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.{Executors, ScheduledExecutorService, TimeUnit}
+
+import com.google.protobuf.{CodedInputStream, InvalidProtocolBufferException, Message, Parser, Timestamp}
+import com.typesafe.config.Config
+import org.tmt.tcs.mcs.MCShcd.constants.{Commands, EventConstants}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.{FixedLayout, IEventDecoder}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.{CurrentPositionFlyweight, PositionDemandFlyweight}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsCommandProtos._
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos._
+import org.zeromq.ZMQ
+
+import scala.concurrent.duration.FiniteDuration
+
+object StandInMcs {
+
+  /*
+  commandLatency - time the stand-in takes to reply to a command
+  positionRate   - current positions published per second, diagnosisRate, driveStatusRate and
+                   healthRate the same for the other topics, 0 for none
+  codec          - "protobuf" or "fixed-layout", as tcs.mcs-hcd.codec
+   */
+  case class Settings(commandLatency: FiniteDuration,
+                      positionRate: Int,
+                      diagnosisRate: Int,
+                      driveStatusRate: Int,
+                      healthRate: Int,
+                      codec: String)
+
+  object Settings {
+    def apply(config: Config, codec: String): Settings =
+      Settings(
+        FiniteDuration(config.getDuration("command-latency").toNanos, TimeUnit.NANOSECONDS),
+        config.getInt("position-rate"),
+        config.getInt("diagnosis-rate"),
+        config.getInt("drive-status-rate"),
+        config.getInt("health-rate"),
+        codec
+      )
+  }
+
+  /*
+  The sockets of the HCD the stand-in pairs with: commands pushed and position demands published
+  by the HCD, to connect to, replies pulled and events subscribed to by the HCD, to bind.
+   */
+  case class Endpoints(commands: String, replies: String, events: String, demands: String)
+
+  object Endpoints {
+
+    // from the tmt.tcs.mcs settings of the HCD, as ZeroMQProtocolActor connects
+    def apply(hcdConfig: Config): Endpoints = {
+      val tcsAddress = hcdConfig.getString("tmt.tcs.mcs.TCSMCSAddr")
+      val mcsAddress = hcdConfig.getString("tmt.tcs.mcs.MCSSimulatorAddr")
+      Endpoints(
+        tcsAddress + hcdConfig.getInt("tmt.tcs.mcs.zeroMQPush"),
+        mcsAddress + hcdConfig.getInt("tmt.tcs.mcs.zeroMQPull"),
+        mcsAddress + hcdConfig.getInt("tmt.tcs.mcs.zeroMQSub"),
+        tcsAddress + hcdConfig.getInt("tmt.tcs.mcs.zeroMQPub")
+      )
+    }
+  }
+
+  // time the command and demand threads wait for a message before checking whether to stop
+  private val PollMillis = 100
+
+  private val parsers: Map[String, Parser[_ <: Message]] = Map(
+    Commands.FOLLOW            -> FollowCommand.parser(),
+    Commands.DATUM             -> DatumCommand.parser(),
+    Commands.POINT             -> PointCommand.parser(),
+    Commands.POINT_DEMAND      -> PointDemandCommand.parser(),
+    Commands.STARTUP           -> Startup.parser(),
+    Commands.SHUTDOWN          -> Shutdown.parser(),
+    Commands.READCONFIGURATION -> ReadConfiguration.parser()
+  )
+
+  private final class PendingReply(val due: Long, val commandName: String, val response: Array[Byte], val id: Array[Byte])
+
+  private def timestamp(epochMillis: Long): Timestamp =
+    Timestamp.newBuilder().setSeconds(epochMillis / 1000).setNanos((epochMillis % 1000).toInt * 1000000).build()
+}
+
+/*
+MCS running in the JVM in place of the MCS simulator, speaking its protocol over ZeroMQ, or over
+the rings of a SharedMemoryTransport when rings is not null, so that the real simulator mode of
+the HCD can be run and load tested on one machine.
+
+The stand-in
+- decodes the TcsMcsCommandProtos commands it pulls and replies after commandLatency, OK or ERROR
+  for a command it cannot decode, echoing the correlation id frame of McsCommandPipeline when sent
+- drives a MountServo with the position demands it subscribes to
+- publishes the current position of the servo, diagnosis, drive status and health at their rates
+
+Endpoints may be tcp or, with the ZMQ context of the HCD, inproc. The command channel is owned by
+the command thread, the demand subscriber or ring by the demand thread and the publisher or event
+ring by the scheduler thread, which also steps the servo. The rings, opened on the MCS side, are
+closed by stop.
+ */
+class StandInMcs(zmqContext: ZMQ.Context,
+                 endpoints: StandInMcs.Endpoints,
+                 settings: StandInMcs.Settings,
+                 servoSettings: MountServo.Settings,
+                 rings: SharedMemoryTransport = null) {
+  import StandInMcs._
+
+  require(settings.codec == "protobuf" || settings.codec == "fixed-layout", s"unknown MCS codec '${settings.codec}'")
+
+  private val servo: MountServo                   = new MountServo(servoSettings)
+  private val scheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor()
+  private val publisher: ZMQ.Socket               = if (rings == null) zmqContext.socket(ZMQ.PUB) else null
+  @volatile private var running                   = false
+  @volatile private var lifecycle                 = McsDriveStatus.Lifecycle.ready
+
+  val commandsReceived = new AtomicLong()
+  val demandsReceived  = new AtomicLong()
+  val eventsPublished  = new AtomicLong()
+
+  private val commandThread = new Thread(new Runnable {
+    override def run(): Unit = replyToCommands()
+  }, "stand-in-mcs-commands")
+
+  private val demandThread = new Thread(new Runnable {
+    override def run(): Unit = receiveDemands()
+  }, "stand-in-mcs-demands")
+
+  def start(): Unit = {
+    running = true
+    if (publisher != null) publisher.bind(endpoints.events)
+    commandThread.start()
+    demandThread.start()
+    scheduler.scheduleAtFixedRate(new Runnable {
+      override def run(): Unit = servo.step()
+    }, 0, servo.controlPeriodNanos, TimeUnit.NANOSECONDS)
+    schedule(settings.positionRate, () => publishCurrentPosition())
+    schedule(settings.diagnosisRate, () => publish(EventConstants.DIAGNOSIS_STATE, diagnosis()))
+    schedule(settings.driveStatusRate, () => publish(EventConstants.DRIVE_STATE, driveStatus()))
+    schedule(settings.healthRate, () => publish(EventConstants.HEALTH_STATE, health()))
+  }
+
+  def stop(): Unit = {
+    running = false
+    commandThread.join()
+    demandThread.join()
+    scheduler.shutdown()
+    scheduler.awaitTermination(1, TimeUnit.SECONDS)
+    if (publisher != null) publisher.close()
+    else rings.close()
+  }
+
+  def stats: String =
+    s"stand-in MCS: commands=${commandsReceived.get}, demands=${demandsReceived.get}, events=${eventsPublished.get}"
+
+  private def schedule(rate: Int, task: () => Unit): Unit =
+    if (rate > 0) {
+      scheduler.scheduleAtFixedRate(new Runnable {
+        override def run(): Unit = task()
+      }, 0, 1000000000L / rate, TimeUnit.NANOSECONDS)
+    }
+
+  /*
+  Replies are queued in the order of the commands and sent once due, the latency being the same
+  for all commands.
+   */
+  private def replyToCommands(): Unit = {
+    // the HCD channel the other way round, replies sent and commands received
+    val channel =
+      if (rings == null) new ZeroMQCommandChannel(zmqContext, endpoints.replies, endpoints.commands)
+      else new SharedMemoryCommandChannel(rings.replies, rings.commands)
+    channel.open()
+    val pending = new util.ArrayDeque[PendingReply]()
+    while (running) {
+      val command = channel.receive(if (pending.isEmpty) PollMillis else 1)
+      if (command != null) {
+        val payload = if (command.payload != null) command.payload else Array.emptyByteArray
+        commandsReceived.incrementAndGet()
+        val due = System.nanoTime() + settings.commandLatency.toNanos
+        pending.addLast(new PendingReply(due, command.commandName, execute(command.commandName, payload), command.id))
+      }
+      val now = System.nanoTime()
+      while (!pending.isEmpty && pending.peekFirst.due <= now) {
+        val reply = pending.pollFirst()
+        channel.send(reply.commandName, reply.response, reply.id)
+      }
+    }
+    channel.close()
+  }
+
+  private def execute(commandName: String, payload: Array[Byte]): Array[Byte] = {
+    val response = MCSCommandResponse.newBuilder().setProcessedTime(timestamp(System.currentTimeMillis()))
+    parsers.get(commandName) match {
+      case Some(parser) =>
+        try {
+          parser.parseFrom(payload)
+          commandName match {
+            case Commands.STARTUP  => lifecycle = McsDriveStatus.Lifecycle.running
+            case Commands.SHUTDOWN => lifecycle = McsDriveStatus.Lifecycle.ready
+            case _                 =>
+          }
+          response.setCmdError(MCSCommandResponse.CmdError.OK)
+        } catch {
+          case e: InvalidProtocolBufferException =>
+            response
+              .setCmdError(MCSCommandResponse.CmdError.ERROR)
+              .setErrorState(MCSCommandResponse.ErrorState.FAILED)
+              .setErrorInfo(s"$commandName could not be decoded: ${e.getMessage}")
+        }
+      case None =>
+        response
+          .setCmdError(MCSCommandResponse.CmdError.ERROR)
+          .setErrorState(MCSCommandResponse.ErrorState.ILLEGAL_STATE)
+          .setErrorInfo(s"unknown command $commandName")
+    }
+    response.build().toByteArray
+  }
+
+  private val demand = new Array[Byte](256)
+  private val fixed  = new PositionDemandFlyweight
+
+  private def receiveDemands(): Unit =
+    if (rings == null) {
+      val subscriber = zmqContext.socket(ZMQ.SUB)
+      subscriber.connect(endpoints.demands)
+      subscriber.subscribe(EventConstants.MOUNT_DEMAND_POSITION.getBytes(StandardCharsets.US_ASCII))
+      subscriber.setReceiveTimeOut(PollMillis)
+      val topic = new Array[Byte](64)
+      while (running) {
+        if (subscriber.recv(topic, 0, topic.length, 0) >= 0 && subscriber.hasReceiveMore) {
+          val length = subscriber.recv(demand, 0, demand.length, 0)
+          while (subscriber.hasReceiveMore) subscriber.recv(0)
+          demanded(length)
+        }
+      }
+      subscriber.close()
+    } else {
+      val idle = SharedMemoryTransport.idleStrategy()
+      while (running) {
+        val length = rings.demands.read(demand)
+        if (length < 0) idle.idle(0)
+        else {
+          idle.reset()
+          demanded(length)
+        }
+      }
+    }
+
+  // drives the servo with the demand of length bytes received into demand
+  private def demanded(length: Int): Unit =
+    if (length > 0 && length < demand.length) {
+      demandsReceived.incrementAndGet()
+      if (settings.codec == "fixed-layout") {
+        fixed.wrap(demand, 0)
+        if (fixed.isValid(length)) servo.demand(fixed.azimuth, fixed.elevation)
+      } else {
+        try {
+          val event = TcsPositionDemandEvent.parseFrom(CodedInputStream.newInstance(demand, 0, length))
+          servo.demand(event.getAzimuth, event.getElevation)
+        } catch {
+          case _: InvalidProtocolBufferException => // not a demand, as the MCS would ignore it
+        }
+      }
+    }
+
+  private val positionBuffer = new Array[Byte](64)
+  private val position       = new CurrentPositionFlyweight
+
+  private def publishCurrentPosition(): Unit =
+    if (settings.codec == "fixed-layout") {
+      position
+        .wrap(positionBuffer, 0)
+        .writeHeader()
+        .azPos(servo.azimuth.currentPosition)
+        .elPos(servo.elevation.currentPosition)
+        .azPosError(servo.azimuth.currentError)
+        .elPosError(servo.elevation.currentError)
+        .time(FixedLayout.epochNanos(Instant.now()))
+        .inPosition(servo.azInPosition, servo.elInPosition)
+      publish(EventConstants.CURRENT_POSITION, positionBuffer, position.length)
+    } else {
+      publish(
+        EventConstants.CURRENT_POSITION,
+        McsCurrentPositionEvent
+          .newBuilder()
+          .setAzPos(servo.azimuth.currentPosition)
+          .setElPos(servo.elevation.currentPosition)
+          .setAzPosError(servo.azimuth.currentError)
+          .setElPosError(servo.elevation.currentError)
+          .setAzInPosition(servo.azInPosition)
+          .setElInPosition(servo.elInPosition)
+          .setTime(timestamp(System.currentTimeMillis()))
+          .build()
+          .toByteArray
+      )
+    }
+
+  private def publish(topic: String, event: Array[Byte]): Unit = publish(topic, event, event.length)
+
+  // on the event ring the message type is the index of the topic + 1, see SharedMemoryEventReceiver
+  private def publish(topic: String, event: Array[Byte], length: Int): Unit = {
+    val published =
+      if (publisher != null) publisher.sendMore(topic) && publisher.send(event, 0, length, 0)
+      else rings.events.write(IEventDecoder.TopicNames.indexOf(topic) + 1, event, 0, length)
+    if (published) eventsPublished.incrementAndGet()
+  }
+
+  private def diagnosis(): Array[Byte] =
+    MountControlDiags
+      .newBuilder()
+      .setAzPosDemand(servo.azimuth.currentPosition + servo.azimuth.currentError)
+      .setElPosDemand(servo.elevation.currentPosition + servo.elevation.currentError)
+      .setAzPosError(servo.azimuth.currentError)
+      .setElPosError(servo.elevation.currentError)
+      .setAzInPosition(servo.azInPosition)
+      .setElInPosition(servo.elInPosition)
+      .setTime(timestamp(System.currentTimeMillis()))
+      .build()
+      .toByteArray
+
+  private def driveStatus(): Array[Byte] = {
+    val following = lifecycle == McsDriveStatus.Lifecycle.running
+    McsDriveStatus
+      .newBuilder()
+      .setLifecycle(lifecycle)
+      .setAzstate(if (following) McsDriveStatus.Azstate.az_following else McsDriveStatus.Azstate.az_servo_off)
+      .setElstate(if (following) McsDriveStatus.Elstate.el_following else McsDriveStatus.Elstate.el_servo_off)
+      .setTime(timestamp(System.currentTimeMillis()))
+      .build()
+      .toByteArray
+  }
+
+  private def health(): Array[Byte] =
+    McsHealth
+      .newBuilder()
+      .setHealthMCS(McsHealth.Health.Good)
+      .setReason("stand-in MCS")
+      .setTime(timestamp(System.currentTimeMillis()))
+      .build()
+      .toByteArray
+}
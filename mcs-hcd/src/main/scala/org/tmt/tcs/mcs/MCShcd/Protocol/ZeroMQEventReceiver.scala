@@ -0,0 +1,89 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicLong
+
+import csw.logging.scaladsl.Logger
+import csw.params.core.states.CurrentState
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+import org.zeromq.ZMQ
+
+object ZeroMQEventReceiver {
+  // longest topic name the MCS publishes, with room to spare
+  private val MaxTopicLength = 64
+}
+
+/*
+Receives the events published by the MCS, a topic frame followed by an event frame, into buffers
+allocated once and decodes them with the event decoder of the codec.
+
+An event filling the whole event buffer may have been truncated by the socket, it is dropped and
+the buffer doubled for the events that follow.
+
+Not thread safe, used by the event subscriber thread only.
+ */
+class ZeroMQEventReceiver(socket: ZMQ.Socket, decoder: IEventDecoder, log: Logger) extends McsEventSource {
+  import McsEventSource._
+  import ZeroMQEventReceiver._
+
+  private val topicBuffer: Array[Byte] = new Array[Byte](MaxTopicLength)
+  private var eventBuffer: Array[Byte] = new Array[Byte](InitialEventSize)
+  private var eventLength: Int         = 0
+  private var receivalTime: Instant    = _
+
+  private val received = new AtomicLong()
+  private val dropped  = new AtomicLong()
+
+  /*
+  Waits for the next event and returns its current state, null if none was received within the
+  receive timeout of the socket or the event could not be decoded.
+   */
+  def receive(): CurrentState = {
+    val topic = receiveFrame(noWait = false)
+    if (topic < 0) null
+    else {
+      val currentState = decoder.decode(topic, eventBuffer, 0, eventLength, receivalTime)
+      if (currentState == null) dropped.incrementAndGet()
+      currentState
+    }
+  }
+
+  override def receiveFrame(noWait: Boolean): Int = {
+    val topicLength = socket.recv(topicBuffer, 0, topicBuffer.length, if (noWait) ZMQ.DONTWAIT else 0)
+    if (topicLength < 0) return NoEvent
+    if (!socket.hasReceiveMore) {
+      log.error(s"No event data is received for event: ${topicName(topicLength)}")
+      dropped.incrementAndGet()
+      return IEventDecoder.UnknownTopic
+    }
+    eventLength = socket.recv(eventBuffer, 0, eventBuffer.length, 0)
+    receivalTime = Instant.now
+    while (socket.hasReceiveMore) socket.recv(0)
+    received.incrementAndGet()
+
+    val topic = decoder.topicIndex(topicBuffer, topicLength)
+    if (topic == IEventDecoder.UnknownTopic || eventLength < 0) {
+      dropped.incrementAndGet()
+      IEventDecoder.UnknownTopic
+    } else if (eventLength >= eventBuffer.length) {
+      log.error(s"${IEventDecoder.TopicNames(topic)} event exceeds ${eventBuffer.length} bytes skipping this record.")
+      eventBuffer = new Array[Byte](2 * eventBuffer.length)
+      dropped.incrementAndGet()
+      IEventDecoder.UnknownTopic
+    } else topic
+  }
+
+  // only used to report errors
+  private def topicName(length: Int): String = new String(topicBuffer, 0, length, StandardCharsets.US_ASCII)
+
+  override def event: Array[Byte] = eventBuffer
+
+  override def eventSize: Int = eventLength
+
+  override def eventReceivalTime: Instant = receivalTime
+
+  override def receivedCount: Long = received.get
+
+  override def droppedCount: Long = dropped.get
+}
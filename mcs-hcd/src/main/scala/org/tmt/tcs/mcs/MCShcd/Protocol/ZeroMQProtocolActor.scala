@@ -1,8 +1,8 @@
 package org.tmt.tcs.mcs.MCShcd.Protocol
 
-import java.time.Instant
 import java.util.concurrent.{ExecutorService, Executors, ScheduledExecutorService}
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.LockSupport
 
 import akka.actor.typed.{ActorRef, Behavior}
 import akka.actor.typed.scaladsl.{AbstractBehavior, ActorContext, Behaviors}
@@ -21,6 +21,9 @@ import org.tmt.tcs.mcs.MCShcd.Protocol.ZeroMQMessage._
 import org.tmt.tcs.mcs.MCShcd.constants.{Commands, EventConstants}
 import org.tmt.tcs.mcs.MCShcd.msgTransformers._
 import org.zeromq.ZMQ
+
+import scala.concurrent.{ExecutionContextExecutor, Future}
+import scala.util.{Failure, Success}
 sealed trait ZeroMQMessage
 object ZeroMQMessage {
 
@@ -40,6 +43,15 @@ object ZeroMQMessage {
 
 }
 object ZeroMQProtocolActor {
+  // time the subscriber thread waits for an event before checking whether to stop
+  private val SubscriberTimeoutMillis = 100
+  // time the bulk lane thread sleeps when there is no event to publish
+  private val BulkLanePollNanos = 1000000L
+  // holds many encoded position demands, so that the encoders can keep their output stream
+  private val DemandBufferSize = 65536
+  // larger than any encoded position demand
+  private val MaxDemandSize = 256
+
   def create(commandResponseManager: CommandResponseManager,
              statePublisherActor: ActorRef[EventMessage],
              loggerFactory: LoggerFactory): Behavior[ZeroMQMessage] =
@@ -50,21 +62,39 @@ case class ZeroMQProtocolActor(ctx: ActorContext[ZeroMQMessage],
                                statePublisherActor: ActorRef[EventMessage],
                                loggerFactory: LoggerFactory)
     extends AbstractBehavior[ZeroMQMessage] {
-  private val log: Logger                 = loggerFactory.getLogger
-  private val zmqContext: ZMQ.Context     = ZMQ.context(1)
-  private val pushSocket: ZMQ.Socket      = zmqContext.socket(ZMQ.PUSH) //55579
-  private val pullSocket: ZMQ.Socket      = zmqContext.socket(ZMQ.PULL) //55578
+  import ZeroMQProtocolActor._
+  private val log: Logger                    = loggerFactory.getLogger
+  implicit val ec: ExecutionContextExecutor = ctx.executionContext
+  private val zmqContext: ZMQ.Context        = ZMQ.context(1)
+  // commands on push socket 55579, replies on pull socket 55578
+  private val commandPipeline: McsCommandPipeline = new McsCommandPipeline(
+    zmqContext,
+    McsCommandPipeline.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.command-pipeline"))
+  )
   private val pubSocket: ZMQ.Socket       = zmqContext.socket(ZMQ.PUB) //55581
   private val subscribeSocket: ZMQ.Socket = zmqContext.socket(ZMQ.SUB) //55580
 
-  private val messageTransformer: IMessageTransformer  = ProtoBuffMsgTransformer.create(loggerFactory)
+  // "protobuf" or "fixed-layout", the encoding of the MCS deployed with
+  private val codec: String                            = ctx.system.settings.config.getString("tcs.mcs-hcd.codec")
+  private val messageTransformer: IMessageTransformer  = IMessageTransformer.create(codec, loggerFactory)
+  // position demands are encoded here one after the other, jeromq's Socket.send(byte[], offset, length, flags)
+  // copies each into a new Msg, as the buffer is reused before the I/O thread has written the frame
+  private val demandBuffer: Array[Byte]                = new Array[Byte](DemandBufferSize)
+  private var demandOffset: Int                        = 0
   private val paramSetTransformer: ParamSetTransformer = ParamSetTransformer.create(loggerFactory)
   private var zeroMQPullSocketStr: String              = _
   private var zeroMQPushSocketStr: String              = _
   private var zeroMQSubScribeSocketStr: String         = _
   private var zeroMQPubSocketStr: String               = _
   val simEventSubscriber: AtomicBoolean                = new AtomicBoolean(true)
-  private val scheduler: ExecutorService               = Executors.newSingleThreadExecutor()
+  // MCS run in this JVM when tcs.mcs-hcd.stand-in-mcs.enabled, null otherwise
+  private var standInMcs: StandInMcs                   = _
+  // event subscriber and bulk event publisher
+  private val scheduler: ExecutorService               = Executors.newFixedThreadPool(2)
+  // "zeromq" or "shared-memory" for a controller on the same host, see SharedMemoryTransport
+  private val transport: String                        = ctx.system.settings.config.getString("tcs.mcs-hcd.transport")
+  // rings created by initMCSConnection with the shared-memory transport, null otherwise
+  private var sharedMemory: SharedMemoryTransport      = _
 
   /*posts
   1. PublishEvent is used when positionDemand is propagated from Assembly to HCD using CSW EventService.
@@ -84,11 +114,15 @@ case class ZeroMQProtocolActor(ctx: ActorContext[ZeroMQMessage],
       case msg: ImmediateCmd => // follow command will be immediate command to MCS
         immediateCommandToMCS(msg)
         Behavior.same
+      case msg: ReadConfRealCmd =>
+        sendCommand(msg.controlCommand, immediate = false).foreach(response => msg.sender ! ReadConfRealCmdResp(response))
+        Behavior.same
       case msg: SubmitCommand =>
         msg.controlCommand.commandName.name match {
           case Commands.STARTUP =>
             submitCommandToMCS(msg)
             this.scheduler.execute(eventSubscriber)
+            this.scheduler.execute(bulkEventPublisher)
             log.info("Started subscribing to events from real Simulator.")
             Behavior.same
           case Commands.SHUTDOWN =>
@@ -102,18 +136,12 @@ case class ZeroMQProtocolActor(ctx: ActorContext[ZeroMQMessage],
             Behavior.same
         }
       case msg: PublishEvent =>
-        val positionDemands: Array[Byte] = messageTransformer.encodeEvent(msg.event)
-        if (pubSocket.sendMore(EventConstants.MOUNT_DEMAND_POSITION)) {
-          pubSocket.send(positionDemands)
-        }
+        publishDemand(messageTransformer.encodeEvent(msg.event, demandBuffer, demandOffset))
         Behavior.same
 
       case msg: PublishCurrStateToZeroMQ =>
         try {
-          val positionDemands: Array[Byte] = messageTransformer.encodeCurrentState(msg.currentState)
-          if (pubSocket.sendMore(EventConstants.MOUNT_DEMAND_POSITION)) {
-            pubSocket.send(positionDemands)
-          }
+          publishDemand(messageTransformer.encodeCurrentState(msg.currentState, demandBuffer, demandOffset))
         } catch {
           case ex: Exception =>
             ex.printStackTrace()
@@ -126,82 +154,121 @@ case class ZeroMQProtocolActor(ctx: ActorContext[ZeroMQMessage],
         Behavior.same
     }
   }
+  /*
+  Events are received into reused buffers and decoded without the intermediate protobuf objects,
+  see ZeroMQEventReceiver and the IEventDecoder of the codec. Current positions are published by the
+  subscriber thread, diagnosis, drive status and health events by the bulk lane thread, see McsEventLanes.
+  The lanes are created by the subscriber thread, once initMCSConnection has chosen the event source.
+   */
+  private val positionDecoder: IEventDecoder = IEventDecoder.create(codec, loggerFactory)
+  private lazy val eventLanes: McsEventLanes = new McsEventLanes(
+    if (sharedMemory != null) new SharedMemoryEventReceiver(sharedMemory.events, SubscriberTimeoutMillis)
+    else new ZeroMQEventReceiver(subscribeSocket, positionDecoder, log),
+    positionDecoder,
+    IEventDecoder.create(codec, loggerFactory),
+    McsEventLanes.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.event-lanes"))
+  )
+  private val publishState: CurrentState => Unit = currState => statePublisherActor ! PublishState(currState)
+
   val eventSubscriber = new Runnable {
     override def run(): Unit = {
       while (simEventSubscriber.get()) {
         try {
-          val eventName: String = subscribeSocket.recvStr()
-          if (subscribeSocket.hasReceiveMore) {
-            val eventData       = subscribeSocket.recv(ZMQ.NOBLOCK)
-            val hcdReceivalTime = Instant.now
-            val currentState    = messageTransformer.decodeEvent(eventName, eventData)
-            val currState       = currentState.add(EventConstants.hcdEventReceivalTime_Key.set(hcdReceivalTime))
-            statePublisherActor ! PublishState(currState)
-          } else {
-            log.error(s"No event data is received for event: $eventName")
-          }
+          eventLanes.receive(publishState)
         } catch {
           case e: Exception =>
             e.printStackTrace()
             log.error("exception in subscribing events from simulator: ", Map.empty, e, noId)
         }
       }
+      log.info(s"MCS events: ${eventLanes.stats}")
     }
   }
-
-  private def immediateCommandToMCS(msg: ImmediateCmd): Unit = {
-    val commandName: String = msg.controlCommand.commandName.name
-    if (pushSocket.sendMore(commandName)) {
-      val encodedCommand = messageTransformer.encodeMessage(msg.controlCommand)
-      if (pushSocket.send(encodedCommand, ZMQ.NOBLOCK)) {
-        msg.sender ! ImmediateCmdResp(readCommandResponse(commandName, msg.controlCommand.runId))
-      } else {
-        msg.sender ! ImmediateCmdResp(
-          CommandResponse.Error(msg.controlCommand.runId, "Unable to submit command data to MCS subsystem.")
-        )
+  val bulkEventPublisher = new Runnable {
+    override def run(): Unit = {
+      while (simEventSubscriber.get()) {
+        try {
+          if (eventLanes.drainBulk(publishState) == 0) {
+            LockSupport.parkNanos(BulkLanePollNanos)
+          }
+        } catch {
+          case e: Exception =>
+            log.error("exception in publishing events from simulator: ", Map.empty, e, noId)
+        }
       }
-    } else {
-      msg.sender ! ImmediateCmdResp(
-        CommandResponse.Error(msg.controlCommand.runId, "Unable to submit command data to MCS subsystem.")
-      )
     }
   }
-  private def submitCommandToMCS(msg: SubmitCommand): Unit = {
-    val commandName: String = msg.controlCommand.commandName.name
-    if (pushSocket.sendMore(commandName)) {
-      val encodedCommand = messageTransformer.encodeMessage(msg.controlCommand)
-      if (pushSocket.send(encodedCommand, ZMQ.NOBLOCK)) {
-        commandResponseManager.addOrUpdateCommand(readCommandResponse(commandName, msg.controlCommand.runId))
-      } else {
-        commandResponseManager.addOrUpdateCommand(
-          CommandResponse.Error(msg.controlCommand.runId, "Unable to submit command data to MCS subsystem.")
-        )
-      }
-    } else {
-      commandResponseManager.addOrUpdateCommand(
-        CommandResponse.Error(msg.controlCommand.runId, "Unable to submit command data to MCS subsystem.")
-      )
+
+  /*
+  Sends the demand encoded at demandOffset; the next demand is encoded right after it, or at the
+  start of the buffer once the end is near. Over ZeroMQ the socket copies the demand into a message
+  of its own, one allocation and copy per demand, the shared memory ring copies it into the ring.
+   */
+  private def publishDemand(length: Int): Unit = {
+    if (sharedMemory != null) {
+      sharedMemory.demands.write(SharedMemoryTransport.DemandMessage, demandBuffer, demandOffset, length)
+    } else if (pubSocket.sendMore(EventConstants.MOUNT_DEMAND_POSITION)) {
+      pubSocket.send(demandBuffer, demandOffset, length, 0)
     }
+    demandOffset += length
+    if (demandOffset + MaxDemandSize > demandBuffer.length) demandOffset = 0
   }
 
-  private def readCommandResponse(commandName: String, runId: Id): SubmitResponse = {
-    val responseCommandName: String = pullSocket.recvStr()
-    if (commandName == responseCommandName) {
-      if (pullSocket.hasReceiveMore) {
-        val responsePacket: Array[Byte] = pullSocket.recv(ZMQ.DONTWAIT)
-        val response: SubystemResponse  = messageTransformer.decodeCommandResponse(responsePacket)
-        paramSetTransformer.getCSWResponse(runId, response)
-      } else {
-        Error(runId, "unknown command send")
-      }
-    } else {
-      Error(runId, "unknown command send")
+  /*
+  Commands are sent through the command pipeline, responses are handed on once the MCS replies,
+  so this actor never waits for the MCS and several commands can be in flight.
+   */
+  private def immediateCommandToMCS(msg: ImmediateCmd): Unit =
+    sendCommand(msg.controlCommand, immediate = true).foreach(response => msg.sender ! ImmediateCmdResp(response))
+
+  private def submitCommandToMCS(msg: SubmitCommand): Unit =
+    sendCommand(msg.controlCommand, immediate = false).foreach(commandResponseManager.addOrUpdateCommand)
+
+  private def sendCommand(controlCommand: ControlCommand, immediate: Boolean): Future[SubmitResponse] = {
+    val commandName: String = controlCommand.commandName.name
+    val runId: Id           = controlCommand.runId
+    val encodedCommand      = messageTransformer.encodeMessage(controlCommand)
+    val reply =
+      if (immediate) commandPipeline.submitImmediate(commandName, encodedCommand)
+      else commandPipeline.submit(commandName, encodedCommand)
+    reply.transform {
+      case Success(responsePacket) =>
+        Success(paramSetTransformer.getCSWResponse(runId, messageTransformer.decodeCommandResponse(responsePacket)))
+      case Failure(e) =>
+        log.error(s"MCS command $commandName failed: ${e.getMessage}, ${commandPipeline.stats}")
+        Success(Error(runId, e.getMessage))
     }
   }
 
   private def initMCSConnection(config: Config): Boolean = {
     log.info(s"config object is :$config")
 
+    val sharedMemorySettings = SharedMemoryTransport.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.shared-memory"))
+    if (transport == "shared-memory") {
+      // created before the stand-in MCS, or the controller, opens them
+      sharedMemory = SharedMemoryTransport.create(sharedMemorySettings)
+    }
+
+    val standInConfig = ctx.system.settings.config.getConfig("tcs.mcs-hcd.stand-in-mcs")
+    if (standInConfig.getBoolean("enabled")) {
+      val endpoints = StandInMcs.Endpoints(config)
+      standInMcs = new StandInMcs(
+        zmqContext,
+        endpoints,
+        StandInMcs.Settings(standInConfig, codec),
+        MountServo.Settings(ctx.system.settings.config.getConfig("tcs.mcs-hcd.simulator-servo")),
+        if (sharedMemory != null) SharedMemoryTransport.open(sharedMemorySettings) else null
+      )
+      standInMcs.start()
+      log.info(s"Started stand-in MCS on ${if (sharedMemory != null) sharedMemorySettings else endpoints}")
+    }
+
+    if (sharedMemory != null) {
+      val commandConn = commandPipeline.connect(new SharedMemoryCommandChannel(sharedMemory.commands, sharedMemory.replies))
+      log.info(msg = s"MCS rings are in ${sharedMemorySettings.directory} and connection: $commandConn")
+      return commandConn
+    }
+
     val tcsAddress = config.getString("tmt.tcs.mcs.TCSMCSAddr")
     log.info(msg = s"ZeroMQ is connecting to machine:$tcsAddress")
 
@@ -209,31 +276,37 @@ case class ZeroMQProtocolActor(ctx: ActorContext[ZeroMQMessage],
     log.info(msg = s"MCS Remote server address is: $mcsAddress") //tcp://192.168.1.2:
 
     zeroMQPushSocketStr = tcsAddress + config.getInt("tmt.tcs.mcs.zeroMQPush")
-    val pushSocketConn = pushSocket.bind(zeroMQPushSocketStr)
-    log.info(msg = s"ZeroMQ push socket is: $zeroMQPushSocketStr and connection: $pushSocketConn")
-
     zeroMQPullSocketStr = mcsAddress + config.getInt("tmt.tcs.mcs.zeroMQPull")
-    val pullSocketConn = pullSocket.connect(zeroMQPullSocketStr)
-    log.info(msg = s"ZeroMQ pull socket is: $zeroMQPullSocketStr and connection: $pullSocketConn")
+    val commandConn = commandPipeline.connect(zeroMQPushSocketStr, zeroMQPullSocketStr)
+    log.info(
+      msg = s"ZeroMQ push socket is: $zeroMQPushSocketStr, pull socket is: $zeroMQPullSocketStr and connection: $commandConn"
+    )
 
     zeroMQSubScribeSocketStr = mcsAddress + config.getInt("tmt.tcs.mcs.zeroMQSub")
     val subSockConn = subscribeSocket.connect(zeroMQSubScribeSocketStr)
     subscribeSocket.subscribe(ZMQ.SUBSCRIPTION_ALL) // added this becz unable to receive msgs without this.
+    // lets the subscriber thread see the end of the subscription
+    subscribeSocket.setReceiveTimeOut(SubscriberTimeoutMillis)
     log.info(msg = s"ZeroMQ subscribe socket is: $zeroMQSubScribeSocketStr and connection is: $subSockConn")
 
     zeroMQPubSocketStr = tcsAddress + config.getInt("tmt.tcs.mcs.zeroMQPub")
     val pubSockConn = pubSocket.bind(zeroMQPubSocketStr)
     log.info(msg = s"ZeroMQ pub socket is: $zeroMQPubSocketStr and connection is: $pubSockConn")
-    pushSocketConn && pullSocketConn && subSockConn && pubSockConn
+    commandConn && subSockConn && pubSockConn
   }
   private def disconnectFromMCS(): Unit = {
-    pushSocket.disconnect(zeroMQPushSocketStr)
-    pushSocket.close()
-    pullSocket.disconnect(zeroMQPullSocketStr)
-    pullSocket.close()
-    subscribeSocket.disconnect(zeroMQSubScribeSocketStr)
-    subscribeSocket.close()
-    pubSocket.disconnect(zeroMQPubSocketStr)
-    pubSocket.close()
+    log.info(s"MCS commands: ${commandPipeline.stats}")
+    if (standInMcs != null) {
+      standInMcs.stop()
+      log.info(standInMcs.stats)
+    }
+    commandPipeline.close()
+    // the rings stay mapped, the event subscriber thread may still be reading them
+    if (sharedMemory == null) {
+      subscribeSocket.disconnect(zeroMQSubScribeSocketStr)
+      subscribeSocket.close()
+      pubSocket.disconnect(zeroMQPubSocketStr)
+      pubSocket.close()
+    }
   }
 }
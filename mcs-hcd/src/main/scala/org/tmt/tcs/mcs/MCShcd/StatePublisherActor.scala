@@ -32,10 +32,10 @@ object EventMessage {
                              operationalState: HCDOperationalState.operationalState)
       extends EventMessage
   // case class StartPublishing() extends EventMessage
-  /* case class StartEventSubscription(zeroMQProtoActor: ActorRef[ZeroMQMessage], simpleSimActor: ActorRef[SimpleSimMsg])
-      extends EventMessage*/
   case class PublishState(currentState: CurrentState)        extends EventMessage
   case class AssemblyStateChange(currentState: CurrentState) extends EventMessage
+  // position demand published by the assembly through the event service
+  case class AssemblyDemandEvent(event: Event) extends EventMessage
   case class SimulationModeChange(simMode: String, simpleSimActor: ActorRef[SimpleSimMsg], zeroMQActor: ActorRef[ZeroMQMessage])
       extends EventMessage
 
@@ -109,8 +109,8 @@ case class StatePublisherActor(ctx: ActorContext[EventMessage],
   }
   /*
        This function performs following tasks:
-       - On receipt of StartEventSubscription message this function starts subscribing to positionDemand event
-        from MCS Assembly using CSW EventService's default EventSubscriber.
+       - On receipt of AssemblyStateChange or AssemblyDemandEvent message it sends the position demand received
+        from MCS Assembly as current state or event to the simulator
        - On receipt of StateChangeMsg message this function publishes HCD's Lifecycle state to Assembly using
           CSW CurrentStatePublisher
        - On receipt of HCDOperationalStateChangeMsg it simply changes Actor's behavior to changed operational state
@@ -120,13 +120,6 @@ case class StatePublisherActor(ctx: ActorContext[EventMessage],
    */
   override def onMessage(msg: EventMessage): Behavior[EventMessage] = {
     msg match {
-      /* case msg: StartEventSubscription =>
-        val eventSubscriber = eventService.defaultSubscriber
-        zeroMQActor = msg.zeroMQProtoActor
-        simpleSimActor = msg.simpleSimActor
-        log.info(msg = s"Starting subscribing to events from MCS Assembly in StatePublisherActor via EventSubscriber")
-        eventSubscriber.subscribeCallback(EventConstants.AssemblyPositionDemandKey, event => processEvent(event))
-        Behavior.same*/
       case msg: StateChangeMsg =>
         val currLifeCycleState = msg.lifeCycleState
         val state              = currLifeCycleState.toString
@@ -180,6 +173,9 @@ case class StatePublisherActor(ctx: ActorContext[EventMessage],
           case Commands.SIMPLE_SIMULATOR => simpleSimActor ! ProcCurrStateDemand(currState)
         }
         Behavior.same
+      case msg: AssemblyDemandEvent =>
+        processEvent(msg.event)
+        Behavior.same
 
       case msg: GetCurrentState =>
         msg.sender ! HcdCurrentState(lifeCycleState, operationalState)
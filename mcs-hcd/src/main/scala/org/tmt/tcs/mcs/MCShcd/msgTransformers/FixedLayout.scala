@@ -0,0 +1,144 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.nio.{ByteBuffer, ByteOrder}
+import java.time.Instant
+
+/*
+Fixed-layout binary encoding of the high rate MCS messages, the position demands sent to the MCS
+and the current positions received from it.
+
+Each message is a header followed by fields at fixed offsets, little endian:
+
+  header           0  template id (int16), version (int16), reserved (int32)
+  position demand  8  azimuth, 16 elevation (float64, degrees),
+                   24 tpk publish time, 32 assembly receival time, 40 hcd receival time
+                   (int64, nanoseconds since the epoch), 48 bytes in all
+  current position 8  azimuth, 16 elevation, 24 azimuth error, 32 elevation error (float64, degrees),
+                   40 time (int64, nanoseconds since the epoch),
+                   48 flags (int8, bit 0 azimuth in position, bit 1 elevation in position), 56 bytes in all
+
+Messages are read and written in place through the flyweights below, which allocate nothing once
+wrapped around a buffer.
+ */
+object FixedLayout {
+  val Order: ByteOrder = ByteOrder.LITTLE_ENDIAN
+  val Version: Short   = 1
+  val HeaderLength     = 8
+
+  val PositionDemandTemplate: Short  = 1
+  val CurrentPositionTemplate: Short = 2
+
+  def epochNanos(instant: Instant): Long = instant.getEpochSecond * 1000000000L + instant.getNano
+
+  def instant(epochNanos: Long): Instant =
+    Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1000000000L), Math.floorMod(epochNanos, 1000000000L))
+
+  /*
+  View of one message in a byte array, moved from message to message by wrap.
+  Not thread safe.
+   */
+  abstract class Flyweight(templateId: Short, val length: Int) {
+    private var array: Array[Byte]   = _
+    protected var buffer: ByteBuffer = _
+    protected var offset: Int        = 0
+
+    // the ByteBuffer is only replaced when the flyweight moves to another array
+    def wrap(data: Array[Byte], offset: Int): this.type = {
+      if (data ne array) {
+        array = data
+        buffer = ByteBuffer.wrap(data).order(Order)
+      }
+      this.offset = offset
+      this
+    }
+
+    def writeHeader(): this.type = {
+      buffer.putShort(offset, templateId)
+      buffer.putShort(offset + 2, Version)
+      buffer.putInt(offset + 4, 0)
+      this
+    }
+
+    // whether the size bytes wrapped hold a message of this template and version
+    def isValid(size: Int): Boolean =
+      size >= length && buffer.getShort(offset) == templateId && buffer.getShort(offset + 2) == Version
+  }
+
+  final class PositionDemandFlyweight extends Flyweight(PositionDemandTemplate, 48) {
+    def azimuth: Double = buffer.getDouble(offset + 8)
+    def azimuth(value: Double): this.type = {
+      buffer.putDouble(offset + 8, value)
+      this
+    }
+
+    def elevation: Double = buffer.getDouble(offset + 16)
+    def elevation(value: Double): this.type = {
+      buffer.putDouble(offset + 16, value)
+      this
+    }
+
+    def tpkPublishTime: Long = buffer.getLong(offset + 24)
+    def tpkPublishTime(value: Long): this.type = {
+      buffer.putLong(offset + 24, value)
+      this
+    }
+
+    def assemblyReceivalTime: Long = buffer.getLong(offset + 32)
+    def assemblyReceivalTime(value: Long): this.type = {
+      buffer.putLong(offset + 32, value)
+      this
+    }
+
+    def hcdReceivalTime: Long = buffer.getLong(offset + 40)
+    def hcdReceivalTime(value: Long): this.type = {
+      buffer.putLong(offset + 40, value)
+      this
+    }
+  }
+
+  final class CurrentPositionFlyweight extends Flyweight(CurrentPositionTemplate, 56) {
+    private val AzInPositionFlag = 1
+    private val ElInPositionFlag = 2
+
+    def azPos: Double = buffer.getDouble(offset + 8)
+    def azPos(value: Double): this.type = {
+      buffer.putDouble(offset + 8, value)
+      this
+    }
+
+    def elPos: Double = buffer.getDouble(offset + 16)
+    def elPos(value: Double): this.type = {
+      buffer.putDouble(offset + 16, value)
+      this
+    }
+
+    def azPosError: Double = buffer.getDouble(offset + 24)
+    def azPosError(value: Double): this.type = {
+      buffer.putDouble(offset + 24, value)
+      this
+    }
+
+    def elPosError: Double = buffer.getDouble(offset + 32)
+    def elPosError(value: Double): this.type = {
+      buffer.putDouble(offset + 32, value)
+      this
+    }
+
+    def time: Long = buffer.getLong(offset + 40)
+    def time(value: Long): this.type = {
+      buffer.putLong(offset + 40, value)
+      this
+    }
+
+    def azInPosition: Boolean = (buffer.get(offset + 48) & AzInPositionFlag) != 0
+    def elInPosition: Boolean = (buffer.get(offset + 48) & ElInPositionFlag) != 0
+    def inPosition(az: Boolean, el: Boolean): this.type = {
+      buffer.put(offset + 48, ((if (az) AzInPositionFlag else 0) | (if (el) ElInPositionFlag else 0)).toByte)
+      // padding
+      buffer.put(offset + 49, 0.toByte)
+      buffer.putShort(offset + 50, 0.toShort)
+      buffer.putInt(offset + 52, 0)
+      this
+    }
+  }
+}
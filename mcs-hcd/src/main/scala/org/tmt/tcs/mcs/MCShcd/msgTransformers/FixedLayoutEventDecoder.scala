@@ -0,0 +1,48 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.time.Instant
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.core.states.CurrentState
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.CurrentPositionFlyweight
+
+object FixedLayoutEventDecoder {
+  def create(loggerFactory: LoggerFactory): FixedLayoutEventDecoder = new FixedLayoutEventDecoder(loggerFactory)
+}
+
+/*
+Decodes current positions in the fixed layout of FixedLayout, read in place by a flyweight, and
+the low rate events with the ProtoBuffEventDecoder.
+
+Not thread safe, used by the event subscriber thread only.
+ */
+class FixedLayoutEventDecoder private (loggerFactory: LoggerFactory) extends IEventDecoder {
+  import IEventDecoder._
+
+  private val log                                       = loggerFactory.getLogger
+  private val paramSetTransformer: ParamSetTransformer  = ParamSetTransformer.create(loggerFactory)
+  private val protoBuffEventDecoder: IEventDecoder      = ProtoBuffEventDecoder.create(loggerFactory)
+  private val currentPosition: CurrentPositionFlyweight = new CurrentPositionFlyweight
+
+  override def decode(topicIndex: Int, data: Array[Byte], offset: Int, length: Int, receivalTime: Instant): CurrentState =
+    topicIndex match {
+      case CurrentPosition =>
+        currentPosition.wrap(data, offset)
+        if (!currentPosition.isValid(length)) {
+          log.error(s"Current position of $length bytes is not a fixed layout message skipping this record.")
+          null
+        } else {
+          paramSetTransformer.getMountCurrentPosition(
+            currentPosition.azPos,
+            currentPosition.elPos,
+            currentPosition.azPosError,
+            currentPosition.elPosError,
+            currentPosition.azInPosition,
+            currentPosition.elInPosition,
+            FixedLayout.instant(currentPosition.time),
+            receivalTime
+          )
+        }
+      case _ => protoBuffEventDecoder.decode(topicIndex, data, offset, length, receivalTime)
+    }
+}
@@ -0,0 +1,75 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.time.Instant
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.commands.ControlCommand
+import csw.params.core.generics.ParameterSetType
+import csw.params.core.states.CurrentState
+import csw.params.events.SystemEvent
+import org.tmt.tcs.icd.mcs.McsPositionDemandsState
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.{CurrentPositionFlyweight, PositionDemandFlyweight}
+
+object FixedLayoutMsgTransformer {
+  def create(loggerFactory: LoggerFactory): FixedLayoutMsgTransformer = FixedLayoutMsgTransformer(loggerFactory)
+}
+
+/*
+Message transformer encoding position demands and current positions in the fixed layout of
+FixedLayout, for an MCS speaking it. Commands, command responses and the low rate events are
+left to protobuf.
+
+Not thread safe, the flyweights and the demand reader are shared by all calls.
+ */
+case class FixedLayoutMsgTransformer(loggerFactory: LoggerFactory) extends IMessageTransformer {
+  private val protoBuffMsgTransformer: ProtoBuffMsgTransformer = ProtoBuffMsgTransformer.create(loggerFactory)
+  private val eventDecoder: FixedLayoutEventDecoder            = FixedLayoutEventDecoder.create(loggerFactory)
+  private val positionDemand: PositionDemandFlyweight          = new PositionDemandFlyweight
+  private val demandReader: McsPositionDemandsState.Reader     = new McsPositionDemandsState.Reader
+
+  override def decodeCommandResponse(responsePacket: Array[Byte]): SubystemResponse =
+    protoBuffMsgTransformer.decodeCommandResponse(responsePacket)
+
+  override def encodeMessage(controlCommand: ControlCommand): Array[Byte] =
+    protoBuffMsgTransformer.encodeMessage(controlCommand)
+
+  /*
+  Current positions are stamped with the decoding time as HCD receival time.
+   */
+  override def decodeEvent(eventName: String, encodedEventData: Array[Byte]): CurrentState = eventName match {
+    case EventConstants.CURRENT_POSITION =>
+      eventDecoder.decode(IEventDecoder.CurrentPosition, encodedEventData, 0, encodedEventData.length, Instant.now)
+    case _ => protoBuffMsgTransformer.decodeEvent(eventName, encodedEventData)
+  }
+
+  override def encodeEvent(event: SystemEvent): Array[Byte] = {
+    val buffer = new Array[Byte](positionDemand.length)
+    encodeEvent(event, buffer, 0)
+    buffer
+  }
+
+  override def encodeCurrentState(currentState: CurrentState): Array[Byte] = {
+    val buffer = new Array[Byte](positionDemand.length)
+    encodeCurrentState(currentState, buffer, 0)
+    buffer
+  }
+
+  override def encodeEvent(event: SystemEvent, buffer: Array[Byte], offset: Int): Int = encodeDemand(event, buffer, offset)
+
+  override def encodeCurrentState(currentState: CurrentState, buffer: Array[Byte], offset: Int): Int =
+    encodeDemand(currentState, buffer, offset)
+
+  private def encodeDemand(message: ParameterSetType[_], buffer: Array[Byte], offset: Int): Int = {
+    val demand = demandReader.read(message)
+    positionDemand
+      .wrap(buffer, offset)
+      .writeHeader()
+      .azimuth(demand.az(0.0))
+      .elevation(demand.el(0.0))
+      .tpkPublishTime(FixedLayout.epochNanos(demand.time))
+      .assemblyReceivalTime(FixedLayout.epochNanos(demand.assemblyReceivalTime))
+      .hcdReceivalTime(FixedLayout.epochNanos(demand.hcdReceivalTime))
+    positionDemand.length
+  }
+}
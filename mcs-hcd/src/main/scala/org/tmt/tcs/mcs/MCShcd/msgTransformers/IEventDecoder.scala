@@ -0,0 +1,67 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.core.states.CurrentState
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+
+object IEventDecoder {
+  val CurrentPosition = 0
+  val Diagnosis       = 1
+  val DriveStatus     = 2
+  val Health          = 3
+  val UnknownTopic    = -1
+
+  // topic names in the order of the indices above
+  val TopicNames: Array[String] =
+    Array(EventConstants.CURRENT_POSITION, EventConstants.DIAGNOSIS_STATE, EventConstants.DRIVE_STATE, EventConstants.HEALTH_STATE)
+
+  private val Topics: Array[Array[Byte]] = TopicNames.map(_.getBytes(StandardCharsets.US_ASCII))
+
+  /*
+  Creates the event decoder of the codec, "protobuf" or "fixed-layout", see tcs.mcs-hcd.codec.
+   */
+  def create(codec: String, loggerFactory: LoggerFactory): IEventDecoder = codec match {
+    case "protobuf"     => ProtoBuffEventDecoder.create(loggerFactory)
+    case "fixed-layout" => FixedLayoutEventDecoder.create(loggerFactory)
+    case _              => throw new IllegalArgumentException(s"unknown MCS codec '$codec'")
+  }
+}
+
+/*
+Decoder of the events published by the MCS, on the event subscriber path of the HCD.
+Implementations are not thread safe.
+ */
+trait IEventDecoder {
+  import IEventDecoder._
+
+  /*
+  Index of the topic held by the first length bytes of topic, UnknownTopic if the MCS does not publish it.
+   */
+  def topicIndex(topic: Array[Byte], length: Int): Int = {
+    var index = 0
+    while (index < Topics.length) {
+      if (sameBytes(Topics(index), topic, length)) return index
+      index += 1
+    }
+    UnknownTopic
+  }
+
+  private def sameBytes(expected: Array[Byte], actual: Array[Byte], length: Int): Boolean = {
+    if (expected.length != length) return false
+    var i = 0
+    while (i < length) {
+      if (expected(i) != actual(i)) return false
+      i += 1
+    }
+    true
+  }
+
+  /*
+  Decodes an event of the topic at topicIndex held by data(offset until offset + length), with the
+  time the HCD received it. Returns null if the event cannot be decoded.
+   */
+  def decode(topicIndex: Int, data: Array[Byte], offset: Int, length: Int, receivalTime: Instant): CurrentState
+}
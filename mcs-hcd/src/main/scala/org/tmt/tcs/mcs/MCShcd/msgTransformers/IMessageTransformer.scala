@@ -1,10 +1,23 @@
 package org.tmt.tcs.mcs.MCShcd.msgTransformers
+import csw.logging.scaladsl.LoggerFactory
 import csw.params.commands.ControlCommand
 import csw.params.core.states.CurrentState
 import csw.params.events.SystemEvent
 
 case class SubystemResponse(commandResponse: Boolean, errorReason: Option[String], errorInfo: Option[String])
 
+object IMessageTransformer {
+
+  /*
+  Creates the message transformer of the codec, "protobuf" or "fixed-layout", see tcs.mcs-hcd.codec.
+   */
+  def create(codec: String, loggerFactory: LoggerFactory): IMessageTransformer = codec match {
+    case "protobuf"     => ProtoBuffMsgTransformer.create(loggerFactory)
+    case "fixed-layout" => FixedLayoutMsgTransformer.create(loggerFactory)
+    case _              => throw new IllegalArgumentException(s"unknown MCS codec '$codec'")
+  }
+}
+
 trait IMessageTransformer {
   def decodeCommandResponse(responsePacket: Array[Byte]): SubystemResponse
 
@@ -13,4 +26,17 @@ trait IMessageTransformer {
   def encodeEvent(event: SystemEvent): Array[Byte]
   def encodeCurrentState(currentState: CurrentState): Array[Byte]
 
+  /*
+  Encode the position demand into buffer from offset and return the encoded length, for the
+  demand path to send from a buffer of its own. Transformers able to encode in place override these.
+   */
+  def encodeEvent(event: SystemEvent, buffer: Array[Byte], offset: Int): Int = copyTo(encodeEvent(event), buffer, offset)
+  def encodeCurrentState(currentState: CurrentState, buffer: Array[Byte], offset: Int): Int =
+    copyTo(encodeCurrentState(currentState), buffer, offset)
+
+  private def copyTo(encoded: Array[Byte], buffer: Array[Byte], offset: Int): Int = {
+    System.arraycopy(encoded, 0, buffer, offset, encoded.length)
+    encoded.length
+  }
+
 }
@@ -11,6 +11,7 @@ import csw.params.core.models.Units.degree
 import csw.params.core.models.{Id, Prefix, Subsystem}
 import csw.params.core.states.{CurrentState, StateName}
 import csw.params.events.{EventName, SystemEvent}
+import org.tmt.tcs.icd.mcs.{McsPositionDemandsCommand, McsPositionDemandsState}
 import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
 import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.{
   McsCurrentPositionEvent,
@@ -28,37 +29,25 @@ case class ParamSetTransformer(loggerFactory: LoggerFactory) {
   //private val log                     = loggerFactory.getLogger
   private val prefix                     = Prefix(Subsystem.MCS.toString)
   private val timeStampKey: Key[Instant] = EventConstants.TimeStampKey
+  private val currentPositionTemplate    = CurrentState(prefix, StateName(EventConstants.CURRENT_POSITION))
   def getMountDemandPositions(msg: ControlCommand): SystemEvent = {
-    val paramSet                            = msg.paramSet
-    val azPosParam: Option[Parameter[_]]    = paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_AZ_POS)
-    val elPosParam: Option[Parameter[_]]    = paramSet.find(msg => msg.keyName == EventConstants.POINTING_KERNEL_EL_POS)
-    val sentTimeParam: Option[Parameter[_]] = paramSet.find(msg => msg.keyName == EventConstants.TIMESTAMP)
-    val azPos                               = azPosParam.getOrElse(EventConstants.AzPosKey.set(0.0))
-    val elPos                               = elPosParam.getOrElse(EventConstants.ElPosKey.set(0.0))
-    val sentTime                            = sentTimeParam.getOrElse(EventConstants.TimeStampKey.set(Instant.now()))
-    val assemblyRecTime                     = paramSet.find(msg => msg.keyName == EventConstants.ASSEMBLY_RECEIVAL_TIME).get
-    val hcdRecTime                          = paramSet.find(msg => msg.keyName == EventConstants.HCD_ReceivalTime).get
+    val demand = McsPositionDemandsCommand.read(msg)
     SystemEvent(Prefix(EventConstants.TPK_PREFIX), EventName(EventConstants.MOUNT_DEMAND_POSITION))
-      .add(azPos)
-      .add(elPos)
-      .add(sentTime)
-      .add(assemblyRecTime)
-      .add(hcdRecTime)
+      .add(if (demand.hasAz) demand.azParam else EventConstants.AzPosKey.set(0.0))
+      .add(if (demand.hasEl) demand.elParam else EventConstants.ElPosKey.set(0.0))
+      .add(if (demand.hasTime) demand.timeParam else EventConstants.TimeStampKey.set(Instant.now()))
+      .add(demand.assemblyReceivalTimeParam)
+      .add(demand.hcdReceivalTimeParam)
 
   }
   def getMountDemandPositions(currentState: CurrentState): SystemEvent = {
-    val azPosOption    = currentState.get(EventConstants.AzPosKey)
-    val elPosOption    = currentState.get(EventConstants.ElPosKey)
-    val sentTimeOption = currentState.get(EventConstants.TimeStampKey)
-    val azPos          = azPosOption.getOrElse(EventConstants.AzPosKey.set(0.0))
-    val elPos          = elPosOption.getOrElse(EventConstants.ElPosKey.set(0.0))
-    val sentTime       = sentTimeOption.getOrElse(EventConstants.TimeStampKey.set(Instant.now()))
+    val demand = McsPositionDemandsState.read(currentState)
     val event = SystemEvent(Prefix(EventConstants.TPK_PREFIX), EventName(EventConstants.MOUNT_DEMAND_POSITION))
-      .add(azPos)
-      .add(elPos)
-      .add(sentTime)
-      .add(currentState.get(EventConstants.ASSEMBLY_RECEIVAL_TIME_KEY).get)
-      .add(currentState.get(EventConstants.HcdReceivalTime_Key).get)
+      .add(if (demand.hasAz) demand.azParam else EventConstants.AzPosKey.set(0.0))
+      .add(if (demand.hasEl) demand.elParam else EventConstants.ElPosKey.set(0.0))
+      .add(if (demand.hasTime) demand.timeParam else EventConstants.TimeStampKey.set(Instant.now()))
+      .add(demand.assemblyReceivalTimeParam)
+      .add(demand.hcdReceivalTimeParam)
     event
   }
   /* def getMountDemandPositions(systemEvent: SystemEvent): MCSPositionDemand = {
@@ -99,6 +88,28 @@ case class ParamSetTransformer(loggerFactory: LoggerFactory) {
       .add(elInPositionParam)
       .add(timestamp)
   }
+  /*
+    This function builds the current position state on the event subscriber path from the decoded
+    values, with a single madd on a template holding the prefix and state name.
+   */
+  def getMountCurrentPosition(azPos: Double,
+                              elPos: Double,
+                              azPosError: Double,
+                              elPosError: Double,
+                              azInPosition: Boolean,
+                              elInPosition: Boolean,
+                              time: Instant,
+                              hcdReceivalTime: Instant): CurrentState =
+    currentPositionTemplate.madd(
+      EventConstants.AzPosKey.set(Array(azPos), degree),
+      EventConstants.ElPosKey.set(Array(elPos), degree),
+      EventConstants.AZ_POS_ERROR_KEY.set(Array(azPosError), degree),
+      EventConstants.EL_POS_ERROR_KEY.set(Array(elPosError), degree),
+      EventConstants.AZ_InPosition_Key.set(azInPosition),
+      EventConstants.EL_InPosition_Key.set(elInPosition),
+      timeStampKey.set(time),
+      EventConstants.hcdEventReceivalTime_Key.set(hcdReceivalTime)
+    )
   /*
     This function takes MountControlDiags Proto as input and transforms it into
     CSW CurrentState object for publishing to Assembly
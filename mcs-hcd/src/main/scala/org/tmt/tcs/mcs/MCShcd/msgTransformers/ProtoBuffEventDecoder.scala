@@ -0,0 +1,156 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.io.InputStream
+import java.time.Instant
+
+import com.google.protobuf.CodedInputStream
+import csw.logging.scaladsl.{noId, LoggerFactory}
+import csw.params.core.states.CurrentState
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.{McsDriveStatus, McsHealth, MountControlDiags}
+
+object ProtoBuffEventDecoder {
+  def create(loggerFactory: LoggerFactory): ProtoBuffEventDecoder = new ProtoBuffEventDecoder(loggerFactory)
+
+  // tags, (field number << 3) | wire type, of the McsCurrentPositionEvent fields published as current state
+  private val AzPosTag        = 17
+  private val AzPosErrorTag   = 33
+  private val AzInPositionTag = 40
+  private val ElPosTag        = 49
+  private val ElPosErrorTag   = 65
+  private val ElInPositionTag = 72
+  private val TimeTag         = 130
+  // tags of the google.protobuf.Timestamp fields
+  private val SecondsTag = 8
+  private val NanosTag   = 16
+
+  /*
+  InputStream over a region of the receive buffer, reset for each event so that one
+  CodedInputStream serves all events.
+   */
+  private final class RegionInputStream extends InputStream {
+    private var buffer: Array[Byte] = Array.emptyByteArray
+    private var position: Int       = 0
+    private var end: Int            = 0
+
+    def reset(buffer: Array[Byte], offset: Int, length: Int): Unit = {
+      this.buffer = buffer
+      this.position = offset
+      this.end = offset + length
+    }
+
+    override def read(): Int =
+      if (position < end) {
+        val b = buffer(position) & 0xff
+        position += 1
+        b
+      } else -1
+
+    override def read(b: Array[Byte], off: Int, len: Int): Int =
+      if (len == 0) 0
+      else if (position >= end) -1
+      else {
+        val count = math.min(len, end - position)
+        System.arraycopy(buffer, position, b, off, count)
+        position += count
+        count
+      }
+
+    override def available(): Int = end - position
+  }
+}
+
+/*
+Decodes the events published by the MCS into current states with as little allocation per event
+as the CSW parameter model allows.
+
+Events are read through one CodedInputStream kept for the life of the decoder.
+McsCurrentPositionEvent, the high rate topic, is decoded field by field straight into the
+parameters of its current state rather than through the generated message object. The low rate
+topics are parsed by their generated parsers from the same stream.
+
+Not thread safe, used by the event subscriber thread only.
+ */
+class ProtoBuffEventDecoder private (loggerFactory: LoggerFactory) extends IEventDecoder {
+  import IEventDecoder._
+  import ProtoBuffEventDecoder._
+
+  private val log                                      = loggerFactory.getLogger
+  private val paramSetTransformer: ParamSetTransformer = ParamSetTransformer.create(loggerFactory)
+
+  private val input: RegionInputStream     = new RegionInputStream
+  private var codedInput: CodedInputStream = CodedInputStream.newInstance(input)
+
+  override def decode(topicIndex: Int, data: Array[Byte], offset: Int, length: Int, receivalTime: Instant): CurrentState = {
+    input.reset(data, offset, length)
+    codedInput.resetSizeCounter()
+    try {
+      topicIndex match {
+        case CurrentPosition => decodeCurrentPosition(receivalTime)
+        case Diagnosis =>
+          paramSetTransformer
+            .getMountControlDignosis(MountControlDiags.parseFrom(codedInput))
+            .add(EventConstants.hcdEventReceivalTime_Key.set(receivalTime))
+        case DriveStatus =>
+          paramSetTransformer
+            .getMCSDriveStatus(McsDriveStatus.parseFrom(codedInput))
+            .add(EventConstants.hcdEventReceivalTime_Key.set(receivalTime))
+        case Health =>
+          paramSetTransformer
+            .getMCSHealth(McsHealth.parseFrom(codedInput))
+            .add(EventConstants.hcdEventReceivalTime_Key.set(receivalTime))
+      }
+    } catch {
+      case e: Exception =>
+        log.error(s"Exception while decoding ${TopicNames(topicIndex)} event skipping this record.", Map.empty, e, noId)
+        // the stream may still hold bytes of the failed event
+        codedInput = CodedInputStream.newInstance(input)
+        null
+    }
+  }
+
+  private def decodeCurrentPosition(receivalTime: Instant): CurrentState = {
+    // proto3 omits fields holding their default value
+    var azPos        = 0.0
+    var azPosError   = 0.0
+    var azInPosition = false
+    var elPos        = 0.0
+    var elPosError   = 0.0
+    var elInPosition = false
+    var seconds      = 0L
+    var nanos        = 0
+    var tag          = codedInput.readTag()
+    while (tag != 0) {
+      tag match {
+        case AzPosTag        => azPos = codedInput.readDouble()
+        case AzPosErrorTag   => azPosError = codedInput.readDouble()
+        case AzInPositionTag => azInPosition = codedInput.readBool()
+        case ElPosTag        => elPos = codedInput.readDouble()
+        case ElPosErrorTag   => elPosError = codedInput.readDouble()
+        case ElInPositionTag => elInPosition = codedInput.readBool()
+        case TimeTag =>
+          val limit     = codedInput.pushLimit(codedInput.readRawVarint32())
+          var timeField = codedInput.readTag()
+          while (timeField != 0) {
+            timeField match {
+              case SecondsTag => seconds = codedInput.readInt64()
+              case NanosTag   => nanos = codedInput.readInt32()
+              case _          => codedInput.skipField(timeField)
+            }
+            timeField = codedInput.readTag()
+          }
+          codedInput.popLimit(limit)
+        case _ => codedInput.skipField(tag)
+      }
+      tag = codedInput.readTag()
+    }
+    paramSetTransformer.getMountCurrentPosition(azPos,
+                                                elPos,
+                                                azPosError,
+                                                elPosError,
+                                                azInPosition,
+                                                elInPosition,
+                                                Instant.ofEpochSecond(seconds, nanos),
+                                                receivalTime)
+  }
+}
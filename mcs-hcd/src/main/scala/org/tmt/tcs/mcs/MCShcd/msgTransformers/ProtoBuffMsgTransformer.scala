@@ -1,7 +1,7 @@
 package org.tmt.tcs.mcs.MCShcd.msgTransformers
 import java.time.Instant
 
-import com.google.protobuf.{ExtensionRegistryLite, Timestamp}
+import com.google.protobuf.{CodedOutputStream, ExtensionRegistryLite, Timestamp, WireFormat}
 import csw.logging.scaladsl.{noId, LoggerFactory}
 import csw.params.commands.ControlCommand
 import csw.params.core.generics.Parameter
@@ -13,12 +13,29 @@ import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos._
 
 object ProtoBuffMsgTransformer {
   def create(loggerFactory: LoggerFactory): ProtoBuffMsgTransformer = ProtoBuffMsgTransformer(loggerFactory)
+
+  // TcsPositionDemandEvent field numbers
+  private val AzimuthField              = 1
+  private val ElevationField            = 2
+  private val TpkPublishTimeField       = 3
+  private val AssemblyReceivalTimeField = 4
+  private val HcdReceivalTimeField      = 5
+  // google.protobuf.Timestamp field numbers
+  private val SecondsField = 1
+  private val NanosField   = 2
 }
 
 case class ProtoBuffMsgTransformer(loggerFactory: LoggerFactory) extends IMessageTransformer {
+  import ProtoBuffMsgTransformer._
+
   private val log                                      = loggerFactory.getLogger
   private val paramSetTransformer: ParamSetTransformer = ParamSetTransformer.create(loggerFactory)
 
+  // output of the position demands encoded in place, kept while the caller encodes into the same buffer one demand after the other
+  private var demandBuffer: Array[Byte]       = _
+  private var demandStart: Int                = 0
+  private var demandOutput: CodedOutputStream = _
+
   override def decodeCommandResponse(responsePacket: Array[Byte]): SubystemResponse = {
     val commandResponse: MCSCommandResponse   = MCSCommandResponse.parseFrom(responsePacket)
     val cmdError: MCSCommandResponse.CmdError = commandResponse.getCmdError
@@ -142,6 +159,76 @@ case class ProtoBuffMsgTransformer(loggerFactory: LoggerFactory) extends IMessag
     event.toByteArray
 
   }
+  /*
+  Position demands on the hot path are written field by field into the caller's buffer, with the
+  same bytes as encodeEvent but without the builders, Timestamps and byte array of each demand.
+  The parameters are found in a single pass over the parameter set. The CodedOutputStream is kept
+  as long as the caller encodes each demand where the previous one ended, see ZeroMQProtocolActor.
+  This saves the encoding allocations only: sending the demand over ZeroMQ still copies it once,
+  into the message jeromq makes of each frame.
+
+  Not thread safe, called from the protocol actor only.
+   */
+  override def encodeEvent(event: SystemEvent, buffer: Array[Byte], offset: Int): Int =
+    encodeDemand(event.paramSet, buffer, offset)
+
+  override def encodeCurrentState(currentState: CurrentState, buffer: Array[Byte], offset: Int): Int =
+    encodeDemand(currentState.paramSet, buffer, offset)
+
+  private def encodeDemand(paramSet: Set[Parameter[_]], buffer: Array[Byte], offset: Int): Int = {
+    var azimuth: Double               = 0.0
+    var elevation: Double             = 0.0
+    var tpkPublishTime: Instant       = null
+    var assemblyReceivalTime: Instant = null
+    var hcdReceivalTime: Instant      = null
+    val params                        = paramSet.iterator
+    while (params.hasNext) {
+      val param = params.next()
+      param.keyName match {
+        case EventConstants.POINTING_KERNEL_AZ_POS => azimuth = param.head.asInstanceOf[Double]
+        case EventConstants.POINTING_KERNEL_EL_POS => elevation = param.head.asInstanceOf[Double]
+        case EventConstants.TIMESTAMP              => tpkPublishTime = param.head.asInstanceOf[Instant]
+        case EventConstants.ASSEMBLY_RECEIVAL_TIME => assemblyReceivalTime = param.head.asInstanceOf[Instant]
+        case EventConstants.HCD_ReceivalTime       => hcdReceivalTime = param.head.asInstanceOf[Instant]
+        case _                                     =>
+      }
+    }
+    if (tpkPublishTime == null || assemblyReceivalTime == null || hcdReceivalTime == null) {
+      throw new NoSuchElementException("position demand without its tpk publish, assembly and hcd receival times")
+    }
+
+    val output = demandOutputAt(buffer, offset)
+    val start  = output.getTotalBytesWritten
+    // proto3 leaves out fields holding their default value
+    if (azimuth != 0) output.writeDouble(AzimuthField, azimuth)
+    if (elevation != 0) output.writeDouble(ElevationField, elevation)
+    writeTimestamp(output, TpkPublishTimeField, tpkPublishTime)
+    writeTimestamp(output, AssemblyReceivalTimeField, assemblyReceivalTime)
+    writeTimestamp(output, HcdReceivalTimeField, hcdReceivalTime)
+    output.getTotalBytesWritten - start
+  }
+
+  private def demandOutputAt(buffer: Array[Byte], offset: Int): CodedOutputStream = {
+    if ((buffer ne demandBuffer) || demandStart + demandOutput.getTotalBytesWritten != offset) {
+      demandBuffer = buffer
+      demandStart = offset
+      demandOutput = CodedOutputStream.newInstance(buffer, offset, buffer.length - offset)
+    }
+    demandOutput
+  }
+
+  private def writeTimestamp(output: CodedOutputStream, field: Int, time: Instant): Unit = {
+    val seconds = time.getEpochSecond
+    val nanos   = time.getNano
+    val size =
+      (if (seconds != 0) CodedOutputStream.computeInt64Size(SecondsField, seconds) else 0) +
+      (if (nanos != 0) CodedOutputStream.computeInt32Size(NanosField, nanos) else 0)
+    output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED)
+    output.writeUInt32NoTag(size)
+    if (seconds != 0) output.writeInt64(SecondsField, seconds)
+    if (nanos != 0) output.writeInt32(NanosField, nanos)
+  }
+
   def getReadConfCmdBytes: Array[Byte] = {
     val command: ReadConfiguration = ReadConfiguration.newBuilder().build()
     command.toByteArray
@@ -0,0 +1,103 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.file.Files
+
+import csw.logging.scaladsl.Logger
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{BeforeAndAfterEach, FunSuite, Matchers}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration.DurationInt
+
+class HopLatenciesTest extends FunSuite with Matchers with MockitoSugar with BeforeAndAfterEach {
+
+  private val start = 1500000000L * 1000000000L
+  private val ms    = 1000000L
+
+  private var logDir: File = _
+
+  override protected def beforeEach(): Unit = logDir = Files.createTempDirectory("hop-latencies").toFile
+
+  override protected def afterEach(): Unit = {
+    logDir.listFiles().foreach(_.delete())
+    logDir.delete()
+  }
+
+  private def latencies(rawCapture: Boolean = false, rawCapacity: Int = 16, logFilePath: String = logDir.getPath) =
+    new HopLatencies("Demand", "TPK", HopLatencies.Settings(1.second, rawCapture, rawCapacity), logFilePath, mock[Logger])
+
+  // rows of the only file named prefix*, header dropped
+  private def rows(prefix: String): Seq[Array[String]] = {
+    val files = logDir.listFiles().filter(_.getName.startsWith(prefix))
+    files.length shouldBe 1
+    Files.readAllLines(files.head.toPath).asScala.tail.map(_.split(","))
+  }
+
+  private def hop(prefix: String, name: String): Array[String] = rows(prefix).find(_.head == name).get
+
+  test("the report gives the count and latencies of each hop and of the whole way") {
+    val hops = latencies()
+    for (i <- 0 until 10) {
+      val t0 = start + i * 10 * ms
+      hops.record(t0, t0 + 1 * ms, t0 + 3 * ms, t0 + 4 * ms)
+    }
+    hops.report()
+
+    rows("DemandLatency_").map(_.head) shouldBe Seq("TPK to Assembly", "Assembly to HCD", "HCD to Simulator", "TPK to Simulator")
+    for ((name, millis) <- Seq(("TPK to Assembly", 1.0), ("Assembly to HCD", 2.0), ("HCD to Simulator", 1.0), ("TPK to Simulator", 4.0))) {
+      val row = hop("DemandLatency_", name)
+      row(1) shouldBe "10"
+      row.drop(2).map(_.toDouble).foreach(_ shouldBe millis +- millis / 1000)
+    }
+    logDir.listFiles().exists(_.getName.startsWith("DemandSamples_")) shouldBe false
+  }
+
+  test("snapshots fold into the totals reported") {
+    val hops = latencies()
+    hops.record(start, start + 1 * ms, start + 2 * ms, start + 3 * ms)
+    hops.snapshot()
+    hops.record(start, start + 2 * ms, start + 4 * ms, start + 6 * ms)
+    hops.report()
+
+    val row = hop("DemandLatency_", "TPK to Simulator")
+    row(1) shouldBe "2"
+    row(2).toDouble shouldBe 3.0
+    row(8).toDouble shouldBe 6.0 +- 0.01
+  }
+
+  test("hops ending before they started are recorded as 0") {
+    val hops = latencies()
+    hops.record(start, start - 2 * ms, start + 1 * ms, start + 2 * ms)
+    hops.report()
+    hop("DemandLatency_", "TPK to Assembly")(8).toDouble shouldBe 0.0
+    hop("DemandLatency_", "Assembly to HCD")(2).toDouble shouldBe 3.0
+  }
+
+  test("raw capture keeps the stamps of the last messages, oldest first") {
+    val hops = latencies(rawCapture = true, rawCapacity = 4)
+    for (i <- 1 to 6) {
+      val t0 = start + i * 100 * ms
+      hops.record(t0, t0 + i * ms, t0 + 2 * i * ms, t0 + 3 * i * ms)
+    }
+    hops.report()
+
+    val samples = rows("DemandSamples_")
+    samples.map(_(4).toDouble) shouldBe Seq(3.0, 4.0, 5.0, 6.0)
+    samples.map(_(7).toDouble) shouldBe Seq(9.0, 12.0, 15.0, 18.0)
+    hop("DemandLatency_", "TPK to Assembly")(1) shouldBe "6"
+  }
+
+  test("nothing is written without messages") {
+    val hops = latencies(rawCapture = true)
+    hops.report()
+    logDir.listFiles() shouldBe empty
+  }
+
+  test("without LogFiles the report is not written") {
+    val hops = latencies(rawCapture = true, logFilePath = null)
+    hops.record(start, start + 1 * ms, start + 2 * ms, start + 3 * ms)
+    hops.report()
+    logDir.listFiles() shouldBe empty
+  }
+}
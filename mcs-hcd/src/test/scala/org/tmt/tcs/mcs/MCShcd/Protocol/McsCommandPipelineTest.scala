@@ -0,0 +1,149 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.nio.ByteBuffer
+import java.util.concurrent.{LinkedBlockingQueue, TimeUnit}
+
+import org.scalatest.{BeforeAndAfterEach, FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.Protocol.McsCommandChannel.Message
+import org.tmt.tcs.mcs.MCShcd.Protocol.McsCommandPipeline.{CommandRejectedException, CommandTimeoutException, Settings}
+
+import scala.concurrent.duration.DurationInt
+import scala.concurrent.{Await, Future}
+
+class McsCommandPipelineTest extends FunSuite with Matchers with BeforeAndAfterEach {
+
+  /*
+  Channel standing in for the MCS: keeps what the pipeline sends and hands over the replies
+  the test queues.
+   */
+  private class TestChannel extends McsCommandChannel {
+    val sent                = new LinkedBlockingQueue[Message]()
+    val replies             = new LinkedBlockingQueue[Message]()
+    @volatile var accepting = true
+
+    override def open(): Boolean = true
+    override def send(commandName: String, payload: Array[Byte], id: Array[Byte]): Boolean =
+      accepting && sent.add(new Message(commandName, payload, id))
+    override def receive(timeoutMillis: Int): Message = replies.poll(timeoutMillis, TimeUnit.MILLISECONDS)
+    override def close(): Unit                        = {}
+
+    def nextSent(): Message = sent.poll(1, TimeUnit.SECONDS)
+    def reply(commandName: String, payload: String, id: Array[Byte] = null): Unit =
+      replies.add(new Message(commandName, payload.getBytes, id))
+  }
+
+  private var channel: TestChannel          = _
+  private var pipeline: McsCommandPipeline = _
+
+  private def connect(deadlineMillis: Int = 2000, maxInFlight: Int = 16, correlationFrames: Boolean = false): Unit = {
+    channel = new TestChannel
+    pipeline = new McsCommandPipeline(null, Settings(deadlineMillis.millis, 100.millis, maxInFlight, correlationFrames))
+    pipeline.connect(channel) shouldBe true
+  }
+
+  override protected def afterEach(): Unit = if (pipeline != null) pipeline.close()
+
+  private def payload(reply: Future[Array[Byte]]): String = new String(Await.result(reply, 1.second))
+
+  test("replies in send order complete their commands") {
+    connect()
+    val follow = pipeline.submit("Follow", Array[Byte](1))
+    val point  = pipeline.submit("Point", Array[Byte](2))
+    channel.nextSent().commandName shouldBe "Follow"
+    channel.nextSent().commandName shouldBe "Point"
+    channel.sent.poll() shouldBe null
+    channel.reply("Follow", "follow ok")
+    channel.reply("Point", "point ok")
+    payload(follow) shouldBe "follow ok"
+    payload(point) shouldBe "point ok"
+    pipeline.completedCount shouldBe 2
+    pipeline.commandsInFlight shouldBe 0
+  }
+
+  test("out of order replies are correlated by the echoed id") {
+    connect(correlationFrames = true)
+    val first  = pipeline.submit("Point", Array[Byte](1))
+    val second = pipeline.submit("Point", Array[Byte](2))
+    val firstId  = channel.nextSent().id
+    val secondId = channel.nextSent().id
+    firstId.length shouldBe 8
+    ByteBuffer.wrap(firstId).getLong should not be ByteBuffer.wrap(secondId).getLong
+
+    channel.reply("Point", "second", secondId)
+    payload(second) shouldBe "second"
+    first.isCompleted shouldBe false
+    channel.reply("Point", "first", firstId)
+    payload(first) shouldBe "first"
+  }
+
+  test("without ids a reply to a later command fails the older ones as lost") {
+    connect()
+    val follow = pipeline.submit("Follow", Array[Byte](1))
+    val point  = pipeline.submit("Point", Array[Byte](2))
+    channel.reply("Point", "point ok")
+    payload(point) shouldBe "point ok"
+    val lost = intercept[CommandRejectedException](Await.result(follow, 1.second))
+    lost.getMessage should include("Follow")
+    pipeline.stats should include("lost=1")
+  }
+
+  test("commands without a reply fail when their deadline passes") {
+    connect(deadlineMillis = 50)
+    val started = System.nanoTime()
+    val point   = pipeline.submit("Point", Array[Byte](1))
+    intercept[CommandTimeoutException](Await.result(point, 1.second))
+    (System.nanoTime() - started) should be >= 50.millis.toNanos
+    pipeline.timedOutCount shouldBe 1
+    pipeline.commandsInFlight shouldBe 0
+  }
+
+  test("immediate commands use their own deadline") {
+    connect(deadlineMillis = 5000)
+    val follow = pipeline.submitImmediate("Follow", Array[Byte](1))
+    intercept[CommandTimeoutException](Await.result(follow, 1.second))
+  }
+
+  test("a late reply to an expired command is not taken for the reply to a later one") {
+    connect(deadlineMillis = 50)
+    val expired = pipeline.submit("Point", Array[Byte](1))
+    intercept[CommandTimeoutException](Await.result(expired, 1.second))
+    val later = pipeline.submit("Point", Array[Byte](2), 2.seconds)
+    channel.reply("Point", "late")
+    Thread.sleep(50)
+    later.isCompleted shouldBe false
+    channel.reply("Point", "in time")
+    payload(later) shouldBe "in time"
+    pipeline.stats should include("late replies=1")
+  }
+
+  test("commands beyond the window are refused until a reply frees a slot") {
+    connect(maxInFlight = 2)
+    val first = pipeline.submit("Point", Array[Byte](1))
+    pipeline.submit("Point", Array[Byte](2))
+    val refused = pipeline.submit("Point", Array[Byte](3))
+    intercept[CommandRejectedException](Await.result(refused, 1.second))
+    channel.sent.size shouldBe 2
+
+    channel.reply("Point", "first")
+    payload(first) shouldBe "first"
+    pipeline.submit("Point", Array[Byte](4)).isCompleted shouldBe false
+    channel.sent.size shouldBe 3
+  }
+
+  test("a command the channel cannot send is rejected and leaves no slot taken") {
+    connect()
+    channel.accepting = false
+    val point = pipeline.submit("Point", Array[Byte](1))
+    intercept[CommandRejectedException](Await.result(point, 1.second))
+    pipeline.commandsInFlight shouldBe 0
+  }
+
+  test("closing fails the commands in flight") {
+    connect()
+    val point = pipeline.submit("Point", Array[Byte](1))
+    pipeline.close()
+    intercept[CommandRejectedException](Await.result(point, 1.second))
+    intercept[CommandRejectedException](Await.result(pipeline.submit("Point", Array[Byte](2)), 1.second))
+    pipeline = null
+  }
+}
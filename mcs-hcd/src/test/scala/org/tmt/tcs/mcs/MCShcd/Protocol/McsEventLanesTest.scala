@@ -0,0 +1,166 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.time.Instant
+
+import csw.params.core.generics.KeyType.IntKey
+import csw.params.core.models.Prefix
+import csw.params.core.states.{CurrentState, StateName}
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+
+import scala.collection.mutable
+
+class McsEventLanesTest extends FunSuite with Matchers {
+  import IEventDecoder._
+
+  private val idKey = IntKey.make("id")
+
+  /*
+  Source holding the events queued by the test, handed over one at a time in the same buffer.
+   */
+  private class TestSource extends McsEventSource {
+    private val pending = mutable.Queue[(Int, Byte)]()
+    private val buffer  = new Array[Byte](16)
+
+    def add(topic: Int, id: Int): Unit = pending.enqueue((topic, id.toByte))
+
+    override def receiveFrame(noWait: Boolean): Int =
+      if (pending.isEmpty) McsEventSource.NoEvent
+      else {
+        val (topic, id) = pending.dequeue()
+        buffer(0) = id
+        topic
+      }
+    override def event: Array[Byte]        = buffer
+    override def eventSize: Int            = 1
+    override def eventReceivalTime: Instant = Instant.EPOCH
+    override def receivedCount: Long        = 0
+    override def droppedCount: Long        = 0
+  }
+
+  /*
+  Decoder giving the topic as state name and the first byte of the event as id, an id of -1
+  cannot be decoded.
+   */
+  private object TestDecoder extends IEventDecoder {
+    override def decode(topicIndex: Int, data: Array[Byte], offset: Int, length: Int, receivalTime: Instant): CurrentState =
+      if (data(offset) == -1) null
+      else CurrentState(Prefix("tcs.mcs.test"), StateName(TopicNames(topicIndex))).add(idKey.set(data(offset).toInt))
+  }
+
+  private def lanes(source: TestSource,
+                    conflate: Boolean = true,
+                    bulkCapacity: Int = 64,
+                    diagnosisDecimation: Int = 1): McsEventLanes =
+    new McsEventLanes(source, TestDecoder, TestDecoder, McsEventLanes.Settings(conflate, bulkCapacity, diagnosisDecimation, 1, 1))
+
+  private def published(): mutable.Buffer[CurrentState] = mutable.Buffer[CurrentState]()
+
+  private def ids(states: Seq[CurrentState], topic: Int): Seq[Int] =
+    states.filter(_.stateName.name == TopicNames(topic)).map(_.get(idKey).get.head)
+
+  test("only the latest of the current positions received together is published") {
+    val source = new TestSource
+    val events = lanes(source)
+    val states = published()
+    (1 to 5).foreach(source.add(CurrentPosition, _))
+    events.receive(states += _)
+    ids(states, CurrentPosition) shouldBe Seq(5)
+    events.positionCounters.conflated.get shouldBe 4
+    events.positionCounters.processed.get shouldBe 1
+
+    (6 to 7).foreach(source.add(CurrentPosition, _))
+    events.receive(states += _)
+    ids(states, CurrentPosition) shouldBe Seq(5, 7)
+    events.positionCounters.conflated.get shouldBe 5
+  }
+
+  test("without conflation every current position is published in order") {
+    val source = new TestSource
+    val events = lanes(source, conflate = false)
+    val states = published()
+    (1 to 5).foreach(source.add(CurrentPosition, _))
+    events.receive(states += _)
+    ids(states, CurrentPosition) shouldBe (1 to 5)
+    events.positionCounters.conflated.get shouldBe 0
+  }
+
+  test("bulk events are published by the bulk lane only, in the order received") {
+    val source = new TestSource
+    val events = lanes(source)
+    val states = published()
+    source.add(Diagnosis, 1)
+    source.add(CurrentPosition, 10)
+    source.add(Health, 2)
+    source.add(DriveStatus, 3)
+    source.add(CurrentPosition, 11)
+    events.receive(states += _)
+    states.map(_.stateName.name) shouldBe Seq(TopicNames(CurrentPosition))
+    ids(states, CurrentPosition) shouldBe Seq(11)
+
+    val bulk = published()
+    events.drainBulk(bulk += _) shouldBe 3
+    bulk.map(_.get(idKey).get.head) shouldBe Seq(1, 2, 3)
+    bulk.map(_.stateName.name) shouldBe Seq(TopicNames(Diagnosis), TopicNames(Health), TopicNames(DriveStatus))
+    events.drainBulk(bulk += _) shouldBe 0
+  }
+
+  test("bulk events arriving while the lane is full are dropped and counted") {
+    val source = new TestSource
+    val events = lanes(source, bulkCapacity = 4)
+    (1 to 6).foreach(source.add(Health, _))
+    events.receive(_ => ())
+    events.bulkCounters.dropped.get shouldBe 2
+
+    val bulk = published()
+    events.drainBulk(bulk += _) shouldBe 4
+    ids(bulk, Health) shouldBe (1 to 4)
+    events.bulkCounters.processed.get shouldBe 4
+
+    // room again once drained
+    source.add(Health, 7)
+    events.receive(_ => ())
+    events.drainBulk(bulk += _) shouldBe 1
+    events.bulkCounters.dropped.get shouldBe 2
+  }
+
+  test("decimated topics publish one event out of n") {
+    val source = new TestSource
+    val events = lanes(source, diagnosisDecimation = 3)
+    (0 until 10).foreach(source.add(Diagnosis, _))
+    source.add(Health, 20)
+    events.receive(_ => ())
+    val bulk = published()
+    events.drainBulk(bulk += _)
+    ids(bulk, Diagnosis) shouldBe Seq(0, 3, 6, 9)
+    ids(bulk, Health) shouldBe Seq(20)
+    events.bulkCounters.decimated.get shouldBe 6
+  }
+
+  test("events that cannot be decoded are counted as dropped") {
+    val source = new TestSource
+    val events = lanes(source)
+    source.add(CurrentPosition, -1)
+    source.add(Health, -1)
+    val states = published()
+    events.receive(states += _)
+    events.drainBulk(states += _)
+    states shouldBe empty
+    events.positionCounters.dropped.get shouldBe 1
+    events.bulkCounters.dropped.get shouldBe 1
+  }
+
+  test("events of unknown topics are ignored") {
+    val source = new TestSource
+    val events = lanes(source)
+    source.add(UnknownTopic, 1)
+    val states = published()
+    events.receive(states += _)
+    events.drainBulk(states += _) shouldBe 0
+    states shouldBe empty
+  }
+
+  test("decimation below one is rejected") {
+    an[IllegalArgumentException] should be thrownBy lanes(new TestSource, diagnosisDecimation = 0)
+  }
+}
@@ -0,0 +1,104 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.Protocol.MountServo.{Axis, AxisLimits, Settings}
+
+/*
+The axes are stepped at 1 kHz on a clock of the test's own, starting well after the time the axis
+was built so that the first demand starts a new trajectory.
+ */
+class MountServoTest extends FunSuite with Matchers {
+
+  private val azimuthLimits   = AxisLimits(-330.0, 170.0, 2.5, 1.0, 5.0)
+  private val elevationLimits = AxisLimits(-3.0, 93.0, 1.0, 1.0, 5.0)
+  private val tolerance       = 0.000278
+  private val settings        = Settings(1000, 100, 2.0, 8.0, tolerance, azimuthLimits, elevationLimits)
+
+  private val periodNanos = 1000000L
+  private val dt          = periodNanos / 1e9
+
+  private class Clock {
+    var time: Long = System.nanoTime() + 2000000000L
+    def tick(): Long = { time += periodNanos; time }
+  }
+
+  private def axis(limits: AxisLimits = azimuthLimits): Axis = new Axis(limits, settings.positionGain, settings.velocityGain)
+
+  // steps the axis for seconds, giving the positions after each step
+  private def run(axis: Axis, clock: Clock, seconds: Double): Array[Double] =
+    Array.fill((seconds * 1000).toInt) {
+      axis.step(dt, clock.tick())
+      axis.currentPosition
+    }
+
+  test("an axis settles on a static demand") {
+    val clock = new Clock
+    val az    = axis()
+    az.demand(10.0, clock.time)
+    run(az, clock, 30)
+    az.currentPosition shouldBe 10.0 +- 1e-9
+    az.currentError shouldBe 0.0 +- 1e-9
+    // and stays there
+    run(az, clock, 5).foreach(_ shouldBe 10.0 +- 1e-9)
+  }
+
+  test("a slew keeps within the velocity and acceleration limits") {
+    val clock     = new Clock
+    val az        = axis()
+    az.demand(-20.0, clock.time)
+    val positions = 0.0 +: run(az, clock, 60)
+    val velocity  = positions.sliding(2).map { case Array(a, b) => (b - a) / dt }.toArray
+    val accel     = velocity.sliding(2).map { case Array(a, b) => (b - a) / dt }.toArray
+    velocity.map(math.abs).max shouldBe azimuthLimits.maxVelocity +- 1e-5
+    accel.map(math.abs).max should be <= azimuthLimits.maxAcceleration + 1e-3
+    positions.last shouldBe -20.0 +- 1e-9
+  }
+
+  test("an axis tracks a moving demand within the in position tolerance") {
+    val clock = new Clock
+    val el    = axis(elevationLimits)
+    var worst = 0.0
+    for (step <- 0 until 120000) {
+      val time = clock.tick()
+      // demands at 100 Hz of 0.1 degree per second
+      if (step % 10 == 0) el.demand(0.1 * step / 1000.0, time)
+      el.step(dt, time)
+      if (step > 60000) worst = math.max(worst, math.abs(el.currentError))
+    }
+    worst should be < tolerance
+  }
+
+  test("demands outside the range of an axis are held at its limits") {
+    val clock = new Clock
+    val el    = axis(elevationLimits)
+    el.demand(120.0, clock.time)
+    run(el, clock, 200).foreach(_ should be <= elevationLimits.maxPosition)
+    el.currentPosition shouldBe elevationLimits.maxPosition
+    el.currentError shouldBe 0.0
+
+    el.demand(-10.0, clock.time)
+    run(el, clock, 200).foreach(_ should be >= elevationLimits.minPosition)
+    el.currentPosition shouldBe elevationLimits.minPosition
+  }
+
+  test("the servo is in position once an axis has settled") {
+    val clock = new Clock
+    val servo = new MountServo(settings)
+    servo.azimuth.demand(5.0, clock.time)
+    servo.elevation.demand(0.0, clock.time)
+    run(servo.azimuth, clock, 1)
+    servo.azInPosition shouldBe false
+    run(servo.azimuth, clock, 30)
+    servo.azInPosition shouldBe true
+    servo.elInPosition shouldBe true
+    servo.controlPeriodNanos shouldBe 1000000L
+    servo.telemetryPeriodNanos shouldBe 10000000L
+  }
+
+  test("limits and rates must be positive") {
+    an[IllegalArgumentException] should be thrownBy axis(azimuthLimits.copy(maxJerk = 0.0))
+    an[IllegalArgumentException] should be thrownBy axis(azimuthLimits.copy(maxVelocity = -1.0))
+    an[IllegalArgumentException] should be thrownBy new MountServo(settings.copy(controlRate = 0))
+    an[IllegalArgumentException] should be thrownBy new MountServo(settings.copy(telemetryRate = 0))
+  }
+}
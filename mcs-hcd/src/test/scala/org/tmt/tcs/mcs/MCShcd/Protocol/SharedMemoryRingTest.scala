@@ -0,0 +1,90 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.file.Files
+
+import org.scalatest.{BeforeAndAfterEach, FunSuite, Matchers}
+
+class SharedMemoryRingTest extends FunSuite with Matchers with BeforeAndAfterEach {
+
+  private var directory: File = _
+
+  override protected def beforeEach(): Unit = directory = Files.createTempDirectory("shared-memory-ring").toFile
+
+  override protected def afterEach(): Unit = {
+    directory.listFiles().foreach(_.delete())
+    directory.delete()
+  }
+
+  private def ring(capacity: Int = 1024): SharedMemoryRing = SharedMemoryRing.create(new File(directory, "ring"), capacity)
+
+  private def bytes(length: Int, first: Int): Array[Byte] = Array.tabulate[Byte](length)(i => (first + i).toByte)
+
+  test("messages are read in the order written, with their type") {
+    val writer = ring()
+    val target = new Array[Byte](64)
+    writer.read(target) shouldBe -1
+    writer.write(1, bytes(10, 0), 0, 10) shouldBe true
+    writer.write(3, bytes(20, 50), 5, 7) shouldBe true
+
+    writer.read(target) shouldBe 10
+    writer.lastMessageType shouldBe 1
+    target.take(10).toSeq shouldBe bytes(10, 0).toSeq
+    writer.read(target) shouldBe 7
+    writer.lastMessageType shouldBe 3
+    target.take(7).toSeq shouldBe bytes(7, 55).toSeq
+    writer.read(target) shouldBe -1
+    writer.close()
+  }
+
+  test("the ring opened from its file reads what the creating side writes") {
+    val created = ring()
+    val opened  = SharedMemoryRing.open(new File(directory, "ring"))
+    opened.maxMessageLength shouldBe created.maxMessageLength
+    created.write(2, bytes(16, 1), 0, 16) shouldBe true
+    val target = new Array[Byte](16)
+    opened.read(target) shouldBe 16
+    opened.lastMessageType shouldBe 2
+    target.toSeq shouldBe bytes(16, 1).toSeq
+    created.read(target) shouldBe -1
+    opened.close()
+    created.close()
+  }
+
+  test("a message longer than the target is consumed without being copied") {
+    val writer = ring()
+    writer.write(1, bytes(40, 1), 0, 40)
+    writer.write(1, bytes(8, 100), 0, 8)
+    val target = new Array[Byte](16)
+    writer.read(target) shouldBe 40
+    target.forall(_ == 0) shouldBe true
+    writer.read(target) shouldBe 8
+    target.take(8).toSeq shouldBe bytes(8, 100).toSeq
+    writer.close()
+  }
+
+  test("writes to a full ring fail until a message is read") {
+    val writer  = ring()
+    val message = bytes(100, 0)
+    var written = 0
+    while (written < 100 && writer.write(1, message, 0, message.length)) written += 1
+    written should (be > 0 and be < 100)
+    writer.write(1, message, 0, message.length) shouldBe false
+
+    writer.read(new Array[Byte](128)) shouldBe 100
+    writer.write(1, message, 0, message.length) shouldBe true
+    writer.close()
+  }
+
+  test("writes wrap around the end of the ring") {
+    val writer = ring()
+    val target = new Array[Byte](128)
+    for (i <- 0 until 200) {
+      writer.write(1 + i % 4, bytes(1 + i % 100, i), 0, 1 + i % 100) shouldBe true
+      writer.read(target) shouldBe 1 + i % 100
+      writer.lastMessageType shouldBe 1 + i % 4
+      target.take(1 + i % 100).toSeq shouldBe bytes(1 + i % 100, i).toSeq
+    }
+    writer.close()
+  }
+}
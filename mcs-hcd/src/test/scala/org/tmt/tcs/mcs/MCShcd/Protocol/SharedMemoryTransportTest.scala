@@ -0,0 +1,106 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.file.Files
+
+import org.scalatest.{BeforeAndAfterEach, FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.Protocol.SharedMemoryTransport.CommandCodec
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+
+class SharedMemoryTransportTest extends FunSuite with Matchers with BeforeAndAfterEach {
+
+  private var directory: File            = _
+  private var hcd: SharedMemoryTransport = _
+  private var mcs: SharedMemoryTransport = _
+
+  override protected def beforeEach(): Unit = {
+    directory = Files.createTempDirectory("shared-memory-transport").toFile
+    val settings = SharedMemoryTransport.Settings(directory.getPath, 65536)
+    hcd = SharedMemoryTransport.create(settings)
+    mcs = SharedMemoryTransport.open(settings)
+  }
+
+  override protected def afterEach(): Unit = {
+    mcs.close()
+    hcd.close()
+    directory.listFiles().foreach(_.delete())
+    directory.delete()
+  }
+
+  private def id(value: Long): Array[Byte] = ByteBuffer.allocate(8).putLong(value).array()
+
+  test("commands decode to the name, id and packet encoded") {
+    val codec  = new CommandCodec(128)
+    val length = codec.encode("Point", 42L, Array[Byte](1, 2, 3))
+    length shouldBe 10 + 5 + 3
+    codec.decoded(length)
+    codec.id shouldBe 42L
+    codec.commandName shouldBe "Point"
+    codec.payload.toSeq shouldBe Seq[Byte](1, 2, 3)
+
+    codec.decoded(codec.encode("Follow", 0L, Array.emptyByteArray))
+    codec.id shouldBe 0L
+    codec.commandName shouldBe "Follow"
+    codec.payload shouldBe empty
+  }
+
+  test("commands longer than the codec are not encoded") {
+    val codec = new CommandCodec(32)
+    codec.encode("Point", 1L, new Array[Byte](17)) shouldBe 32
+    codec.encode("Point", 1L, new Array[Byte](18)) shouldBe -1
+    codec.encode("P" * 40, 1L, Array.emptyByteArray) shouldBe -1
+    codec.encode("P" * 40000, 1L, Array.emptyByteArray) shouldBe -1
+  }
+
+  test("commands and replies cross the rings with their ids") {
+    val hcdChannel = new SharedMemoryCommandChannel(hcd.commands, hcd.replies)
+    val mcsChannel = new SharedMemoryCommandChannel(mcs.replies, mcs.commands)
+    hcdChannel.send("Point", Array[Byte](7), id(5)) shouldBe true
+    val command = mcsChannel.receive(1000)
+    command.commandName shouldBe "Point"
+    command.payload.toSeq shouldBe Seq[Byte](7)
+    command.id.toSeq shouldBe id(5).toSeq
+
+    mcsChannel.send("Point", Array[Byte](8, 9), null) shouldBe true
+    val reply = hcdChannel.receive(1000)
+    reply.commandName shouldBe "Point"
+    reply.payload.toSeq shouldBe Seq[Byte](8, 9)
+    reply.id shouldBe null
+
+    hcdChannel.receive(10) shouldBe null
+  }
+
+  test("a command too long for the ring is refused rather than thrown") {
+    val channel = new SharedMemoryCommandChannel(hcd.commands, hcd.replies)
+    channel.send("Point", new Array[Byte](hcd.commands.maxMessageLength), id(1)) shouldBe false
+    channel.send("Point", new Array[Byte](hcd.commands.maxMessageLength - 15), id(1)) shouldBe true
+  }
+
+  test("events are received with the topic of their message type") {
+    val receiver = new SharedMemoryEventReceiver(hcd.events, 10)
+    mcs.events.write(IEventDecoder.Health + 1, Array[Byte](1, 2), 0, 2) shouldBe true
+    receiver.receiveFrame(false) shouldBe IEventDecoder.Health
+    receiver.eventSize shouldBe 2
+    receiver.event.take(2).toSeq shouldBe Seq[Byte](1, 2)
+    receiver.receiveFrame(true) shouldBe McsEventSource.NoEvent
+    receiver.receiveFrame(false) shouldBe McsEventSource.NoEvent
+  }
+
+  test("events of unknown types or longer than the buffer are dropped") {
+    val receiver = new SharedMemoryEventReceiver(hcd.events, 10)
+    mcs.events.write(IEventDecoder.TopicNames.length + 1, Array[Byte](1), 0, 1) shouldBe true
+    receiver.receiveFrame(false) shouldBe IEventDecoder.UnknownTopic
+    receiver.droppedCount shouldBe 1
+
+    val long = new Array[Byte](receiver.event.length + 1)
+    mcs.events.write(IEventDecoder.CurrentPosition + 1, long, 0, long.length) shouldBe true
+    receiver.receiveFrame(false) shouldBe IEventDecoder.UnknownTopic
+    receiver.droppedCount shouldBe 2
+    // the buffer has grown for the next one
+    mcs.events.write(IEventDecoder.CurrentPosition + 1, long, 0, long.length) shouldBe true
+    receiver.receiveFrame(false) shouldBe IEventDecoder.CurrentPosition
+    receiver.eventSize shouldBe long.length
+    receiver.receivedCount shouldBe 3
+  }
+}
@@ -0,0 +1,179 @@
+package org.tmt.tcs.mcs.MCShcd.Protocol
+
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.time.Instant
+
+import com.google.protobuf.CodedInputStream
+import org.scalatest.{BeforeAndAfterEach, FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.constants.Commands
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.{CurrentPositionFlyweight, PositionDemandFlyweight}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.IEventDecoder
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsCommandProtos.{MCSCommandResponse, Startup}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.{McsCurrentPositionEvent, McsDriveStatus, TcsPositionDemandEvent}
+
+import scala.concurrent.duration.DurationInt
+
+/*
+The stand-in is run over the shared memory rings, the test taking the HCD side of them.
+ */
+class StandInMcsTest extends FunSuite with Matchers with BeforeAndAfterEach {
+
+  private val servoSettings = MountServo.Settings(
+    1000,
+    100,
+    2.0,
+    8.0,
+    0.000278,
+    MountServo.AxisLimits(-330.0, 170.0, 2.5, 1.0, 5.0),
+    MountServo.AxisLimits(-3.0, 93.0, 1.0, 1.0, 5.0)
+  )
+
+  private var directory: File             = _
+  private var hcd: SharedMemoryTransport  = _
+  private var standIn: StandInMcs         = _
+  private var commands: McsCommandChannel = _
+  private var events: McsEventSource      = _
+
+  private def start(codec: String = "protobuf",
+                    commandLatency: Int = 20,
+                    diagnosisRate: Int = 0,
+                    driveStatusRate: Int = 0,
+                    healthRate: Int = 0): Unit = {
+    directory = Files.createTempDirectory("stand-in-mcs").toFile
+    val settings = SharedMemoryTransport.Settings(directory.getPath, 65536)
+    hcd = SharedMemoryTransport.create(settings)
+    standIn = new StandInMcs(null,
+                             null,
+                             StandInMcs.Settings(commandLatency.millis, 100, diagnosisRate, driveStatusRate, healthRate, codec),
+                             servoSettings,
+                             SharedMemoryTransport.open(settings))
+    standIn.start()
+    commands = new SharedMemoryCommandChannel(hcd.commands, hcd.replies)
+    events = new SharedMemoryEventReceiver(hcd.events, 100)
+  }
+
+  override protected def afterEach(): Unit = {
+    if (standIn != null) standIn.stop()
+    if (hcd != null) hcd.close()
+    if (directory != null) {
+      directory.listFiles().foreach(_.delete())
+      directory.delete()
+    }
+    standIn = null
+    hcd = null
+    directory = null
+  }
+
+  private def response(reply: McsCommandChannel.Message): MCSCommandResponse = MCSCommandResponse.parseFrom(reply.payload)
+
+  private def nextEvent(topic: Int): CodedInputStream = {
+    val deadline = System.nanoTime() + 2.seconds.toNanos
+    while (System.nanoTime() < deadline) {
+      if (events.receiveFrame(false) == topic) return CodedInputStream.newInstance(events.event, 0, events.eventSize)
+    }
+    fail(s"no ${IEventDecoder.TopicNames(topic)} event")
+  }
+
+  // current positions until one is within tolerance of az and el
+  private def settlesOn(az: Double, el: Double, position: () => (Double, Double)): Unit = {
+    val deadline = System.nanoTime() + 10.seconds.toNanos
+    var last     = position()
+    while (System.nanoTime() < deadline && (math.abs(last._1 - az) > 0.000278 || math.abs(last._2 - el) > 0.000278)) last = position()
+    last._1 shouldBe az +- 0.000278
+    last._2 shouldBe el +- 0.000278
+  }
+
+  test("commands are replied to after the command latency, echoing their id") {
+    start(commandLatency = 50)
+    val id   = ByteBuffer.allocate(8).putLong(42).array()
+    val sent = System.nanoTime()
+    commands.send(Commands.STARTUP, Startup.newBuilder().build().toByteArray, id) shouldBe true
+    val reply = commands.receive(2000)
+    (System.nanoTime() - sent) should be >= 50.millis.toNanos
+    reply.commandName shouldBe Commands.STARTUP
+    reply.id.toSeq shouldBe id.toSeq
+    response(reply).getCmdError shouldBe MCSCommandResponse.CmdError.OK
+    standIn.commandsReceived.get shouldBe 1
+  }
+
+  test("replies follow the order of the commands") {
+    start()
+    commands.send(Commands.STARTUP, Array.emptyByteArray, null)
+    commands.send(Commands.SHUTDOWN, Array.emptyByteArray, null)
+    commands.receive(2000).commandName shouldBe Commands.STARTUP
+    val shutdown = commands.receive(2000)
+    shutdown.commandName shouldBe Commands.SHUTDOWN
+    shutdown.id shouldBe null
+  }
+
+  test("unknown commands and commands that cannot be decoded are replied to with an error") {
+    start()
+    commands.send("Levitate", Array.emptyByteArray, null)
+    val unknown = response(commands.receive(2000))
+    unknown.getCmdError shouldBe MCSCommandResponse.CmdError.ERROR
+    unknown.getErrorState shouldBe MCSCommandResponse.ErrorState.ILLEGAL_STATE
+
+    commands.send(Commands.POINT, Array[Byte](0xff.toByte), null)
+    val undecoded = response(commands.receive(2000))
+    undecoded.getCmdError shouldBe MCSCommandResponse.CmdError.ERROR
+    undecoded.getErrorState shouldBe MCSCommandResponse.ErrorState.FAILED
+    undecoded.getErrorInfo should include(Commands.POINT)
+  }
+
+  test("position demands drive the servo and show in the current positions") {
+    start()
+    val demand = TcsPositionDemandEvent.newBuilder().setAzimuth(0.1).setElevation(0.05).build().toByteArray
+    hcd.demands.write(SharedMemoryTransport.DemandMessage, demand, 0, demand.length) shouldBe true
+    settlesOn(0.1, 0.05, () => {
+      val position = McsCurrentPositionEvent.parseFrom(nextEvent(IEventDecoder.CurrentPosition))
+      (position.getAzPos, position.getElPos)
+    })
+    val position = McsCurrentPositionEvent.parseFrom(nextEvent(IEventDecoder.CurrentPosition))
+    position.getAzInPosition shouldBe true
+    position.getElInPosition shouldBe true
+    standIn.demandsReceived.get shouldBe 1
+  }
+
+  test("with the fixed layout codec demands and current positions are in the fixed layout") {
+    start(codec = "fixed-layout")
+    val demand = new Array[Byte](48)
+    new PositionDemandFlyweight()
+      .wrap(demand, 0)
+      .writeHeader()
+      .azimuth(-0.1)
+      .elevation(0.05)
+      .tpkPublishTime(FixedLayout.epochNanos(Instant.now()))
+    hcd.demands.write(SharedMemoryTransport.DemandMessage, demand, 0, demand.length) shouldBe true
+    val position = new CurrentPositionFlyweight
+    settlesOn(-0.1, 0.05, () => {
+      nextEvent(IEventDecoder.CurrentPosition)
+      position.wrap(events.event, 0)
+      position.isValid(events.eventSize) shouldBe true
+      (position.azPos, position.elPos)
+    })
+  }
+
+  test("each topic is published at its rate, drive status following startup") {
+    start(diagnosisRate = 50, driveStatusRate = 50, healthRate = 50)
+    for (topic <- IEventDecoder.TopicNames.indices) nextEvent(topic)
+    McsDriveStatus.parseFrom(nextEvent(IEventDecoder.DriveStatus)).getLifecycle shouldBe McsDriveStatus.Lifecycle.ready
+
+    commands.send(Commands.STARTUP, Array.emptyByteArray, null)
+    commands.receive(2000) should not be null
+    // drive status published before the reply may still be in the ring
+    val deadline  = System.nanoTime() + 2.seconds.toNanos
+    var lifecycle = McsDriveStatus.Lifecycle.ready
+    while (lifecycle != McsDriveStatus.Lifecycle.running && System.nanoTime() < deadline)
+      lifecycle = McsDriveStatus.parseFrom(nextEvent(IEventDecoder.DriveStatus)).getLifecycle
+    lifecycle shouldBe McsDriveStatus.Lifecycle.running
+    standIn.eventsPublished.get should be > 4L
+  }
+
+  test("unknown codecs are rejected") {
+    an[IllegalArgumentException] should be thrownBy
+    new StandInMcs(null, null, StandInMcs.Settings(1.milli, 100, 0, 0, 0, "json"), servoSettings)
+  }
+}
@@ -0,0 +1,148 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.time.Instant
+
+import csw.logging.scaladsl.{Logger, LoggerFactory}
+import org.mockito.Mockito.when
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.icd.mcs.{McsPositionDemandsEvent, McsPositionDemandsState}
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.{CurrentPositionFlyweight, PositionDemandFlyweight}
+
+class FixedLayoutTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val loggerFactory = mock[LoggerFactory]
+  when(loggerFactory.getLogger).thenReturn(mock[Logger])
+
+  private val tpkTime      = Instant.ofEpochSecond(1500000000, 111111111)
+  private val assemblyTime = Instant.ofEpochSecond(1500000000, 222222222)
+  private val hcdTime      = Instant.ofEpochSecond(1500000000, 333333333)
+
+  private def currentPosition(buffer: Array[Byte], offset: Int, azIn: Boolean, elIn: Boolean): CurrentPositionFlyweight =
+    new CurrentPositionFlyweight()
+      .wrap(buffer, offset)
+      .writeHeader()
+      .azPos(120.5)
+      .elPos(45.25)
+      .azPosError(0.001)
+      .elPosError(-0.002)
+      .time(FixedLayout.epochNanos(tpkTime))
+      .inPosition(azIn, elIn)
+
+  test("position demands round trip at any offset") {
+    val buffer = new Array[Byte](128)
+    new PositionDemandFlyweight()
+      .wrap(buffer, 13)
+      .writeHeader()
+      .azimuth(181.25)
+      .elevation(-0.5)
+      .tpkPublishTime(FixedLayout.epochNanos(tpkTime))
+      .assemblyReceivalTime(FixedLayout.epochNanos(assemblyTime))
+      .hcdReceivalTime(FixedLayout.epochNanos(hcdTime))
+
+    val demand = new PositionDemandFlyweight().wrap(buffer, 13)
+    demand.isValid(48) shouldBe true
+    demand.azimuth shouldBe 181.25
+    demand.elevation shouldBe -0.5
+    FixedLayout.instant(demand.tpkPublishTime) shouldBe tpkTime
+    FixedLayout.instant(demand.assemblyReceivalTime) shouldBe assemblyTime
+    FixedLayout.instant(demand.hcdReceivalTime) shouldBe hcdTime
+    buffer.take(13).forall(_ == 0) shouldBe true
+    buffer.drop(13 + 48).forall(_ == 0) shouldBe true
+  }
+
+  test("the header is little endian template id and version") {
+    val buffer = new Array[Byte](48)
+    new PositionDemandFlyweight().wrap(buffer, 0).writeHeader()
+    buffer.take(8).toSeq shouldBe Seq[Byte](1, 0, 1, 0, 0, 0, 0, 0)
+    new CurrentPositionFlyweight().wrap(buffer, 0).writeHeader()
+    buffer.take(2).toSeq shouldBe Seq[Byte](2, 0)
+  }
+
+  test("messages of another template or version or too short are not valid") {
+    val buffer = new Array[Byte](56)
+    currentPosition(buffer, 0, azIn = true, elIn = true)
+    new CurrentPositionFlyweight().wrap(buffer, 0).isValid(56) shouldBe true
+    new CurrentPositionFlyweight().wrap(buffer, 0).isValid(55) shouldBe false
+    new PositionDemandFlyweight().wrap(buffer, 0).isValid(56) shouldBe false
+
+    buffer(2) = 2
+    new CurrentPositionFlyweight().wrap(buffer, 0).isValid(56) shouldBe false
+  }
+
+  test("in position flags are bits 0 and 1 of byte 48 followed by zero padding") {
+    val buffer = Array.fill[Byte](56)(0xff.toByte)
+    for ((azIn, elIn, flags) <- Seq((false, false, 0), (true, false, 1), (false, true, 2), (true, true, 3))) {
+      val position = currentPosition(buffer, 0, azIn, elIn)
+      buffer(48).toInt shouldBe flags
+      buffer.slice(49, 56).forall(_ == 0) shouldBe true
+      position.azInPosition shouldBe azIn
+      position.elInPosition shouldBe elIn
+    }
+  }
+
+  test("epoch nanoseconds round trip before and after the epoch") {
+    for (instant <- Seq(Instant.EPOCH, tpkTime, Instant.ofEpochSecond(-1, 1), Instant.ofEpochSecond(-1500000000, 999999999))) {
+      FixedLayout.instant(FixedLayout.epochNanos(instant)) shouldBe instant
+    }
+  }
+
+  test("the transformer encodes position demand events and states into the fixed layout") {
+    val transformer = FixedLayoutMsgTransformer.create(loggerFactory)
+    val event = McsPositionDemandsEvent
+      .writer()
+      .az(120.5)
+      .el(45.25)
+      .time(tpkTime)
+      .assemblyReceivalTime(assemblyTime)
+      .hcdReceivalTime(hcdTime)
+      .toEvent
+    val buffer = new Array[Byte](64)
+    transformer.encodeEvent(event, buffer, 8) shouldBe 48
+
+    val demand = new PositionDemandFlyweight().wrap(buffer, 8)
+    demand.isValid(48) shouldBe true
+    demand.azimuth shouldBe 120.5
+    demand.elevation shouldBe 45.25
+    FixedLayout.instant(demand.tpkPublishTime) shouldBe tpkTime
+    FixedLayout.instant(demand.assemblyReceivalTime) shouldBe assemblyTime
+    FixedLayout.instant(demand.hcdReceivalTime) shouldBe hcdTime
+
+    val state = McsPositionDemandsState
+      .writer()
+      .az(120.5)
+      .el(45.25)
+      .time(tpkTime)
+      .assemblyReceivalTime(assemblyTime)
+      .hcdReceivalTime(hcdTime)
+      .toCurrentState
+    transformer.encodeCurrentState(state).toSeq shouldBe buffer.slice(8, 56).toSeq
+  }
+
+  test("the transformer decodes fixed layout current positions") {
+    val transformer = FixedLayoutMsgTransformer.create(loggerFactory)
+    val buffer      = new Array[Byte](56)
+    currentPosition(buffer, 0, azIn = true, elIn = false)
+
+    val state = transformer.decodeEvent(EventConstants.CURRENT_POSITION, buffer)
+    state.stateName.name shouldBe EventConstants.CURRENT_POSITION
+    state.get(EventConstants.AzPosKey).get.head shouldBe 120.5
+    state.get(EventConstants.ElPosKey).get.head shouldBe 45.25
+    state.get(EventConstants.AZ_POS_ERROR_KEY).get.head shouldBe 0.001
+    state.get(EventConstants.EL_POS_ERROR_KEY).get.head shouldBe -0.002
+    state.get(EventConstants.AZ_InPosition_Key).get.head shouldBe true
+    state.get(EventConstants.EL_InPosition_Key).get.head shouldBe false
+    state.get(EventConstants.TimeStampKey).get.head shouldBe tpkTime
+    state.exists(EventConstants.hcdEventReceivalTime_Key) shouldBe true
+  }
+
+  test("current positions not in the fixed layout are skipped") {
+    val transformer = FixedLayoutMsgTransformer.create(loggerFactory)
+    val buffer      = new Array[Byte](56)
+    currentPosition(buffer, 0, azIn = true, elIn = true)
+    transformer.decodeEvent(EventConstants.CURRENT_POSITION, buffer.take(40)) shouldBe null
+    buffer(0) = 1
+    transformer.decodeEvent(EventConstants.CURRENT_POSITION, buffer) shouldBe null
+  }
+}
@@ -0,0 +1,119 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.time.Instant
+
+import com.google.protobuf.Timestamp
+import csw.logging.scaladsl.{Logger, LoggerFactory}
+import csw.params.core.states.CurrentState
+import org.mockito.Mockito.when
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos._
+
+/*
+The decoder must give the current states the generated protobuf classes and ParamSetTransformer
+give for the same event bytes.
+ */
+class ProtoBuffEventDecoderTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val loggerFactory = mock[LoggerFactory]
+  when(loggerFactory.getLogger).thenReturn(mock[Logger])
+
+  private val transformer  = ParamSetTransformer.create(loggerFactory)
+  private val receivalTime = Instant.ofEpochSecond(1500000000, 123456789)
+  private val time         = Timestamp.newBuilder().setSeconds(1500000000).setNanos(987654321).build()
+
+  private def currentPosition(az: Double): McsCurrentPositionEvent =
+    McsCurrentPositionEvent
+      .newBuilder()
+      .setMcsInPosition(true)
+      .setAzPos(az)
+      .setAzPosDemand(az + 0.5)
+      .setAzPosError(0.001)
+      .setAzInPosition(true)
+      .setElPos(45.25)
+      .setElPosDemand(45.5)
+      .setElPosError(-0.002)
+      .setElInPosition(false)
+      .setEncodeLatchingTime(time)
+      .setTime(time)
+      .build()
+
+  private def received(state: CurrentState): CurrentState =
+    state.add(EventConstants.hcdEventReceivalTime_Key.set(receivalTime))
+
+  private def decode(decoder: IEventDecoder, topicIndex: Int, bytes: Array[Byte]): CurrentState =
+    decoder.decode(topicIndex, bytes, 0, bytes.length, receivalTime)
+
+  private def assertSameState(expected: CurrentState, actual: CurrentState): Unit = {
+    actual should not be null
+    actual.prefix shouldBe expected.prefix
+    actual.stateName shouldBe expected.stateName
+    actual.paramSet shouldBe expected.paramSet
+  }
+
+  test("current position is decoded as through the generated class") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val event   = currentPosition(120.5)
+    assertSameState(received(transformer.getMountCurrentPosition(event)),
+                    decode(decoder, IEventDecoder.CurrentPosition, event.toByteArray))
+  }
+
+  test("fields holding their default value are decoded as defaults") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val event   = McsCurrentPositionEvent.getDefaultInstance
+    event.toByteArray.length shouldBe 0
+    assertSameState(received(transformer.getMountCurrentPosition(event)),
+                    decode(decoder, IEventDecoder.CurrentPosition, event.toByteArray))
+  }
+
+  test("events are decoded from a region of a reused buffer") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val buffer  = new Array[Byte](1024)
+    for (i <- 0 until 20) {
+      val event  = currentPosition(i * 10.0)
+      val bytes  = event.toByteArray
+      val offset = 7 * i
+      java.util.Arrays.fill(buffer, 0xff.toByte)
+      System.arraycopy(bytes, 0, buffer, offset, bytes.length)
+      assertSameState(received(transformer.getMountCurrentPosition(event)),
+                      decoder.decode(IEventDecoder.CurrentPosition, buffer, offset, bytes.length, receivalTime))
+    }
+  }
+
+  test("low rate topics are decoded as through the generated classes") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val health  = McsHealth.newBuilder().setHealthMCS(McsHealth.Health.Ill).setReason("azimuth drive warm").setTime(time).build()
+    assertSameState(received(transformer.getMCSHealth(health)), decode(decoder, IEventDecoder.Health, health.toByteArray))
+
+    val diagnosis = MountControlDiags.newBuilder().setAzPosDemand(10.0).setElPosDemand(20.0).setAzInPosition(true).setTime(time).build()
+    assertSameState(received(transformer.getMountControlDignosis(diagnosis)),
+                    decode(decoder, IEventDecoder.Diagnosis, diagnosis.toByteArray))
+
+    val driveStatus = McsDriveStatus.newBuilder().setProcessing(true).setTime(time).build()
+    assertSameState(received(transformer.getMCSDriveStatus(driveStatus)),
+                    decode(decoder, IEventDecoder.DriveStatus, driveStatus.toByteArray))
+  }
+
+  test("a truncated event is skipped and the next one is decoded") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val bytes   = currentPosition(1.0).toByteArray
+    decoder.decode(IEventDecoder.CurrentPosition, bytes, 0, bytes.length - 3, receivalTime) shouldBe null
+
+    val event = currentPosition(2.0)
+    assertSameState(received(transformer.getMountCurrentPosition(event)),
+                    decode(decoder, IEventDecoder.CurrentPosition, event.toByteArray))
+  }
+
+  test("topics are looked up by their name bytes") {
+    val decoder = ProtoBuffEventDecoder.create(loggerFactory)
+    val topic   = new Array[Byte](64)
+    for (index <- IEventDecoder.TopicNames.indices) {
+      val name = IEventDecoder.TopicNames(index).getBytes("US-ASCII")
+      System.arraycopy(name, 0, topic, 0, name.length)
+      decoder.topicIndex(topic, name.length) shouldBe index
+    }
+    decoder.topicIndex("unknown".getBytes("US-ASCII"), 7) shouldBe IEventDecoder.UnknownTopic
+  }
+}
@@ -0,0 +1,111 @@
+package org.tmt.tcs.mcs.MCShcd.msgTransformers
+
+import java.time.Instant
+
+import csw.logging.scaladsl.{Logger, LoggerFactory}
+import csw.params.events.SystemEvent
+import org.mockito.Mockito.when
+import org.scalatest.mockito.MockitoSugar
+import org.scalatest.{FunSuite, Matchers}
+import org.tmt.tcs.icd.mcs.{McsPositionDemandsEvent, McsPositionDemandsState}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.TcsPositionDemandEvent
+
+/*
+Position demands encoded in place through the reused CodedOutputStream must be the bytes the
+generated builders give.
+ */
+class ProtoBuffMsgTransformerTest extends FunSuite with Matchers with MockitoSugar {
+
+  private val loggerFactory = mock[LoggerFactory]
+  when(loggerFactory.getLogger).thenReturn(mock[Logger])
+
+  private val time = Instant.ofEpochSecond(1500000000, 123456789)
+
+  private def demand(i: Int): SystemEvent =
+    McsPositionDemandsEvent
+      .writer()
+      .az(100.0 + i * 0.25)
+      .el(45.0 - i * 0.125)
+      .time(time.plusMillis(i))
+      .assemblyReceivalTime(time.plusMillis(i + 1))
+      .hcdReceivalTime(time.plusMillis(i + 2))
+      .toEvent
+
+  private def encodedAt(buffer: Array[Byte], offset: Int, length: Int): Seq[Byte] = buffer.slice(offset, offset + length).toSeq
+
+  test("demands encoded one after the other are the bytes of the builders") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val buffer      = new Array[Byte](4096)
+    var offset      = 0
+    for (i <- 0 until 20) {
+      val event  = demand(i)
+      val length = transformer.encodeEvent(event, buffer, offset)
+      encodedAt(buffer, offset, length) shouldBe transformer.encodeEvent(event).toSeq
+      offset += length
+    }
+  }
+
+  test("demands encoded elsewhere in the buffer or in another buffer are the bytes of the builders") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val buffer      = new Array[Byte](1024)
+    val other       = new Array[Byte](1024)
+    val first       = transformer.encodeEvent(demand(1), buffer, 0)
+    // back to the start, as the protocol actor does when the end of its buffer is near
+    val wrapped = transformer.encodeEvent(demand(2), buffer, 0)
+    encodedAt(buffer, 0, wrapped) shouldBe transformer.encodeEvent(demand(2)).toSeq
+    val skipped = transformer.encodeEvent(demand(3), buffer, wrapped + 17)
+    encodedAt(buffer, wrapped + 17, skipped) shouldBe transformer.encodeEvent(demand(3)).toSeq
+    val elsewhere = transformer.encodeEvent(demand(4), other, wrapped + 17 + skipped)
+    encodedAt(other, wrapped + 17 + skipped, elsewhere) shouldBe transformer.encodeEvent(demand(4)).toSeq
+    first should be > 0
+  }
+
+  test("demands parse back with the generated class") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val buffer      = new Array[Byte](256)
+    val length      = transformer.encodeEvent(demand(3), buffer, 10)
+    val parsed      = TcsPositionDemandEvent.parseFrom(buffer.slice(10, 10 + length))
+    parsed.getAzimuth shouldBe 100.75
+    parsed.getElevation shouldBe 44.625
+    Instant.ofEpochSecond(parsed.getTpkPublishTime.getSeconds, parsed.getTpkPublishTime.getNanos) shouldBe time.plusMillis(3)
+    Instant.ofEpochSecond(parsed.getAssemblyReceivalTime.getSeconds, parsed.getAssemblyReceivalTime.getNanos) shouldBe
+    time.plusMillis(4)
+    Instant.ofEpochSecond(parsed.getHcdReceivalTime.getSeconds, parsed.getHcdReceivalTime.getNanos) shouldBe time.plusMillis(5)
+  }
+
+  test("fields holding their default value are left out as by the builders") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val event = McsPositionDemandsEvent
+      .writer()
+      .az(0.0)
+      .el(0.0)
+      .time(Instant.EPOCH)
+      .assemblyReceivalTime(Instant.ofEpochSecond(1500000000))
+      .hcdReceivalTime(Instant.ofEpochSecond(0, 5))
+      .toEvent
+    val buffer = new Array[Byte](256)
+    val length = transformer.encodeEvent(event, buffer, 0)
+    encodedAt(buffer, 0, length) shouldBe transformer.encodeEvent(event).toSeq
+  }
+
+  test("demand states are encoded as demand events") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val state = McsPositionDemandsState
+      .writer()
+      .az(100.0)
+      .el(45.0)
+      .time(time)
+      .assemblyReceivalTime(time.plusMillis(1))
+      .hcdReceivalTime(time.plusMillis(2))
+      .toCurrentState
+    val buffer = new Array[Byte](256)
+    val length = transformer.encodeCurrentState(state, buffer, 0)
+    encodedAt(buffer, 0, length) shouldBe transformer.encodeEvent(demand(0)).toSeq
+  }
+
+  test("demands without their times are refused") {
+    val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+    val event       = McsPositionDemandsEvent.writer().az(1.0).el(2.0).time(time).assemblyReceivalTime(time).toEvent
+    a[NoSuchElementException] should be thrownBy transformer.encodeEvent(event, new Array[Byte](256), 0)
+  }
+}
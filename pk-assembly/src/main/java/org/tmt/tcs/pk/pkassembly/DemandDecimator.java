@@ -0,0 +1,203 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import com.typesafe.config.Config;
+
+/**
+ * Reduces the rate of one demand stream of the PK assembly, e.g. the enclosure demands,
+ * below the rate of the fast loop. Each stream carries a pair of angles in degrees and is
+ * filtered in one of three ways:
+ * <ul>
+ * <li>pass-through - every tick is published</li>
+ * <li>decimate - every factor'th tick is published</li>
+ * <li>average - ticks are averaged over consecutive periods of 1/rate seconds and the
+ * average is published once the first tick of the next period arrives</li>
+ * </ul>
+ * Published samples are numbered by a sequence of their own, starting at 0.
+ *
+ * Not thread safe, used by the event handler actor only.
+ */
+public class DemandDecimator {
+
+    public enum Mode {
+        PASS_THROUGH,
+        DECIMATE,
+        AVERAGE
+    }
+
+    private final Mode mode;
+    private final int factor;
+    private final long periodNanos;
+
+    private long sequence = -1;
+    private long ticks;
+
+    // output sample
+    private double first;
+    private double second;
+    private long sampleNanos;
+
+    // current averaging period
+    private boolean inPeriod;
+    private long periodEnd;
+    private long count;
+    private double firstReference;
+    private double secondReference;
+    private double firstSum;
+    private double secondSum;
+    private long lastNanos;
+
+    private DemandDecimator(Mode mode, int factor, long periodNanos) {
+        this.mode = mode;
+        this.factor = factor;
+        this.periodNanos = periodNanos;
+    }
+
+    public static DemandDecimator passThrough() {
+        return new DemandDecimator(Mode.PASS_THROUGH, 1, 0);
+    }
+
+    /**
+     * @param factor publish one tick out of factor
+     */
+    public static DemandDecimator decimate(int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("decimation factor must be at least 1, was " + factor);
+        }
+        return new DemandDecimator(Mode.DECIMATE, factor, 0);
+    }
+
+    /**
+     * @param rateHz rate of the averaged output
+     */
+    public static DemandDecimator average(double rateHz) {
+        if (!(rateHz > 0)) {
+            throw new IllegalArgumentException("averaging rate must be positive, was " + rateHz);
+        }
+        return new DemandDecimator(Mode.AVERAGE, 1, Math.round(1e9 / rateHz));
+    }
+
+    /**
+     * Creates the decimator of a stream from its configuration block, with
+     * mode = "pass-through", "decimate" (with factor) or "average" (with rate in Hz).
+     */
+    public static DemandDecimator fromConfig(Config config) {
+        String mode = config.getString("mode");
+        switch (mode) {
+            case "pass-through":
+                return passThrough();
+            case "decimate":
+                return decimate(config.getInt("factor"));
+            case "average":
+                return average(config.getDouble("rate"));
+            default:
+                throw new IllegalArgumentException("unknown demand decimation mode '" + mode + "'");
+        }
+    }
+
+    /**
+     * Feeds the demands of one tick.
+     *
+     * @param tickNanos time of the tick in nanoseconds, increasing
+     * @return true if a sample is to be published, its values are then available from
+     * the getters until the next call
+     */
+    public boolean accept(long tickNanos, double firstValue, double secondValue) {
+        switch (mode) {
+            case DECIMATE:
+                if (ticks++ % factor != 0) {
+                    return false;
+                }
+                return emit(tickNanos, firstValue, secondValue);
+            case AVERAGE:
+                return average(tickNanos, firstValue, secondValue);
+            default:
+                return emit(tickNanos, firstValue, secondValue);
+        }
+    }
+
+    private boolean average(long tickNanos, double firstValue, double secondValue) {
+        boolean ready = false;
+        if (inPeriod && tickNanos - periodEnd >= 0) {
+            ready = emit(lastNanos, firstReference + firstSum / count, secondReference + secondSum / count);
+            // periods follow each other without gaps unless ticks stopped for longer than a period
+            periodEnd = tickNanos - periodEnd < periodNanos ? periodEnd + periodNanos : tickNanos + periodNanos;
+            startPeriod(firstValue, secondValue);
+        } else if (!inPeriod) {
+            inPeriod = true;
+            periodEnd = tickNanos + periodNanos;
+            startPeriod(firstValue, secondValue);
+        }
+        // angles are averaged as offsets from the first tick of the period, so that
+        // periods spanning the 0/360 degree wrap average correctly
+        firstSum += wrap(firstValue - firstReference);
+        secondSum += wrap(secondValue - secondReference);
+        count++;
+        lastNanos = tickNanos;
+        return ready;
+    }
+
+    private void startPeriod(double firstValue, double secondValue) {
+        firstReference = firstValue;
+        secondReference = secondValue;
+        firstSum = 0;
+        secondSum = 0;
+        count = 0;
+    }
+
+    private boolean emit(long tickNanos, double firstValue, double secondValue) {
+        first = firstValue;
+        second = secondValue;
+        sampleNanos = tickNanos;
+        sequence++;
+        return true;
+    }
+
+    // difference of two angles in degrees, between -180 and 180
+    private static double wrap(double degrees) {
+        return degrees - 360 * Math.floor((degrees + 180) / 360);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return first value of the current sample, e.g. azimuth
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * @return second value of the current sample, e.g. elevation
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    /**
+     * @return time of the latest tick contributing to the current sample
+     */
+    public long getSampleNanos() {
+        return sampleNanos;
+    }
+
+    /**
+     * @return sequence number of the current sample in the output stream
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case DECIMATE:
+                return "decimate by " + factor;
+            case AVERAGE:
+                return "average at " + (1e9 / periodNanos) + " Hz";
+            default:
+                return "pass-through";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import csw.params.events.Event;
+import org.tmt.tcs.icd.pk.PkDemandFrame;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
+import org.tmt.tcs.icd.pk.PkM3DemandPositions;
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Makes the demand events of the PK assembly from the demands handed over by the fast loop:
+ * the demand frame of each tick and the separate MCS, ENC and M3 demand events, depending upon
+ * the demand event mode, the separate events at the rates of their decimators.
+ * The events are handed to the publisher given, in the order they are made.
+ *
+ * Not thread safe, used by the event handler actor only.
+ */
+public class DemandEvents {
+
+    // events published per stream at most
+    private static final int LIMIT = 100000;
+
+    private final JPkEventHandlerActor.DemandEventMode mode;
+    private final DemandDecimator mcsDecimator;
+    private final DemandDecimator encDecimator;
+    private final DemandDecimator m3Decimator;
+    private final Consumer<Event> publisher;
+
+    private int counterEnc = 0;
+    private int counterMcs = 0;
+    private int counterM3 = 0;
+    private int counterFrame = 0;
+
+    public DemandEvents(JPkEventHandlerActor.DemandEventMode mode, DemandDecimator mcsDecimator,
+                        DemandDecimator encDecimator, DemandDecimator m3Decimator, Consumer<Event> publisher) {
+        this.mode = mode;
+        this.mcsDecimator = mcsDecimator;
+        this.encDecimator = encDecimator;
+        this.m3Decimator = m3Decimator;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Demands of all subsystems for one tick: the frame in frame and both modes, the separate
+     * demands in separate and both modes.
+     */
+    public void frame(JPkEventHandlerActor.DemandFrameMessage message) {
+        if (mode != JPkEventHandlerActor.DemandEventMode.SEPARATE && counterFrame < LIMIT) {
+            publisher.accept(demandFrame(message));
+            counterFrame++;
+        }
+        if (mode != JPkEventHandlerActor.DemandEventMode.FRAME) {
+            long tickNanos = toNanos(message.getTimestamp());
+            mcsDemand(tickNanos, message.getMcsAz(), message.getMcsEl());
+            encDemand(tickNanos, message.getBase(), message.getCap());
+            m3Demand(tickNanos, message.getRotation(), message.getTilt());
+        }
+    }
+
+    /*
+     * The filters run on the actor only, the fast loop hands over every tick and is not
+     * slowed down by the rate of any output stream.
+     */
+    public void mcsDemand(long tickNanos, double az, double el) {
+        if (counterMcs < LIMIT && mcsDecimator.accept(tickNanos, az, el)) {
+            publisher.accept(PkMcsDemandPositions.writer()
+                    .az(mcsDecimator.getFirst())
+                    .el(mcsDecimator.getSecond())
+                    .sequence(mcsDecimator.getSequence())
+                    .time(Instant.now())
+                    .toEvent());
+            counterMcs++;
+        }
+    }
+
+    public void encDemand(long tickNanos, double base, double cap) {
+        if (counterEnc < LIMIT && encDecimator.accept(tickNanos, base, cap)) {
+            publisher.accept(PkEncDemandPositions.writer()
+                    .base(encDecimator.getFirst())
+                    .cap(encDecimator.getSecond())
+                    .sequence(encDecimator.getSequence())
+                    .clientTime(Instant.now())
+                    .toEvent());
+            counterEnc++;
+        }
+    }
+
+    public void m3Demand(long tickNanos, double rotation, double tilt) {
+        if (counterM3 < LIMIT && m3Decimator.accept(tickNanos, rotation, tilt)) {
+            publisher.accept(PkM3DemandPositions.writer()
+                    .rotation(m3Decimator.getFirst())
+                    .tilt(m3Decimator.getSecond())
+                    .sequence(m3Decimator.getSequence())
+                    .toEvent());
+            counterM3++;
+        }
+    }
+
+    /**
+     * The demands of all subsystems for one tick as a single event, so that subscribers can
+     * tell which demands were generated together.
+     */
+    private static Event demandFrame(JPkEventHandlerActor.DemandFrameMessage message) {
+        return PkDemandFrame.writer()
+                .tick(message.getTick())
+                .time(message.getTimestamp())
+                .mcsAz(message.getMcsAz())
+                .mcsEl(message.getMcsEl())
+                .ecsBase(message.getBase())
+                .ecsCap(message.getCap())
+                .m3Rotation(message.getRotation())
+                .m3Tilt(message.getTilt())
+                .toEvent();
+    }
+
+    static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -9,6 +9,12 @@ import csw.logging.javadsl.ILogger;
 import csw.logging.javadsl.JLoggerFactory;
 import csw.params.commands.ControlCommand;
 import org.tmt.tcs.pk.pkassembly.JPkCommandHandlerActor.CommandMessage;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import org.tmt.tcs.icd.pk.PkOffset;
+import org.tmt.tcs.pk.wrapper.IPointingKernel;
+import org.tmt.tcs.pk.wrapper.JavaPointingKernel;
+import org.tmt.tcs.pk.wrapper.NativePointingKernel;
 import org.tmt.tcs.pk.wrapper.TpkWrapper;
 
 public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
@@ -19,8 +25,11 @@ public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
 
     public static final class SubmitCommandMessage implements CommandMessage {
         public final ControlCommand controlCommand;
+        // System.nanoTime() the assembly received the command at
+        public final long receivedNanos;
         public SubmitCommandMessage(ControlCommand controlCommand) {
             this.controlCommand = controlCommand;
+            this.receivedNanos = System.nanoTime();
         }
     }
 
@@ -66,6 +75,13 @@ public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
                             handleSetTargetCommand(command.controlCommand);
                             return Behaviors.same();
                         })
+                .onMessage(SubmitCommandMessage.class,
+                        command -> command.controlCommand.commandName().equals(PkOffset.COMMAND_NAME),
+                        command -> {
+                            log.info("Inside JPkCommandHandlerActor: OffsetMessage Received");
+                            handleOffsetCommand(command);
+                            return Behaviors.same();
+                        })
                 .onMessage(GoOnlineMessage.class,
                         command -> {
                             log.info("Inside JPkCommandHandlerActor: GoOnlineMessage Received");
@@ -95,6 +111,19 @@ public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
         }
     }
 
+    private void handleOffsetCommand(SubmitCommandMessage message) {
+
+        log.info("Inside JPkCommandHandlerActor: handleOffsetCommand = " + message.controlCommand);
+
+        if (online) {
+            ActorRef<OffsetCmdActor.OffsetMessage> offsetCmdActor =
+                    actorContext.spawnAnonymous(OffsetCmdActor.behavior(commandResponseManager, loggerFactory, tpkWrapper));
+
+            offsetCmdActor.tell(new OffsetCmdActor.OffsetMessage(message.controlCommand, message.receivedNanos));
+
+        }
+    }
+
     /**
      * This helps in initializing TPK JNI Wrapper in separate thread, so that
      * New Target and Offset requests can be passed on to it
@@ -102,7 +131,17 @@ public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
     public void initiateTpkEndpoint() {
         log.debug("Inside JPkCommandHandlerActor: initiateTpkEndpoint");
 
-        tpkWrapper = new TpkWrapper(eventHandlerActor);
+        Config config = actorContext.getSystem().settings().config();
+        TpkWrapper.DemandDelivery demandDelivery = demandDelivery(config);
+        IPointingKernel pointingKernel;
+        if ("java".equals(config.getString("tcs.pk.kernel"))) {
+            pointingKernel = JavaPointingKernel.fromConfig(config.getConfig("tcs.pk.java-kernel"));
+            log.info("Inside JPkCommandHandlerActor: using java pointing kernel at " +
+                    ((JavaPointingKernel) pointingKernel).getRateHz() + " Hz");
+        } else {
+            pointingKernel = new NativePointingKernel();
+        }
+        tpkWrapper = new TpkWrapper(eventHandlerActor, pointingKernel, demandDelivery, config.getInt("tcs.pk.demand-batch-size"));
 
         new Thread(new Runnable() {
             public void run() {
@@ -117,4 +156,24 @@ public class JPkCommandHandlerActor extends AbstractBehavior<CommandMessage> {
         }
     }
 
+    /**
+     * Reads tcs.pk.demand-delivery, rejecting the deliveries the configured kernel cannot do:
+     * the native kernel calls back once per tick only.
+     */
+    static TpkWrapper.DemandDelivery demandDelivery(Config config) {
+        String value = config.getString("tcs.pk.demand-delivery");
+        TpkWrapper.DemandDelivery demandDelivery;
+        try {
+            demandDelivery = TpkWrapper.DemandDelivery.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException.BadValue(config.origin(), "tcs.pk.demand-delivery",
+                    "unknown demand delivery " + value + ", expected tick, batch or poll");
+        }
+        if (demandDelivery != TpkWrapper.DemandDelivery.TICK && !"java".equals(config.getString("tcs.pk.kernel"))) {
+            throw new ConfigException.BadValue(config.origin(), "tcs.pk.demand-delivery",
+                    value + " delivery needs tcs.pk.kernel = java, the native kernel delivers per tick only");
+        }
+        return demandDelivery;
+    }
+
 }
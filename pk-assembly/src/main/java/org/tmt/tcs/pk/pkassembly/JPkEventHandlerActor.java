@@ -5,12 +5,8 @@ import akka.actor.typed.javadsl.*;
 import csw.event.api.javadsl.IEventService;
 import csw.logging.javadsl.ILogger;
 import csw.logging.javadsl.JLoggerFactory;
-import csw.params.core.generics.Key;
-import csw.params.core.models.Prefix;
 import csw.params.events.Event;
-import csw.params.events.EventName;
-import csw.params.events.SystemEvent;
-import csw.params.javadsl.JKeyType;
+import com.typesafe.config.Config;
 import java.time.Instant;
 
 public class JPkEventHandlerActor extends AbstractBehavior<JPkEventHandlerActor.EventMessage> {
@@ -20,13 +16,30 @@ public class JPkEventHandlerActor extends AbstractBehavior<JPkEventHandlerActor.
     private JLoggerFactory loggerFactory;
     private ILogger log;
 
-    private static final Prefix prefix = new Prefix("tcs.pk");
+    /*
+     * The demand events, their names and keys are defined in tcs-interface.conf: PkDemandFrame
+     * carries the MCS, ENC and M3 demands of one fast loop tick, the separate demand events carry
+     * the sequence number of the event within its own stream, counting the events published after
+     * decimation.
+     */
+
+    /**
+     * Which demand events are published for the demand frames of the fast loop,
+     * configured with tcs.pk.demand-events
+     */
+    public enum DemandEventMode {
+        // mcsdemandpositions, encdemandpositions and m3demandpositions
+        SEPARATE,
+        // one demandframe event per tick
+        FRAME,
+        // both of the above, while subscribers are moved over to the frame
+        BOTH
+    }
 
-    private int counterEnc = 0 ;
-    private int counterMcs = 0 ;
-    private int counterM3 = 0 ;
+    private final DemandEventMode demandEventMode;
 
-    private static final int LIMIT = 100000;
+    // demand events in the demand event mode, the separate ones at the rates configured with tcs.pk.decimation
+    private final DemandEvents demandEvents;
 
 
     private JPkEventHandlerActor(ActorContext<EventMessage> actorContext, IEventService eventService, JLoggerFactory loggerFactory) {
@@ -34,7 +47,16 @@ public class JPkEventHandlerActor extends AbstractBehavior<JPkEventHandlerActor.
         this.eventService = eventService;
         this.loggerFactory = loggerFactory;
         this.log = loggerFactory.getLogger(actorContext, getClass());
-
+        this.demandEventMode = DemandEventMode.valueOf(
+                actorContext.getSystem().settings().config().getString("tcs.pk.demand-events").toUpperCase());
+        log.info("Inside JPkEventHandlerActor: demand event mode is " + demandEventMode);
+        Config decimation = actorContext.getSystem().settings().config().getConfig("tcs.pk.decimation");
+        DemandDecimator mcsDecimator = DemandDecimator.fromConfig(decimation.getConfig("mcs"));
+        DemandDecimator encDecimator = DemandDecimator.fromConfig(decimation.getConfig("enc"));
+        DemandDecimator m3Decimator = DemandDecimator.fromConfig(decimation.getConfig("m3"));
+        log.info("Inside JPkEventHandlerActor: demand decimation is mcs " + mcsDecimator
+                + ", enc " + encDecimator + ", m3 " + m3Decimator);
+        this.demandEvents = new DemandEvents(demandEventMode, mcsDecimator, encDecimator, m3Decimator, this::publish);
     }
 
     public static <EventMessage> Behavior<EventMessage> behavior(IEventService eventService, JLoggerFactory loggerFactory) {
@@ -51,77 +73,99 @@ public class JPkEventHandlerActor extends AbstractBehavior<JPkEventHandlerActor.
         ReceiveBuilder<EventMessage> builder = receiveBuilder()
                 .onMessage(McsDemandMessage.class,
                         message -> {
-                            if(this.counterMcs<LIMIT)
-                            {
-                                log.info("Inside JPkEventHandlerActor: McsDemandMessage Received");
-                                publishMcsDemand(message);
-                                this.counterMcs++;
-                            }
+                            log.info("Inside JPkEventHandlerActor: McsDemandMessage Received");
+                            demandEvents.mcsDemand(nowNanos(), message.getAz(), message.getEl());
                             return Behaviors.same();
                         })
                 .onMessage(EncDemandMessage.class,
                         message -> {
-                          if(this.counterEnc<LIMIT)
-                          {
-                              publishEncDemand(message);
-                              log.info("Inside JPkEventHandlerActor: EncDemandMessage Received");
-                              this.counterEnc++;
-                          }
-
+                            log.info("Inside JPkEventHandlerActor: EncDemandMessage Received");
+                            demandEvents.encDemand(nowNanos(), message.getBase(), message.getCap());
                             return Behaviors.same();
                         })
                 .onMessage(M3DemandMessage.class,
                         message -> {
-                            if(this.counterM3<LIMIT)
-                            {
-                                log.info("Inside JPkEventHandlerActor: M3DemandMessage Received");
-                                publishM3Demand(message);
-                                this.counterM3++;
-                            }
-
-
+                            log.info("Inside JPkEventHandlerActor: M3DemandMessage Received");
+                            demandEvents.m3Demand(nowNanos(), message.getRotation(), message.getTilt());
+                            return Behaviors.same();
+                        })
+                .onMessage(DemandFrameMessage.class,
+                        message -> {
+                            demandEvents.frame(message);
                             return Behaviors.same();
                         });
         return builder.build();
     }
 
-    private void publishMcsDemand(McsDemandMessage message) {
+    private static long nowNanos() {
+        return DemandEvents.toNanos(Instant.now());
+    }
 
-        log.info("Inside JPkEventHandlerActor: Publishing Mcs Demand ");
-        Key<Double> azDoubleKey = JKeyType.DoubleKey().make("mcs.az");
-        Key<Double> elDoubleKey = JKeyType.DoubleKey().make("mcs.el");
-        Key<Instant>  publishTimeKey             = JKeyType.TimestampKey().make("timeStamp");
-        Event event = new SystemEvent(prefix, new EventName("mcsdemandpositions"))
-                .add(azDoubleKey.set(message.getAz()))
-                .add(elDoubleKey.set(message.getEl()))
-                .add(publishTimeKey.set(Instant.now()));
+    private void publish(Event event) {
+        log.info("Inside JPkEventHandlerActor: Publishing " + event.eventName().name());
         eventService.defaultPublisher().publish(event);
     }
 
-    private void publishEncDemand(EncDemandMessage message) {
+    // add messages here
+    public interface EventMessage {}
 
-        log.info("Inside JPkEventHandlerActor: Publishing Enc Demand ");
-        Key<Double> baseDoubleKey = JKeyType.DoubleKey().make("ecs.base");
-        Key<Double> capDoubleKey = JKeyType.DoubleKey().make("ecs.cap");
-        Key<Instant>  publishTimeKey             = JKeyType.TimestampKey().make("clientTimestampKey");
-        Event event = new SystemEvent(prefix, new EventName("encdemandpositions")).add(baseDoubleKey.set(message.getBase())).add(capDoubleKey.set(message.getCap())).add(publishTimeKey.set(Instant.now()));
+    /**
+     * Demands of all subsystems generated by one tick of the fast loop
+     */
+    public static final class DemandFrameMessage implements EventMessage {
+        private final long tick;
+        private final Instant timestamp;
+        private final double mcsAz;
+        private final double mcsEl;
+        private final double base;
+        private final double cap;
+        private final double rotation;
+        private final double tilt;
 
-        eventService.defaultPublisher().publish(event);
+        public DemandFrameMessage(long tick, Instant timestamp, double mcsAz, double mcsEl, double base, double cap,
+                                  double rotation, double tilt) {
+            this.tick = tick;
+            this.timestamp = timestamp;
+            this.mcsAz = mcsAz;
+            this.mcsEl = mcsEl;
+            this.base = base;
+            this.cap = cap;
+            this.rotation = rotation;
+            this.tilt = tilt;
+        }
 
-    }
+        public long getTick() {
+            return tick;
+        }
 
-    private void publishM3Demand(M3DemandMessage message) {
+        public Instant getTimestamp() {
+            return timestamp;
+        }
 
-        log.info("Inside JPkEventHandlerActor: Publishing M3 Demand ");
-        Key<Double> rotationDoubleKey = JKeyType.DoubleKey().make("m3.rotation");
-        Key<Double> tiltDoubleKey = JKeyType.DoubleKey().make("m3.tilt");
+        public double getMcsAz() {
+            return mcsAz;
+        }
 
-        Event event = new SystemEvent(prefix, new EventName("m3demandpositions")).add(rotationDoubleKey.set(message.getRotation())).add(tiltDoubleKey.set(message.getTilt()));;
-        eventService.defaultPublisher().publish(event);
-    }
+        public double getMcsEl() {
+            return mcsEl;
+        }
 
-    // add messages here
-    public interface EventMessage {}
+        public double getBase() {
+            return base;
+        }
+
+        public double getCap() {
+            return cap;
+        }
+
+        public double getRotation() {
+            return rotation;
+        }
+
+        public double getTilt() {
+            return tilt;
+        }
+    }
 
     public static final class McsDemandMessage implements EventMessage {
         private final double az;
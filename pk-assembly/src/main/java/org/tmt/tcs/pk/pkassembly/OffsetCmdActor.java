@@ -0,0 +1,111 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import akka.actor.typed.Behavior;
+
+import akka.actor.typed.javadsl.*;
+
+import csw.command.client.CommandResponseManager;
+import csw.logging.javadsl.ILogger;
+import csw.logging.javadsl.JLoggerFactory;
+import csw.params.commands.CommandResponse;
+import csw.params.commands.ControlCommand;
+import csw.params.commands.Result;
+import csw.params.core.generics.Key;
+import csw.params.javadsl.JKeyType;
+import org.tmt.tcs.icd.pk.PkOffset;
+import org.tmt.tcs.pk.wrapper.TpkWrapper;
+
+/**
+ * Applies a pointing offset to the current target from the next fast loop tick on.
+ *
+ * The command completes once the offset has been picked up by the fast loop, with the
+ * number of the first tick using it and the time from the command reaching the assembly
+ * to that tick.
+ */
+public class OffsetCmdActor extends AbstractBehavior<OffsetCmdActor.OffsetMessage> {
+
+    public static final Key<Long> EFFECTIVE_TICK_KEY = JKeyType.LongKey().make("effectiveTick");
+    public static final Key<Long> OFFSET_LATENCY_KEY = JKeyType.LongKey().make("offsetLatencyNanos");
+
+    /**
+     * The offset command, with the System.nanoTime() the assembly received it at
+     */
+    public static final class OffsetMessage {
+        public final ControlCommand controlCommand;
+        public final long receivedNanos;
+
+        public OffsetMessage(ControlCommand controlCommand, long receivedNanos) {
+            this.controlCommand = controlCommand;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
+    private ActorContext<OffsetMessage> actorContext;
+    private JLoggerFactory loggerFactory;
+    private ILogger log;
+    private CommandResponseManager commandResponseManager;
+
+    private TpkWrapper tpkWrapper;
+
+    private OffsetCmdActor(ActorContext<OffsetMessage> actorContext, CommandResponseManager commandResponseManager,
+                           JLoggerFactory loggerFactory, TpkWrapper tpkWrapper) {
+        this.actorContext = actorContext;
+        this.loggerFactory = loggerFactory;
+        this.log = loggerFactory.getLogger(actorContext, getClass());
+        this.commandResponseManager = commandResponseManager;
+        this.tpkWrapper = tpkWrapper;
+    }
+
+    public static <OffsetMessage> Behavior<OffsetMessage> behavior(CommandResponseManager commandResponseManager,
+                                                                   JLoggerFactory loggerFactory, TpkWrapper tpkWrapper) {
+        return Behaviors.setup(ctx -> {
+            return (AbstractBehavior<OffsetMessage>) new OffsetCmdActor((ActorContext<OffsetCmdActor.OffsetMessage>) ctx, commandResponseManager,
+                    loggerFactory, tpkWrapper);
+        });
+    }
+
+
+    @Override
+    public Receive<OffsetMessage> createReceive() {
+
+        ReceiveBuilder<OffsetMessage> builder = receiveBuilder()
+                .onMessage(OffsetMessage.class,
+                        message -> {
+                            log.info("Inside OffsetCmdActor: OffsetCmd Received");
+                            handleSubmitCommand(message);
+                            return Behaviors.stopped();
+                        });
+        return builder.build();
+    }
+
+    private void handleSubmitCommand(OffsetMessage message) {
+
+        ControlCommand command = message.controlCommand;
+        PkOffset.Reader offset = PkOffset.read(command);
+        if (!offset.hasRaOffset() || !offset.hasDecOffset()) {
+            log.error("Inside OffsetCmdActor: offset command without raOffset or decOffset");
+            commandResponseManager.addOrUpdateCommand(new CommandResponse.Error(command.runId(),
+                    "offset needs raOffset and decOffset"));
+            return;
+        }
+        double raOffset = offset.raOffset();
+        double decOffset = offset.decOffset();
+        log.info("Inside OffsetCmdActor: handleSubmitCommand: raOffset is: " + raOffset + ": decOffset is: " + decOffset);
+
+        // the offset completes on the fast loop thread, respond from the actor's dispatcher instead
+        tpkWrapper.offset(raOffset, decOffset, message.receivedNanos).whenCompleteAsync((applied, error) -> {
+            if (error != null) {
+                log.error("Inside OffsetCmdActor: offset failed: " + error.getMessage());
+                commandResponseManager.addOrUpdateCommand(new CommandResponse.Error(command.runId(), error.getMessage()));
+            } else {
+                log.info("Inside OffsetCmdActor: offset effective at tick " + applied.getTick()
+                        + ", command to offset demand latency in ns=" + applied.getLatencyNanos());
+                Result result = new Result("tcs.pk")
+                        .add(EFFECTIVE_TICK_KEY.set(applied.getTick()))
+                        .add(OFFSET_LATENCY_KEY.set(applied.getLatencyNanos()));
+                commandResponseManager.addOrUpdateCommand(new CommandResponse.CompletedWithResult(command.runId(), result));
+            }
+        }, actorContext.getExecutionContext());
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.tmt.tcs.pk.transform;
+
+/**
+ * Transforms enclosure azimuth/elevation demands into the base/cap rotations the PK
+ * assembly publishes for the calotte enclosure.
+ *
+ * This is the conversion the demand publisher has always done inline, moved here so that
+ * it can be tested and benchmarked, and it must keep producing the same base and cap
+ * values, bit for bit, as the ENC assembly and HCD are tuned to them.
+ *
+ * The cap tilt is deliberately used as published, not as geometry would have it: the
+ * tangent and cosine of the tilt are taken of 32.5 as radians, and the elevation, in
+ * radians, is offset by 90 - 32.5. Converting the tilt to radians would change every
+ * published base and cap value, so it is kept for compatibility until the ENC side
+ * moves with it. The constants are computed once, a conversion is one acos, one tan,
+ * one atan and one sin/cos pair.
+ */
+public final class EnclosureTransform {
+
+    /** Tilt of the TMT enclosure cap axis from the vertical, in degrees */
+    public static final double TMT_CAP_TILT = 32.5;
+
+    private static final double CI = TMT_CAP_TILT;
+    private static final double CIZ = 90 - CI;
+    private static final double TCI = Math.tan(CI);
+    private static final double CCI = Math.cos(CI);
+    private static final double PI2 = Math.PI * 2;
+
+    private EnclosureTransform() {
+    }
+
+    /**
+     * Converts an enclosure demand into base and cap rotations. Azimuth and elevation
+     * outside 0 to 2 pi are taken as 0.
+     *
+     * @param az     azimuth in radians
+     * @param el     elevation in radians
+     * @param result receives base and cap in degrees
+     */
+    public static void toBaseCap(double az, double el, double[] result) {
+        if ((el > PI2) || (el < 0))
+            el = 0;
+        if ((az > PI2) || (az < 0))
+            az = 0;
+
+        double cap = Math.acos(Math.tan(el - CIZ) / TCI);
+
+        double azShift;
+        if (el == PI2)
+            azShift = 0;
+        else
+            azShift = Math.atan(Math.sin(cap) / CCI * (1 - Math.cos(cap)));
+
+        double base;
+        if ((az + azShift) > PI2)
+            base = (az + azShift) - PI2;
+        else
+            base = az + azShift;
+
+        result[0] = 180 * base / Math.PI;
+        result[1] = 180 * cap / Math.PI;
+    }
+
+    /**
+     * Batch form of {@link #toBaseCap(double, double, double[])} converting length demands
+     * starting at offset of each array.
+     */
+    public static void toBaseCap(double[] az, double[] el, double[] base, double[] cap, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            double e = el[i];
+            double a = az[i];
+            if ((e > PI2) || (e < 0))
+                e = 0;
+            if ((a > PI2) || (a < 0))
+                a = 0;
+
+            double c = Math.acos(Math.tan(e - CIZ) / TCI);
+
+            double azShift;
+            if (e == PI2)
+                azShift = 0;
+            else
+                azShift = Math.atan(Math.sin(c) / CCI * (1 - Math.cos(c)));
+
+            double b;
+            if ((a + azShift) > PI2)
+                b = (a + azShift) - PI2;
+            else
+                b = a + azShift;
+
+            base[i] = 180 * b / Math.PI;
+            cap[i] = 180 * c / Math.PI;
+        }
+    }
+}
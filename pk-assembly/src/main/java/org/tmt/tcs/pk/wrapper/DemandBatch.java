@@ -0,0 +1,123 @@
+package org.tmt.tcs.pk.wrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed capacity batch of fast loop ticks held in a direct buffer, so that a pointing
+ * kernel can hand over many ticks of demands with a single call into Java.
+ *
+ * Each tick is one record of {@link #RECORD_BYTES} bytes in native byte order:
+ * <pre>
+ *   offset  0  long   tick time, System.nanoTime() clock
+ *   offset  8  double mcsAz
+ *   offset 16  double mcsEl
+ *   offset 24  double ecsAz
+ *   offset 32  double ecsEl
+ *   offset 40  double m3Rotation
+ *   offset 48  double m3Tilt
+ * </pre>
+ * The layout is fixed so a native producer can fill the buffer through its address
+ * and then set the number of records with {@link #setSize(int)}.
+ */
+public class DemandBatch {
+
+    public static final int RECORD_BYTES = 56;
+
+    private final int capacity;
+    private final ByteBuffer buffer;
+    private int size;
+
+    public DemandBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Appends one tick.
+     *
+     * @return true if the batch is full after adding the tick
+     */
+    public boolean add(long tickNanos, double mcsAz, double mcsEl, double ecsAz, double ecsEl,
+                       double m3Rotation, double m3Tilt) {
+        if (size == capacity) {
+            throw new IllegalStateException("demand batch is full");
+        }
+        int base = size * RECORD_BYTES;
+        buffer.putLong(base, tickNanos);
+        buffer.putDouble(base + 8, mcsAz);
+        buffer.putDouble(base + 16, mcsEl);
+        buffer.putDouble(base + 24, ecsAz);
+        buffer.putDouble(base + 32, ecsEl);
+        buffer.putDouble(base + 40, m3Rotation);
+        buffer.putDouble(base + 48, m3Tilt);
+        return ++size == capacity;
+    }
+
+    public long getTickNanos(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    public double getMcsAz(int index) {
+        return buffer.getDouble(offset(index) + 8);
+    }
+
+    public double getMcsEl(int index) {
+        return buffer.getDouble(offset(index) + 16);
+    }
+
+    public double getEcsAz(int index) {
+        return buffer.getDouble(offset(index) + 24);
+    }
+
+    public double getEcsEl(int index) {
+        return buffer.getDouble(offset(index) + 32);
+    }
+
+    public double getM3Rotation(int index) {
+        return buffer.getDouble(offset(index) + 40);
+    }
+
+    public double getM3Tilt(int index) {
+        return buffer.getDouble(offset(index) + 48);
+    }
+
+    /**
+     * @return the direct buffer holding the records
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of records written into the buffer by a native producer.
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("size must be between 0 and " + capacity + ", was " + size);
+        }
+        this.size = size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return index * RECORD_BYTES;
+    }
+}
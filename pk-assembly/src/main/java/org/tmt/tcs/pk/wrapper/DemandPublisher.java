@@ -0,0 +1,94 @@
+package org.tmt.tcs.pk.wrapper;
+
+import akka.actor.typed.ActorRef;
+import org.tmt.tcs.pk.pkassembly.JPkEventHandlerActor;
+import org.tmt.tcs.pk.transform.EnclosureTransform;
+
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dedicated consumer thread draining the {@link DemandRingBuffer} filled by the TPK fast loop.
+ *
+ * Everything that used to run inside the native callback, i.e. the conversion of the
+ * enclosure demands into base and cap coordinates and the creation and sending of the
+ * demand messages to the event handler actor, runs here instead so the fast loop only
+ * pays for copying the raw demand values. Each tick is sent as one demand frame carrying
+ * the tick sequence number and the time the fast loop generated it.
+ */
+public class DemandPublisher implements DemandRingBuffer.DemandHandler, Runnable {
+
+    // demands handed to the event handler in one pass before checking for shutdown
+    private static final int DRAIN_LIMIT = 64;
+    // empty polls spent spinning before the thread parks
+    private static final int SPIN_LIMIT = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final double[] baseCap = new double[2];
+
+    private final DemandRingBuffer ring;
+    private final ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor;
+    private final Thread thread;
+    private volatile boolean running;
+    // wall clock minus System.nanoTime(), to timestamp ticks with the time they were generated
+    private final long epochOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    public DemandPublisher(DemandRingBuffer ring, ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor) {
+        this.ring = ring;
+        this.eventHandlerActor = eventHandlerActor;
+        this.thread = new Thread(this, "tpk-demand-publisher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops the consumer thread once the demands buffered so far have been published.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running) {
+            if (ring.drain(this, DRAIN_LIMIT) > 0) {
+                idle = 0;
+            } else if (++idle > SPIN_LIMIT) {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        while (ring.drain(this, DRAIN_LIMIT) > 0) {
+            // publish what is left
+        }
+    }
+
+    @Override
+    public void onDemand(long sequence, long tickNanos, double mcsAz, double mcsEl, double ecsAz, double ecsEl,
+                         double m3Rotation, double m3Tilt) {
+
+        // Convert eAz, eEl into base & cap coordinates
+        EnclosureTransform.toBaseCap(ecsAz, ecsEl, baseCap);
+
+        eventHandlerActor.tell(new JPkEventHandlerActor.DemandFrameMessage(sequence, toInstant(tickNanos),
+                mcsAz, mcsEl, baseCap[0], baseCap[1], m3Rotation, m3Tilt));
+    }
+
+    /**
+     * Converts a {@link System#nanoTime()} tick time into wall clock time.
+     */
+    private Instant toInstant(long tickNanos) {
+        long epochNanos = epochOffsetNanos + tickNanos;
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    public DemandRingBuffer getRing() {
+        return ring;
+    }
+}
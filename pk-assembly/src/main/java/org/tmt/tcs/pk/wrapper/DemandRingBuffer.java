@@ -0,0 +1,246 @@
+package org.tmt.tcs.pk.wrapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer/single-consumer ring buffer carrying the demands
+ * generated by the TPK fast loop to the Java publishers.
+ *
+ * The producer is the native fast loop thread calling back into
+ * {@link TpkWrapper.DemandsCallback#newDemands}; it only copies the primitive demand
+ * values into the next free slot and returns, it never allocates, locks or blocks.
+ * When the ring is full the demand is dropped and counted as an overflow so that a
+ * slow consumer can never stall the fast loop.
+ *
+ * The consumer is a single dedicated thread draining the ring through
+ * {@link #drain(DemandHandler, int)}.
+ */
+public class DemandRingBuffer {
+
+    /**
+     * Receives the demands drained from the ring, called on the consumer thread.
+     */
+    public interface DemandHandler {
+
+        /**
+         * @param sequence  tick sequence number assigned by the ring, starting at 0
+         * @param tickNanos {@link System#nanoTime()} at which the demands were offered
+         */
+        void onDemand(long sequence, long tickNanos, double mcsAz, double mcsEl, double ecsAz, double ecsEl,
+                      double m3Rotation, double m3Tilt);
+    }
+
+    private static final int FIELDS = 6;
+
+    private final int capacity;
+    private final int mask;
+    private final double[] values;
+    private final long[] tickTimes;
+
+    // next sequence to be written, only advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // next sequence to be read, only advanced by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // producer's last view of head, avoids reading the consumer's counter on every offer
+    private long cachedHead;
+
+    private final AtomicLong overflows = new AtomicLong();
+    private volatile long maxOccupancy;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+
+    /**
+     * @param capacity number of demand ticks the ring can hold, rounded up to a power of two
+     */
+    public DemandRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30, was " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.values = new double[this.capacity * FIELDS];
+        this.tickTimes = new long[this.capacity];
+    }
+
+    /**
+     * Copies one tick of demands into the ring, timestamped now. Must only be called from
+     * the producer thread.
+     *
+     * @return false if the ring was full and the demands were dropped
+     */
+    public boolean offer(double mcsAz, double mcsEl, double ecsAz, double ecsEl, double m3Rotation, double m3Tilt) {
+        return offer(System.nanoTime(), mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt);
+    }
+
+    /**
+     * Copies one tick of demands generated at tickNanos into the ring. Must only be called
+     * from the producer thread.
+     *
+     * @return false if the ring was full and the demands were dropped
+     */
+    public boolean offer(long tickNanos, double mcsAz, double mcsEl, double ecsAz, double ecsEl, double m3Rotation,
+                         double m3Tilt) {
+        long sequence = tail.get();
+        if (!hasRoom(sequence, 1)) {
+            overflows.lazySet(overflows.get() + 1);
+            return false;
+        }
+        write(sequence, tickNanos, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt);
+        // ordered store publishes the slot contents before the new tail
+        tail.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Copies all ticks of a batch into the ring, making them visible to the consumer at
+     * once. Ticks not fitting into the ring are dropped and counted as overflows. Must only
+     * be called from the producer thread.
+     *
+     * @return the number of ticks copied
+     */
+    public int offer(DemandBatch batch) {
+        int count = batch.size();
+        long sequence = tail.get();
+        int accepted = count;
+        if (!hasRoom(sequence, count)) {
+            accepted = (int) Math.max(0, capacity - (sequence - cachedHead));
+            overflows.lazySet(overflows.get() + count - accepted);
+        }
+        for (int i = 0; i < accepted; i++) {
+            write(sequence + i, batch.getTickNanos(i), batch.getMcsAz(i), batch.getMcsEl(i), batch.getEcsAz(i),
+                    batch.getEcsEl(i), batch.getM3Rotation(i), batch.getM3Tilt(i));
+        }
+        if (accepted > 0) {
+            tail.lazySet(sequence + accepted);
+        }
+        return accepted;
+    }
+
+    private boolean hasRoom(long sequence, int count) {
+        if (sequence + count - cachedHead > capacity) {
+            cachedHead = head.get();
+            return sequence + count - cachedHead <= capacity;
+        }
+        return true;
+    }
+
+    private void write(long sequence, long tickNanos, double mcsAz, double mcsEl, double ecsAz, double ecsEl,
+                       double m3Rotation, double m3Tilt) {
+        int slot = (int) sequence & mask;
+        int base = slot * FIELDS;
+        values[base] = mcsAz;
+        values[base + 1] = mcsEl;
+        values[base + 2] = ecsAz;
+        values[base + 3] = ecsEl;
+        values[base + 4] = m3Rotation;
+        values[base + 5] = m3Tilt;
+        tickTimes[slot] = tickNanos;
+    }
+
+    /**
+     * Hands up to limit buffered demands to the handler, oldest first. Must only be
+     * called from the consumer thread.
+     *
+     * @return the number of demands drained
+     */
+    public int drain(DemandHandler handler, int limit) {
+        long sequence = head.get();
+        long available = tail.get() - sequence;
+        if (available <= 0) {
+            return 0;
+        }
+        if (available > maxOccupancy) {
+            maxOccupancy = available;
+        }
+        int count = (int) Math.min(available, limit);
+        for (int i = 0; i < count; i++, sequence++) {
+            int slot = (int) sequence & mask;
+            int base = slot * FIELDS;
+            long tick = tickTimes[slot];
+            double mcsAz = values[base];
+            double mcsEl = values[base + 1];
+            double ecsAz = values[base + 2];
+            double ecsEl = values[base + 3];
+            double m3Rotation = values[base + 4];
+            double m3Tilt = values[base + 5];
+            // release the slot before publishing so the producer can reuse it
+            head.lazySet(sequence + 1);
+
+            long lag = System.nanoTime() - tick;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            handler.onDemand(sequence, tick, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt);
+        }
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of demand ticks currently buffered
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return number of demand ticks accepted into the ring
+     */
+    public long getOffered() {
+        return tail.get();
+    }
+
+    /**
+     * @return number of demand ticks handed to the consumer
+     */
+    public long getConsumed() {
+        return head.get();
+    }
+
+    /**
+     * @return number of demand ticks dropped because the ring was full
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * @return largest number of ticks seen waiting in the ring by the consumer
+     */
+    public long getMaxOccupancy() {
+        return maxOccupancy;
+    }
+
+    /**
+     * @return time between offering and draining of the most recently drained tick
+     */
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    /**
+     * @return largest time between offering and draining of a tick
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DemandRingBuffer{capacity=" + capacity +
+                ", offered=" + getOffered() +
+                ", consumed=" + getConsumed() +
+                ", overflows=" + getOverflows() +
+                ", maxOccupancy=" + maxOccupancy +
+                ", lastLagNanos=" + lastLagNanos +
+                ", maxLagNanos=" + maxLagNanos + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package org.tmt.tcs.pk.wrapper;
+
+/**
+ * The pointing kernel as seen by {@link TpkWrapper}: it runs a fast loop generating
+ * mount, enclosure and M3 demands for the current target and hands every tick of
+ * demands to the registered listener.
+ *
+ * {@link NativePointingKernel} is the TPK C++ library reached through the SWIG bindings,
+ * {@link JavaPointingKernel} a pure Java stand-in needing no native library.
+ */
+public interface IPointingKernel {
+
+    /**
+     * Receives the demands of each fast loop tick, called on the fast loop thread.
+     * Mount demands are in degrees, enclosure demands in radians and M3 demands in degrees.
+     */
+    interface DemandsListener {
+        void newDemands(double mcsAz, double mcsEl, double ecsAz, double ecsEl, double m3Rotation, double m3Tilt);
+    }
+
+    /**
+     * Receives the demands of a batch of fast loop ticks, called on the fast loop thread.
+     */
+    interface DemandsBatchListener {
+        void newDemands(DemandBatch batch);
+    }
+
+    /**
+     * Told of the first fast loop tick computed with an offset, called on the fast loop
+     * thread before the demands of that tick are delivered.
+     */
+    interface OffsetListener {
+        void offsetApplied(long tickNanos);
+    }
+
+    /**
+     * Registers the listener of the demands, must be called before {@link #init()}.
+     */
+    void register(DemandsListener listener);
+
+    /**
+     * Registers a listener called once per full batch of ticks instead of once per tick,
+     * must be called before {@link #init()}. The kernel fills the batch and clears it once
+     * the listener returns.
+     *
+     * @throws UnsupportedOperationException if the kernel cannot deliver batches, as the
+     *                                       native kernel, which calls back per tick only
+     */
+    default void registerBatch(DemandBatch batch, DemandsBatchListener listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not deliver demand batches");
+    }
+
+    /**
+     * Makes the kernel write every tick straight into the ring, without calling into Java
+     * code, for the consumer of the ring to poll. May be called while the fast loop runs,
+     * ticks are written from the next tick on.
+     *
+     * @throws UnsupportedOperationException if the kernel cannot be polled, as the native kernel
+     */
+    default void registerRing(DemandRingBuffer ring) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be polled");
+    }
+
+    /**
+     * Starts the fast loop.
+     */
+    void init();
+
+    /**
+     * New target from Ra, Dec in degrees. Target applies to Mount and Enclosure.
+     */
+    void newTarget(double ra, double dec);
+
+    /**
+     * Offsets the current target by raO, decO.
+     */
+    void offset(double raO, double decO);
+
+    /**
+     * Offsets the current target by raO, decO from the next fast loop tick on and tells
+     * the listener which tick that was. An offset replaced by another one before any tick
+     * used it is reported with the tick of the one replacing it.
+     *
+     * @throws IllegalStateException if there is no target to offset
+     */
+    void offset(double raO, double decO, OffsetListener listener);
+
+    /**
+     * Stops the fast loop and releases the kernel.
+     */
+    void close();
+}
@@ -0,0 +1,306 @@
+package org.tmt.tcs.pk.wrapper;
+
+import com.typesafe.config.Config;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pure Java stand-in for the TPK pointing kernel, letting the PK assembly generate
+ * realistic demand streams where the native library is not available.
+ *
+ * A dedicated fast loop thread ticks at a fixed rate between 20 Hz and 1 kHz and, for
+ * each tick, converts the current target from RA/Dec into Az/El for the configured site
+ * by sidereal tracking. The mount and the enclosure are both demanded to the target
+ * Az/El, M3 is held at the configured instrument port. Precession, nutation, aberration
+ * and refraction are ignored.
+ *
+ * Until the first target is set the kernel tracks the zenith, as the native kernel
+ * generates default demands before a target is received.
+ *
+ * Demands are delivered per tick to a listener, per full batch to a batch listener or,
+ * without any call into a listener, written into a ring polled by its consumer.
+ */
+public class JavaPointingKernel implements IPointingKernel {
+
+    public static final double MIN_RATE_HZ = 20;
+    public static final double MAX_RATE_HZ = 1000;
+
+    private static final double D2R = Math.PI / 180;
+    private static final double R2D = 180 / Math.PI;
+    private static final double AS2R = D2R / 3600;
+    private static final double PI2 = Math.PI * 2;
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+    private static final double JD_UNIX_EPOCH = 2440587.5;
+    private static final double JD_J2000 = 2451545.0;
+
+    private final double rateHz;
+    private final double longitude;
+    private final double latitude;
+    private final double m3Rotation;
+    private final double m3Tilt;
+    private final long periodNanos;
+
+    private volatile DemandsListener listener;
+    private volatile DemandBatch batch;
+    private volatile DemandsBatchListener batchListener;
+    private volatile DemandRingBuffer ring;
+    private volatile Target target;
+    private volatile boolean running;
+    private Thread fastLoop;
+    // target used by the previous tick, written by the fast loop only
+    private volatile Target appliedTarget;
+
+    // wall clock minus System.nanoTime(), so tick times have sub-millisecond resolution
+    private final long epochOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    private final double[] azEl = new double[2];
+
+    /**
+     * Immutable target, replaced as a whole so the fast loop never sees a half updated one
+     */
+    private static final class Target {
+        final double ra;
+        final double dec;
+        final double raOffset;
+        final double decOffset;
+        // told of the first tick using this target, if any
+        final OffsetListener offsetListener;
+
+        Target(double ra, double dec, double raOffset, double decOffset, OffsetListener offsetListener) {
+            this.ra = ra;
+            this.dec = dec;
+            this.raOffset = raOffset;
+            this.decOffset = decOffset;
+            this.offsetListener = offsetListener;
+        }
+    }
+
+    /**
+     * @param rateHz     fast loop rate, between {@link #MIN_RATE_HZ} and {@link #MAX_RATE_HZ}
+     * @param longitude  site longitude in degrees, east positive
+     * @param latitude   site latitude in degrees
+     * @param m3Rotation M3 rotation demand in degrees
+     * @param m3Tilt     M3 tilt demand in degrees
+     */
+    public JavaPointingKernel(double rateHz, double longitude, double latitude, double m3Rotation, double m3Tilt) {
+        if (rateHz < MIN_RATE_HZ || rateHz > MAX_RATE_HZ) {
+            throw new IllegalArgumentException("rate must be between " + MIN_RATE_HZ + " and " + MAX_RATE_HZ + " Hz, was " + rateHz);
+        }
+        this.rateHz = rateHz;
+        this.longitude = longitude * D2R;
+        this.latitude = latitude * D2R;
+        this.m3Rotation = m3Rotation;
+        this.m3Tilt = m3Tilt;
+        this.periodNanos = Math.round(1e9 / rateHz);
+    }
+
+    /**
+     * Creates the kernel from a tcs.pk.java-kernel configuration block.
+     */
+    public static JavaPointingKernel fromConfig(Config config) {
+        return new JavaPointingKernel(config.getDouble("rate"),
+                config.getDouble("site.longitude"),
+                config.getDouble("site.latitude"),
+                config.getDouble("m3.rotation"),
+                config.getDouble("m3.tilt"));
+    }
+
+    @Override
+    public void register(DemandsListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void registerBatch(DemandBatch batch, DemandsBatchListener listener) {
+        this.batch = batch;
+        this.batchListener = listener;
+    }
+
+    @Override
+    public void registerRing(DemandRingBuffer ring) {
+        this.ring = ring;
+    }
+
+    @Override
+    public synchronized void init() {
+        if (fastLoop != null) {
+            return;
+        }
+        running = true;
+        fastLoop = new Thread(this::runFastLoop, "java-tpk-fast-loop");
+        fastLoop.setDaemon(true);
+        fastLoop.setPriority(Thread.MAX_PRIORITY);
+        fastLoop.start();
+    }
+
+    @Override
+    public void newTarget(double ra, double dec) {
+        target = new Target(ra * D2R, dec * D2R, 0, 0, unreportedListener(target));
+    }
+
+    /**
+     * @param raO  offset in RA in arcseconds on the sky
+     * @param decO offset in Dec in arcseconds
+     */
+    @Override
+    public void offset(double raO, double decO) {
+        Target current = target;
+        if (current != null) {
+            target = new Target(current.ra, current.dec, raO * AS2R, decO * AS2R, unreportedListener(current));
+        }
+    }
+
+    /**
+     * The offset is picked up by the next tick as a whole, together with the listener,
+     * which that tick calls before delivering its demands.
+     *
+     * @param raO  offset in RA in arcseconds on the sky
+     * @param decO offset in Dec in arcseconds
+     */
+    @Override
+    public void offset(double raO, double decO, OffsetListener listener) {
+        Target current = target;
+        if (current == null) {
+            throw new IllegalStateException("no target to offset");
+        }
+        OffsetListener offsetListener = listener;
+        OffsetListener replaced = unreportedListener(current);
+        if (replaced != null) {
+            offsetListener = tickNanos -> {
+                replaced.offsetApplied(tickNanos);
+                listener.offsetApplied(tickNanos);
+            };
+        }
+        target = new Target(current.ra, current.dec, raO * AS2R, decO * AS2R, offsetListener);
+    }
+
+    /*
+     * Listener of an offset no tick used yet, to be reported with the target replacing it.
+     * Should a tick pick up the offset meanwhile, its listener is told twice and the first
+     * call counts.
+     */
+    private OffsetListener unreportedListener(Target current) {
+        return current != null && current != appliedTarget ? current.offsetListener : null;
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = fastLoop;
+            fastLoop = null;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public double getRateHz() {
+        return rateHz;
+    }
+
+    private void runFastLoop() {
+        long next = System.nanoTime();
+        while (running) {
+            tick(next);
+            next += periodNanos;
+            long now = System.nanoTime();
+            if (next - now > 0) {
+                LockSupport.parkNanos(next - now);
+                // finish short remaining waits spinning, park is not precise to a few tens of microseconds
+                while (running && System.nanoTime() - next < 0) {
+                    Thread.yield();
+                }
+            } else if (now - next > periodNanos) {
+                // fell more than a tick behind, skip the missed ticks instead of bursting
+                next = now;
+            }
+        }
+    }
+
+    private void tick(long tickNanos) {
+        DemandsListener demandsListener = listener;
+        DemandsBatchListener demandsBatchListener = batchListener;
+        DemandRingBuffer demandRing = ring;
+        if (demandsListener == null && demandsBatchListener == null && demandRing == null) {
+            return;
+        }
+        double lst = localSiderealTime((epochOffsetNanos + tickNanos) / 1e6, longitude);
+        Target current = target;
+        double ra;
+        double dec;
+        if (current == null) {
+            ra = lst;
+            dec = latitude;
+        } else {
+            dec = current.dec + current.decOffset;
+            ra = current.ra + current.raOffset / Math.cos(dec);
+        }
+        equatorialToHorizontal(lst - ra, dec, latitude, azEl);
+        double az = azEl[0];
+        double el = azEl[1];
+        if (current != appliedTarget) {
+            appliedTarget = current;
+            if (current.offsetListener != null) {
+                current.offsetListener.offsetApplied(tickNanos);
+            }
+        }
+        if (demandRing != null) {
+            demandRing.offer(tickNanos, az * R2D, el * R2D, az, el, m3Rotation, m3Tilt);
+        } else if (demandsBatchListener != null) {
+            DemandBatch demandBatch = batch;
+            if (demandBatch.add(tickNanos, az * R2D, el * R2D, az, el, m3Rotation, m3Tilt)) {
+                demandsBatchListener.newDemands(demandBatch);
+                demandBatch.clear();
+            }
+        } else {
+            demandsListener.newDemands(az * R2D, el * R2D, az, el, m3Rotation, m3Tilt);
+        }
+    }
+
+    /**
+     * Local apparent sidereal time approximated by the mean sidereal time.
+     *
+     * @param epochMillis time in milliseconds since 1970-01-01T00:00:00Z
+     * @param longitude   site longitude in radians, east positive
+     * @return local sidereal time in radians, between 0 and 2 pi
+     */
+    static double localSiderealTime(double epochMillis, double longitude) {
+        double d = epochMillis / MILLIS_PER_DAY + JD_UNIX_EPOCH - JD_J2000;
+        double t = d / 36525;
+        double gmstDeg = 280.46061837 + 360.98564736629 * d + 0.000387933 * t * t;
+        return normalize(gmstDeg * D2R + longitude);
+    }
+
+    /**
+     * Converts hour angle and declination into azimuth, from north through east, and elevation.
+     *
+     * @param ha       hour angle in radians
+     * @param dec      declination in radians
+     * @param latitude site latitude in radians
+     * @param azEl     receives azimuth, between 0 and 2 pi, and elevation in radians
+     */
+    static void equatorialToHorizontal(double ha, double dec, double latitude, double[] azEl) {
+        double sinDec = Math.sin(dec);
+        double cosDec = Math.cos(dec);
+        double sinLat = Math.sin(latitude);
+        double cosLat = Math.cos(latitude);
+        double cosHa = Math.cos(ha);
+
+        double sinEl = sinDec * sinLat + cosDec * cosLat * cosHa;
+        double y = -cosDec * Math.sin(ha);
+        double x = sinDec * cosLat - cosDec * sinLat * cosHa;
+        azEl[0] = normalize(Math.atan2(y, x));
+        azEl[1] = Math.asin(Math.max(-1, Math.min(1, sinEl)));
+    }
+
+    private static double normalize(double angle) {
+        double a = angle % PI2;
+        return a < 0 ? a + PI2 : a;
+    }
+}
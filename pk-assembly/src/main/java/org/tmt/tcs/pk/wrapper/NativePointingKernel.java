@@ -0,0 +1,134 @@
+package org.tmt.tcs.pk.wrapper;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The TPK C++ pointing kernel, driven through the SWIG generated {@link TpkPoc} and
+ * called back through an {@link IDemandsCB} director.
+ *
+ * The kernel holds strong references to the endpoint and the director for as long as it
+ * is open, the director is only weakly referenced from C++, and deletes both in
+ * {@link #close()} rather than leaving them to the SWIG finalizers.
+ *
+ * Offsets are handed to the C++ endpoint from the calling thread, never from within the
+ * callback, as TPK gives no guarantee that the endpoint may be re-entered from its own
+ * fast loop. As the tick being computed while the offset is handed over may or may not
+ * use it, an offset with a listener is reported with the second tick called back after
+ * it was handed over, the first one certain to be computed with it.
+ */
+public class NativePointingKernel implements IPointingKernel {
+
+    static{
+        System.loadLibrary("example");
+    }
+
+    private TpkPoc tpkEndpoint;
+    private Director director;
+
+    /**
+     * Offset handed to the endpoint, waiting for the tick to report it with
+     */
+    private static final class AppliedOffset {
+        // number of the callback certain to deliver demands computed with the offset
+        final long reportAt;
+        final OffsetListener listener;
+
+        AppliedOffset(long reportAt, OffsetListener listener) {
+            this.reportAt = reportAt;
+            this.listener = listener;
+        }
+
+        /**
+         * @return this offset, with the listener of the replaced one told as well
+         */
+        AppliedOffset replacing(AppliedOffset replaced) {
+            return new AppliedOffset(reportAt, tickNanos -> {
+                replaced.listener.offsetApplied(tickNanos);
+                listener.offsetApplied(tickNanos);
+            });
+        }
+    }
+
+    /**
+     * Director called from the C++ fast loop, forwards the demands to the listener
+     */
+    private static class Director extends IDemandsCB {
+        private final DemandsListener listener;
+        private final AtomicReference<AppliedOffset> appliedOffset = new AtomicReference<>();
+        // callbacks started so far, only written by the fast loop
+        private volatile long callbacks;
+
+        Director(DemandsListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void newDemands(double mAz, double mEl, double eAz, double eEl, double m3R, double m3T) {
+            long callback = ++callbacks;
+            AppliedOffset offset = appliedOffset.get();
+            // a failed exchange means a later offset took over its listener
+            if (offset != null && callback >= offset.reportAt && appliedOffset.compareAndSet(offset, null)) {
+                offset.listener.offsetApplied(System.nanoTime());
+            }
+            listener.newDemands(mAz, mEl, eAz, eEl, m3R, m3T);
+        }
+    }
+
+    @Override
+    public void register(DemandsListener listener) {
+        director = new Director(listener);
+        tpkEndpoint = new TpkPoc();
+        tpkEndpoint._register(director);
+    }
+
+    /**
+     * Runs the C++ fast loop, which may not return, so call it from a thread of its own.
+     */
+    @Override
+    public void init() {
+        tpkEndpoint.init();
+    }
+
+    @Override
+    public void newTarget(double ra, double dec) {
+        tpkEndpoint.newTarget(ra, dec);
+    }
+
+    @Override
+    public void offset(double raO, double decO) {
+        tpkEndpoint.offset(raO, decO);
+    }
+
+    /**
+     * Hands the offset to the endpoint on the calling thread and has the listener told of
+     * the first tick certain to be computed with it. The next callback to start may deliver
+     * demands computed while the offset was handed over, so the offset is reported with the
+     * callback after it. A later offset handed over before an earlier one was reported is
+     * reported together with it.
+     */
+    @Override
+    public synchronized void offset(double raO, double decO, OffsetListener listener) {
+        if (director == null) {
+            throw new IllegalStateException("pointing kernel is not registered");
+        }
+        tpkEndpoint.offset(raO, decO);
+        AppliedOffset offset = new AppliedOffset(director.callbacks + 2, listener);
+        director.appliedOffset.accumulateAndGet(offset,
+                (replaced, next) -> replaced == null ? next : next.replacing(replaced));
+    }
+
+    /**
+     * Deletes the C++ endpoint and then the director it called back into.
+     */
+    @Override
+    public synchronized void close() {
+        if (tpkEndpoint != null) {
+            tpkEndpoint.delete();
+            tpkEndpoint = null;
+        }
+        if (director != null) {
+            director.delete();
+            director = null;
+        }
+    }
+}
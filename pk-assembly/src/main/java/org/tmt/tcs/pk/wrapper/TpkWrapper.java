@@ -1,92 +1,130 @@
 package org.tmt.tcs.pk.wrapper;
 
-import akka.actor.ActorRef;
 import org.tmt.tcs.pk.pkassembly.JPkEventHandlerActor;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This is a wrapper class for TPK and will act as an endpoint. It helps in
  * calling TPK New Target and Offset methods so that specific demands can be
- * generated by TPK System
+ * generated by TPK System. The pointing kernel is either the native TPK or
+ * its pure Java stand-in.
  *
  */
 public class TpkWrapper {
 
-    private TpkPoc tpkEndpoint;
+    private final IPointingKernel tpkEndpoint;
 
-    private boolean publishDemands = false;
-    private akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor;
-    public TpkWrapper(akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor){
-        this.eventHandlerActor = eventHandlerActor;
-    }
+    // number of fast loop ticks the publisher may fall behind before demands are dropped
+    public static final int DEMAND_RING_CAPACITY = 1024;
 
-    static{
-        System.loadLibrary("example");
+    /**
+     * How the pointing kernel hands its demands over to the wrapper
+     */
+    public enum DemandDelivery {
+        // one call per fast loop tick
+        TICK,
+        // one call per batch of ticks
+        BATCH,
+        // no calls, the kernel writes into the demand ring polled by the publisher
+        POLL
     }
 
+    private final DemandDelivery demandDelivery;
+    private final int batchSize;
+
+    private volatile boolean publishDemands = false;
+    private akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor;
+    private final DemandRingBuffer demandRing = new DemandRingBuffer(DEMAND_RING_CAPACITY);
+    private final DemandPublisher demandPublisher;
+    private DemandBatch demandBatch;
+
     /**
-     * Callback which is register with the C++ code and call from the fast
-     * loop
-     *
+     * Fast loop tick from which an offset applies
      */
-    public class DemandsCallback extends IDemandsCB {
+    public static final class AppliedOffset {
+        private final long tick;
+        private final long tickNanos;
+        private final long latencyNanos;
 
-        double ci = 32.5;
-        double ciz = 90 - ci;
-        double phir = Math.PI * ci / 180;
-        double tci = Math.tan(ci);
-        double cci = Math.cos(ci);
-        double PI2 = Math.PI * 2;
+        AppliedOffset(long tick, long tickNanos, long latencyNanos) {
+            this.tick = tick;
+            this.tickNanos = tickNanos;
+            this.latencyNanos = latencyNanos;
+        }
 
-        public void newDemands(double mcsAz, double mcsEl, double ecsAz, double ecsEl, double m3Rotation,
-                               double m3Tilt) {
+        /**
+         * @return the tick number, as carried by the demand frame of the tick
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * @return the time of the tick, System.nanoTime() clock
+         */
+        public long getTickNanos() {
+            return tickNanos;
+        }
 
-            // Convert eAz, eEl into base & cap coordinates
-            double azShift, base1, cap1, base2, cap2;
-            if ((ecsEl > PI2) || (ecsEl < 0))
-                ecsEl = 0;
-            if ((ecsAz > PI2) || (ecsAz < 0))
-                ecsAz = 0;
+        /**
+         * @return the time from the offset request to the tick
+         */
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+    }
 
-            cap1 = Math.acos(Math.tan(ecsEl - ciz) / tci);
-            cap2 = PI2 - cap1;
+    public TpkWrapper(akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor){
+        this(eventHandlerActor, new NativePointingKernel());
+    }
 
-            if (ecsEl == PI2)
-                azShift = 0;
-            else
-                azShift = Math.atan(Math.sin(cap1) / cci * (1 - Math.cos(cap1)));
+    public TpkWrapper(akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor, IPointingKernel pointingKernel){
+        this(eventHandlerActor, pointingKernel, DemandDelivery.TICK, 1);
+    }
 
-            if ((ecsAz + azShift) > PI2)
-                base1 = (ecsAz + azShift) - PI2;
-            else
-                base1 = ecsAz + azShift;
+    /**
+     * @param batchSize number of ticks per batch with {@link DemandDelivery#BATCH}
+     */
+    public TpkWrapper(akka.actor.typed.ActorRef<JPkEventHandlerActor.EventMessage> eventHandlerActor, IPointingKernel pointingKernel,
+                      DemandDelivery demandDelivery, int batchSize){
+        this.eventHandlerActor = eventHandlerActor;
+        this.tpkEndpoint = pointingKernel;
+        this.demandDelivery = demandDelivery;
+        this.batchSize = batchSize;
+        this.demandPublisher = new DemandPublisher(demandRing, eventHandlerActor);
+    }
 
-            if (ecsAz < azShift)
-                base2 = PI2 + ecsAz - azShift;
-            else
-                base2 = ecsAz - azShift;
+    /**
+     * Callback which is register with the pointing kernel and call from the fast
+     * loop. It only copies the demands into the ring buffer, conversion and
+     * publishing happen on the {@link DemandPublisher} thread.
+     *
+     */
+    public class DemandsCallback implements IPointingKernel.DemandsListener {
 
-            base1 = 180 * base1 / Math.PI;
-            cap1 = 180 * cap1 / Math.PI;
+        public void newDemands(double mcsAz, double mcsEl, double ecsAz, double ecsEl, double m3Rotation,
+                               double m3Tilt) {
 
             // Below condition will help in preventing TPK Default Demands
             // from getting published and Demand Publishing will start only
             // once New target or Offset Command is being received
             if (publishDemands) {
-                // System.out.printf("%.2f, %.2f, %.2f, %.2f, %.2f, %.2f\n",
-                // mAz, mEl, base1, cap1, m3R, m3T);
-
-                //System.out.println("Inside TpkWrapper: mcsAz is: " + mcsAz + ": mcsEl is: " + mcsEl);
-                publishMcsDemand(mcsAz, mcsEl);
-
-                //System.out.println("Inside TpkWrapper: base is: " + base1 + ": cap is: " + cap1);
-                publishEcsDemand(base1, cap1);
-
-                //System.out.println("Inside TpkWrapper: rotation is: " + m3Rotation + ": tilt is: " + m3Tilt);
-                publishM3Demand(m3Rotation, m3Tilt);
+                demandRing.offer(mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt);
+            }
+        }
+    }
 
+    /**
+     * Callback called from the fast loop once per batch of demands, copies the
+     * whole batch into the ring buffer with a single update of the ring.
+     */
+    public class DemandsBatchCallback implements IPointingKernel.DemandsBatchListener {
 
+        public void newDemands(DemandBatch batch) {
+            if (publishDemands) {
+                demandRing.offer(batch);
             }
         }
     }
@@ -97,13 +135,39 @@ public class TpkWrapper {
      */
     public void initiate() {
         //System.out.println("Inside TpkWrapper: initiate");
-        DemandsCallback cb = new DemandsCallback();
-        tpkEndpoint = new TpkPoc();
-        tpkEndpoint._register(cb);
+        demandPublisher.start();
+        switch (demandDelivery) {
+            case BATCH:
+                demandBatch = new DemandBatch(batchSize);
+                tpkEndpoint.registerBatch(demandBatch, new DemandsBatchCallback());
+                break;
+            case POLL:
+                // the ring is handed to the kernel with the first target, see newTarget()
+                break;
+            default:
+                DemandsCallback cb = new DemandsCallback();
+                tpkEndpoint.register(cb);
+        }
 
         tpkEndpoint.init();
     }
 
+    /**
+     * Stops the pointing kernel, then the publisher once it has published the demands
+     * already generated.
+     */
+    public void close() throws InterruptedException {
+        tpkEndpoint.close();
+        demandPublisher.stop();
+    }
+
+    /**
+     * @return the ring buffer between the fast loop and the publisher, for its overflow and lag counters
+     */
+    public DemandRingBuffer getDemandRing() {
+        return demandRing;
+    }
+
     /**
      * New target from Ra, Dec in degrees. Target applies to Mount and
      * Enclosure
@@ -112,11 +176,45 @@ public class TpkWrapper {
      * @param dec
      */
     public void newTarget(double ra, double dec) {
+        if (!publishDemands && demandDelivery == DemandDelivery.POLL) {
+            tpkEndpoint.registerRing(demandRing);
+        }
         publishDemands = true;
         //System.out.println("Inside TpkWrapper: newTarget");
         tpkEndpoint.newTarget(ra, dec);
     }
 
+    /**
+     * Offsets the current target by raO, decO, from the next fast loop tick on rather
+     * than as a new target.
+     *
+     * @param requestNanos System.nanoTime() the offset was requested at, for its latency
+     * @return completes with the tick from which the offset applies
+     */
+    public CompletableFuture<AppliedOffset> offset(double raO, double decO, long requestNanos) {
+        CompletableFuture<AppliedOffset> applied = new CompletableFuture<>();
+        if (!publishDemands) {
+            applied.completeExceptionally(new IllegalStateException("no target to offset"));
+            return applied;
+        }
+        try {
+            tpkEndpoint.offset(raO, decO, tickNanos ->
+                    applied.complete(new AppliedOffset(nextTick(), tickNanos, tickNanos - requestNanos)));
+        } catch (RuntimeException e) {
+            applied.completeExceptionally(e);
+        }
+        return applied;
+    }
+
+    /*
+     * Number of the tick about to be delivered, called on the fast loop thread before
+     * the demands of the tick are handed over.
+     */
+    private long nextTick() {
+        long offered = demandRing.getOffered();
+        return demandDelivery == DemandDelivery.BATCH ? offered + demandBatch.size() : offered;
+    }
+
     /**
      * This helps in publishing MCS specific Az and El being generated by TPK as
      * Demand
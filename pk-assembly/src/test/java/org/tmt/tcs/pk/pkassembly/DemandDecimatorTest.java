@@ -0,0 +1,94 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DemandDecimatorTest {
+
+    private static final long TICK_NANOS = 10_000_000L;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void passThroughPublishesEveryTick() {
+        DemandDecimator decimator = DemandDecimator.passThrough();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(decimator.accept(i * TICK_NANOS, i, -i));
+            assertEquals(i, decimator.getFirst(), EPSILON);
+            assertEquals(-i, decimator.getSecond(), EPSILON);
+            assertEquals(i, decimator.getSequence());
+        }
+    }
+
+    @Test
+    public void decimatePublishesEveryNthTick() {
+        DemandDecimator decimator = DemandDecimator.decimate(5);
+        int published = 0;
+        for (int i = 0; i < 20; i++) {
+            if (decimator.accept(i * TICK_NANOS, i, 0)) {
+                assertEquals(0, i % 5);
+                assertEquals(i, decimator.getFirst(), EPSILON);
+                assertEquals(i * TICK_NANOS, decimator.getSampleNanos());
+                assertEquals(published, decimator.getSequence());
+                published++;
+            }
+        }
+        assertEquals(4, published);
+    }
+
+    @Test
+    public void averagePublishesMeanOfEachPeriod() {
+        // 100 Hz ticks averaged to 20 Hz, five ticks per period
+        DemandDecimator decimator = DemandDecimator.average(20);
+        long sequence = 0;
+        for (int i = 0; i < 5; i++) {
+            assertFalse(decimator.accept(i * TICK_NANOS, i, 10 + i));
+        }
+        for (int period = 1; period < 4; period++) {
+            int first = period * 5;
+            assertTrue(decimator.accept(first * TICK_NANOS, first, 10 + first));
+            // mean of the five ticks before, sampled at the last of them
+            assertEquals(first - 3, decimator.getFirst(), EPSILON);
+            assertEquals(10 + first - 3, decimator.getSecond(), EPSILON);
+            assertEquals((first - 1) * TICK_NANOS, decimator.getSampleNanos());
+            assertEquals(sequence++, decimator.getSequence());
+            for (int i = first + 1; i < first + 5; i++) {
+                assertFalse(decimator.accept(i * TICK_NANOS, i, 10 + i));
+            }
+        }
+    }
+
+    @Test
+    public void averageAcrossAzimuthWrap() {
+        DemandDecimator decimator = DemandDecimator.average(50);
+        decimator.accept(0, 359, 0);
+        decimator.accept(TICK_NANOS, 1, 0);
+        assertTrue(decimator.accept(2 * TICK_NANOS, 3, 0));
+        assertEquals(360, decimator.getFirst(), EPSILON);
+    }
+
+    @Test
+    public void averageRestartsAfterGap() {
+        DemandDecimator decimator = DemandDecimator.average(50);
+        decimator.accept(0, 1, 0);
+        assertTrue(decimator.accept(100 * TICK_NANOS, 2, 0));
+        assertEquals(1, decimator.getFirst(), EPSILON);
+        // the next period starts at the tick after the gap rather than catching up
+        assertFalse(decimator.accept(101 * TICK_NANOS, 3, 0));
+        assertTrue(decimator.accept(102 * TICK_NANOS, 4, 0));
+        assertEquals(2.5, decimator.getFirst(), EPSILON);
+        assertEquals(1, decimator.getSequence());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroFactor() {
+        DemandDecimator.decimate(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroRate() {
+        DemandDecimator.average(0);
+    }
+}
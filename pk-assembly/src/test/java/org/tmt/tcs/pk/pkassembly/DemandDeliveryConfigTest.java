@@ -0,0 +1,43 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Test;
+import org.tmt.tcs.pk.wrapper.TpkWrapper;
+
+import static org.junit.Assert.assertEquals;
+
+public class DemandDeliveryConfigTest {
+
+    private static Config config(String kernel, String demandDelivery) {
+        return ConfigFactory.parseString("tcs.pk.kernel = " + kernel + "\ntcs.pk.demand-delivery = " + demandDelivery);
+    }
+
+    @Test
+    public void javaKernelDeliversEveryWay() {
+        assertEquals(TpkWrapper.DemandDelivery.TICK, JPkCommandHandlerActor.demandDelivery(config("java", "tick")));
+        assertEquals(TpkWrapper.DemandDelivery.BATCH, JPkCommandHandlerActor.demandDelivery(config("java", "batch")));
+        assertEquals(TpkWrapper.DemandDelivery.POLL, JPkCommandHandlerActor.demandDelivery(config("java", "poll")));
+    }
+
+    @Test
+    public void nativeKernelDeliversPerTick() {
+        assertEquals(TpkWrapper.DemandDelivery.TICK, JPkCommandHandlerActor.demandDelivery(config("native", "tick")));
+    }
+
+    @Test(expected = ConfigException.BadValue.class)
+    public void nativeKernelRejectsBatch() {
+        JPkCommandHandlerActor.demandDelivery(config("native", "batch"));
+    }
+
+    @Test(expected = ConfigException.BadValue.class)
+    public void nativeKernelRejectsPoll() {
+        JPkCommandHandlerActor.demandDelivery(config("native", "poll"));
+    }
+
+    @Test(expected = ConfigException.BadValue.class)
+    public void unknownDeliveryIsRejected() {
+        JPkCommandHandlerActor.demandDelivery(config("java", "stream"));
+    }
+}
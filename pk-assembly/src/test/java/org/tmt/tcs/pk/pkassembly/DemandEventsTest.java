@@ -0,0 +1,103 @@
+package org.tmt.tcs.pk.pkassembly;
+
+import csw.params.events.Event;
+import org.junit.Test;
+import org.tmt.tcs.icd.pk.PkDemandFrame;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
+import org.tmt.tcs.icd.pk.PkM3DemandPositions;
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DemandEventsTest {
+
+    private static final double EPSILON = 1e-12;
+
+    private final List<Event> published = new ArrayList<>();
+
+    private DemandEvents demandEvents(JPkEventHandlerActor.DemandEventMode mode) {
+        return new DemandEvents(mode, DemandDecimator.passThrough(), DemandDecimator.passThrough(),
+                DemandDecimator.passThrough(), published::add);
+    }
+
+    private static JPkEventHandlerActor.DemandFrameMessage tick(long tick) {
+        return new JPkEventHandlerActor.DemandFrameMessage(tick, Instant.ofEpochSecond(1_000_000, tick * 10_000_000L),
+                120.5 + tick, 45.25 - tick, 121.0 + tick, 44.75 - tick, 0.5, 1.5);
+    }
+
+    private List<Event> named(String name) {
+        List<Event> events = new ArrayList<>();
+        for (Event event : published) {
+            if (event.eventName().name().equals(name)) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void separateModePublishesNoFrame() {
+        DemandEvents demandEvents = demandEvents(JPkEventHandlerActor.DemandEventMode.SEPARATE);
+        demandEvents.frame(tick(0));
+        assertEquals(3, published.size());
+        assertTrue(named(PkDemandFrame.NAME).isEmpty());
+    }
+
+    @Test
+    public void frameModePublishesOnlyTheFrame() {
+        DemandEvents demandEvents = demandEvents(JPkEventHandlerActor.DemandEventMode.FRAME);
+        demandEvents.frame(tick(0));
+        demandEvents.frame(tick(1));
+        assertEquals(2, published.size());
+        assertEquals(2, named(PkDemandFrame.NAME).size());
+    }
+
+    @Test
+    public void frameCarriesTheDemandsOfTheSeparateEvents() {
+        // separate events of the ticks in separate mode, frames of the same ticks in frame mode
+        DemandEvents separate = demandEvents(JPkEventHandlerActor.DemandEventMode.SEPARATE);
+        for (long i = 0; i < 3; i++) {
+            separate.frame(tick(i));
+        }
+        List<Event> mcs = named(PkMcsDemandPositions.NAME);
+        List<Event> enc = named(PkEncDemandPositions.NAME);
+        published.clear();
+        DemandEvents frame = demandEvents(JPkEventHandlerActor.DemandEventMode.FRAME);
+        for (long i = 0; i < 3; i++) {
+            frame.frame(tick(i));
+        }
+        assertSameDemands(named(PkDemandFrame.NAME), mcs, enc);
+    }
+
+    @Test
+    public void bothModePublishesFrameAndSeparateEventsWithTheSameDemands() {
+        DemandEvents demandEvents = demandEvents(JPkEventHandlerActor.DemandEventMode.BOTH);
+        for (long i = 0; i < 3; i++) {
+            demandEvents.frame(tick(i));
+        }
+        assertEquals(3, named(PkM3DemandPositions.NAME).size());
+        assertSameDemands(named(PkDemandFrame.NAME), named(PkMcsDemandPositions.NAME), named(PkEncDemandPositions.NAME));
+    }
+
+    private static void assertSameDemands(List<Event> frames, List<Event> mcs, List<Event> enc) {
+        assertEquals(3, frames.size());
+        assertEquals(frames.size(), mcs.size());
+        assertEquals(frames.size(), enc.size());
+        for (int i = 0; i < frames.size(); i++) {
+            PkDemandFrame.Reader frame = PkDemandFrame.read(frames.get(i));
+            PkMcsDemandPositions.Reader mcsDemand = PkMcsDemandPositions.read(mcs.get(i));
+            PkEncDemandPositions.Reader encDemand = PkEncDemandPositions.read(enc.get(i));
+            assertEquals(i, (long) frame.tick());
+            assertEquals(i, (long) mcsDemand.sequence());
+            assertEquals(mcsDemand.az(), frame.mcsAz(), EPSILON);
+            assertEquals(mcsDemand.el(), frame.mcsEl(), EPSILON);
+            assertEquals(encDemand.base(), frame.ecsBase(), EPSILON);
+            assertEquals(encDemand.cap(), frame.ecsCap(), EPSILON);
+        }
+    }
+}
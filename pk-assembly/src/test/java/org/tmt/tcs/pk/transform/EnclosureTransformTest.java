@@ -0,0 +1,85 @@
+package org.tmt.tcs.pk.transform;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The transform must keep publishing the base/cap values the ENC side is tuned to. The
+ * reference values below were computed separately, outside this code, from the published
+ * conversion with the cap tilt of 32.5 taken as radians.
+ */
+public class EnclosureTransformTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    // az and el in radians, expected base and cap in degrees
+    private static final double[][] REFERENCE = {
+            {0, 0, 68.1713773244527, 137.90992530511},
+            {0, 1.0, 64.3466100647758, 88.5230576797074},
+            {0.5, 0.3, 98.6344480139546, 113.791093893037},
+            {1, 1.5, 111.141678552628, 71.1266416306039},
+            {2, 2, 118.447967135862, 23.1181709040707},
+            {3, 0.7, 239.317817887007, 97.809196099757},
+            {4, 4, 295.13229011137, 92.8267785754021},
+            {5, 5, 313.457342243785, 47.418754030042},
+            // base wraps past 2 pi
+            {6, 0.1, 53.6778742830573, 127.15768740554},
+            {6.2, 2, 359.090241090808, 23.1181709040707},
+            {6.2, 6.2, 56.7143038908133, 152.912493145519},
+    };
+
+    @Test
+    public void publishesTheReferenceValues() {
+        double[] baseCap = new double[2];
+        for (double[] reference : REFERENCE) {
+            EnclosureTransform.toBaseCap(reference[0], reference[1], baseCap);
+            assertEquals("base of " + reference[0] + ", " + reference[1], reference[2], baseCap[0], TOLERANCE);
+            assertEquals("cap of " + reference[0] + ", " + reference[1], reference[3], baseCap[1], TOLERANCE);
+        }
+    }
+
+    @Test
+    public void takesDemandsOutOfRangeAsZero() {
+        double[] baseCap = new double[2];
+        for (double[] outOfRange : new double[][]{{-1, -1}, {7, 7}, {-0.5, 6.5}}) {
+            EnclosureTransform.toBaseCap(outOfRange[0], outOfRange[1], baseCap);
+            assertEquals(68.1713773244527, baseCap[0], TOLERANCE);
+            assertEquals(137.90992530511, baseCap[1], TOLERANCE);
+        }
+    }
+
+    @Test
+    public void elevationsWithoutCapAngleAreNotANumber() {
+        double[] baseCap = new double[2];
+        EnclosureTransform.toBaseCap(1, 3, baseCap);
+        assertTrue(Double.isNaN(baseCap[1]));
+    }
+
+    @Test
+    public void batchMatchesSingleConversion() {
+        int n = 50;
+        double[] az = new double[n];
+        double[] el = new double[n];
+        for (int i = 0; i < n; i++) {
+            az[i] = i * 0.13;
+            el[i] = (i - 3) * 0.14;
+        }
+        double[] base = new double[n];
+        double[] cap = new double[n];
+        EnclosureTransform.toBaseCap(az, el, base, cap, 5, n - 10);
+
+        double[] baseCap = new double[2];
+        for (int i = 0; i < n; i++) {
+            if (i < 5 || i >= n - 5) {
+                assertEquals(0, base[i], 0);
+                assertEquals(0, cap[i], 0);
+            } else {
+                EnclosureTransform.toBaseCap(az[i], el[i], baseCap);
+                assertEquals(Double.doubleToLongBits(baseCap[0]), Double.doubleToLongBits(base[i]));
+                assertEquals(Double.doubleToLongBits(baseCap[1]), Double.doubleToLongBits(cap[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.tmt.tcs.pk.wrapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DemandRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new DemandRingBuffer(1).getCapacity());
+        assertEquals(8, new DemandRingBuffer(5).getCapacity());
+        assertEquals(1024, new DemandRingBuffer(1024).getCapacity());
+    }
+
+    @Test
+    public void drainsDemandsInOrder() {
+        DemandRingBuffer ring = new DemandRingBuffer(4);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.offer(i, i + 0.1, i + 0.2, i + 0.3, i + 0.4, i + 0.5));
+        }
+        assertEquals(3, ring.size());
+
+        final long[] next = {0};
+        int drained = ring.drain((sequence, tickNanos, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> {
+            assertEquals(next[0], sequence);
+            assertEquals(sequence, mcsAz, 0.0);
+            assertEquals(sequence + 0.5, m3Tilt, 0.0);
+            next[0]++;
+        }, 10);
+
+        assertEquals(3, drained);
+        assertEquals(0, ring.size());
+        assertEquals(3, ring.getConsumed());
+    }
+
+    @Test
+    public void fullRingDropsAndCountsOverflow() {
+        DemandRingBuffer ring = new DemandRingBuffer(2);
+        assertTrue(ring.offer(1, 1, 1, 1, 1, 1));
+        assertTrue(ring.offer(2, 2, 2, 2, 2, 2));
+        assertFalse(ring.offer(3, 3, 3, 3, 3, 3));
+        assertEquals(1, ring.getOverflows());
+        assertEquals(2, ring.size());
+
+        final double[] first = new double[1];
+        ring.drain((sequence, tickNanos, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> first[0] = mcsAz, 1);
+        assertEquals(1.0, first[0], 0.0);
+        assertTrue(ring.offer(4, 4, 4, 4, 4, 4));
+        assertEquals(2, ring.getMaxOccupancy());
+    }
+
+    @Test
+    public void consumerThreadSeesEveryDemandOfProducer() throws InterruptedException {
+        final int ticks = 200_000;
+        final DemandRingBuffer ring = new DemandRingBuffer(64);
+        final long[] received = {0};
+        final boolean[] ordered = {true};
+
+        Thread consumer = new Thread(() -> {
+            while (received[0] < ticks) {
+                ring.drain((sequence, tickNanos, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> {
+                    if (mcsAz != sequence || m3Tilt != -sequence) {
+                        ordered[0] = false;
+                    }
+                    received[0]++;
+                }, 16);
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < ticks; ) {
+            if (ring.offer(i, 0, 0, 0, 0, -i)) {
+                i++;
+            }
+        }
+        consumer.join(10_000);
+
+        assertEquals(ticks, received[0]);
+        assertTrue(ordered[0]);
+        assertTrue(ring.getMaxLagNanos() >= ring.getLastLagNanos());
+    }
+
+    @Test
+    public void batchIsPublishedWithTickTimes() {
+        DemandRingBuffer ring = new DemandRingBuffer(4);
+        DemandBatch batch = new DemandBatch(3);
+        assertFalse(batch.add(100, 1, 2, 3, 4, 5, 6));
+        assertFalse(batch.add(200, 1, 2, 3, 4, 5, 6));
+        assertTrue(batch.add(300, 1, 2, 3, 4, 5, 6));
+
+        assertEquals(3, ring.offer(batch));
+        // only one slot left for the second batch
+        assertEquals(1, ring.offer(batch));
+        assertEquals(2, ring.getOverflows());
+
+        final long[] ticks = new long[4];
+        ring.drain((sequence, tickNanos, mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> {
+            ticks[(int) sequence] = tickNanos;
+            assertEquals(6.0, m3Tilt, 0.0);
+        }, 10);
+        assertEquals(100, ticks[0]);
+        assertEquals(300, ticks[2]);
+        assertEquals(100, ticks[3]);
+    }
+}
@@ -0,0 +1,227 @@
+package org.tmt.tcs.pk.wrapper;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JavaPointingKernelTest {
+
+    private static final double D2R = Math.PI / 180;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void targetOnMeridianAtSiteLatitudeIsAtZenith() {
+        double[] azEl = new double[2];
+        JavaPointingKernel.equatorialToHorizontal(0, 20 * D2R, 20 * D2R, azEl);
+        assertEquals(90 * D2R, azEl[1], EPSILON);
+    }
+
+    @Test
+    public void targetOnMeridianSouthOfZenith() {
+        double[] azEl = new double[2];
+        JavaPointingKernel.equatorialToHorizontal(0, -10 * D2R, 20 * D2R, azEl);
+        assertEquals(180 * D2R, azEl[0], EPSILON);
+        assertEquals(60 * D2R, azEl[1], EPSILON);
+    }
+
+    @Test
+    public void targetOnMeridianNorthOfZenith() {
+        double[] azEl = new double[2];
+        JavaPointingKernel.equatorialToHorizontal(0, 50 * D2R, 20 * D2R, azEl);
+        assertEquals(0, azEl[0], EPSILON);
+        assertEquals(60 * D2R, azEl[1], EPSILON);
+    }
+
+    @Test
+    public void equatorRisesInTheEastAtEquator() {
+        double[] azEl = new double[2];
+        JavaPointingKernel.equatorialToHorizontal(-90 * D2R, 0, 0, azEl);
+        assertEquals(90 * D2R, azEl[0], EPSILON);
+        assertEquals(0, azEl[1], EPSILON);
+    }
+
+    @Test
+    public void siderealTimeMatchesReferenceValues() {
+        // J2000.0, 2000-01-01T12:00:00Z
+        assertEquals(280.46061837 * D2R, JavaPointingKernel.localSiderealTime(946728000000.0, 0), 1e-8);
+        // Meeus, Astronomical Algorithms, example 12.a: 1987-04-10T00:00:00Z, 13h10m46.3668s
+        assertEquals(197.693195 * D2R, JavaPointingKernel.localSiderealTime(545011200000.0, 0), 1e-6);
+        // longitude east positive adds to the sidereal time
+        assertEquals((197.693195 - 155.4814) * D2R,
+                JavaPointingKernel.localSiderealTime(545011200000.0, -155.4814 * D2R), 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRateAboveFastLoopLimit() {
+        new JavaPointingKernel(2000, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void fastLoopTracksTargetAtConfiguredRate() throws InterruptedException {
+        JavaPointingKernel kernel = new JavaPointingKernel(200, -155.4814, 19.8330, 1.5, 2.5);
+        AtomicInteger ticks = new AtomicInteger();
+        CountDownLatch tracking = new CountDownLatch(1);
+        double[] last = new double[6];
+        kernel.register((mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> {
+            ticks.incrementAndGet();
+            synchronized (last) {
+                last[0] = mcsAz;
+                last[1] = mcsEl;
+                last[2] = ecsAz;
+                last[3] = ecsEl;
+                last[4] = m3Rotation;
+                last[5] = m3Tilt;
+            }
+            tracking.countDown();
+        });
+        kernel.newTarget(10, 30);
+        kernel.init();
+        try {
+            assertTrue(tracking.await(1, TimeUnit.SECONDS));
+            Thread.sleep(500);
+        } finally {
+            kernel.close();
+        }
+
+        int count = ticks.get();
+        assertTrue("ticks " + count, count > 50 && count < 150);
+        synchronized (last) {
+            assertEquals(last[0] * D2R, last[2], EPSILON);
+            assertEquals(last[1] * D2R, last[3], EPSILON);
+            assertTrue(last[1] >= -90 && last[1] <= 90);
+            assertEquals(1.5, last[4], 0);
+            assertEquals(2.5, last[5], 0);
+        }
+        Thread.sleep(50);
+        assertEquals(count, ticks.get());
+    }
+
+    @Test
+    public void batchesCarryOneTimeStampPerTick() throws InterruptedException {
+        JavaPointingKernel kernel = new JavaPointingKernel(500, 0, 0, 0, 0);
+        CountDownLatch batches = new CountDownLatch(2);
+        long[] tickTimes = new long[5];
+        AtomicInteger batchSize = new AtomicInteger();
+        kernel.registerBatch(new DemandBatch(5), batch -> {
+            batchSize.set(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                tickTimes[i] = batch.getTickNanos(i);
+            }
+            batches.countDown();
+        });
+        kernel.init();
+        try {
+            assertTrue(batches.await(1, TimeUnit.SECONDS));
+        } finally {
+            kernel.close();
+        }
+        assertEquals(5, batchSize.get());
+        for (int i = 1; i < tickTimes.length; i++) {
+            assertTrue(tickTimes[i] - tickTimes[i - 1] >= 2_000_000);
+        }
+    }
+
+    @Test
+    public void polledKernelWritesIntoRing() throws InterruptedException {
+        JavaPointingKernel kernel = new JavaPointingKernel(500, 0, 0, 0, 0);
+        DemandRingBuffer ring = new DemandRingBuffer(64);
+        kernel.newTarget(0, 0);
+        kernel.init();
+        try {
+            Thread.sleep(20);
+            assertEquals(0, ring.size());
+            kernel.registerRing(ring);
+            Thread.sleep(50);
+        } finally {
+            kernel.close();
+        }
+        assertTrue(ring.size() > 5);
+    }
+
+    @Test
+    public void offsetListenerIsToldOfFirstTickWithOffset() throws InterruptedException {
+        JavaPointingKernel kernel = new JavaPointingKernel(200, 0, 0, 0, 0);
+        int maxTicks = 200;
+        double[] az = new double[maxTicks];
+        double[] el = new double[maxTicks];
+        AtomicInteger ticks = new AtomicInteger();
+        kernel.register((mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> {
+            int tick = ticks.get();
+            if (tick < maxTicks) {
+                az[tick] = mcsAz;
+                el[tick] = mcsEl;
+                ticks.set(tick + 1);
+            }
+        });
+        AtomicInteger appliedAt = new AtomicInteger(-1);
+        AtomicLong appliedNanos = new AtomicLong();
+        CountDownLatch applied = new CountDownLatch(1);
+        kernel.newTarget(0, 0);
+        kernel.init();
+        try {
+            Thread.sleep(50);
+            long requested = System.nanoTime();
+            kernel.offset(0, 36000, tickNanos -> {
+                appliedAt.set(ticks.get());
+                appliedNanos.set(tickNanos - requested);
+                applied.countDown();
+            });
+            assertTrue(applied.await(1, TimeUnit.SECONDS));
+            Thread.sleep(20);
+        } finally {
+            kernel.close();
+        }
+
+        int first = appliedAt.get();
+        assertTrue(first > 0 && first < ticks.get());
+        assertTrue("latency " + appliedNanos.get(), appliedNanos.get() < 100_000_000L);
+        // a 10 degree offset in Dec moves the demands far more than tracking in one tick
+        assertTrue(separation(az[first - 1], el[first - 1], az[first], el[first]) > 5);
+        assertTrue(separation(az[first], el[first], az[first + 1], el[first + 1]) < 0.1);
+        if (first > 1) {
+            assertTrue(separation(az[first - 2], el[first - 2], az[first - 1], el[first - 1]) < 0.1);
+        }
+    }
+
+    @Test
+    public void replacedOffsetIsReportedWithTheReplacingOne() throws InterruptedException {
+        JavaPointingKernel kernel = new JavaPointingKernel(200, 0, 0, 0, 0);
+        kernel.register((mcsAz, mcsEl, ecsAz, ecsEl, m3Rotation, m3Tilt) -> { });
+        long[] tickTimes = new long[2];
+        CountDownLatch applied = new CountDownLatch(2);
+        kernel.newTarget(0, 0);
+        kernel.offset(10, 10, tickNanos -> {
+            tickTimes[0] = tickNanos;
+            applied.countDown();
+        });
+        kernel.offset(20, 20, tickNanos -> {
+            tickTimes[1] = tickNanos;
+            applied.countDown();
+        });
+        kernel.init();
+        try {
+            assertTrue(applied.await(1, TimeUnit.SECONDS));
+        } finally {
+            kernel.close();
+        }
+        assertEquals(tickTimes[0], tickTimes[1]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offsetWithoutTargetIsRejected() {
+        new JavaPointingKernel(200, 0, 0, 0, 0).offset(1, 1, tickNanos -> { });
+    }
+
+    // angle between two directions in degrees
+    private static double separation(double az1, double el1, double az2, double el2) {
+        double cos = Math.sin(el1 * D2R) * Math.sin(el2 * D2R)
+                + Math.cos(el1 * D2R) * Math.cos(el2 * D2R) * Math.cos((az1 - az2) * D2R);
+        return Math.acos(Math.max(-1, Math.min(1, cos))) / D2R;
+    }
+}
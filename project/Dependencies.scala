@@ -2,8 +2,15 @@ import sbt._
 
 object Dependencies {
 
+  val TcsInterface = Seq(
+    CSW.`csw-framework`,
+    Libs.`junit` % Test,
+    Libs.`junit-interface` % Test
+  )
+
   val EncAssembly = Seq(
     CSW.`csw-framework`,
+    Libs.`HdrHistogram`,
     CSW.`csw-testkit` % Test,
     Libs.`scalatest` % Test,
     Libs.`junit` % Test,
@@ -25,6 +32,7 @@ object Dependencies {
   val McsAssembly = Seq(
     CSW.`csw-framework`,
     CSW.`csw-testkit`,
+    Libs.`HdrHistogram`,
     Libs.`scalatest` % Test,
     Libs.`junit` % Test,
     Libs.`junit-interface` % Test,
@@ -38,6 +46,8 @@ object Dependencies {
     CSW.`csw-testkit`,
     Libs.`zeroMQ`,
     Libs.`protobuf`,
+    Libs.`HdrHistogram`,
+    Libs.`agrona`,
     Libs.`scalatest` % Test,
     Libs.`junit` % Test,
     Libs.`junit-interface` % Test,
@@ -57,6 +67,7 @@ object Dependencies {
   val TcsClient = Seq(
     CSW.`csw-framework`,
     CSW.`csw-testkit`,
+    Libs.`HdrHistogram`,
     Libs.`scalatest` % Test,
     Libs.`junit` % Test,
     Libs.`junit-interface` % Test
@@ -66,4 +77,8 @@ object Dependencies {
     CSW.`csw-framework`,
     CSW.`csw-testkit` % Test
   )
+
+  val TcsBenchmarks = Seq(
+    CSW.`csw-framework`
+  )
 }
@@ -0,0 +1,296 @@
+import java.io.File
+
+import com.typesafe.config.{Config, ConfigFactory, ConfigParseOptions, ConfigResolveOptions}
+import sbt.Keys._
+import sbt._
+
+import scala.collection.JavaConverters._
+
+/*
+Generates the accessor classes of the TCS events, current states and commands from
+src/main/interface/tcs-interface.conf of tcs-interface, one Java class per message holding:
+- the prefix and name of the message and the key of each parameter, made once
+- Reader, which takes the parameters of a received message in one pass over its parameter set,
+  so that each field is then read without a lookup by name
+- Writer, which makes the message from typed values or parameters taken from another message
+
+Java so that the generated classes read the same from the Java and the Scala components.
+ */
+object InterfaceGenerator {
+
+  val settings: Seq[Setting[_]] = Seq(
+    sourceGenerators in Compile += Def.task {
+      val schema = (sourceDirectory in Compile).value / "interface" / "tcs-interface.conf"
+      val out    = (sourceManaged in Compile).value / "java"
+      val cached = FileFunction.cached(streams.value.cacheDirectory / "interface", FileInfo.hash) { _ =>
+        IO.delete(out)
+        generate(schema, out).toSet
+      }
+      cached(Set(schema)).toSeq
+    }.taskValue
+  )
+
+  val Package = "org.tmt.tcs.icd"
+
+  private val Subsystems = Seq("pk", "mcs", "enc")
+
+  private case class FieldType(javaType: String, boxedType: String, keyType: String)
+
+  private val FieldTypes = Map(
+    "double"    -> FieldType("double", "Double", "DoubleKey"),
+    "long"      -> FieldType("long", "Long", "LongKey"),
+    "int"       -> FieldType("int", "Integer", "IntKey"),
+    "boolean"   -> FieldType("boolean", "Boolean", "BooleanKey"),
+    "string"    -> FieldType("String", "String", "StringKey"),
+    "timestamp" -> FieldType("Instant", "Instant", "TimestampKey"),
+    "bytes"     -> FieldType("ArrayData<Byte>", "ArrayData<Byte>", "ByteArrayKey")
+  )
+
+  private case class Field(name: String, key: String, fieldType: FieldType, units: Option[String]) {
+    def constant: String = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase + "_KEY"
+    def capitalized: String = name.capitalize
+    def paramType: String = s"Parameter<${fieldType.boxedType}>"
+  }
+
+  private case class Message(subsystem: String, id: String, kind: String, prefix: String, name: String, fields: Seq[Field]) {
+    def className: String = (subsystem +: id.split('-').toSeq).map(_.capitalize).mkString
+  }
+
+  def generate(schema: File, out: File): Seq[File] = {
+    val config = ConfigFactory
+      .parseFile(schema, ConfigParseOptions.defaults().setAllowMissing(false))
+      .resolve(ConfigResolveOptions.noSystem())
+    for {
+      subsystem <- Subsystems
+      message   <- messages(subsystem, config.getConfig(subsystem))
+    } yield {
+      val file = out / subsystem / s"${message.className}.java"
+      IO.write(file, source(message))
+      file
+    }
+  }
+
+  private def messages(subsystem: String, config: Config): Seq[Message] =
+    config.root.keySet.asScala.toSeq.sorted.map { id =>
+      val message = config.getConfig(id)
+      val fields = message.getConfigList("fields").asScala.map { field =>
+        val typeName = field.getString("type")
+        val fieldType =
+          FieldTypes.getOrElse(typeName, sys.error(s"$subsystem.$id: unknown type $typeName of ${field.getString("name")}"))
+        Field(field.getString("name"),
+              field.getString("key"),
+              fieldType,
+              if (field.hasPath("units")) Some(field.getString("units")) else None)
+      }
+      val duplicates = fields.groupBy(_.key).collect { case (key, same) if same.size > 1 => key }
+      if (duplicates.nonEmpty) sys.error(s"$subsystem.$id: keys ${duplicates.mkString(", ")} defined more than once")
+      val kind = message.getString("kind")
+      if (!Set("event", "state", "command").contains(kind)) sys.error(s"$subsystem.$id: unknown kind $kind")
+      Message(subsystem, id, kind, message.getString("prefix"), message.getString("name"), fields)
+    }
+
+  private def source(message: Message): String = {
+    import message._
+    val nameConstants = kind match {
+      case "event" =>
+        s"""    public static final EventName EVENT_NAME = new EventName(NAME);
+           |    public static final EventKey EVENT_KEY = new EventKey(PREFIX, EVENT_NAME);""".stripMargin
+      case "state" =>
+        "    public static final StateName STATE_NAME = new StateName(NAME);"
+      case "command" =>
+        "    public static final CommandName COMMAND_NAME = new CommandName(NAME);"
+    }
+    val keys = fields
+      .map(f => s"""    public static final Key<${f.fieldType.boxedType}> ${f.constant} = JKeyType.${f.fieldType.keyType}().make("${f.key}");""")
+      .mkString("\n")
+
+    val keyArray = fields.map(f => s"        ${f.constant}").mkString(",\n")
+    val readerAccessors = fields.zipWithIndex
+      .map {
+        case (f, i) =>
+          s"""
+             |        public boolean has${f.capitalized}() {
+             |            return params[$i] != null;
+             |        }
+             |
+             |        public ${f.paramType} ${f.name}Param() {
+             |            if (params[$i] == null) throw new NoSuchElementException(NAME + " has no ${f.key}");
+             |            return (${f.paramType}) params[$i];
+             |        }
+             |
+             |        public ${f.fieldType.javaType} ${f.name}() {
+             |            return ${f.name}Param().head();
+             |        }
+             |
+             |        public ${f.fieldType.javaType} ${f.name}(${f.fieldType.javaType} orElse) {
+             |            return params[$i] == null ? orElse : ${f.name}Param().head();
+             |        }""".stripMargin
+      }
+      .mkString("\n")
+
+    val writerSetters = fields.zipWithIndex
+      .map {
+        case (f, i) =>
+          val param = f.units match {
+            case Some(units) => s"${f.constant}.set(value).withUnits(JUnits.$units)"
+            case None        => s"${f.constant}.set(value)"
+          }
+          s"""
+             |        public Writer ${f.name}(${f.fieldType.javaType} value) {
+             |            params[$i] = $param;
+             |            return this;
+             |        }
+             |
+             |        public Writer ${f.name}(${f.paramType} param) {
+             |            params[$i] = param;
+             |            return this;
+             |        }""".stripMargin
+      }
+      .mkString("\n")
+    val writerBuilders = kind match {
+      case "event" =>
+        """
+          |        public SystemEvent toEvent() {
+          |            return toEvent(PREFIX);
+          |        }
+          |
+          |        public SystemEvent toEvent(Prefix prefix) {
+          |            return new SystemEvent(prefix, EVENT_NAME).madd(written());
+          |        }""".stripMargin
+      case "state" =>
+        """
+          |        public CurrentState toCurrentState() {
+          |            return toCurrentState(PREFIX);
+          |        }
+          |
+          |        public CurrentState toCurrentState(Prefix prefix) {
+          |            return new CurrentState(prefix, STATE_NAME).madd(written());
+          |        }""".stripMargin
+      case "command" =>
+        """
+          |        public Setup toSetup() {
+          |            return toSetup(PREFIX);
+          |        }
+          |
+          |        public Setup toSetup(Prefix prefix) {
+          |            return new Setup(prefix, COMMAND_NAME, Optional.empty()).madd(written());
+          |        }""".stripMargin
+    }
+
+    s"""// Generated from tcs-interface.conf by InterfaceGenerator, do not edit.
+       |package $Package.$subsystem;
+       |
+       |import csw.params.commands.CommandName;
+       |import csw.params.commands.Setup;
+       |import csw.params.core.generics.Key;
+       |import csw.params.core.generics.Parameter;
+       |import csw.params.core.generics.ParameterSetType;
+       |import csw.params.core.models.ArrayData;
+       |import csw.params.core.models.Prefix;
+       |import csw.params.core.states.CurrentState;
+       |import csw.params.core.states.StateName;
+       |import csw.params.events.EventKey;
+       |import csw.params.events.EventName;
+       |import csw.params.events.SystemEvent;
+       |import csw.params.javadsl.JKeyType;
+       |import csw.params.javadsl.JUnits;
+       |
+       |import java.time.Instant;
+       |import java.util.Arrays;
+       |import java.util.HashMap;
+       |import java.util.NoSuchElementException;
+       |import java.util.Optional;
+       |
+       |/**
+       | * The $name $kind, $subsystem.$id in tcs-interface.conf.
+       | */
+       |@SuppressWarnings("unchecked")
+       |public final class $className {
+       |
+       |    public static final Prefix PREFIX = new Prefix("$prefix");
+       |    public static final String NAME = "$name";
+       |$nameConstants
+       |
+       |$keys
+       |
+       |    private $className() {
+       |    }
+       |
+       |    /**
+       |     * Reads the parameters of a received $kind, see {@link Reader}.
+       |     */
+       |    public static Reader read(ParameterSetType<?> message) {
+       |        return new Reader().read(message);
+       |    }
+       |
+       |    public static Writer writer() {
+       |        return new Writer();
+       |    }
+       |
+       |    // keys of the fields, in the order of the parameters of Reader and Writer
+       |    private static final Key<?>[] KEYS = {
+       |$keyArray
+       |    };
+       |
+       |    // index of the field of each key name, one hash lookup per received parameter whoever made its key
+       |    private static final HashMap<String, Integer> FIELDS = new HashMap<>();
+       |    static {
+       |        for (int i = 0; i < KEYS.length; i++) {
+       |            FIELDS.put(KEYS[i].keyName(), i);
+       |        }
+       |    }
+       |
+       |    /**
+       |     * Index of the field of the key named keyName, -1 if none.
+       |     */
+       |    private static int field(String keyName) {
+       |        Integer field = FIELDS.get(keyName);
+       |        return field == null ? -1 : field;
+       |    }
+       |
+       |    /**
+       |     * Parameters of a $kind taken in one pass over its parameter set, each into the slot of
+       |     * its field, the accessors reading the slot directly. A parameter whose key type is not
+       |     * the defined one is taken as missing. A reader may be reused, not shared.
+       |     */
+       |    public static final class Reader {
+       |        private final Parameter<?>[] params = new Parameter<?>[${fields.size}];
+       |
+       |        public Reader read(ParameterSetType<?> message) {
+       |            Arrays.fill(params, null);
+       |            scala.collection.Iterator<Parameter<?>> received = message.paramSet().iterator();
+       |            while (received.hasNext()) {
+       |                Parameter<?> param = received.next();
+       |                int field = field(param.keyName());
+       |                if (field >= 0 && param.keyType() == KEYS[field].keyType()) params[field] = param;
+       |            }
+       |            return this;
+       |        }
+       |$readerAccessors
+       |    }
+       |
+       |    /**
+       |     * Makes the $kind from the fields set, the others being left out.
+       |     */
+       |    public static final class Writer {
+       |        private final Parameter<?>[] params = new Parameter<?>[${fields.size}];
+       |$writerSetters
+       |$writerBuilders
+       |
+       |        private Parameter<?>[] written() {
+       |            int count = 0;
+       |            for (Parameter<?> param : params) {
+       |                if (param != null) count++;
+       |            }
+       |            Parameter<?>[] written = new Parameter<?>[count];
+       |            int i = 0;
+       |            for (Parameter<?> param : params) {
+       |                if (param != null) written[i++] = param;
+       |            }
+       |            return written;
+       |        }
+       |    }
+       |}
+       |""".stripMargin
+  }
+}
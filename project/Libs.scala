@@ -14,6 +14,8 @@ object Libs {
   //val `zeroMQ` = "org.zeromq" % "zeromq-scala-binding_2.11.0-M3" % "0.0.7"
   val `zeroMQ` = "org.zeromq" % "jeromq" % "0.4.3"
   val `protobuf`= "com.google.protobuf" % "protobuf-java" % "3.5.1"
+  val `HdrHistogram` = "org.hdrhistogram" % "HdrHistogram" % "2.1.10" //BSD 2-clause "Simplified" License / Public Domain
+  val `agrona` = "org.agrona" % "agrona" % "0.9.18" //Apache License 2.0, the version aeron brings to akka-remote 2.5
 
 }
 
@@ -0,0 +1,76 @@
+package org.tmt.tcs.benchmarks;
+
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.javadsl.Behaviors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmt.tcs.pk.pkassembly.JPkEventHandlerActor;
+import org.tmt.tcs.pk.wrapper.DemandPublisher;
+import org.tmt.tcs.pk.wrapper.DemandRingBuffer;
+import org.tmt.tcs.pk.wrapper.TpkWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in the TPK demands callback, i.e. the time the native fast loop is held up
+ * per tick. SampleTime mode reports the p50/p90/p99/p99.9 callback durations.
+ *
+ * inline is the former callback, converting and sending the demand messages on the fast
+ * loop thread; ring is the current callback, copying the demands into the ring buffer
+ * drained by a DemandPublisher thread.
+ *
+ * Run with: sbt "tcs-benchmarks/jmh:run DemandCallbackBenchmark"
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class DemandCallbackBenchmark {
+
+    private ActorSystem<JPkEventHandlerActor.EventMessage> system;
+    private DemandRingBuffer ring;
+    private DemandPublisher publisher;
+    private double tick;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = ActorSystem.create(Behaviors.ignore(), "DemandCallbackBenchmark");
+        ring = new DemandRingBuffer(TpkWrapper.DEMAND_RING_CAPACITY);
+        publisher = new DemandPublisher(ring, system);
+        publisher.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        publisher.stop();
+        System.out.println();
+        System.out.println(ring);
+        system.terminate();
+    }
+
+    @Benchmark
+    public void inline() {
+        double t = tick += 1e-6;
+        publisher.onDemand(0, 0, 1.0 + t, 0.5 + t, 1.0 + t, 0.6 + t, 0.1 + t, 0.2 + t);
+    }
+
+    @Benchmark
+    public boolean ring() {
+        double t = tick += 1e-6;
+        return ring.offer(1.0 + t, 0.5 + t, 1.0 + t, 0.6 + t, 0.1 + t, 0.2 + t);
+    }
+}
@@ -0,0 +1,68 @@
+package org.tmt.tcs.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tmt.tcs.pk.transform.EnclosureTransform;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the enclosure transform, converting one demand per call as done per tick
+ * by the demand publisher, and converting arrays of demands as done for replay and
+ * simulation. Results are per converted demand.
+ *
+ * Run with: sbt "tcs-benchmarks/jmh:run EnclosureTransformBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnclosureTransformBenchmark {
+
+    private static final int BATCH = 1024;
+
+    private final double[] az = new double[BATCH];
+    private final double[] el = new double[BATCH];
+    private final double[] base = new double[BATCH];
+    private final double[] cap = new double[BATCH];
+    private final double[] result = new double[2];
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH; i++) {
+            az[i] = random.nextDouble() * 2 * Math.PI;
+            el[i] = Math.toRadians(25 + random.nextDouble() * 65);
+        }
+    }
+
+    @Benchmark
+    public void enclosureSingle(Blackhole blackhole) {
+        int i = index++ & (BATCH - 1);
+        EnclosureTransform.toBaseCap(az[i], el[i], result);
+        blackhole.consume(result[0]);
+        blackhole.consume(result[1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void enclosureBatch(Blackhole blackhole) {
+        EnclosureTransform.toBaseCap(az, el, base, cap, 0, BATCH);
+        blackhole.consume(base);
+        blackhole.consume(cap);
+    }
+}
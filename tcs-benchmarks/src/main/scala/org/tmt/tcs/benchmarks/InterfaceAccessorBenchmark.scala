@@ -0,0 +1,104 @@
+package org.tmt.tcs.benchmarks
+
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+import csw.params.core.generics.KeyType
+import csw.params.core.states.CurrentState
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+import org.tmt.tcs.icd.mcs.McsCurrentPositionState
+
+/*
+Cost per field of reading the 8 fields of an MCS current position current state:
+- findByName:     a linear scan of the parameter set by key name for each field, as the HCD read
+                  the oneway demands
+- keyRecreated:   currentState.get with the key made again for each read, as the components made
+                  their keys in their handlers
+- keyPreresolved: currentState.get with keys made once, still one scan of the set per field
+- reader:         the generated McsCurrentPositionState.Reader, one pass over the set for all fields
+The times reported are per field. The current state is made from keys of its own, with name strings
+other than those of the generated keys, as a message deserialized from the wire would be.
+
+sbt "tcs-benchmarks/jmh:run InterfaceAccessorBenchmark"
+ */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(8)
+class InterfaceAccessorBenchmark {
+  import McsCurrentPositionState._
+
+  private val positionReader             = new McsCurrentPositionState.Reader
+  private var currentState: CurrentState = _
+
+  @Setup
+  def setup(): Unit = {
+    val now = Instant.now
+    // copied, so that no name compares equal to a generated key's by being the same string
+    def name(keyName: String): String = new String(keyName.toCharArray)
+    currentState = new CurrentState(PREFIX, STATE_NAME).madd(
+      KeyType.DoubleKey.make(name("mcs.az")).set(120.25),
+      KeyType.DoubleKey.make(name("mcs.el")).set(45.5),
+      KeyType.DoubleKey.make(name("azPosErrorKey")).set(0.001),
+      KeyType.DoubleKey.make(name("elPosErrorKey")).set(0.002),
+      KeyType.BooleanKey.make(name("azInPositionKey")).set(true),
+      KeyType.BooleanKey.make(name("elInPositionKey")).set(true),
+      KeyType.TimestampKey.make(name("timeStamp")).set(now),
+      KeyType.TimestampKey.make(name("HCDEventReceivalTime")).set(now)
+    )
+  }
+
+  @Benchmark
+  def findByName(bh: Blackhole): Unit = {
+    val paramSet = currentState.paramSet
+    bh.consume(paramSet.find(_.keyName == AZ_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == EL_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == AZ_POS_ERROR_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == EL_POS_ERROR_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == AZ_IN_POSITION_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == EL_IN_POSITION_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == TIME_KEY.keyName).get.head)
+    bh.consume(paramSet.find(_.keyName == HCD_RECEIVAL_TIME_KEY.keyName).get.head)
+  }
+
+  @Benchmark
+  def keyRecreated(bh: Blackhole): Unit = {
+    bh.consume(currentState.get(KeyType.DoubleKey.make("mcs.az")).get.head)
+    bh.consume(currentState.get(KeyType.DoubleKey.make("mcs.el")).get.head)
+    bh.consume(currentState.get(KeyType.DoubleKey.make("azPosErrorKey")).get.head)
+    bh.consume(currentState.get(KeyType.DoubleKey.make("elPosErrorKey")).get.head)
+    bh.consume(currentState.get(KeyType.BooleanKey.make("azInPositionKey")).get.head)
+    bh.consume(currentState.get(KeyType.BooleanKey.make("elInPositionKey")).get.head)
+    bh.consume(currentState.get(KeyType.TimestampKey.make("timeStamp")).get.head)
+    bh.consume(currentState.get(KeyType.TimestampKey.make("HCDEventReceivalTime")).get.head)
+  }
+
+  @Benchmark
+  def keyPreresolved(bh: Blackhole): Unit = {
+    bh.consume(currentState.get(AZ_KEY).get.head)
+    bh.consume(currentState.get(EL_KEY).get.head)
+    bh.consume(currentState.get(AZ_POS_ERROR_KEY).get.head)
+    bh.consume(currentState.get(EL_POS_ERROR_KEY).get.head)
+    bh.consume(currentState.get(AZ_IN_POSITION_KEY).get.head)
+    bh.consume(currentState.get(EL_IN_POSITION_KEY).get.head)
+    bh.consume(currentState.get(TIME_KEY).get.head)
+    bh.consume(currentState.get(HCD_RECEIVAL_TIME_KEY).get.head)
+  }
+
+  @Benchmark
+  def reader(bh: Blackhole): Unit = {
+    val position = positionReader.read(currentState)
+    bh.consume(position.az)
+    bh.consume(position.el)
+    bh.consume(position.azPosError)
+    bh.consume(position.elPosError)
+    bh.consume(position.azInPosition)
+    bh.consume(position.elInPosition)
+    bh.consume(position.time)
+    bh.consume(position.hcdReceivalTime)
+  }
+}
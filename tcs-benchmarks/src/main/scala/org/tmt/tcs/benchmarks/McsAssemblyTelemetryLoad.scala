@@ -0,0 +1,163 @@
+package org.tmt.tcs.benchmarks
+
+import java.lang.management.ManagementFactory
+import java.time.Instant
+
+import akka.actor.Scheduler
+import akka.actor.typed.scaladsl.AskPattern._
+import akka.actor.typed.scaladsl.{AbstractBehavior, Behaviors}
+import akka.actor.typed.{ActorRef, ActorSystem, Behavior}
+import akka.util.Timeout
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.core.models.Prefix
+import csw.params.core.states.{CurrentState, StateName}
+import csw.params.events.Event
+import org.tmt.tcs.mcs.MCSassembly.Constants.{EventConstants, EventHandlerConstants}
+import org.tmt.tcs.mcs.MCSassembly.MonitorMessage.{currentStateChangeMsg, AssemblyCurrentState, GetCurrentState}
+import org.tmt.tcs.mcs.MCSassembly._
+import org.tmt.tcs.mcs.MCSassembly.msgTransformer.EventTransformerHelper
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+/*
+Sends current position current states, with a health current state every 100 samples, to the
+MCS assembly monitor actor as fast as it takes them and reports the samples per second and the
+process CPU time per sample for:
+- recreated:    a replica of the monitor and event handler actors as they were before, both
+                setting their behavior up again for every message, the monitor sending each event
+                to the event handler to be published
+- long-lived:   the MonitorActor publishing through TelemetryFanOut
+- rate-limited: the same with current position limited to 100 Hz
+The events are published to counting sinks rather than the event service.
+
+Run with: sbt "tcs-benchmarks/runMain org.tmt.tcs.benchmarks.McsAssemblyTelemetryLoad [samples]"
+ */
+object McsAssemblyTelemetryLoad {
+
+  private val HealthEvery = 100
+
+  private val loggerFactory    = new LoggerFactory("McsAssemblyTelemetryLoad")
+  private val eventTransformer = EventTransformerHelper.create(loggerFactory)
+  private val osBean           = ManagementFactory.getOperatingSystemMXBean.asInstanceOf[com.sun.management.OperatingSystemMXBean]
+  private val hcdPrefix        = Prefix("tmt.tcs.mcs.hcd")
+
+  def main(args: Array[String]): Unit = {
+    val samples = if (args.length > 0) args(0).toInt else 1000000
+    // the first round warms the JIT up
+    for (_ <- 1 to 2) {
+      run("recreated", samples, sink => RecreatedMonitor(sink))
+      run("long-lived", samples, sink => monitor(sink, 0))
+      run("rate-limited", samples, sink => monitor(sink, 100))
+    }
+  }
+
+  private def monitor(sink: Event => Unit, currentPositionRate: Double): Behavior[MonitorMessage] = {
+    val rates =
+      TelemetryFanOut.StreamNames.indices.map(stream => if (stream == TelemetryFanOut.CurrentPosition) currentPositionRate else 0.0)
+    val telemetry = new TelemetryFanOut(TelemetryFanOut.Settings(rates), TelemetryFanOut.StreamNames.map(_ => sink), () => ())
+    Behaviors.setup[MonitorMessage] { ctx =>
+      val eventHandler = ctx.spawn(Behaviors.ignore[EventMessage], "EventHandlerActor")
+      MonitorActor(ctx,
+                   AssemblyLifeCycleState.Running,
+                   AssemblyOperationalState.Running,
+                   eventHandler,
+                   telemetry,
+                   eventTransformer,
+                   loggerFactory)
+    }
+  }
+
+  private def run(name: String, samples: Int, monitor: (Event => Unit) => Behavior[MonitorMessage]): Unit = {
+    // written by the actors only, read once the monitor answered the last message
+    var published = 0L
+    val system    = ActorSystem(monitor(_ => published += 1), name)
+    val states    = Array(currentPosition(), health())
+
+    implicit val timeout: Timeout     = Timeout(1.minute)
+    implicit val scheduler: Scheduler = system.scheduler
+
+    val cpuBefore = osBean.getProcessCpuTime
+    val start     = System.nanoTime()
+    var i         = 0
+    while (i < samples) {
+      system ! currentStateChangeMsg(states(if ((i + 1) % HealthEvery == 0) 1 else 0))
+      i += 1
+    }
+    // answered once all the samples were handled and published
+    Await.result(system ? { ref: ActorRef[MonitorMessage] =>
+      GetCurrentState(ref)
+    }, timeout.duration)
+    val elapsedSeconds = (System.nanoTime() - start) / 1e9
+    val cpuNanos       = osBean.getProcessCpuTime - cpuBefore
+
+    println(
+      f"$name%-12s: $samples%8d samples, ${samples / elapsedSeconds}%10.1f samples/s, " +
+      f"${cpuNanos / 1000.0 / samples}%7.2f us CPU/sample, $published%8d events published"
+    )
+    system.terminate()
+    Await.result(system.whenTerminated, 10.seconds)
+  }
+
+  private def currentPosition(): CurrentState =
+    CurrentState(hcdPrefix, StateName(EventConstants.CURRENT_POSITION))
+      .add(EventHandlerConstants.AzPosKey.set(1.5))
+      .add(EventHandlerConstants.ElPosKey.set(45.0))
+      .add(EventHandlerConstants.AZ_POS_ERROR_KEY.set(0.001))
+      .add(EventHandlerConstants.EL_POS_ERROR_KEY.set(0.002))
+      .add(EventHandlerConstants.AZ_InPosition_Key.set(true))
+      .add(EventHandlerConstants.EL_InPosition_Key.set(true))
+      .add(EventHandlerConstants.TimeStampKey.set(Instant.now()))
+      .add(EventHandlerConstants.HCD_Event_RECEV_TIME_KEY.set(Instant.now()))
+
+  private def health(): CurrentState =
+    CurrentState(hcdPrefix, StateName(EventConstants.HEALTH_STATE))
+      .add(EventHandlerConstants.HEALTH_KEY.set("Good"))
+      .add(EventHandlerConstants.HEALTH_REASON_KEY.set("All is well"))
+      .add(EventHandlerConstants.TimeStampKey.set(Instant.now()))
+      .add(EventHandlerConstants.HCD_Event_RECEV_TIME_KEY.set(Instant.now()))
+
+  /*
+  The monitor and event handler as they were: each message returns a newly set up behavior and
+  each event is forwarded to the event handler, which publishes it to the sink. GetCurrentState is
+  forwarded too, so that it is answered once the events before it were published.
+   */
+  private object RecreatedMonitor {
+    sealed trait PublisherMessage
+    case class Publish(event: Event)                      extends PublisherMessage
+    case class Flushed(replyTo: ActorRef[MonitorMessage]) extends PublisherMessage
+
+    def apply(sink: Event => Unit): Behavior[MonitorMessage] =
+      Behaviors.setup[MonitorMessage](ctx => monitor(ctx.spawn(publisher(sink), "EventHandlerActor")))
+
+    private def monitor(eventHandler: ActorRef[PublisherMessage]): Behavior[MonitorMessage] =
+      Behaviors.setup[MonitorMessage](_ => new Monitor(eventHandler))
+
+    private class Monitor(eventHandler: ActorRef[PublisherMessage]) extends AbstractBehavior[MonitorMessage] {
+      override def onMessage(msg: MonitorMessage): Behavior[MonitorMessage] = {
+        msg match {
+          case x: currentStateChangeMsg if x.currentState.stateName.name == EventConstants.CURRENT_POSITION =>
+            eventHandler ! Publish(eventTransformer.getCurrentPositionEvent(x.currentState, Instant.now()))
+          case x: currentStateChangeMsg =>
+            eventHandler ! Publish(eventTransformer.getHealthEvent(x.currentState, Instant.now()))
+          case x: GetCurrentState => eventHandler ! Flushed(x.actorRef)
+          case _                  =>
+        }
+        monitor(eventHandler)
+      }
+    }
+
+    private def publisher(sink: Event => Unit): Behavior[PublisherMessage] =
+      Behaviors.setup[PublisherMessage](_ => new Publisher(sink))
+
+    private class Publisher(sink: Event => Unit) extends AbstractBehavior[PublisherMessage] {
+      override def onMessage(msg: PublisherMessage): Behavior[PublisherMessage] = {
+        msg match {
+          case x: Publish => sink(x.event)
+          case x: Flushed => x.replyTo ! AssemblyCurrentState(AssemblyLifeCycleState.Running, AssemblyOperationalState.Running)
+        }
+        publisher(sink)
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package org.tmt.tcs.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import com.google.protobuf.Timestamp
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.FixedLayout.{CurrentPositionFlyweight, PositionDemandFlyweight}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.{McsCurrentPositionEvent, TcsPositionDemandEvent}
+
+/*
+Encoding and decoding of the position demand and current position messages with protobuf, as
+done by ProtoBuffMsgTransformer, and with the fixed-layout flyweights of FixedLayout. Run with the
+gc profiler for the bytes allocated per message:
+
+sbt "tcs-benchmarks/jmh:run McsCodecBenchmark -prof gc"
+
+The encoded position demand is 48 bytes in the fixed layout against about 60 with protobuf, the
+current position 56 against about 55; the fixed layout saves the encoding work rather than bytes.
+ */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class McsCodecBenchmark {
+
+  private val azimuth                    = 120.25
+  private val elevation                  = 45.5
+  private val epochNanos                 = System.currentTimeMillis() * 1000000L + 123456L
+  private val seconds                    = Math.floorDiv(epochNanos, 1000000000L)
+  private val nanos                      = Math.floorMod(epochNanos, 1000000000L).toInt
+  private val buffer                     = new Array[Byte](256)
+  private val demand                     = new PositionDemandFlyweight
+  private val position                   = new CurrentPositionFlyweight
+  private var protoDemand: Array[Byte]   = _
+  private var protoPosition: Array[Byte] = _
+  private var fixedDemand: Array[Byte]   = _
+  private var fixedPosition: Array[Byte] = _
+
+  @Setup
+  def setup(): Unit = {
+    protoDemand = protobufEncodeDemand()
+    protoPosition = protobufEncodePosition()
+    fixedDemand = new Array[Byte](demand.length)
+    demand.wrap(fixedDemand, 0).writeHeader().azimuth(azimuth).elevation(elevation)
+    fixedPosition = new Array[Byte](position.length)
+    position.wrap(fixedPosition, 0).writeHeader().azPos(azimuth).elPos(elevation).inPosition(az = true, el = true)
+  }
+
+  private def timestamp(): Timestamp = Timestamp.newBuilder().setSeconds(seconds).setNanos(nanos).build()
+
+  @Benchmark
+  def protobufEncodeDemand(): Array[Byte] =
+    TcsPositionDemandEvent
+      .newBuilder()
+      .setAzimuth(azimuth)
+      .setElevation(elevation)
+      .setTpkPublishTime(timestamp())
+      .setAssemblyReceivalTime(timestamp())
+      .setHcdReceivalTime(timestamp())
+      .build()
+      .toByteArray
+
+  @Benchmark
+  def fixedLayoutEncodeDemand(): Int = {
+    demand
+      .wrap(buffer, 0)
+      .writeHeader()
+      .azimuth(azimuth)
+      .elevation(elevation)
+      .tpkPublishTime(epochNanos)
+      .assemblyReceivalTime(epochNanos)
+      .hcdReceivalTime(epochNanos)
+    demand.length
+  }
+
+  @Benchmark
+  def protobufDecodeDemand(blackhole: Blackhole): Unit = {
+    val event = TcsPositionDemandEvent.parseFrom(protoDemand)
+    blackhole.consume(event.getAzimuth)
+    blackhole.consume(event.getElevation)
+    blackhole.consume(event.getTpkPublishTime.getSeconds)
+    blackhole.consume(event.getAssemblyReceivalTime.getSeconds)
+    blackhole.consume(event.getHcdReceivalTime.getSeconds)
+  }
+
+  @Benchmark
+  def fixedLayoutDecodeDemand(blackhole: Blackhole): Unit = {
+    demand.wrap(fixedDemand, 0)
+    blackhole.consume(demand.isValid(fixedDemand.length))
+    blackhole.consume(demand.azimuth)
+    blackhole.consume(demand.elevation)
+    blackhole.consume(demand.tpkPublishTime)
+    blackhole.consume(demand.assemblyReceivalTime)
+    blackhole.consume(demand.hcdReceivalTime)
+  }
+
+  @Benchmark
+  def protobufEncodePosition(): Array[Byte] =
+    McsCurrentPositionEvent
+      .newBuilder()
+      .setAzPos(azimuth)
+      .setElPos(elevation)
+      .setAzPosError(1.5e-6)
+      .setElPosError(-2.5e-6)
+      .setAzInPosition(true)
+      .setElInPosition(true)
+      .setTime(timestamp())
+      .build()
+      .toByteArray
+
+  @Benchmark
+  def fixedLayoutEncodePosition(): Int = {
+    position
+      .wrap(buffer, 0)
+      .writeHeader()
+      .azPos(azimuth)
+      .elPos(elevation)
+      .azPosError(1.5e-6)
+      .elPosError(-2.5e-6)
+      .time(epochNanos)
+      .inPosition(az = true, el = true)
+    position.length
+  }
+
+  @Benchmark
+  def protobufDecodePosition(blackhole: Blackhole): Unit = {
+    val event = McsCurrentPositionEvent.parseFrom(protoPosition)
+    blackhole.consume(event.getAzPos)
+    blackhole.consume(event.getElPos)
+    blackhole.consume(event.getAzPosError)
+    blackhole.consume(event.getElPosError)
+    blackhole.consume(event.getAzInPosition)
+    blackhole.consume(event.getElInPosition)
+    blackhole.consume(event.getTime.getSeconds)
+  }
+
+  @Benchmark
+  def fixedLayoutDecodePosition(blackhole: Blackhole): Unit = {
+    position.wrap(fixedPosition, 0)
+    blackhole.consume(position.isValid(fixedPosition.length))
+    blackhole.consume(position.azPos)
+    blackhole.consume(position.elPos)
+    blackhole.consume(position.azPosError)
+    blackhole.consume(position.elPosError)
+    blackhole.consume(position.azInPosition)
+    blackhole.consume(position.elInPosition)
+    blackhole.consume(position.time)
+  }
+}
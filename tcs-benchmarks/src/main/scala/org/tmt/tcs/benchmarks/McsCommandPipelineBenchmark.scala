@@ -0,0 +1,77 @@
+package org.tmt.tcs.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import com.typesafe.config.ConfigFactory
+import org.openjdk.jmh.annotations._
+import org.tmt.tcs.mcs.MCShcd.Protocol.{McsCommandPipeline, MountServo, StandInMcs}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsCommandProtos.FollowCommand
+import org.zeromq.ZMQ
+
+import scala.concurrent.{Await, Future}
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+
+/*
+Latency and throughput of MCS commands through the command pipeline against StandInMcs, which
+replies at once to every command over loopback TCP as the MCS simulator does.
+
+roundTrip has one command in flight at a time, pipelined keeps InFlight commands in flight and
+reports per command.
+
+Run with: sbt "tcs-benchmarks/jmh:run McsCommandPipelineBenchmark"
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class McsCommandPipelineBenchmark {
+
+  @Param(Array("false", "true"))
+  var correlationFrames: Boolean = _
+
+  private val InFlight                       = 32
+  private var zmqContext: ZMQ.Context        = _
+  private var pipeline: McsCommandPipeline   = _
+  private var standIn: StandInMcs            = _
+  private val payload: Array[Byte]           = FollowCommand.newBuilder().build().toByteArray
+
+  @Setup
+  def setup(): Unit = {
+    zmqContext = ZMQ.context(1)
+    pipeline = new McsCommandPipeline(zmqContext,
+                                      McsCommandPipeline.Settings(1.second, 100.millis, 4 * InFlight, correlationFrames))
+    pipeline.connect("tcp://127.0.0.1:55679", "tcp://127.0.0.1:55678")
+    standIn = new StandInMcs(
+      zmqContext,
+      StandInMcs.Endpoints("tcp://127.0.0.1:55679", "tcp://127.0.0.1:55678", "tcp://127.0.0.1:55680", "tcp://127.0.0.1:55681"),
+      StandInMcs.Settings(Duration.Zero, 0, 0, 0, 0, "protobuf"),
+      MountServo.Settings(ConfigFactory.load().getConfig("tcs.mcs-hcd.simulator-servo"))
+    )
+    standIn.start()
+    // wait for the stand-in to connect
+    Await.result(pipeline.submit("Startup", payload), 5.seconds)
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    standIn.stop()
+    pipeline.close()
+    zmqContext.term()
+  }
+
+  @Benchmark
+  @BenchmarkMode(Array(Mode.SampleTime))
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  def roundTrip(): Array[Byte] =
+    Await.result(pipeline.submit("Follow", payload), 1.second)
+
+  @Benchmark
+  @BenchmarkMode(Array(Mode.Throughput))
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(32)
+  def pipelined(): Seq[Array[Byte]] = {
+    val replies = (1 to InFlight).map(_ => pipeline.submit("Follow", payload))
+    Await.result(Future.sequence(replies), 1.second)
+  }
+}
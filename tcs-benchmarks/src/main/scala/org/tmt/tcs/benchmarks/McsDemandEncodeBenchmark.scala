@@ -0,0 +1,66 @@
+package org.tmt.tcs.benchmarks
+
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.core.models.Prefix
+import csw.params.events.{EventName, SystemEvent}
+import org.openjdk.jmh.annotations._
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.ProtoBuffMsgTransformer
+
+/*
+Encoding of a position demand event by the MCS HCD with protobuf, through the builders and
+toByteArray, and in place into the demand buffer as done by ZeroMQProtocolActor. Run with the gc
+profiler for the bytes allocated per demand:
+
+sbt "tcs-benchmarks/jmh:run McsDemandEncodeBenchmark -prof gc"
+ */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class McsDemandEncodeBenchmark {
+
+  private val transformer        = ProtoBuffMsgTransformer.create(new LoggerFactory("McsDemandEncodeBenchmark"))
+  private val buffer             = new Array[Byte](65536)
+  private var offset             = 0
+  private var event: SystemEvent = _
+
+  @Setup
+  def setup(): Unit = {
+    event = McsDemandEncodeBenchmark.demandEvent(120.25, 45.5)
+    val length = transformer.encodeEvent(event, buffer, 0)
+    if (!java.util.Arrays.equals(transformer.encodeEvent(event), java.util.Arrays.copyOf(buffer, length))) {
+      throw new IllegalStateException("in place encoding differs from toByteArray")
+    }
+  }
+
+  @Benchmark
+  def builders(): Array[Byte] = transformer.encodeEvent(event)
+
+  @Benchmark
+  def inPlace(): Int = {
+    val length = transformer.encodeEvent(event, buffer, offset)
+    offset += length
+    if (offset + 256 > buffer.length) offset = 0
+    length
+  }
+}
+
+object McsDemandEncodeBenchmark {
+
+  // a position demand as the MCS assembly forwards it to the HCD
+  def demandEvent(azimuth: Double, elevation: Double): SystemEvent = {
+    val now = Instant.now
+    SystemEvent(Prefix(EventConstants.TPK_PREFIX), EventName(EventConstants.MOUNT_DEMAND_POSITION))
+      .add(EventConstants.AzPosKey.set(azimuth))
+      .add(EventConstants.ElPosKey.set(elevation))
+      .add(EventConstants.TimeStampKey.set(now))
+      .add(EventConstants.ASSEMBLY_RECEIVAL_TIME_KEY.set(now))
+      .add(EventConstants.HcdReceivalTime_Key.set(now))
+  }
+}
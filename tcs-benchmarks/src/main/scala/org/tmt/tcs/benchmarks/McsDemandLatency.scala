@@ -0,0 +1,99 @@
+package org.tmt.tcs.benchmarks
+
+import java.util.concurrent.locks.LockSupport
+
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.events.SystemEvent
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.ProtoBuffMsgTransformer
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.TcsPositionDemandEvent
+import org.zeromq.ZMQ
+
+/*
+Latency of position demands from the time they are due to be sent by the MCS HCD to their receipt
+by a subscriber standing in for the MCS, over loopback TCP at 100 Hz and 1 kHz, with the demands
+encoded through the protobuf builders and in place into the demand buffer.
+
+Run with: sbt "tcs-benchmarks/runMain org.tmt.tcs.benchmarks.McsDemandLatency [seconds per rate]"
+ */
+object McsDemandLatency {
+
+  private val Rates    = Seq(100, 1000)
+  private val Endpoint = "tcp://127.0.0.1:55681"
+
+  def main(args: Array[String]): Unit = {
+    val seconds    = if (args.length > 0) args(0).toInt else 10
+    val zmqContext = ZMQ.context(1)
+    for (rate <- Rates; inPlace <- Seq(false, true)) {
+      run(zmqContext, rate, seconds, inPlace)
+    }
+    zmqContext.term()
+  }
+
+  private def run(zmqContext: ZMQ.Context, rate: Int, seconds: Int, inPlace: Boolean): Unit = {
+    val pubSocket = zmqContext.socket(ZMQ.PUB)
+    val subSocket = zmqContext.socket(ZMQ.SUB)
+    pubSocket.bind(Endpoint)
+    subSocket.connect(Endpoint)
+    subSocket.subscribe(ZMQ.SUBSCRIPTION_ALL)
+    subSocket.setReceiveTimeOut(1000)
+    // let the subscription reach the publisher
+    Thread.sleep(500)
+
+    val demands   = rate * seconds
+    val sendNanos = new Array[Long](demands)
+    val latencies = new Array[Long](demands)
+    var received  = 0
+    val subscriber = new Thread(new Runnable {
+      override def run(): Unit = {
+        while (received < demands && subSocket.recv(0) != null) {
+          val demand = TcsPositionDemandEvent.parseFrom(subSocket.recv(0))
+          latencies(received) = System.nanoTime() - sendNanos(received)
+          if (demand.getAzimuth < 0) throw new IllegalStateException("unexpected demand")
+          received += 1
+        }
+      }
+    }, "stand-in-mcs")
+    subscriber.start()
+
+    val transformer = ProtoBuffMsgTransformer.create(new LoggerFactory("McsDemandLatency"))
+    val buffer      = new Array[Byte](65536)
+    var offset      = 0
+    val periodNanos = 1000000000L / rate
+    val start       = System.nanoTime() + periodNanos
+    var i           = 0
+    while (i < demands) {
+      val event: SystemEvent = McsDemandEncodeBenchmark.demandEvent(120 + i * 1e-6, 45)
+      val dueNanos           = start + i * periodNanos
+      var delay              = dueNanos - System.nanoTime()
+      while (delay > 0) {
+        LockSupport.parkNanos(delay)
+        delay = dueNanos - System.nanoTime()
+      }
+      // latency counts from the time the demand was due, so a late send is not hidden
+      sendNanos(i) = dueNanos
+      pubSocket.sendMore(EventConstants.MOUNT_DEMAND_POSITION)
+      if (inPlace) {
+        val length = transformer.encodeEvent(event, buffer, offset)
+        pubSocket.send(buffer, offset, length, 0)
+        offset += length
+        if (offset + 256 > buffer.length) offset = 0
+      } else {
+        pubSocket.send(transformer.encodeEvent(event))
+      }
+      i += 1
+    }
+    subscriber.join()
+
+    val sorted = java.util.Arrays.copyOf(latencies, received)
+    java.util.Arrays.sort(sorted)
+    def percentile(p: Double): Double = if (received == 0) 0 else sorted(math.min(received - 1, (p * received).toInt)) / 1000.0
+    println(
+      f"${if (inPlace) "in place" else "builders"} $rate%5d Hz: $received%6d of $demands%6d demands, latency us " +
+      f"p50 ${percentile(0.5)}%.1f p90 ${percentile(0.9)}%.1f p99 ${percentile(0.99)}%.1f p99.9 ${percentile(0.999)}%.1f " +
+      f"max ${percentile(1)}%.1f"
+    )
+    subSocket.close()
+    pubSocket.close()
+  }
+}
@@ -0,0 +1,93 @@
+package org.tmt.tcs.benchmarks
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+import com.google.protobuf.Timestamp
+import csw.logging.scaladsl.LoggerFactory
+import csw.params.core.states.CurrentState
+import org.openjdk.jmh.annotations._
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.{IMessageTransformer, ProtoBuffEventDecoder, ProtoBuffMsgTransformer}
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsEventsProtos.{McsCurrentPositionEvent, McsHealth}
+
+/*
+Time and allocation per MCS event received by the HCD, for the decoding done per event before,
+a topic string, a copy of the event, the protobuf message and a current state built parameter by
+parameter, and for the ProtoBuffEventDecoder. Run with the gc profiler for the allocation per event:
+
+sbt "tcs-benchmarks/jmh:run McsEventDecoderBenchmark -prof gc"
+ */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class McsEventDecoderBenchmark {
+
+  @Param(Array("CurrentPosition", "Health"))
+  var topic: String = _
+
+  private val loggerFactory                       = new LoggerFactory("McsEventDecoderBenchmark")
+  private val transformer: IMessageTransformer    = ProtoBuffMsgTransformer.create(loggerFactory)
+  private val decoder: ProtoBuffEventDecoder      = ProtoBuffEventDecoder.create(loggerFactory)
+  private var topicFrame: Array[Byte]             = _
+  private var eventFrame: Array[Byte]             = _
+  // stands for the receive buffers of ZeroMQEventReceiver
+  private val eventBuffer: Array[Byte]            = new Array[Byte](4096)
+
+  @Setup
+  def setup(): Unit = {
+    topicFrame = topic.getBytes(StandardCharsets.US_ASCII)
+    eventFrame = McsEventDecoderBenchmark.encodedEvent(topic)
+    System.arraycopy(eventFrame, 0, eventBuffer, 0, eventFrame.length)
+  }
+
+  @Benchmark
+  def perEventObjects(): CurrentState = {
+    val eventName = new String(topicFrame, StandardCharsets.UTF_8)
+    val eventData = eventFrame.clone()
+    transformer
+      .decodeEvent(eventName, eventData)
+      .add(EventConstants.hcdEventReceivalTime_Key.set(Instant.now))
+  }
+
+  @Benchmark
+  def reusedBuffers(): CurrentState =
+    decoder.decode(decoder.topicIndex(topicFrame, topicFrame.length), eventBuffer, 0, eventFrame.length, Instant.now)
+}
+
+object McsEventDecoderBenchmark {
+
+  def encodedEvent(topic: String): Array[Byte] = {
+    val now  = Instant.now
+    val time = Timestamp.newBuilder().setSeconds(now.getEpochSecond).setNanos(now.getNano).build()
+    topic match {
+      case EventConstants.CURRENT_POSITION =>
+        McsCurrentPositionEvent
+          .newBuilder()
+          .setAzPos(120.25)
+          .setAzPosDemand(120.25)
+          .setAzPosError(1.5e-6)
+          .setAzInPosition(true)
+          .setElPos(45.5)
+          .setElPosDemand(45.5)
+          .setElPosError(-2.5e-6)
+          .setElInPosition(true)
+          .setEncodeLatchingTime(time)
+          .setTime(time)
+          .build()
+          .toByteArray
+      case EventConstants.HEALTH_STATE =>
+        McsHealth
+          .newBuilder()
+          .setHealthMCS(McsHealth.Health.Good)
+          .setReason("All is well")
+          .setTime(time)
+          .build()
+          .toByteArray
+    }
+  }
+}
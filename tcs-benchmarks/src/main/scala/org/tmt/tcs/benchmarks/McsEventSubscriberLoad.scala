@@ -0,0 +1,118 @@
+package org.tmt.tcs.benchmarks
+
+import java.lang.management.ManagementFactory
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.util.concurrent.locks.LockSupport
+
+import csw.logging.scaladsl.LoggerFactory
+import org.tmt.tcs.mcs.MCShcd.Protocol.ZeroMQEventReceiver
+import org.tmt.tcs.mcs.MCShcd.constants.EventConstants
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.{ProtoBuffEventDecoder, ProtoBuffMsgTransformer}
+import org.zeromq.ZMQ
+
+/*
+Receives MCS current position events published over loopback TCP at 100 Hz, 1 kHz and 10 kHz,
+once decoding them as done per event before and once with the ZeroMQEventReceiver, and reports
+the events per second received and the bytes the subscriber thread allocated per event.
+
+Run with: sbt "tcs-benchmarks/runMain org.tmt.tcs.benchmarks.McsEventSubscriberLoad [seconds per rate]"
+ */
+object McsEventSubscriberLoad {
+
+  private val Rates    = Seq(100, 1000, 10000)
+  private val Endpoint = "tcp://127.0.0.1:55680"
+
+  private val loggerFactory = new LoggerFactory("McsEventSubscriberLoad")
+  private val threadBean    = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  def main(args: Array[String]): Unit = {
+    val seconds    = if (args.length > 0) args(0).toInt else 10
+    val zmqContext = ZMQ.context(1)
+    for (rate <- Rates; reusedBuffers <- Seq(false, true)) {
+      run(zmqContext, rate, seconds, reusedBuffers)
+    }
+    zmqContext.term()
+  }
+
+  private def run(zmqContext: ZMQ.Context, rate: Int, seconds: Int, reusedBuffers: Boolean): Unit = {
+    val pubSocket = zmqContext.socket(ZMQ.PUB)
+    val subSocket = zmqContext.socket(ZMQ.SUB)
+    pubSocket.bind(Endpoint)
+    subSocket.connect(Endpoint)
+    subSocket.subscribe(ZMQ.SUBSCRIPTION_ALL)
+    subSocket.setReceiveTimeOut(100)
+    // let the subscription reach the publisher
+    Thread.sleep(500)
+
+    val events     = rate.toLong * seconds
+    val subscriber = new Subscriber(subSocket, events, reusedBuffers)
+    val thread     = new Thread(subscriber, "mcs-event-subscriber")
+    thread.start()
+
+    val topic       = EventConstants.CURRENT_POSITION.getBytes(StandardCharsets.US_ASCII)
+    val periodNanos = 1000000000L / rate
+    val start       = System.nanoTime()
+    var i           = 0L
+    while (i < events) {
+      val sendTime = start + i * periodNanos
+      var delay    = sendTime - System.nanoTime()
+      while (delay > 0) {
+        LockSupport.parkNanos(delay)
+        delay = sendTime - System.nanoTime()
+      }
+      pubSocket.sendMore(topic)
+      pubSocket.send(McsEventDecoderBenchmark.encodedEvent(EventConstants.CURRENT_POSITION))
+      i += 1
+    }
+    thread.join()
+    val elapsedSeconds = (subscriber.lastNanos - subscriber.firstNanos) / 1e9
+    println(
+      f"${if (reusedBuffers) "reused buffers  " else "per event objects"} $rate%6d Hz: " +
+      f"${subscriber.received}%8d events, ${(subscriber.received - 1) / elapsedSeconds}%9.1f events/s, " +
+      f"${subscriber.allocatedBytes.toDouble / subscriber.received}%8.1f bytes/event"
+    )
+    subSocket.close()
+    pubSocket.close()
+  }
+
+  private class Subscriber(socket: ZMQ.Socket, events: Long, reusedBuffers: Boolean) extends Runnable {
+    @volatile var received: Long       = 0
+    @volatile var allocatedBytes: Long = 0
+    @volatile var firstNanos: Long     = 0
+    @volatile var lastNanos: Long      = 0
+
+    override def run(): Unit = {
+      val transformer = ProtoBuffMsgTransformer.create(loggerFactory)
+      val receiver    = new ZeroMQEventReceiver(socket, ProtoBuffEventDecoder.create(loggerFactory), loggerFactory.getLogger)
+      val threadId    = Thread.currentThread().getId
+      var count       = 0L
+      var idle        = 0
+      var allocated   = 0L
+      // stops once all events arrived or none arrived for a second
+      while (count < events && idle < 10) {
+        val before = threadBean.getThreadAllocatedBytes(threadId)
+        val currentState =
+          if (reusedBuffers) receiver.receive()
+          else {
+            val eventName = socket.recvStr()
+            if (eventName == null) null
+            else {
+              val eventData = socket.recv(ZMQ.NOBLOCK)
+              transformer.decodeEvent(eventName, eventData).add(EventConstants.hcdEventReceivalTime_Key.set(Instant.now))
+            }
+          }
+        if (currentState == null) idle += 1
+        else {
+          idle = 0
+          allocated += threadBean.getThreadAllocatedBytes(threadId) - before
+          if (count == 0) firstNanos = System.nanoTime()
+          lastNanos = System.nanoTime()
+          count += 1
+        }
+      }
+      received = count
+      allocatedBytes = allocated
+    }
+  }
+}
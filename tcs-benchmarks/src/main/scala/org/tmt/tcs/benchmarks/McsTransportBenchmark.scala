@@ -0,0 +1,74 @@
+package org.tmt.tcs.benchmarks
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+import com.typesafe.config.ConfigFactory
+import org.openjdk.jmh.annotations._
+import org.tmt.tcs.mcs.MCShcd.Protocol._
+import org.tmt.tcs.mcs.MCShcd.msgTransformers.protos.TcsMcsCommandProtos.FollowCommand
+import org.zeromq.ZMQ
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+/*
+Round trip of an MCS command through the command pipeline against StandInMcs over each transport
+the HCD can use: ZeroMQ over loopback TCP, ZeroMQ inproc and the memory mapped rings of
+SharedMemoryTransport, in a temporary directory.
+
+Run with: sbt "tcs-benchmarks/jmh:run McsTransportBenchmark"
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class McsTransportBenchmark {
+
+  @Param(Array("tcp", "inproc", "shared-memory"))
+  var transport: String = _
+
+  private var zmqContext: ZMQ.Context             = _
+  private var pipeline: McsCommandPipeline        = _
+  private var standIn: StandInMcs                 = _
+  private var sharedMemory: SharedMemoryTransport = _
+  private val payload: Array[Byte]                = FollowCommand.newBuilder().build().toByteArray
+
+  @Setup
+  def setup(): Unit = {
+    zmqContext = ZMQ.context(1)
+    pipeline = new McsCommandPipeline(zmqContext, McsCommandPipeline.Settings(1.second, 100.millis, 64, false))
+    val address = if (transport == "inproc") "inproc://mcs-" else "tcp://127.0.0.1:"
+    val endpoints = StandInMcs.Endpoints(address + 55679, address + 55678, address + 55680, address + 55681)
+    val servoSettings = MountServo.Settings(ConfigFactory.load().getConfig("tcs.mcs-hcd.simulator-servo"))
+    val standInSettings = StandInMcs.Settings(Duration.Zero, 0, 0, 0, 0, "protobuf")
+
+    if (transport == "shared-memory") {
+      val rings = SharedMemoryTransport.Settings(Files.createTempDirectory("tcs-mcs").toString, 1 << 20)
+      sharedMemory = SharedMemoryTransport.create(rings)
+      pipeline.connect(new SharedMemoryCommandChannel(sharedMemory.commands, sharedMemory.replies))
+      standIn = new StandInMcs(zmqContext, endpoints, standInSettings, servoSettings, SharedMemoryTransport.open(rings))
+    } else {
+      // inproc needs the push socket bound before the stand-in connects to it
+      pipeline.connect(endpoints.commands, endpoints.replies)
+      standIn = new StandInMcs(zmqContext, endpoints, standInSettings, servoSettings)
+    }
+    standIn.start()
+    // wait for the stand-in to connect
+    Await.result(pipeline.submit("Startup", payload), 5.seconds)
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    standIn.stop()
+    pipeline.close()
+    if (sharedMemory != null) sharedMemory.close()
+    zmqContext.term()
+  }
+
+  @Benchmark
+  @BenchmarkMode(Array(Mode.SampleTime))
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  def roundTrip(): Array[Byte] =
+    Await.result(pipeline.submit("Follow", payload), 1.second)
+}
@@ -18,8 +18,11 @@ import csw.logging.javadsl.JLoggingSystemFactory;
 import csw.params.core.generics.Parameter;
 import csw.params.core.models.Prefix;
 import csw.params.events.Event;
-import csw.params.events.EventKey;
-import csw.params.events.EventName;
+import org.tmt.tcs.icd.enc.EncAssemblyState;
+import org.tmt.tcs.icd.enc.EncCurrentPosition;
+import org.tmt.tcs.icd.enc.EncDiagnostic;
+import org.tmt.tcs.icd.enc.EncHealth;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -77,8 +80,7 @@ public class ENCEventsClient {
      */
         private IEventSubscription subscribeCurrentPosition(){
             IEventSubscriber subscriber = eventService.defaultSubscriber();
-            EventKey currentPositionEventKey = new EventKey(new Prefix("tmt.tcs.ecs"), new EventName("currentPosition"));
-            return subscriber.subscribeAsync(Collections.singleton(currentPositionEventKey), this::currentPositionCallback);
+            return subscriber.subscribeAsync(Collections.singleton(EncCurrentPosition.EVENT_KEY), this::currentPositionCallback);
         }
 
     /**
@@ -88,15 +90,13 @@ public class ENCEventsClient {
      */
         private CompletableFuture<String> currentPositionCallback(Event event){
             Instant clientInstantTime = Instant.now();
-            Parameter basePosParam = event.paramSet().find(x -> x.keyName().equals("basePosKey")).get();
-            Parameter capPosParam = event.paramSet().find(x -> x.keyName().equals("capPosKey")).get();
-            Parameter subsystemTimestampParam = event.paramSet().find(x -> x.keyName().equals("subsystemTimestampKey")).get();
-            Parameter hcdTimestampParam = event.paramSet().find(x -> x.keyName().equals("hcdTimestampKey")).get();
-            Parameter assemblyTimestampParam = event.paramSet().find(x -> x.keyName().equals("assemblyTimestampKey")).get();
+            EncCurrentPosition.Reader currentPosition = EncCurrentPosition.read(event);
+            Parameter basePosParam = currentPosition.baseParam();
+            Parameter capPosParam = currentPosition.capParam();
 
-            Instant subsystemInstantTime = (Instant) subsystemTimestampParam.value(0);
-            Instant hcdInstantTime = (Instant) hcdTimestampParam.value(0);
-            Instant assemblyInstantTime = (Instant) assemblyTimestampParam.value(0);
+            Instant subsystemInstantTime = currentPosition.subsystemTime();
+            Instant hcdInstantTime = currentPosition.hcdTime();
+            Instant assemblyInstantTime = currentPosition.assemblyTime();
 
             long hcdToClientDuration = Duration.between(hcdInstantTime, clientInstantTime).toNanos();
             long subsystemToClientDuration = Duration.between(subsystemInstantTime, clientInstantTime).toNanos();
@@ -116,8 +116,7 @@ public class ENCEventsClient {
      */
     private IEventSubscription subscribeAssemblyState(){
         IEventSubscriber subscriber = eventService.defaultSubscriber();
-        EventKey assemblyStateEventKey = new EventKey(new Prefix("tmt.tcs.ecs"), new EventName("assemblyState"));
-        return subscriber.subscribeAsync(Collections.singleton(assemblyStateEventKey), this::currentAssemblyStateCallback);
+        return subscriber.subscribeAsync(Collections.singleton(EncAssemblyState.EVENT_KEY), this::currentAssemblyStateCallback);
     }
 
     /**
@@ -126,10 +125,10 @@ public class ENCEventsClient {
      * @return
      */
     private CompletableFuture<String> currentAssemblyStateCallback(Event event){
-        Parameter lifecycleStateParam = event.paramSet().find(x -> x.keyName().equals("LifecycleState")).get();
-        Parameter operationalStateParam = event.paramSet().find(x -> x.keyName().equals("OperationalState")).get();
-        Parameter assemblyStateTimeParam = event.paramSet().find(x -> x.keyName().equals("assemblyStateTimeKey")).get();
-        Instant assemblyStateTime = (Instant) assemblyStateTimeParam.value(0);
+        EncAssemblyState.Reader assemblyState = EncAssemblyState.read(event);
+        Parameter lifecycleStateParam = assemblyState.lifecycleParam();
+        Parameter operationalStateParam = assemblyState.operationalParam();
+        Instant assemblyStateTime = assemblyState.time();
 
         //log.info(()->event.eventName().name()+", "+ lifecycleStateParam.value(0) + ", "+ operationalStateParam.value(0) + ", " + assemblyStateTime + ", " + "-"+ ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-");
         log.info(()->"Event="+event.eventName().name()+", Lifecycle state="+ lifecycleStateParam.value(0) + ", operational state="+ operationalStateParam.value(0) + ", subsystem time=" + "NA" + ", hcd time=" + "NA"+ ", assembly time=" + assemblyStateTime + ", subscriber time=" + "NA" + ", Duration(hcd to subscriber in ms)=" + "NA" + ", Duration(subsystem to subscriber in ms)=" + "NA" + ", Duration(hcd to assembly in ms)=" + "NA");
@@ -143,8 +142,7 @@ public class ENCEventsClient {
      */
     private IEventSubscription subscribeHealth(){
         IEventSubscriber subscriber = eventService.defaultSubscriber();
-        EventKey healthEventKey = new EventKey(new Prefix("tmt.tcs.ecs"), new EventName("health"));
-        return subscriber.subscribeAsync(Collections.singleton(healthEventKey), this::healthCallback);
+        return subscriber.subscribeAsync(Collections.singleton(EncHealth.EVENT_KEY), this::healthCallback);
     }
 
     /**
@@ -154,13 +152,12 @@ public class ENCEventsClient {
      */
     private CompletableFuture<String> healthCallback(Event event){
         //log.info("health event received - " + event);
-        Parameter healthParam = event.paramSet().find(x -> x.keyName().equals("healthKey")).get();
-        Parameter healthReasonParam = event.paramSet().find(x -> x.keyName().equals("healthReasonKey")).get();
-        Parameter healthTimeParam = event.paramSet().find(x -> x.keyName().equals("healthTimeKey")).get();
-        Parameter assemblyTimestampParam = event.paramSet().find(x -> x.keyName().equals("assemblyTimestampKey")).get();
+        EncHealth.Reader health = EncHealth.read(event);
+        Parameter healthParam = health.healthParam();
+        Parameter healthReasonParam = health.reasonParam();
 
-        Instant assemblyInstantTime = (Instant) assemblyTimestampParam.value(0);
-        Instant healthTime = (Instant) healthTimeParam.value(0);
+        Instant assemblyInstantTime = health.assemblyTime();
+        Instant healthTime = health.time();
 
         //log.info(()->event.eventName().name()+", "+ healthParam.value(0) + ", "+ healthReasonParam.value(0) + ", " + healthTime + ", " + "-"+ ", " + assemblyInstantTime + ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-");
         log.info(()->"Event="+event.eventName().name()+", health="+ healthParam.value(0) + ", reason="+ healthReasonParam.value(0) + ", subsystem time=" + healthTime + ", hcd time=" + "NA"+ ", assembly time=" + assemblyInstantTime + ", subscriber time=" + "NA" + ", Duration(hcd to subscriber in ms)=" + "NA" + ", Duration(subsystem to subscriber in ms)=" + "NA" + ", Duration(hcd to assembly in ms)=" + "NA");
@@ -174,8 +171,7 @@ public class ENCEventsClient {
      */
     private IEventSubscription subscribeDiagnostic(){
         IEventSubscriber subscriber = eventService.defaultSubscriber();
-        EventKey healthEventKey = new EventKey(new Prefix("tmt.tcs.ecs"), new EventName("diagnostic"));
-        return subscriber.subscribeAsync(Collections.singleton(healthEventKey), this::diagnosticCallback);
+        return subscriber.subscribeAsync(Collections.singleton(EncDiagnostic.EVENT_KEY), this::diagnosticCallback);
     }
 
     /**
@@ -185,10 +181,10 @@ public class ENCEventsClient {
      */
     private CompletableFuture<String> diagnosticCallback(Event event){
         //log.info("diagnostic event received - " + event);
-        Parameter diagnosticBytesParam = event.paramSet().find(x -> x.keyName().equals("diagnosticBytesKey")).get();
-        Parameter diagnosticTimeParam = event.paramSet().find(x -> x.keyName().equals("diagnosticTimeKey")).get();
+        EncDiagnostic.Reader diagnostic = EncDiagnostic.read(event);
+        Parameter diagnosticBytesParam = diagnostic.bytesParam();
 
-        Instant diagnosticTime = (Instant) diagnosticTimeParam.value(0);
+        Instant diagnosticTime = diagnostic.time();
 
         //log.info(()->event.eventName().name()+", "+ diagnosticBytesParam.value(0) + ", "+ "-" + ", " + diagnosticTime + ", " + "-"+ ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-");
         log.info(()->"Event="+event.eventName().name()+", diagnostics="+ diagnosticBytesParam.value(0) + ", param2="+ "NA" + ", subsystem time=" + diagnosticTime + ", hcd time=" + "NA"+ ", assembly time=" + "NA" + ", subscriber time=" + "NA" + ", Duration(hcd to subscriber in ms)=" + "NA" + ", Duration(subsystem to subscriber in ms)=" + "NA" + ", Duration(hcd to assembly in ms)=" + "NA");
@@ -199,14 +195,14 @@ public class ENCEventsClient {
 
     private IEventSubscription subscribeEncDemandsPositions(){
         IEventSubscriber subscriber = eventService.defaultSubscriber();
-        EventKey eventKey = new EventKey(new Prefix("tcs.pk"), new EventName("encdemandpositions"));
-        return subscriber.subscribeAsync(Collections.singleton(eventKey), this::demandPositionsCallback);
+        return subscriber.subscribeAsync(Collections.singleton(PkEncDemandPositions.EVENT_KEY), this::demandPositionsCallback);
     }
 
 
     private CompletableFuture<String> demandPositionsCallback(Event event){
-        Parameter baseParam = event.paramSet().find(x -> x.keyName().equals("ecs.base")).get();
-        Parameter capParam = event.paramSet().find(x -> x.keyName().equals("ecs.cap")).get();
+        PkEncDemandPositions.Reader demand = PkEncDemandPositions.read(event);
+        Parameter baseParam = demand.baseParam();
+        Parameter capParam = demand.capParam();
         log.info(()->event.eventName().name()+", "+ baseParam.value(0) + ", "+ capParam.value(0) + ", " + "-" + ", " + "-"+ ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-" + ", " + "-");
         return CompletableFuture.completedFuture("Ok");
     }
@@ -18,6 +18,7 @@ import csw.params.core.models.Id;
 import csw.params.core.models.ObsId;
 import csw.params.core.models.Prefix;
 import csw.params.javadsl.JKeyType;
+import org.tmt.tcs.icd.pk.PkOffset;
 import scala.concurrent.duration.FiniteDuration;
 import java.time.Duration;
 import java.util.Optional;
@@ -73,10 +74,19 @@ public class PkClient {
         }
         return CompletableFuture.completedFuture(new CommandResponse.Error(new Id(""), "Can't locate Assembly"));
     }
-}
-
-
-
-
-
 
+    /**
+     * Sends an offset message to the Assembly, offsets are in arcseconds. The response carries
+     * the fast loop tick from which the offset applies and the latency from the command to it.
+     */
+    public CompletableFuture<CommandResponse.SubmitResponse> offset(Optional<ObsId> obsId, Double raOffset, Double decOffset) throws Exception {
+        if (commandServiceOptional.isPresent()) {
+            ICommandService commandService = commandServiceOptional.get();
+            Setup setup = new Setup(source, PkOffset.COMMAND_NAME, obsId)
+                    .add(PkOffset.RA_OFFSET_KEY.set(raOffset))
+                    .add(PkOffset.DEC_OFFSET_KEY.set(decOffset));
+            return commandService.submit(setup, Timeout.durationToTimeout(FiniteDuration.apply(5, TimeUnit.SECONDS)));
+        }
+        return CompletableFuture.completedFuture(new CommandResponse.Error(new Id(""), "Can't locate Assembly"));
+    }
+}
@@ -33,5 +33,13 @@ public class PkClientApp {
         CommandResponse resp1 = cf1.get();
         System.out.println("Inside PkClientApp: setTarget response is: " + resp1);
 
+        // optional offset in arcseconds: pk-client-app raOffset decOffset
+        if (args.length >= 2) {
+            CompletableFuture<CommandResponse.SubmitResponse> cf2 =
+                    pkClient.offset(maybeObsId, Double.parseDouble(args[0]), Double.parseDouble(args[1]));
+            CommandResponse resp2 = cf2.get();
+            System.out.println("Inside PkClientApp: offset response is: " + resp2);
+        }
+
     }
 }
@@ -0,0 +1,136 @@
+package org.tmt.tcs.load;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.actor.Scheduler;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.javadsl.Adapter;
+import akka.actor.typed.javadsl.AskPattern;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.util.Timeout;
+import csw.command.api.javadsl.ICommandService;
+import csw.command.client.CommandServiceFactory;
+import csw.command.client.extensions.AkkaLocationExt;
+import csw.command.client.messages.CommandMessage;
+import csw.command.client.messages.ComponentMessage;
+import csw.location.api.javadsl.ILocationService;
+import csw.location.api.models.AkkaLocation;
+import csw.location.api.models.ComponentId;
+import csw.location.api.models.Connection;
+import csw.location.client.javadsl.JHttpLocationServiceFactory;
+import csw.location.server.commons.ClusterAwareSettings;
+import csw.logging.internal.LoggingSystem;
+import csw.logging.javadsl.ILogger;
+import csw.logging.javadsl.JLoggerFactory;
+import csw.logging.javadsl.JLoggingSystemFactory;
+import csw.params.commands.CommandName;
+import csw.params.commands.CommandResponse;
+import csw.params.commands.Setup;
+import csw.params.core.models.Prefix;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static csw.location.api.javadsl.JComponentType.Assembly;
+
+/**
+ * Sends a command without parameters to an assembly as an open loop load, see OpenLoopLoad,
+ * and logs the latency percentiles of validation, submit and completion.
+ *
+ * Usage: CommandLoadGenerator assembly command rate concurrency count, e.g.
+ * CommandLoadGenerator EncAssembly assemblyTestCommand 200 32 20000 sends 20000
+ * assemblyTestCommand commands to the ENC assembly at 200 commands per second, 32 in flight at most.
+ */
+public class CommandLoadGenerator implements CommandTarget {
+
+    public static ILogger log;
+
+    private static final Prefix SOURCE = new Prefix("tcs.command-load-generator");
+    private static final Timeout TIMEOUT = Timeout.durationToTimeout(FiniteDuration.apply(20, TimeUnit.SECONDS));
+
+    private final ICommandService commandService;
+    private final ActorRef<ComponentMessage> componentRef;
+    private final Scheduler scheduler;
+    private final CommandName commandName;
+
+    public CommandLoadGenerator(AkkaLocation location, akka.actor.typed.ActorSystem<?> system, CommandName commandName) {
+        this.commandService = CommandServiceFactory.jMake(location, system);
+        this.componentRef = new AkkaLocationExt.RichAkkaLocation(location).componentRef();
+        this.scheduler = system.scheduler();
+        this.commandName = commandName;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> validate(long index) {
+        return commandService.validate(command(), TIMEOUT)
+                .thenApply(response -> response instanceof CommandResponse.Accepted);
+    }
+
+    /**
+     * Sends the Submit message to the assembly itself, as ICommandService.submit answers with the
+     * final response only, and subscribes to the final response of a command Started.
+     */
+    @Override
+    public Submission submit(long index) {
+        Setup command = command();
+        CompletableFuture<CommandResponse.SubmitResponse> first = AskPattern.ask(componentRef,
+                (ActorRef<CommandResponse.SubmitResponse> replyTo) -> new CommandMessage.Submit(command, replyTo),
+                TIMEOUT, scheduler).toCompletableFuture();
+        CompletableFuture<CommandResponse.SubmitResponse> last = first.thenCompose(response ->
+                response instanceof CommandResponse.Started
+                        ? commandService.subscribe(command.runId(), TIMEOUT)
+                        : CompletableFuture.completedFuture(response));
+        return new Submission(
+                first.thenApply(response -> response instanceof CommandResponse.Started || isCompleted(response)),
+                last.thenApply(CommandLoadGenerator::isCompleted));
+    }
+
+    private static boolean isCompleted(CommandResponse.SubmitResponse response) {
+        return response instanceof CommandResponse.Completed || response instanceof CommandResponse.CompletedWithResult;
+    }
+
+    private Setup command() {
+        return new Setup(SOURCE, commandName, Optional.empty());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("Usage: CommandLoadGenerator assembly command rate concurrency count");
+            System.exit(1);
+        }
+        String assembly = args[0];
+        CommandName commandName = new CommandName(args[1]);
+        double rate = Double.parseDouble(args[2]);
+        int concurrency = Integer.parseInt(args[3]);
+        long count = Long.parseLong(args[4]);
+
+        ActorSystem system = ClusterAwareSettings.system();
+        Materializer mat = ActorMaterializer.create(system);
+        ILocationService locationService = JHttpLocationServiceFactory.makeLocalClient(system, mat);
+
+        String hostName = InetAddress.getLocalHost().getHostName();
+        LoggingSystem loggingSystem = JLoggingSystemFactory.start("CommandLoadGenerator", "0.1", hostName, system);
+        log = new JLoggerFactory("command-load-generator").getLogger(CommandLoadGenerator.class);
+
+        Connection.AkkaConnection connection = new Connection.AkkaConnection(new ComponentId(assembly, Assembly));
+        Optional<AkkaLocation> location = locationService.resolve(connection, Duration.ofSeconds(30)).get();
+        if (location.isPresent()) {
+            CommandLoadGenerator generator = new CommandLoadGenerator(location.get(), Adapter.toTyped(system), commandName);
+            OpenLoopLoad load = new OpenLoopLoad(generator, rate, concurrency, count);
+            log.info(() -> "Sending " + count + " " + commandName.name() + " commands to " + assembly + " at " + rate
+                    + " commands/s, " + concurrency + " in flight at most");
+            load.run();
+            log.info(load.report());
+        } else {
+            log.error("Can't locate " + assembly);
+        }
+
+        Done done = loggingSystem.javaStop().get();
+        system.terminate();
+    }
+}
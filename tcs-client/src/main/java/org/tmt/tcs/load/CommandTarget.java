@@ -0,0 +1,44 @@
+package org.tmt.tcs.load;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Component the load generator sends its commands to.
+ */
+public interface CommandTarget {
+
+    /**
+     * Validates command number index.
+     *
+     * @return completes with whether the command was accepted
+     */
+    CompletableFuture<Boolean> validate(long index);
+
+    /**
+     * Submits command number index, once validated.
+     *
+     * @return the responses to the submit
+     */
+    Submission submit(long index);
+
+    /**
+     * Responses to a submitted command: the first one, Started for a long running command, and
+     * the final one, the same for a command completed at once.
+     */
+    final class Submission {
+
+        /**
+         * Completes on the first response with whether the command was started or completed
+         */
+        public final CompletableFuture<Boolean> submitted;
+        /**
+         * Completes on the final response with whether the command completed successfully
+         */
+        public final CompletableFuture<Boolean> completed;
+
+        public Submission(CompletableFuture<Boolean> submitted, CompletableFuture<Boolean> completed) {
+            this.submitted = submitted;
+            this.completed = completed;
+        }
+    }
+}
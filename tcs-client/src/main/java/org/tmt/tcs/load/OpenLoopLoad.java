@@ -0,0 +1,180 @@
+package org.tmt.tcs.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open loop command load: command i is due at i / rate seconds from the start, whether or not
+ * the commands before it were answered, with at most concurrency commands in flight.
+ *
+ * A command is validated and, once accepted, submitted. The latencies of each phase are measured
+ * from the time the command was due, not from the time it was sent, so that the time a command
+ * waits behind a slow target, for a free slot or behind a late generator, is counted rather than
+ * hidden as it is by a client sending its next command once the last one is answered:
+ * - validation: until the validation response
+ * - submit: until the first response to the submit, Started for a long running command
+ * - completion: until the final response to the submit
+ *
+ * The latencies are recorded in microseconds, from the threads completing the commands.
+ */
+public class OpenLoopLoad {
+
+    /**
+     * Longer latencies are recorded as this
+     */
+    public static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+    // remaining wait below which the generator spins instead of parking, as in ReplayPacer
+    private static final long SPIN_NANOS = 100_000L;
+
+    private final CommandTarget target;
+    private final long periodNanos;
+    private final int concurrency;
+    private final long count;
+    private final Semaphore slots;
+
+    private final Histogram validation = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final Histogram submit = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final Histogram completion = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong notCompleted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private long elapsedNanos;
+
+    /**
+     * @param rate        commands due per second
+     * @param concurrency commands in flight at most
+     * @param count       commands sent in all
+     */
+    public OpenLoopLoad(CommandTarget target, double rate, int concurrency, long count) {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("rate must be positive, was " + rate);
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1, was " + concurrency);
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1, was " + count);
+        }
+        this.target = target;
+        this.periodNanos = (long) (1e9 / rate);
+        this.concurrency = concurrency;
+        this.count = count;
+        this.slots = new Semaphore(concurrency);
+    }
+
+    /**
+     * Sends all commands and waits until the last one is answered.
+     */
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * periodNanos;
+            awaitNanos(intended);
+            slots.acquire();
+            send(i, intended);
+        }
+        slots.acquire(concurrency);
+        slots.release(concurrency);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void send(long index, long intended) {
+        CompletableFuture<Boolean> validated;
+        try {
+            validated = target.validate(index);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            slots.release();
+            return;
+        }
+        validated.thenCompose(accepted -> {
+            record(validation, intended);
+            if (!accepted) {
+                invalid.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+            CommandTarget.Submission submission = target.submit(index);
+            CompletableFuture<Void> submitted = submission.submitted.thenAccept(started -> record(submit, intended));
+            CompletableFuture<Void> completed = submission.completed.thenAccept(success -> {
+                record(completion, intended);
+                if (!success) {
+                    notCompleted.incrementAndGet();
+                }
+            });
+            // the slot is freed once both are recorded, whichever response the target completes last
+            return CompletableFuture.allOf(submitted, completed);
+        }).whenComplete((done, error) -> {
+            if (error != null) {
+                failed.incrementAndGet();
+            }
+            slots.release();
+        });
+    }
+
+    private static void record(Histogram histogram, long intended) {
+        long micros = (System.nanoTime() - intended) / 1000;
+        histogram.recordValue(Math.min(Math.max(micros, 0L), HIGHEST_LATENCY_MICROS));
+    }
+
+    private static void awaitNanos(long due) {
+        long now = System.nanoTime();
+        if (due - now > SPIN_NANOS) {
+            LockSupport.parkNanos(due - now - SPIN_NANOS);
+        }
+        while (System.nanoTime() - due < 0) {
+            // spin
+        }
+    }
+
+    public Histogram getValidation() {
+        return validation;
+    }
+
+    public Histogram getSubmit() {
+        return submit;
+    }
+
+    public Histogram getCompletion() {
+        return completion;
+    }
+
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    public long getNotCompleted() {
+        return notCompleted.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the report of a finished run, one line per phase
+     */
+    public String report() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%d commands in %.1f s, %.1f commands/s, invalid=%d, not completed=%d, failed=%d%n",
+                count, seconds, count / seconds, invalid.get(), notCompleted.get(), failed.get())
+                + summary("validation", validation) + System.lineSeparator()
+                + summary("submit", submit) + System.lineSeparator()
+                + summary("completion", completion);
+    }
+
+    private static String summary(String phase, Histogram histogram) {
+        StringBuilder summary = new StringBuilder(String.format("%-10s: count=%d", phase, histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            summary.append(String.format(", p%s=%.3f ms", percentile, histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        return summary.append(String.format(", max=%.3f ms", histogram.getMaxValue() / 1000.0)).toString();
+    }
+}
@@ -0,0 +1,28 @@
+package org.tmt.tcs.replay;
+
+import csw.params.core.generics.Key;
+import csw.params.core.models.Prefix;
+import org.tmt.tcs.icd.pk.PkEncDemandPositions;
+import org.tmt.tcs.icd.pk.PkM3DemandPositions;
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions;
+
+import java.time.Instant;
+
+/**
+ * Prefix and parameters of the demand events, as published by JPkEventHandlerActor, taken from
+ * the classes generated from tcs-interface.conf.
+ */
+public class DemandEventConstants {
+
+    public static final Prefix PK_PREFIX = PkMcsDemandPositions.PREFIX;
+
+    public static final Key<Double> MCS_AZ_KEY = PkMcsDemandPositions.AZ_KEY;
+    public static final Key<Double> MCS_EL_KEY = PkMcsDemandPositions.EL_KEY;
+    public static final Key<Double> ECS_BASE_KEY = PkEncDemandPositions.BASE_KEY;
+    public static final Key<Double> ECS_CAP_KEY = PkEncDemandPositions.CAP_KEY;
+    public static final Key<Double> M3_ROTATION_KEY = PkM3DemandPositions.ROTATION_KEY;
+    public static final Key<Double> M3_TILT_KEY = PkM3DemandPositions.TILT_KEY;
+    public static final Key<Long> SEQUENCE_KEY = PkMcsDemandPositions.SEQUENCE_KEY;
+    public static final Key<Instant> MCS_TIMESTAMP_KEY = PkMcsDemandPositions.TIME_KEY;
+    public static final Key<Instant> ENC_TIMESTAMP_KEY = PkEncDemandPositions.CLIENT_TIME_KEY;
+}
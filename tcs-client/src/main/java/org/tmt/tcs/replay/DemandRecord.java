@@ -0,0 +1,96 @@
+package org.tmt.tcs.replay;
+
+/**
+ * One recorded PK demand event: the stream it belongs to, its source time, its sequence
+ * number within the stream and its pair of demands.
+ *
+ * Records are mutable so that a reader can refill the same instance for every record
+ * of a file.
+ */
+public class DemandRecord {
+
+    /**
+     * Demand streams published by the PK assembly, with the id written to the file
+     */
+    public enum Stream {
+        MCS("mcsdemandpositions"),
+        ENC("encdemandpositions"),
+        M3("m3demandpositions");
+
+        private final String eventName;
+
+        Stream(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        public byte id() {
+            return (byte) ordinal();
+        }
+
+        public static Stream fromId(byte id) {
+            Stream[] streams = values();
+            if (id < 0 || id >= streams.length) {
+                throw new IllegalArgumentException("unknown demand stream id " + id);
+            }
+            return streams[id];
+        }
+    }
+
+    /**
+     * Sequence number of events published without one
+     */
+    public static final long NO_SEQUENCE = -1;
+
+    private Stream stream;
+    private long sourceNanos;
+    private long sequence;
+    private double first;
+    private double second;
+
+    public DemandRecord set(Stream stream, long sourceNanos, long sequence, double first, double second) {
+        this.stream = stream;
+        this.sourceNanos = sourceNanos;
+        this.sequence = sequence;
+        this.first = first;
+        this.second = second;
+        return this;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    /**
+     * @return time the PK assembly published the demand, in nanoseconds since the epoch
+     */
+    public long getSourceNanos() {
+        return sourceNanos;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return azimuth, base or rotation, depending on the stream
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * @return elevation, cap or tilt, depending on the stream
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    @Override
+    public String toString() {
+        return stream + " " + sourceNanos + " #" + sequence + " " + first + ", " + second;
+    }
+}
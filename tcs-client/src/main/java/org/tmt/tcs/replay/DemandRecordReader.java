@@ -0,0 +1,59 @@
+package org.tmt.tcs.replay;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the records of a file written by {@link DemandRecordWriter}, in the order
+ * they were recorded.
+ */
+public class DemandRecordReader implements Closeable {
+
+    private final DataInputStream in;
+
+    public DemandRecordReader(File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    public DemandRecordReader(InputStream stream) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        int magic = in.readInt();
+        if (magic != DemandRecordWriter.MAGIC) {
+            throw new IOException("not a demand recording, magic is " + Integer.toHexString(magic));
+        }
+        short version = in.readShort();
+        if (version != DemandRecordWriter.VERSION) {
+            throw new IOException("unsupported demand recording version " + version);
+        }
+    }
+
+    /**
+     * Reads the next record into the given one.
+     *
+     * @return false at the end of the file
+     * @throws IOException if the file ends within a record
+     */
+    public boolean next(DemandRecord record) throws IOException {
+        int id = in.read();
+        if (id < 0) {
+            return false;
+        }
+        try {
+            record.set(DemandRecord.Stream.fromId((byte) id), in.readLong(), in.readLong(), in.readDouble(), in.readDouble());
+        } catch (EOFException e) {
+            throw new IOException("demand recording ends within a record", e);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
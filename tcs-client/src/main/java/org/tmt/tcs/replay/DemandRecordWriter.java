@@ -0,0 +1,61 @@
+package org.tmt.tcs.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes PK demand records into a compact binary file.
+ *
+ * The file starts with a header of the int {@link #MAGIC} and the short {@link #VERSION},
+ * followed by records of {@link #RECORD_BYTES} bytes in big endian order:
+ * <pre>
+ *   byte   stream id, see {@link DemandRecord.Stream}
+ *   long   source time in nanoseconds since the epoch
+ *   long   sequence number in the stream, -1 if none
+ *   double azimuth, base or rotation
+ *   double elevation, cap or tilt
+ * </pre>
+ * Writes are synchronized, records may come from the callbacks of several subscriptions.
+ */
+public class DemandRecordWriter implements Closeable {
+
+    public static final int MAGIC = 0x54444d52;
+    public static final short VERSION = 1;
+    public static final int RECORD_BYTES = 33;
+
+    private final DataOutputStream out;
+    private long count;
+
+    public DemandRecordWriter(File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    public DemandRecordWriter(OutputStream stream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    public synchronized void write(DemandRecord.Stream stream, long sourceNanos, long sequence, double first, double second) throws IOException {
+        out.writeByte(stream.id());
+        out.writeLong(sourceNanos);
+        out.writeLong(sequence);
+        out.writeDouble(first);
+        out.writeDouble(second);
+        count++;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
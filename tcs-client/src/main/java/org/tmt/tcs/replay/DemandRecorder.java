@@ -0,0 +1,131 @@
+package org.tmt.tcs.replay;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import csw.event.api.javadsl.IEventService;
+import csw.event.api.javadsl.IEventSubscription;
+import csw.event.client.EventServiceFactory;
+import csw.location.api.javadsl.ILocationService;
+import csw.location.client.javadsl.JHttpLocationServiceFactory;
+import csw.location.server.commons.ClusterAwareSettings;
+import csw.logging.internal.LoggingSystem;
+import csw.logging.javadsl.ILogger;
+import csw.logging.javadsl.JLoggerFactory;
+import csw.logging.javadsl.JLoggingSystemFactory;
+import csw.params.core.generics.Key;
+import csw.params.core.generics.Parameter;
+import csw.params.events.Event;
+import csw.params.events.EventKey;
+import csw.params.events.EventName;
+import csw.params.events.SystemEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.Set;
+
+import static org.tmt.tcs.replay.DemandEventConstants.*;
+
+/**
+ * Records the MCS, ENC and M3 demand events published by the PK assembly into a
+ * demand recording, see {@link DemandRecordWriter}, for {@link DemandReplayer} to
+ * publish again.
+ *
+ * Usage: DemandRecorder [file], by default pk-demands-[time].bin. Recording stops on enter.
+ */
+public class DemandRecorder {
+
+    public static ILogger log;
+
+    private final IEventService eventService;
+    private final DemandRecordWriter writer;
+    private volatile IOException failure;
+
+    public DemandRecorder(IEventService eventService, DemandRecordWriter writer) {
+        this.eventService = eventService;
+        this.writer = writer;
+    }
+
+    /**
+     * Subscribes to the demand events of all three subsystems and writes every event received.
+     */
+    public IEventSubscription subscribe() {
+        Set<EventKey> eventKeys = new HashSet<>();
+        for (DemandRecord.Stream stream : DemandRecord.Stream.values()) {
+            eventKeys.add(new EventKey(PK_PREFIX, new EventName(stream.getEventName())));
+        }
+        return eventService.defaultSubscriber().subscribeCallback(eventKeys, this::record);
+    }
+
+    private void record(Event event) {
+        if (!(event instanceof SystemEvent) || failure != null) {
+            return;
+        }
+        SystemEvent systemEvent = (SystemEvent) event;
+        String name = event.eventName().name();
+        try {
+            if (name.equals(DemandRecord.Stream.MCS.getEventName())) {
+                write(DemandRecord.Stream.MCS, systemEvent, MCS_TIMESTAMP_KEY, MCS_AZ_KEY, MCS_EL_KEY);
+            } else if (name.equals(DemandRecord.Stream.ENC.getEventName())) {
+                write(DemandRecord.Stream.ENC, systemEvent, ENC_TIMESTAMP_KEY, ECS_BASE_KEY, ECS_CAP_KEY);
+            } else if (name.equals(DemandRecord.Stream.M3.getEventName())) {
+                write(DemandRecord.Stream.M3, systemEvent, null, M3_ROTATION_KEY, M3_TILT_KEY);
+            }
+        } catch (IOException e) {
+            failure = e;
+            log.error("Recording failed: " + e.getMessage());
+        }
+    }
+
+    /*
+     * The source time is the publish time parameter of the stream where there is one,
+     * the time the event was created otherwise.
+     */
+    private void write(DemandRecord.Stream stream, SystemEvent event, Key<Instant> timestampKey,
+                       Key<Double> firstKey, Key<Double> secondKey) throws IOException {
+        Instant sourceTime = event.eventTime().time();
+        if (timestampKey != null) {
+            Optional<Parameter<Instant>> timestamp = event.jGet(timestampKey);
+            if (timestamp.isPresent()) {
+                sourceTime = timestamp.get().value(0);
+            }
+        }
+        Optional<Parameter<Long>> sequence = event.jGet(SEQUENCE_KEY);
+        writer.write(stream,
+                sourceTime.getEpochSecond() * 1_000_000_000L + sourceTime.getNano(),
+                sequence.isPresent() ? sequence.get().value(0) : DemandRecord.NO_SEQUENCE,
+                event.jGet(firstKey).get().value(0),
+                event.jGet(secondKey).get().value(0));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String fileName = args.length > 0 ? args[0] : "pk-demands-" + Instant.now().toString().replace(':', '-') + ".bin";
+
+        ActorSystem system = ClusterAwareSettings.system();
+        Materializer mat = ActorMaterializer.create(system);
+        ILocationService locationService = JHttpLocationServiceFactory.makeLocalClient(system, mat);
+
+        String hostName = InetAddress.getLocalHost().getHostName();
+        LoggingSystem loggingSystem = JLoggingSystemFactory.start("DemandRecorder", "0.1", hostName, system);
+        log = new JLoggerFactory("demand-recorder").getLogger(DemandRecorder.class);
+
+        IEventService eventService = new EventServiceFactory().jMake(locationService, system);
+        DemandRecordWriter writer = new DemandRecordWriter(new File(fileName));
+        IEventSubscription subscription = new DemandRecorder(eventService, writer).subscribe();
+
+        log.info(() -> "Recording PK demands into " + fileName + ", press enter to stop");
+        new Scanner(System.in).nextLine();
+
+        subscription.unsubscribe().get();
+        writer.close();
+        log.info(() -> "Recorded " + writer.getCount() + " demand events into " + fileName);
+        Done done = loggingSystem.javaStop().get();
+        system.terminate();
+    }
+}
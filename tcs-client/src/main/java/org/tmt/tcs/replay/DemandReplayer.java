@@ -0,0 +1,122 @@
+package org.tmt.tcs.replay;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import csw.event.api.javadsl.IEventPublisher;
+import csw.event.api.javadsl.IEventService;
+import csw.event.client.EventServiceFactory;
+import csw.location.api.javadsl.ILocationService;
+import csw.location.client.javadsl.JHttpLocationServiceFactory;
+import csw.location.server.commons.ClusterAwareSettings;
+import csw.logging.internal.LoggingSystem;
+import csw.logging.javadsl.ILogger;
+import csw.logging.javadsl.JLoggerFactory;
+import csw.logging.javadsl.JLoggingSystemFactory;
+import csw.params.events.EventName;
+import csw.params.events.SystemEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.tmt.tcs.replay.DemandEventConstants.*;
+
+/**
+ * Publishes a demand recording through the event service as the PK assembly would,
+ * so that assemblies and HCDs can be measured against an identical demand stream.
+ *
+ * The publish time parameters of the MCS and ENC events are set when the event is
+ * published, as by the PK assembly, so latencies downstream are measured from the
+ * replay. Sequence numbers are replayed as recorded.
+ *
+ * Usage: DemandReplayer file [speed], speed 1 (default) replays at the recorded pace,
+ * 10 ten times faster and max as fast as possible.
+ */
+public class DemandReplayer {
+
+    public static ILogger log;
+
+    private final IEventPublisher publisher;
+    private final ReplayPacer pacer;
+
+    public DemandReplayer(IEventPublisher publisher, ReplayPacer pacer) {
+        this.publisher = publisher;
+        this.pacer = pacer;
+    }
+
+    /**
+     * Publishes all records of the file, paced by the pacer.
+     *
+     * @return completes when the event service has published the last record
+     */
+    public CompletableFuture<Done> replay(File file) throws IOException {
+        CompletableFuture<Done> last = CompletableFuture.completedFuture(Done.getInstance());
+        DemandRecord record = new DemandRecord();
+        try (DemandRecordReader reader = new DemandRecordReader(file)) {
+            while (reader.next(record)) {
+                pacer.await(record.getSourceNanos());
+                last = publisher.publish(toEvent(record));
+            }
+        }
+        return last;
+    }
+
+    static SystemEvent toEvent(DemandRecord record) {
+        SystemEvent event = new SystemEvent(PK_PREFIX, new EventName(record.getStream().getEventName()));
+        switch (record.getStream()) {
+            case MCS:
+                event = event.add(MCS_AZ_KEY.set(record.getFirst())).add(MCS_EL_KEY.set(record.getSecond()))
+                        .add(MCS_TIMESTAMP_KEY.set(Instant.now()));
+                break;
+            case ENC:
+                event = event.add(ECS_BASE_KEY.set(record.getFirst())).add(ECS_CAP_KEY.set(record.getSecond()))
+                        .add(ENC_TIMESTAMP_KEY.set(Instant.now()));
+                break;
+            default:
+                event = event.add(M3_ROTATION_KEY.set(record.getFirst())).add(M3_TILT_KEY.set(record.getSecond()));
+                break;
+        }
+        if (record.getSequence() != DemandRecord.NO_SEQUENCE) {
+            event = event.add(SEQUENCE_KEY.set(record.getSequence()));
+        }
+        return event;
+    }
+
+    static ReplayPacer pacer(String speed) {
+        return speed.equals("max") ? ReplayPacer.asFastAsPossible() : new ReplayPacer(Double.parseDouble(speed));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: DemandReplayer file [speed|max]");
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        String speed = args.length > 1 ? args[1] : "1";
+        ReplayPacer pacer = pacer(speed);
+
+        ActorSystem system = ClusterAwareSettings.system();
+        Materializer mat = ActorMaterializer.create(system);
+        ILocationService locationService = JHttpLocationServiceFactory.makeLocalClient(system, mat);
+
+        String hostName = InetAddress.getLocalHost().getHostName();
+        LoggingSystem loggingSystem = JLoggingSystemFactory.start("DemandReplayer", "0.1", hostName, system);
+        log = new JLoggerFactory("demand-replayer").getLogger(DemandReplayer.class);
+
+        IEventService eventService = new EventServiceFactory().jMake(locationService, system);
+        DemandReplayer replayer = new DemandReplayer(eventService.defaultPublisher(), pacer);
+
+        log.info(() -> "Replaying " + file + (pacer.isPaced() ? " at speed " + speed : " as fast as possible"));
+        long start = System.nanoTime();
+        replayer.replay(file).get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(() -> "Replayed in " + seconds + " s, " + (pacer.getCount() / seconds) + " events/s, " + pacer);
+
+        Done done = loggingSystem.javaStop().get();
+        system.terminate();
+    }
+}
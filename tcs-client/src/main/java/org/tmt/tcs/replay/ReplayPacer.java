@@ -0,0 +1,103 @@
+package org.tmt.tcs.replay;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a replay so that each record is released at its recorded time relative to the
+ * first record, divided by the replay speed.
+ *
+ * Waits park until shortly before the due time and spin the rest, as parking alone
+ * overshoots by tens of microseconds. Records that are already late are released at
+ * once, the pacer does not drop them nor shift the schedule, so a slow publisher makes
+ * up for a stall once it recovers.
+ */
+public class ReplayPacer {
+
+    // remaining wait below which the pacer spins instead of parking
+    private static final long SPIN_NANOS = 100_000L;
+
+    private final double speed;
+
+    private boolean started;
+    private long firstSourceNanos;
+    private long startNanos;
+
+    private long count;
+    private long maxLatenessNanos;
+    private long totalLatenessNanos;
+
+    /**
+     * @param speed replay speed relative to the recording, e.g. 1 for original speed or 10
+     *              for ten times faster, 0 or infinite to replay as fast as possible
+     */
+    public ReplayPacer(double speed) {
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("replay speed must not be negative, was " + speed);
+        }
+        this.speed = speed;
+    }
+
+    public static ReplayPacer asFastAsPossible() {
+        return new ReplayPacer(0);
+    }
+
+    public boolean isPaced() {
+        return speed > 0 && !Double.isInfinite(speed);
+    }
+
+    /**
+     * Waits until the record with the given source time is due.
+     *
+     * @return how late the record is released, in nanoseconds
+     */
+    public long await(long sourceNanos) {
+        long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            firstSourceNanos = sourceNanos;
+            startNanos = now;
+        }
+        if (!isPaced()) {
+            count++;
+            return 0;
+        }
+        long due = dueNanos(sourceNanos);
+        if (due - now > SPIN_NANOS) {
+            LockSupport.parkNanos(due - now - SPIN_NANOS);
+        }
+        while ((now = System.nanoTime()) - due < 0) {
+            // spin
+        }
+        long lateness = now - due;
+        count++;
+        totalLatenessNanos += lateness;
+        if (lateness > maxLatenessNanos) {
+            maxLatenessNanos = lateness;
+        }
+        return lateness;
+    }
+
+    /**
+     * @return the System.nanoTime() at which the record with the given source time is due
+     */
+    long dueNanos(long sourceNanos) {
+        return startNanos + (long) ((sourceNanos - firstSourceNanos) / speed);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    public long getMeanLatenessNanos() {
+        return count == 0 ? 0 : totalLatenessNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return "records=" + count + ", mean lateness=" + getMeanLatenessNanos() + " ns, max lateness=" + maxLatenessNanos + " ns";
+    }
+}
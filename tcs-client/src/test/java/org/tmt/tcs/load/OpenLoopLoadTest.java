@@ -0,0 +1,106 @@
+package org.tmt.tcs.load;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpenLoopLoadTest {
+
+    private static final long MILLIS_IN_MICROS = 1_000L;
+
+    /**
+     * Target answering validation at once, the submit after submitMillis and completing each
+     * command after completionMillis.
+     */
+    private static CommandTarget target(ScheduledExecutorService scheduler, long submitMillis, long completionMillis,
+                                        boolean accepted) {
+        return new CommandTarget() {
+            @Override
+            public CompletableFuture<Boolean> validate(long index) {
+                return CompletableFuture.completedFuture(accepted);
+            }
+
+            @Override
+            public Submission submit(long index) {
+                CompletableFuture<Boolean> submitted = new CompletableFuture<>();
+                CompletableFuture<Boolean> completed = new CompletableFuture<>();
+                scheduler.schedule(() -> submitted.complete(true), submitMillis, TimeUnit.MILLISECONDS);
+                scheduler.schedule(() -> completed.complete(true), completionMillis, TimeUnit.MILLISECONDS);
+                return new Submission(submitted, completed);
+            }
+        };
+    }
+
+    private static CommandTarget target(ScheduledExecutorService scheduler, long completionMillis, boolean accepted) {
+        return target(scheduler, 0, completionMillis, accepted);
+    }
+
+    @Test
+    public void recordsEveryPhaseOfEveryCommand() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OpenLoopLoad load = new OpenLoopLoad(target(scheduler, 1, true), 1000, 4, 50);
+        load.run();
+        scheduler.shutdown();
+        assertEquals(50, load.getValidation().getTotalCount());
+        assertEquals(50, load.getSubmit().getTotalCount());
+        assertEquals(50, load.getCompletion().getTotalCount());
+        assertEquals(0, load.getFailed());
+    }
+
+    @Test
+    public void measuresFromTheIntendedSendTime() throws Exception {
+        // one command in flight, each taking 20 ms, due every ms: command i waits about i * 20 ms
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OpenLoopLoad load = new OpenLoopLoad(target(scheduler, 20, true), 1000, 1, 10);
+        load.run();
+        scheduler.shutdown();
+        long max = load.getCompletion().getMaxValue();
+        assertTrue("max completion " + max + " us", max >= 150 * MILLIS_IN_MICROS);
+        assertTrue("max validation " + load.getValidation().getMaxValue() + " us",
+                load.getValidation().getMaxValue() >= 150 * MILLIS_IN_MICROS);
+    }
+
+    @Test
+    public void measuresSubmitUntilTheFirstResponse() throws Exception {
+        // the submit answered after 30 ms and completed after 60 ms, one command at a time
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OpenLoopLoad load = new OpenLoopLoad(target(scheduler, 30, 60, true), 100, 1, 3);
+        load.run();
+        scheduler.shutdown();
+        assertEquals(3, load.getSubmit().getTotalCount());
+        long validation = load.getValidation().getMinValue();
+        long submit = load.getSubmit().getMinValue();
+        long completion = load.getCompletion().getMinValue();
+        assertTrue("validation " + validation + " us", validation < 30 * MILLIS_IN_MICROS);
+        assertTrue("submit " + submit + " us", submit >= 30 * MILLIS_IN_MICROS);
+        assertTrue("submit " + submit + " us, completion " + completion + " us", completion - submit >= 25 * MILLIS_IN_MICROS);
+    }
+
+    @Test
+    public void doesNotSubmitInvalidCommands() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OpenLoopLoad load = new OpenLoopLoad(target(scheduler, 1, false), 1000, 4, 20);
+        load.run();
+        scheduler.shutdown();
+        assertEquals(20, load.getInvalid());
+        assertEquals(20, load.getValidation().getTotalCount());
+        assertEquals(0, load.getSubmit().getTotalCount());
+        assertEquals(0, load.getCompletion().getTotalCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroConcurrency() {
+        new OpenLoopLoad(target(null, 1, true), 1000, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroCount() {
+        new OpenLoopLoad(target(null, 1, true), 1000, 4, 0);
+    }
+}
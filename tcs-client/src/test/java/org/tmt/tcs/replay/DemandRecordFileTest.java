@@ -0,0 +1,68 @@
+package org.tmt.tcs.replay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DemandRecordFileTest {
+
+    private static final int HEADER_BYTES = 6;
+
+    @Test
+    public void recordsAreReadBackInOrder() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DemandRecordWriter writer = new DemandRecordWriter(bytes)) {
+            writer.write(DemandRecord.Stream.MCS, 1_000L, 0, 180.5, 45.25);
+            writer.write(DemandRecord.Stream.ENC, 1_001L, DemandRecord.NO_SEQUENCE, 10, 20);
+            writer.write(DemandRecord.Stream.M3, 1_002L, 7, -90, 45);
+            assertEquals(3, writer.getCount());
+        }
+        assertEquals(HEADER_BYTES + 3 * DemandRecordWriter.RECORD_BYTES, bytes.size());
+
+        DemandRecord record = new DemandRecord();
+        try (DemandRecordReader reader = new DemandRecordReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(reader.next(record));
+            assertEquals(DemandRecord.Stream.MCS, record.getStream());
+            assertEquals(1_000L, record.getSourceNanos());
+            assertEquals(0, record.getSequence());
+            assertEquals(180.5, record.getFirst(), 0);
+            assertEquals(45.25, record.getSecond(), 0);
+
+            assertTrue(reader.next(record));
+            assertEquals(DemandRecord.Stream.ENC, record.getStream());
+            assertEquals(DemandRecord.NO_SEQUENCE, record.getSequence());
+
+            assertTrue(reader.next(record));
+            assertEquals(DemandRecord.Stream.M3, record.getStream());
+            assertEquals(1_002L, record.getSourceNanos());
+            assertEquals(7, record.getSequence());
+            assertEquals(-90, record.getFirst(), 0);
+
+            assertFalse(reader.next(record));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new DemandRecordReader(new ByteArrayInputStream(new byte[]{'h', 'e', 'l', 'l', 'o', '!'}));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedRecord() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DemandRecordWriter writer = new DemandRecordWriter(bytes)) {
+            writer.write(DemandRecord.Stream.MCS, 1_000L, 0, 1, 2);
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 4);
+        try (DemandRecordReader reader = new DemandRecordReader(new ByteArrayInputStream(truncated))) {
+            reader.next(new DemandRecord());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.tmt.tcs.replay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayPacerTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void releasesRecordsAtRecordedPace() {
+        ReplayPacer pacer = new ReplayPacer(1);
+        long start = System.nanoTime();
+        for (int i = 0; i <= 10; i++) {
+            pacer.await(5_000 * MILLIS + i * 5 * MILLIS);
+            assertTrue(System.nanoTime() - start >= i * 5 * MILLIS);
+        }
+        assertEquals(11, pacer.getCount());
+    }
+
+    @Test
+    public void speedScalesTheSchedule() {
+        ReplayPacer pacer = new ReplayPacer(10);
+        pacer.await(0);
+        long start = System.nanoTime();
+        pacer.await(200 * MILLIS);
+        long elapsed = System.nanoTime() - start;
+        assertTrue("elapsed " + elapsed, elapsed >= 19 * MILLIS);
+        assertTrue("elapsed " + elapsed, elapsed < 200 * MILLIS);
+    }
+
+    @Test
+    public void asFastAsPossibleDoesNotWait() {
+        ReplayPacer pacer = ReplayPacer.asFastAsPossible();
+        assertFalse(pacer.isPaced());
+        long start = System.nanoTime();
+        pacer.await(0);
+        assertEquals(0, pacer.await(60_000 * MILLIS));
+        assertTrue(System.nanoTime() - start < 1_000 * MILLIS);
+        assertEquals(2, pacer.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeSpeed() {
+        new ReplayPacer(-1);
+    }
+}
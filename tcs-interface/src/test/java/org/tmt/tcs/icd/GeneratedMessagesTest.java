@@ -0,0 +1,129 @@
+package org.tmt.tcs.icd;
+
+import csw.params.commands.Setup;
+import csw.params.core.models.Prefix;
+import csw.params.core.states.CurrentState;
+import csw.params.events.EventName;
+import csw.params.events.SystemEvent;
+import csw.params.javadsl.JKeyType;
+import csw.params.javadsl.JUnits;
+import org.junit.Test;
+import org.tmt.tcs.icd.mcs.McsCurrentPositionState;
+import org.tmt.tcs.icd.mcs.McsPositionDemandsCommand;
+import org.tmt.tcs.icd.pk.PkMcsDemandPositions;
+
+import java.time.Instant;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Messages made by the generated writers read back by the generated readers, and messages made
+ * the way the components used to, with keys of their own.
+ */
+public class GeneratedMessagesTest {
+
+    private static final Instant TIME = Instant.ofEpochSecond(1540000000L, 123456789L);
+
+    /** A key name equal to, but not the same string as, the one of the generated key. */
+    private static String name(String keyName) {
+        return new String(keyName.toCharArray());
+    }
+
+    @Test
+    public void readsBackWrittenEvent() {
+        SystemEvent event = PkMcsDemandPositions.writer().az(1.25).el(0.5).sequence(42L).time(TIME).toEvent();
+
+        assertEquals(PkMcsDemandPositions.EVENT_KEY, event.eventKey());
+        PkMcsDemandPositions.Reader demand = PkMcsDemandPositions.read(event);
+        assertEquals(1.25, demand.az(), 0);
+        assertEquals(0.5, demand.el(), 0);
+        assertEquals(42L, (long) demand.sequence());
+        assertEquals(TIME, demand.time());
+    }
+
+    @Test
+    public void readsBackWrittenState() {
+        CurrentState state = McsCurrentPositionState.writer()
+                .az(120.25).el(45.5).azPosError(0.01).elPosError(0.02)
+                .azInPosition(true).elInPosition(false).time(TIME)
+                .toCurrentState();
+
+        assertEquals(McsCurrentPositionState.PREFIX, state.prefix());
+        assertEquals(McsCurrentPositionState.STATE_NAME, state.stateName());
+        McsCurrentPositionState.Reader position = McsCurrentPositionState.read(state);
+        assertEquals(120.25, position.az(), 0);
+        assertEquals(45.5, position.el(), 0);
+        assertEquals(0.01, position.azPosError(), 0);
+        assertEquals(0.02, position.elPosError(), 0);
+        assertTrue(position.azInPosition());
+        assertFalse(position.elInPosition());
+        assertEquals(TIME, position.time());
+        assertEquals(JUnits.degree, position.azParam().units());
+    }
+
+    @Test
+    public void readsBackWrittenCommand() {
+        Prefix assembly = new Prefix("tcs.mcsA");
+        Setup setup = McsPositionDemandsCommand.writer().az(10.0).el(20.0).time(TIME).toSetup(assembly);
+
+        assertEquals(assembly, setup.source());
+        assertEquals(McsPositionDemandsCommand.COMMAND_NAME, setup.commandName());
+        assertFalse(setup.maybeObsId().isDefined());
+        McsPositionDemandsCommand.Reader demand = McsPositionDemandsCommand.read(setup);
+        assertEquals(10.0, demand.az(), 0);
+        assertEquals(20.0, demand.el(), 0);
+        assertEquals(TIME, demand.time());
+    }
+
+    @Test
+    public void missingFieldTakesTheDefault() {
+        PkMcsDemandPositions.Reader demand = PkMcsDemandPositions.read(PkMcsDemandPositions.writer().az(1.0).toEvent());
+
+        assertTrue(demand.hasAz());
+        assertFalse(demand.hasEl());
+        assertEquals(-1.0, demand.el(-1.0), 0);
+        assertEquals(1.0, demand.az(-1.0), 0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void missingFieldHasNoValue() {
+        PkMcsDemandPositions.read(PkMcsDemandPositions.writer().az(1.0).toEvent()).el();
+    }
+
+    @Test
+    public void keyOfAnotherTypeIsTakenAsMissing() {
+        SystemEvent event = new SystemEvent(PkMcsDemandPositions.PREFIX, PkMcsDemandPositions.EVENT_NAME)
+                .madd(JKeyType.StringKey().make("mcs.az").set("1.0"),
+                        JKeyType.DoubleKey().make("mcs.el").set(2.0));
+
+        PkMcsDemandPositions.Reader demand = PkMcsDemandPositions.read(event);
+        assertFalse(demand.hasAz());
+        assertEquals(0.0, demand.az(0.0), 0);
+        assertEquals(2.0, demand.el(), 0);
+    }
+
+    @Test
+    public void readsKeysMadeIndependently() {
+        SystemEvent event = new SystemEvent(new Prefix(name("tcs.pk")), new EventName(name("mcsdemandpositions")))
+                .madd(JKeyType.DoubleKey().make(name("mcs.az")).set(3.0),
+                        JKeyType.DoubleKey().make(name("mcs.el")).set(4.0),
+                        JKeyType.TimestampKey().make(name("timeStamp")).set(TIME));
+
+        assertEquals(PkMcsDemandPositions.EVENT_KEY, event.eventKey());
+        PkMcsDemandPositions.Reader demand = PkMcsDemandPositions.read(event);
+        assertEquals(3.0, demand.az(), 0);
+        assertEquals(4.0, demand.el(), 0);
+        assertEquals(TIME, demand.time());
+    }
+
+    @Test
+    public void reusedReaderForgetsThePreviousMessage() {
+        PkMcsDemandPositions.Reader demand = new PkMcsDemandPositions.Reader();
+        demand.read(PkMcsDemandPositions.writer().az(1.0).el(2.0).toEvent());
+        demand.read(PkMcsDemandPositions.writer().az(5.0).toEvent());
+
+        assertEquals(5.0, demand.az(), 0);
+        assertFalse(demand.hasEl());
+    }
+}